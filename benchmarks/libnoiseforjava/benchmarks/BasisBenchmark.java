@@ -0,0 +1,153 @@
+/*******************************************************************************
+ *  Copyright (c) 2003, 2004 Jason Bevins (original libnoise code)
+ *  Copyright (c) 2010 Thomas J. Hodge (java port of libnoise)
+ *  Copyright (c) Nick Whitney ( changed noisegen to perlin basis. added javadoc)
+ *  
+ *  This file is part of libnoiseforjava.
+ *  
+ *  libnoiseforjava is a Java port of the C++ library libnoise, which may be
+ *  found at http://libnoise.sourceforge.net/. libnoise was developed by Jason
+ *  Bevins, who may be contacted at jlbezigvins@gmzigail.com (for great email,
+ *  take off every 'zig'). Porting to Java was done by Thomas Hodge, who may be
+ *  contacted at libnoisezagforjava@gzagmail.com (remove every 'zag').
+ *  
+ *  libnoiseforjava is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the Free
+ *  Software Foundation, either version 3 of the License, or (at your option) any
+ *  later version.
+ *  
+ *  libnoiseforjava is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ *  details.
+ *  
+ *  You should have received a copy of the GNU General Public License along with
+ *  libnoiseforjava. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+
+package libnoiseforjava.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import libnoiseforjava.PerlinBasis;
+import libnoiseforjava.SimplexBasis;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the basis functions, PerlinBasis and SimplexBasis, in ns/sample.
+ * <p>
+ * The batch methods are measured twice: with the scalar loops, and with the
+ * Vector API kernels, which need Java 17 or later.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BasisBenchmark {
+
+    PerlinBasis perlin;
+    SimplexBasis simplex;
+    double[] xs;
+    double[] ys;
+    double[] zs;
+    double[] ws;
+    double[] values;
+
+    @Setup
+    public void setup() {
+        this.perlin = new PerlinBasis();
+        this.perlin.setSeed(1);
+        this.simplex = new SimplexBasis();
+        this.simplex.setSeed(1);
+        this.xs = Samples.coordinates(1, 64.0);
+        this.ys = Samples.coordinates(2, 64.0);
+        this.zs = Samples.coordinates(3, 64.0);
+        this.ws = Samples.coordinates(4, 64.0);
+        this.values = new double[Samples.COUNT];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Samples.COUNT)
+    public double perlinValue() {
+        double sum = 0.0;
+        for (int i = 0; i < Samples.COUNT; i++) {
+            sum += this.perlin.getValue(this.xs[i], this.ys[i], this.zs[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Samples.COUNT)
+    @Fork(value = 1, jvmArgsAppend = "-Dlibnoiseforjava.vector=false")
+    public double[] perlinValues() {
+        this.perlin.getValues(this.xs, this.ys, this.zs, this.values, 0, Samples.COUNT);
+        return this.values;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Samples.COUNT)
+    @Fork(value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" })
+    public double[] perlinValuesVector() {
+        this.perlin.getValues(this.xs, this.ys, this.zs, this.values, 0, Samples.COUNT);
+        return this.values;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Samples.COUNT)
+    public double simplexValue2D() {
+        double sum = 0.0;
+        for (int i = 0; i < Samples.COUNT; i++) {
+            sum += this.simplex.getValue2D(this.xs[i], this.ys[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Samples.COUNT)
+    public double simplexValue3D() {
+        double sum = 0.0;
+        for (int i = 0; i < Samples.COUNT; i++) {
+            sum += this.simplex.getValue(this.xs[i], this.ys[i], this.zs[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Samples.COUNT)
+    @Fork(value = 1, jvmArgsAppend = "-Dlibnoiseforjava.vector=false")
+    public double[] simplexValues3D() {
+        this.simplex.getValues(this.xs, this.ys, this.zs, this.values, 0, Samples.COUNT);
+        return this.values;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Samples.COUNT)
+    @Fork(value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" })
+    public double[] simplexValues3DVector() {
+        this.simplex.getValues(this.xs, this.ys, this.zs, this.values, 0, Samples.COUNT);
+        return this.values;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Samples.COUNT)
+    public double simplexValue4D() {
+        double sum = 0.0;
+        for (int i = 0; i < Samples.COUNT; i++) {
+            sum += this.simplex.getValue4D(this.xs[i], this.ys[i], this.zs[i], this.ws[i]);
+        }
+        return sum;
+    }
+}
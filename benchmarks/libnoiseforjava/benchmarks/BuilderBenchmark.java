@@ -0,0 +1,114 @@
+/*******************************************************************************
+ *  Copyright (c) 2003, 2004 Jason Bevins (original libnoise code)
+ *  Copyright (c) 2010 Thomas J. Hodge (java port of libnoise)
+ *  Copyright (c) Nick Whitney ( changed noisegen to perlin basis. added javadoc)
+ *  
+ *  This file is part of libnoiseforjava.
+ *  
+ *  libnoiseforjava is a Java port of the C++ library libnoise, which may be
+ *  found at http://libnoise.sourceforge.net/. libnoise was developed by Jason
+ *  Bevins, who may be contacted at jlbezigvins@gmzigail.com (for great email,
+ *  take off every 'zig'). Porting to Java was done by Thomas Hodge, who may be
+ *  contacted at libnoisezagforjava@gzagmail.com (remove every 'zag').
+ *  
+ *  libnoiseforjava is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the Free
+ *  Software Foundation, either version 3 of the License, or (at your option) any
+ *  later version.
+ *  
+ *  libnoiseforjava is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ *  details.
+ *  
+ *  You should have received a copy of the GNU General Public License along with
+ *  libnoiseforjava. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+
+package libnoiseforjava.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import libnoiseforjava.module.Perlin;
+import libnoiseforjava.util.NoiseMap;
+import libnoiseforjava.util.NoiseMapBuilderPlane;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures NoiseMapBuilderPlane filling square noise maps of several sizes
+ * from a default Perlin module, in ns/sample.
+ * <p>
+ * Each size has its own benchmark method because the number of samples per
+ * operation must be fixed at compile time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BuilderBenchmark {
+
+    NoiseMapBuilderPlane builder64;
+    NoiseMapBuilderPlane builder256;
+    NoiseMapBuilderPlane builder1024;
+
+    @Setup
+    public void setup() {
+        Perlin perlin = new Perlin();
+        perlin.setSeed(1);
+        perlin.build();
+
+        this.builder64 = createBuilder(perlin, 64);
+        this.builder256 = createBuilder(perlin, 256);
+        this.builder1024 = createBuilder(perlin, 1024);
+    }
+
+    private static NoiseMapBuilderPlane createBuilder(Perlin perlin, int size) {
+        NoiseMapBuilderPlane builder = new NoiseMapBuilderPlane();
+        builder.setSourceModule(perlin);
+        builder.setDestSize(size, size);
+        builder.setDestNoiseMap(new NoiseMap(size, size));
+        builder.setBounds(0.0, 4.0, 0.0, 4.0);
+        return builder;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(64 * 64)
+    public NoiseMapBuilderPlane build64() {
+        this.builder64.build();
+        return this.builder64;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(256 * 256)
+    public NoiseMapBuilderPlane build256() {
+        this.builder256.build();
+        return this.builder256;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(1024 * 1024)
+    public NoiseMapBuilderPlane build1024() {
+        this.builder1024.build();
+        return this.builder1024;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(1024 * 1024)
+    public NoiseMapBuilderPlane buildParallel1024() {
+        this.builder1024.buildParallel();
+        return this.builder1024;
+    }
+}
@@ -0,0 +1,130 @@
+/*******************************************************************************
+ *  Copyright (c) 2003, 2004 Jason Bevins (original libnoise code)
+ *  Copyright (c) 2010 Thomas J. Hodge (java port of libnoise)
+ *  Copyright (c) Nick Whitney ( changed noisegen to perlin basis. added javadoc)
+ *  
+ *  This file is part of libnoiseforjava.
+ *  
+ *  libnoiseforjava is a Java port of the C++ library libnoise, which may be
+ *  found at http://libnoise.sourceforge.net/. libnoise was developed by Jason
+ *  Bevins, who may be contacted at jlbezigvins@gmzigail.com (for great email,
+ *  take off every 'zig'). Porting to Java was done by Thomas Hodge, who may be
+ *  contacted at libnoisezagforjava@gzagmail.com (remove every 'zag').
+ *  
+ *  libnoiseforjava is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the Free
+ *  Software Foundation, either version 3 of the License, or (at your option) any
+ *  later version.
+ *  
+ *  libnoiseforjava is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ *  details.
+ *  
+ *  You should have received a copy of the GNU General Public License along with
+ *  libnoiseforjava. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+
+package libnoiseforjava.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import libnoiseforjava.module.Billow;
+import libnoiseforjava.module.ModuleBase;
+import libnoiseforjava.module.Perlin;
+import libnoiseforjava.module.RidgedMulti;
+import libnoiseforjava.module.SimplexVoronoi;
+import libnoiseforjava.module.Voronoi;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the generator modules, with their default octave counts, in
+ * ns/sample.
+ * <p>
+ * The value benchmark calls getValue() once per point; the values benchmark
+ * evaluates the same points with a single getValues() call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ModuleBenchmark {
+
+    @Param({ "Perlin", "Billow", "RidgedMulti", "Voronoi", "SimplexVoronoi", "SimplexVoronoiHashed" })
+    String moduleName;
+
+    ModuleBase module;
+    double[] xs;
+    double[] ys;
+    double[] zs;
+    double[] out;
+
+    @Setup
+    public void setup() {
+        if ("Perlin".equals(this.moduleName)) {
+            Perlin perlin = new Perlin();
+            perlin.setSeed(1);
+            perlin.build();
+            this.module = perlin;
+        } else if ("Billow".equals(this.moduleName)) {
+            Billow billow = new Billow();
+            billow.setSeed(1);
+            billow.build();
+            this.module = billow;
+        } else if ("RidgedMulti".equals(this.moduleName)) {
+            RidgedMulti ridgedMulti = new RidgedMulti();
+            ridgedMulti.setSeed(1);
+            ridgedMulti.build();
+            this.module = ridgedMulti;
+        } else if ("Voronoi".equals(this.moduleName)) {
+            Voronoi voronoi = new Voronoi();
+            voronoi.setSeed(1);
+            voronoi.build();
+            this.module = voronoi;
+        } else if ("SimplexVoronoi".equals(this.moduleName) || "SimplexVoronoiHashed".equals(this.moduleName)) {
+            SimplexVoronoi simplexVoronoi = new SimplexVoronoi();
+            simplexVoronoi.setSeed(1);
+            simplexVoronoi.enableHashedSeedPoints("SimplexVoronoiHashed".equals(this.moduleName));
+            simplexVoronoi.build();
+            this.module = simplexVoronoi;
+        } else {
+            throw new IllegalArgumentException("Unknown module " + this.moduleName);
+        }
+
+        this.xs = Samples.coordinates(1, 16.0);
+        this.ys = Samples.coordinates(2, 16.0);
+        this.zs = Samples.coordinates(3, 16.0);
+        this.out = new double[Samples.COUNT];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Samples.COUNT)
+    public double value() {
+        double sum = 0.0;
+        for (int i = 0; i < Samples.COUNT; i++) {
+            sum += this.module.getValue(this.xs[i], this.ys[i], this.zs[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Samples.COUNT)
+    public double[] values() {
+        this.module.getValues(this.xs, this.ys, this.zs, this.out, 0, Samples.COUNT);
+        return this.out;
+    }
+}
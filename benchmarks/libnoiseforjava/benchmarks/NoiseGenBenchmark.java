@@ -0,0 +1,86 @@
+/*******************************************************************************
+ *  Copyright (c) 2003, 2004 Jason Bevins (original libnoise code)
+ *  Copyright (c) 2010 Thomas J. Hodge (java port of libnoise)
+ *  Copyright (c) Nick Whitney ( changed noisegen to perlin basis. added javadoc)
+ *  
+ *  This file is part of libnoiseforjava.
+ *  
+ *  libnoiseforjava is a Java port of the C++ library libnoise, which may be
+ *  found at http://libnoise.sourceforge.net/. libnoise was developed by Jason
+ *  Bevins, who may be contacted at jlbezigvins@gmzigail.com (for great email,
+ *  take off every 'zig'). Porting to Java was done by Thomas Hodge, who may be
+ *  contacted at libnoisezagforjava@gzagmail.com (remove every 'zag').
+ *  
+ *  libnoiseforjava is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the Free
+ *  Software Foundation, either version 3 of the License, or (at your option) any
+ *  later version.
+ *  
+ *  libnoiseforjava is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ *  details.
+ *  
+ *  You should have received a copy of the GNU General Public License along with
+ *  libnoiseforjava. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+
+package libnoiseforjava.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import libnoiseforjava.NoiseGen;
+import libnoiseforjava.NoiseQuality;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures NoiseGen.GradientCoherentNoise3D() at each noise quality, in
+ * ns/sample.
+ * <p>
+ * Run with the GC profiler, this also shows whether the gradient lookups
+ * allocate; they should report close to zero bytes per sample.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class NoiseGenBenchmark {
+
+    @Param({ "QUALITY_FAST", "QUALITY_STD", "QUALITY_BEST" })
+    NoiseQuality quality;
+
+    double[] xs;
+    double[] ys;
+    double[] zs;
+
+    @Setup
+    public void setup() {
+        this.xs = Samples.coordinates(1, 64.0);
+        this.ys = Samples.coordinates(2, 64.0);
+        this.zs = Samples.coordinates(3, 64.0);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Samples.COUNT)
+    public double gradientCoherentNoise3D() {
+        double sum = 0.0;
+        for (int i = 0; i < Samples.COUNT; i++) {
+            sum += NoiseGen.GradientCoherentNoise3D(this.xs[i], this.ys[i], this.zs[i], 0, this.quality);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,104 @@
+/*******************************************************************************
+ *  Copyright (c) 2003, 2004 Jason Bevins (original libnoise code)
+ *  Copyright (c) 2010 Thomas J. Hodge (java port of libnoise)
+ *  Copyright (c) Nick Whitney ( changed noisegen to perlin basis. added javadoc)
+ *  
+ *  This file is part of libnoiseforjava.
+ *  
+ *  libnoiseforjava is a Java port of the C++ library libnoise, which may be
+ *  found at http://libnoise.sourceforge.net/. libnoise was developed by Jason
+ *  Bevins, who may be contacted at jlbezigvins@gmzigail.com (for great email,
+ *  take off every 'zig'). Porting to Java was done by Thomas Hodge, who may be
+ *  contacted at libnoisezagforjava@gzagmail.com (remove every 'zag').
+ *  
+ *  libnoiseforjava is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the Free
+ *  Software Foundation, either version 3 of the License, or (at your option) any
+ *  later version.
+ *  
+ *  libnoiseforjava is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ *  details.
+ *  
+ *  You should have received a copy of the GNU General Public License along with
+ *  libnoiseforjava. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+
+package libnoiseforjava.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import libnoiseforjava.module.Perlin;
+import libnoiseforjava.util.ImageCafe;
+import libnoiseforjava.util.NoiseMap;
+import libnoiseforjava.util.NoiseMapBuilderPlane;
+import libnoiseforjava.util.RendererImage;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures RendererImage rendering a 512 x 512 noise map with the terrain
+ * gradient, with and without lighting, in ns/pixel.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RendererBenchmark {
+
+    static final int SIZE = 512;
+
+    @Param({ "false", "true" })
+    boolean light;
+
+    RendererImage renderer;
+
+    @Setup
+    public void setup() {
+        Perlin perlin = new Perlin();
+        perlin.setSeed(1);
+        perlin.build();
+
+        NoiseMap noiseMap = new NoiseMap(SIZE, SIZE);
+        NoiseMapBuilderPlane builder = new NoiseMapBuilderPlane();
+        builder.setSourceModule(perlin);
+        builder.setDestSize(SIZE, SIZE);
+        builder.setDestNoiseMap(noiseMap);
+        builder.setBounds(0.0, 4.0, 0.0, 4.0);
+        builder.build();
+
+        this.renderer = new RendererImage();
+        this.renderer.setSourceNoiseMap(noiseMap);
+        this.renderer.setDestImage(new ImageCafe(SIZE, SIZE));
+        this.renderer.buildTerrainGradient();
+        this.renderer.enableLight(this.light);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE * SIZE)
+    public RendererImage render() {
+        this.renderer.render();
+        return this.renderer;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE * SIZE)
+    public RendererImage renderParallel() {
+        this.renderer.renderParallel();
+        return this.renderer;
+    }
+}
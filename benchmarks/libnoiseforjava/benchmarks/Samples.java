@@ -0,0 +1,65 @@
+/*******************************************************************************
+ *  Copyright (c) 2003, 2004 Jason Bevins (original libnoise code)
+ *  Copyright (c) 2010 Thomas J. Hodge (java port of libnoise)
+ *  Copyright (c) Nick Whitney ( changed noisegen to perlin basis. added javadoc)
+ *  
+ *  This file is part of libnoiseforjava.
+ *  
+ *  libnoiseforjava is a Java port of the C++ library libnoise, which may be
+ *  found at http://libnoise.sourceforge.net/. libnoise was developed by Jason
+ *  Bevins, who may be contacted at jlbezigvins@gmzigail.com (for great email,
+ *  take off every 'zig'). Porting to Java was done by Thomas Hodge, who may be
+ *  contacted at libnoisezagforjava@gzagmail.com (remove every 'zag').
+ *  
+ *  libnoiseforjava is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the Free
+ *  Software Foundation, either version 3 of the License, or (at your option) any
+ *  later version.
+ *  
+ *  libnoiseforjava is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ *  details.
+ *  
+ *  You should have received a copy of the GNU General Public License along with
+ *  libnoiseforjava. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+
+package libnoiseforjava.benchmarks;
+
+import java.util.Random;
+
+/**
+ * Generates the input coordinates shared by the benchmarks.
+ * <p>
+ * The coordinates are pseudo-random but fixed, so that every run and every
+ * benchmark samples the same points.
+ */
+final class Samples {
+
+    /**
+     * The number of points evaluated by one benchmark operation.
+     */
+    static final int COUNT = 1024;
+
+    private Samples() {
+    }
+
+    /**
+     * Returns @a COUNT coordinates spread evenly over the range ( -@a extent,
+     * +@a extent ).
+     *
+     * @param seed The seed of the coordinate sequence.
+     * @param extent Half the width of the coordinate range.
+     *
+     * @return The coordinates.
+     */
+    static double[] coordinates(long seed, double extent) {
+        Random random = new Random(seed);
+        double[] coordinates = new double[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            coordinates[i] = (random.nextDouble() * 2.0 - 1.0) * extent;
+        }
+        return coordinates;
+    }
+}
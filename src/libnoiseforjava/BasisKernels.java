@@ -0,0 +1,96 @@
+/*******************************************************************************
+ *  Copyright (c) 2003, 2004 Jason Bevins (original libnoise code)
+ *  Copyright (c) 2010 Thomas J. Hodge (java port of libnoise)
+ *  Copyright (c) Nick Whitney ( changed noisegen to perlin basis. added javadoc)
+ *  
+ *  This file is part of libnoiseforjava.
+ *  
+ *  libnoiseforjava is a Java port of the C++ library libnoise, which may be
+ *  found at http://libnoise.sourceforge.net/. libnoise was developed by Jason
+ *  Bevins, who may be contacted at jlbezigvins@gmzigail.com (for great email,
+ *  take off every 'zig'). Porting to Java was done by Thomas Hodge, who may be
+ *  contacted at libnoisezagforjava@gzagmail.com (remove every 'zag').
+ *  
+ *  libnoiseforjava is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the Free
+ *  Software Foundation, either version 3 of the License, or (at your option) any
+ *  later version.
+ *  
+ *  libnoiseforjava is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ *  details.
+ *  
+ *  You should have received a copy of the GNU General Public License along with
+ *  libnoiseforjava. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+
+package libnoiseforjava;
+
+/**
+ * Batch kernels that evaluate the basis functions for several points at once
+ * with the Vector API of Java 17 and later.
+ * <p>
+ * The implementation, VectorBasisKernels, lives in the vector source root and
+ * is compiled only when the library is built on JDK 17 or later, since the
+ * rest of the library targets Java 8. The jdk.incubator.vector module it uses
+ * is not resolved by default, so an application enables the kernels by
+ * starting the JVM with
+ * <p>
+ * --add-modules jdk.incubator.vector
+ * <p>
+ * The kernels are also left unused if the preferred vector shape of the
+ * platform holds fewer than four doubles, or if the system property
+ * libnoiseforjava.vector is set to false. In all of these cases VECTOR is
+ * null and PerlinBasis and SimplexBasis use their scalar loops.
+ * <p>
+ * A kernel evaluates whole vectors of points and returns how many points it
+ * evaluated; the caller evaluates the remaining points with its scalar loop.
+ * Each lane performs the same double operations in the same order as the
+ * scalar loop, so the values are identical.
+ */
+abstract class BasisKernels {
+
+    /**
+     * The vector kernels, or null if they cannot be used.
+     */
+    static final BasisKernels VECTOR = load();
+
+    /**
+     * Returns true if the kernels can run on this platform.
+     */
+    abstract boolean isSupported();
+
+    /**
+     * Generates Perlin noise values for a batch of points, as
+     * PerlinBasis.getValues() does.
+     *
+     * @return The number of points evaluated, starting at @a offset.
+     */
+    abstract int perlinValues(PermutationTable table, double[] xs, double[] ys, double[] zs, double[] out, int offset, int count);
+
+    /**
+     * Generates 3D simplex noise values for a batch of points, as
+     * SimplexBasis.getValues() does.
+     *
+     * @return The number of points evaluated, starting at @a offset.
+     */
+    abstract int simplexValues(PermutationTable table, double[] xs, double[] ys, double[] zs, double[] out, int offset, int count);
+
+    private static BasisKernels load() {
+        if (!Boolean.parseBoolean(System.getProperty("libnoiseforjava.vector", "true"))) {
+            return null;
+        }
+
+        try {
+            BasisKernels kernels = (BasisKernels) Class.forName("libnoiseforjava.VectorBasisKernels").getDeclaredConstructor().newInstance();
+            return kernels.isSupported() ? kernels : null;
+        } catch (ReflectiveOperationException e) {
+            // Not compiled into this build.
+            return null;
+        } catch (LinkageError e) {
+            // Older than Java 17, or jdk.incubator.vector is not resolved.
+            return null;
+        }
+    }
+}
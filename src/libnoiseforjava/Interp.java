@@ -75,6 +75,25 @@ public class Interp {
         return ((1.0 - a) * n0) + (a * n1);
     }
 
+    /**
+     * Performs linear interpolation between two single-precision values.
+     * <p>
+     * This is the float form of lerp(double, double, double), used by the
+     * single-precision evaluation path.
+     * 
+     * @param n0
+     *            The first value.
+     * @param n1
+     *            The second value.
+     * @param a
+     *            The alpha value.
+     *
+     * @return The interpolated value.
+     */
+    public static float lerp(float n0, float n1, float a) {
+        return ((1.0f - a) * n0) + (a * n1);
+    }
+
     /**
      * Maps a value onto a cubic S-curve.
      * <p>
@@ -97,7 +97,6 @@ public class NoiseGen {
 
     public static double GradientNoise3D(double fx, double fy, double fz, int ix, int iy, int iz, int seed) {
 
-        VectorTable vectorTable = new VectorTable();
         /*
          * Randomly generate a gradient vector given the integer coordinates of the input value.
          * This implementation generates a random number and uses it as an index into a
@@ -108,11 +107,12 @@ public class NoiseGen {
         vectorIndex ^= (vectorIndex >> SHIFT_NOISE_GEN);
         vectorIndex &= 0xff;
 
-        double xvGradient = vectorTable.getRandomVectors(vectorIndex, 0);
-        double yvGradient = vectorTable.getRandomVectors(vectorIndex, 1);
-        double zvGradient = vectorTable.getRandomVectors(vectorIndex, 2);
-        // array size too large when using this original, changed to above for all 3
-        // double zvGradient = vectorTable.getRandomVectors(vectorIndex << 2, 2);
+        // Read the gradient from the shared flattened table; this keeps the
+        // hottest path of the coherent-noise functions free of allocations.
+        int vectorOffset = vectorIndex << 2;
+        double xvGradient = VectorTable.flatRandomVectors[vectorOffset];
+        double yvGradient = VectorTable.flatRandomVectors[vectorOffset + 1];
+        double zvGradient = VectorTable.flatRandomVectors[vectorOffset + 2];
 
         /*
          * Set up us another vector equal to the distance between the two vectors passed to this
@@ -0,0 +1,387 @@
+/*******************************************************************************
+ *  Copyright (c) 2003, 2004 Jason Bevins (original libnoise code)
+ *  Copyright (c) 2010 Thomas J. Hodge (java port of libnoise)
+ *  Copyright (c) Nick Whitney ( changed noisegen to perlin basis. added javadoc)
+ *  
+ *  This file is part of libnoiseforjava.
+ *  
+ *  libnoiseforjava is a Java port of the C++ library libnoise, which may be
+ *  found at http://libnoise.sourceforge.net/. libnoise was developed by Jason
+ *  Bevins, who may be contacted at jlbezigvins@gmzigail.com (for great email,
+ *  take off every 'zig'). Porting to Java was done by Thomas Hodge, who may be
+ *  contacted at libnoisezagforjava@gzagmail.com (remove every 'zag').
+ *  
+ *  libnoiseforjava is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the Free
+ *  Software Foundation, either version 3 of the License, or (at your option) any
+ *  later version.
+ *  
+ *  libnoiseforjava is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ *  details.
+ *  
+ *  You should have received a copy of the GNU General Public License along with
+ *  libnoiseforjava. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package libnoiseforjava;
+
+/**
+ * A PerlinBasis whose lattice wraps around with a given period along each
+ * axis.
+ * <p>
+ * The gradient of the lattice point ( <i>i</i>, <i>j</i>, <i>k</i> ) is the
+ * gradient PerlinBasis uses for the point ( <i>i</i> mod @a xPeriod,
+ * <i>j</i> mod @a yPeriod, <i>k</i> mod @a zPeriod ), so the noise value at
+ * ( @a x + @a xPeriod, @a y, @a z ) is equal to the noise value at ( @a x,
+ * @a y, @a z ), and likewise for the other two axes. A noise map whose bounds
+ * span a whole number of periods is therefore tileable without blending.
+ * <p>
+ * A period of zero leaves that axis as it is in PerlinBasis, where the
+ * lattice repeats every 256 units. A period that is a multiple of 256 has the
+ * same effect, so a PeriodicPerlinBasis with every period set to zero or to a
+ * multiple of 256 returns the same values as a PerlinBasis with the same
+ * seed.
+ */
+public class PeriodicPerlinBasis extends PerlinBasis {
+
+    private final int xPeriod;
+    private final int yPeriod;
+    private final int zPeriod;
+
+    /**
+     * Creates a periodic basis.
+     * 
+     * @param xPeriod The period along the @a x axis, or zero.
+     * @param yPeriod The period along the @a y axis, or zero.
+     * @param zPeriod The period along the @a z axis, or zero.
+     * 
+     * @pre No period is negative.
+     * 
+     * @throws IllegalArgumentException See the precondition.
+     */
+    public PeriodicPerlinBasis(int xPeriod, int yPeriod, int zPeriod) {
+        if (xPeriod < 0 || yPeriod < 0 || zPeriod < 0) {
+            throw new IllegalArgumentException("Invalid Parameter in PeriodicPerlinBasis");
+        }
+        this.xPeriod = xPeriod;
+        this.yPeriod = yPeriod;
+        this.zPeriod = zPeriod;
+    }
+
+    public int getXPeriod() {
+        return this.xPeriod;
+    }
+
+    public int getYPeriod() {
+        return this.yPeriod;
+    }
+
+    public int getZPeriod() {
+        return this.zPeriod;
+    }
+
+    /**
+     * Returns the period of an octave that is sampled at a whole multiple of
+     * the frequency of the first octave.
+     * <p>
+     * Fractal modules use this to make every octave repeat at the same point
+     * as the first octave: if the first octave has the period @a period, an
+     * octave sampled at @a multiplier times its frequency has the period
+     * @a period * @a multiplier. The returned period is zero if @a period is
+     * zero, or if the scaled period is a multiple of 256, the period of the
+     * lattice of PerlinBasis.
+     * 
+     * @param period The period of the first octave, or zero.
+     * @param multiplier The frequency of the octave divided by the frequency
+     *            of the first octave.
+     * 
+     * @return The period of the octave.
+     * 
+     * @pre @a period is not negative.
+     * @pre If @a period is not zero, @a multiplier is a whole number of at
+     *      least one, and the scaled period is a multiple of 256 or fits in
+     *      an int.
+     * 
+     * @throws IllegalArgumentException See the preconditions.
+     */
+    public static int scalePeriod(int period, double multiplier) {
+        if (period < 0) {
+            throw new IllegalArgumentException("Invalid Parameter in PeriodicPerlinBasis");
+        }
+        if (period == 0) {
+            return 0;
+        }
+        if (multiplier < 1.0 || multiplier != Math.rint(multiplier)) {
+            throw new IllegalArgumentException("Invalid Parameter in PeriodicPerlinBasis");
+        }
+
+        double scaled = period * multiplier;
+        if (scaled % 256.0 == 0.0) {
+            return 0;
+        }
+        if (scaled > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid Parameter in PeriodicPerlinBasis");
+        }
+        return (int) scaled;
+    }
+
+    /**
+     * Determines if the noise repeats over the specified extents along the
+     * @a x and @a z axes, that is, if each extent is a whole multiple of the
+     * period along its axis, or of 256 if that period is zero.
+     */
+    @Override
+    public boolean repeatsOver(double xExtent, double zExtent) {
+        return isWholeMultiple(xExtent, (this.xPeriod > 0) ? this.xPeriod : 256) && isWholeMultiple(zExtent, (this.zPeriod > 0) ? this.zPeriod : 256);
+    }
+
+    /**
+     * Wraps a lattice coordinate into the period and then into the
+     * permutation table.
+     */
+    private static int wrap(int c, int period) {
+        if (period > 0) {
+            c %= period;
+            if (c < 0) {
+                c += period;
+            }
+        }
+        return c & 255;
+    }
+
+    @Override
+    public double getValue(double x, double y, double z) {
+        if (y == 0.0) {
+            return getValue2D(x, z);
+        }
+
+        int x0 = fastfloor(x);
+        int y0 = fastfloor(y);
+        int z0 = fastfloor(z);
+
+        x = x - x0;
+        y = y - y0;
+        z = z - z0;
+
+        // The two corners of an axis are wrapped separately, since the upper
+        // corner of the last cell of a period is the first corner of the
+        // period.
+        int xa = wrap(x0, this.xPeriod);
+        int xb = wrap(x0 + 1, this.xPeriod);
+        int ya = wrap(y0, this.yPeriod);
+        int yb = wrap(y0 + 1, this.yPeriod);
+        int za = wrap(z0, this.zPeriod);
+        int zb = wrap(z0 + 1, this.zPeriod);
+
+        double n000 = dot(grad3[this.permMod12[xa + this.perm[ya + this.perm[za]]]], x, y, z);
+        double n100 = dot(grad3[this.permMod12[xb + this.perm[ya + this.perm[za]]]], x - 1, y, z);
+        double n010 = dot(grad3[this.permMod12[xa + this.perm[yb + this.perm[za]]]], x, y - 1, z);
+        double n110 = dot(grad3[this.permMod12[xb + this.perm[yb + this.perm[za]]]], x - 1, y - 1, z);
+        double n001 = dot(grad3[this.permMod12[xa + this.perm[ya + this.perm[zb]]]], x, y, z - 1);
+        double n101 = dot(grad3[this.permMod12[xb + this.perm[ya + this.perm[zb]]]], x - 1, y, z - 1);
+        double n011 = dot(grad3[this.permMod12[xa + this.perm[yb + this.perm[zb]]]], x, y - 1, z - 1);
+        double n111 = dot(grad3[this.permMod12[xb + this.perm[yb + this.perm[zb]]]], x - 1, y - 1, z - 1);
+
+        double xs = fade(x);
+        double ys = fade(y);
+        double zs = fade(z);
+
+        double nx00 = Interp.lerp(n000, n100, xs);
+        double nx01 = Interp.lerp(n001, n101, xs);
+        double nx10 = Interp.lerp(n010, n110, xs);
+        double nx11 = Interp.lerp(n011, n111, xs);
+
+        double nxy0 = Interp.lerp(nx00, nx10, ys);
+        double nxy1 = Interp.lerp(nx01, nx11, ys);
+
+        return Interp.lerp(nxy0, nxy1, zs);
+    }
+
+    @Override
+    public double getValue2D(double x, double z) {
+        int x0 = fastfloor(x);
+        int z0 = fastfloor(z);
+
+        x = x - x0;
+        z = z - z0;
+
+        int xa = wrap(x0, this.xPeriod);
+        int xb = wrap(x0 + 1, this.xPeriod);
+        int za = wrap(z0, this.zPeriod);
+        int zb = wrap(z0 + 1, this.zPeriod);
+
+        // The y = 0 row of the lattice wraps to itself for every y period.
+        Grad g000 = grad3[this.permMod12[xa + this.perm[this.perm[za]]]];
+        Grad g100 = grad3[this.permMod12[xb + this.perm[this.perm[za]]]];
+        Grad g001 = grad3[this.permMod12[xa + this.perm[this.perm[zb]]]];
+        Grad g101 = grad3[this.permMod12[xb + this.perm[this.perm[zb]]]];
+        double n000 = g000.x * x + g000.z * z;
+        double n100 = g100.x * (x - 1) + g100.z * z;
+        double n001 = g001.x * x + g001.z * (z - 1);
+        double n101 = g101.x * (x - 1) + g101.z * (z - 1);
+
+        double xs = fade(x);
+        double zs = fade(z);
+
+        double nx00 = Interp.lerp(n000, n100, xs);
+        double nx01 = Interp.lerp(n001, n101, xs);
+
+        return Interp.lerp(nx00, nx01, zs);
+    }
+
+    @Override
+    public double getValueAndGradient(double x, double y, double z, double[] gradient) {
+        int x0 = fastfloor(x);
+        int y0 = fastfloor(y);
+        int z0 = fastfloor(z);
+
+        x = x - x0;
+        y = y - y0;
+        z = z - z0;
+
+        int xa = wrap(x0, this.xPeriod);
+        int xb = wrap(x0 + 1, this.xPeriod);
+        int ya = wrap(y0, this.yPeriod);
+        int yb = wrap(y0 + 1, this.yPeriod);
+        int za = wrap(z0, this.zPeriod);
+        int zb = wrap(z0 + 1, this.zPeriod);
+
+        Grad g000 = grad3[this.permMod12[xa + this.perm[ya + this.perm[za]]]];
+        Grad g001 = grad3[this.permMod12[xa + this.perm[ya + this.perm[zb]]]];
+        Grad g010 = grad3[this.permMod12[xa + this.perm[yb + this.perm[za]]]];
+        Grad g011 = grad3[this.permMod12[xa + this.perm[yb + this.perm[zb]]]];
+        Grad g100 = grad3[this.permMod12[xb + this.perm[ya + this.perm[za]]]];
+        Grad g101 = grad3[this.permMod12[xb + this.perm[ya + this.perm[zb]]]];
+        Grad g110 = grad3[this.permMod12[xb + this.perm[yb + this.perm[za]]]];
+        Grad g111 = grad3[this.permMod12[xb + this.perm[yb + this.perm[zb]]]];
+
+        double n000 = dot(g000, x, y, z);
+        double n100 = dot(g100, x - 1, y, z);
+        double n010 = dot(g010, x, y - 1, z);
+        double n110 = dot(g110, x - 1, y - 1, z);
+        double n001 = dot(g001, x, y, z - 1);
+        double n101 = dot(g101, x - 1, y, z - 1);
+        double n011 = dot(g011, x, y - 1, z - 1);
+        double n111 = dot(g111, x - 1, y - 1, z - 1);
+
+        double xs = fade(x);
+        double ys = fade(y);
+        double zs = fade(z);
+        double dxs = fadeDerivative(x);
+        double dys = fadeDerivative(y);
+        double dzs = fadeDerivative(z);
+
+        double nx00 = Interp.lerp(n000, n100, xs);
+        double nx01 = Interp.lerp(n001, n101, xs);
+        double nx10 = Interp.lerp(n010, n110, xs);
+        double nx11 = Interp.lerp(n011, n111, xs);
+        double dx00 = Interp.lerp(g000.x, g100.x, xs) + (n100 - n000) * dxs;
+        double dx01 = Interp.lerp(g001.x, g101.x, xs) + (n101 - n001) * dxs;
+        double dx10 = Interp.lerp(g010.x, g110.x, xs) + (n110 - n010) * dxs;
+        double dx11 = Interp.lerp(g011.x, g111.x, xs) + (n111 - n011) * dxs;
+        double dy00 = Interp.lerp(g000.y, g100.y, xs);
+        double dy01 = Interp.lerp(g001.y, g101.y, xs);
+        double dy10 = Interp.lerp(g010.y, g110.y, xs);
+        double dy11 = Interp.lerp(g011.y, g111.y, xs);
+        double dz00 = Interp.lerp(g000.z, g100.z, xs);
+        double dz01 = Interp.lerp(g001.z, g101.z, xs);
+        double dz10 = Interp.lerp(g010.z, g110.z, xs);
+        double dz11 = Interp.lerp(g011.z, g111.z, xs);
+
+        double nxy0 = Interp.lerp(nx00, nx10, ys);
+        double nxy1 = Interp.lerp(nx01, nx11, ys);
+        double dxy0 = Interp.lerp(dx00, dx10, ys);
+        double dxy1 = Interp.lerp(dx01, dx11, ys);
+        double dyy0 = Interp.lerp(dy00, dy10, ys) + (nx10 - nx00) * dys;
+        double dyy1 = Interp.lerp(dy01, dy11, ys) + (nx11 - nx01) * dys;
+        double dzy0 = Interp.lerp(dz00, dz10, ys);
+        double dzy1 = Interp.lerp(dz01, dz11, ys);
+
+        gradient[0] = Interp.lerp(dxy0, dxy1, zs);
+        gradient[1] = Interp.lerp(dyy0, dyy1, zs);
+        gradient[2] = Interp.lerp(dzy0, dzy1, zs) + (nxy1 - nxy0) * dzs;
+
+        return Interp.lerp(nxy0, nxy1, zs);
+    }
+
+    @Override
+    public void getValues(double[] xs, double[] ys, double[] zs, double[] out, int offset, int count) {
+        if (isPlanar(ys, offset, count)) {
+            getValues2D(xs, zs, out, offset, count);
+            return;
+        }
+
+        int end = offset + count;
+        for (int i = offset; i < end; i++) {
+            out[i] = getValue(xs[i], ys[i], zs[i]);
+        }
+    }
+
+    @Override
+    public void getValues2D(double[] xs, double[] zs, double[] out, int offset, int count) {
+        int end = offset + count;
+
+        // The gradients of the last cell, reused while consecutive points
+        // stay in that cell.
+        int lastX0 = 0;
+        int lastZ0 = 0;
+        boolean hasCell = false;
+        Grad g000 = null;
+        Grad g100 = null;
+        Grad g001 = null;
+        Grad g101 = null;
+
+        for (int i = offset; i < end; i++) {
+            double x = xs[i];
+            double z = zs[i];
+            int x0 = fastfloor(x);
+            int z0 = fastfloor(z);
+
+            x = x - x0;
+            z = z - z0;
+
+            if (!hasCell || x0 != lastX0 || z0 != lastZ0) {
+                int xa = wrap(x0, this.xPeriod);
+                int xb = wrap(x0 + 1, this.xPeriod);
+                int za = wrap(z0, this.zPeriod);
+                int zb = wrap(z0 + 1, this.zPeriod);
+
+                g000 = grad3[this.permMod12[xa + this.perm[this.perm[za]]]];
+                g100 = grad3[this.permMod12[xb + this.perm[this.perm[za]]]];
+                g001 = grad3[this.permMod12[xa + this.perm[this.perm[zb]]]];
+                g101 = grad3[this.permMod12[xb + this.perm[this.perm[zb]]]];
+                lastX0 = x0;
+                lastZ0 = z0;
+                hasCell = true;
+            }
+
+            double n000 = g000.x * x + g000.z * z;
+            double n100 = g100.x * (x - 1) + g100.z * z;
+            double n001 = g001.x * x + g001.z * (z - 1);
+            double n101 = g101.x * (x - 1) + g101.z * (z - 1);
+
+            double fx = fade(x);
+            double fz = fade(z);
+
+            double nx00 = Interp.lerp(n000, n100, fx);
+            double nx01 = Interp.lerp(n001, n101, fx);
+
+            out[i] = Interp.lerp(nx00, nx01, fz);
+        }
+    }
+
+    /**
+     * Generates noise values for a batch of points in single precision.
+     * <p>
+     * The values are computed in double precision and rounded, so they are
+     * within the error bound of the float path of PerlinBasis.
+     */
+    @Override
+    public void getValues(float[] xs, float[] ys, float[] zs, float[] out, int offset, int count) {
+        int end = offset + count;
+        for (int i = offset; i < end; i++) {
+            out[i] = (float) getValue(xs[i], ys[i], zs[i]);
+        }
+    }
+}
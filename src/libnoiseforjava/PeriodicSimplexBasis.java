@@ -0,0 +1,376 @@
+/*******************************************************************************
+ *  Copyright (c) 2003, 2004 Jason Bevins (original libnoise code)
+ *  Copyright (c) 2010 Thomas J. Hodge (java port of libnoise)
+ *  Copyright (c) Nick Whitney ( changed noisegen to perlin basis. added javadoc)
+ *  
+ *  This file is part of libnoiseforjava.
+ *  
+ *  libnoiseforjava is a Java port of the C++ library libnoise, which may be
+ *  found at http://libnoise.sourceforge.net/. libnoise was developed by Jason
+ *  Bevins, who may be contacted at jlbezigvins@gmzigail.com (for great email,
+ *  take off every 'zig'). Porting to Java was done by Thomas Hodge, who may be
+ *  contacted at libnoisezagforjava@gzagmail.com (remove every 'zag').
+ *  
+ *  libnoiseforjava is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the Free
+ *  Software Foundation, either version 3 of the License, or (at your option) any
+ *  later version.
+ *  
+ *  libnoiseforjava is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ *  details.
+ *  
+ *  You should have received a copy of the GNU General Public License along with
+ *  libnoiseforjava. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+
+package libnoiseforjava;
+
+/**
+ * A SimplexBasis whose three-dimensional noise wraps around with a given
+ * period along each axis.
+ * <p>
+ * The simplex lattice is skewed, so a translation along an axis maps the
+ * lattice onto itself only if its length is a multiple of three. Each period
+ * must therefore be a multiple of three. The gradient of a lattice point is
+ * then the gradient SimplexBasis uses for the lattice point whose position is
+ * the position of that point wrapped into [0, @a xPeriod) x [0, @a yPeriod)
+ * x [0, @a zPeriod), so the noise value at ( @a x + @a xPeriod, @a y, @a z )
+ * is equal to the noise value at ( @a x, @a y, @a z ), and likewise for the
+ * other two axes. A noise map whose bounds span a whole number of periods is
+ * therefore tileable without blending.
+ * <p>
+ * A period of zero leaves that axis as it is in SimplexBasis, so a
+ * PeriodicSimplexBasis with every period set to zero returns the same values
+ * as a SimplexBasis with the same seed. Only the three-dimensional noise is
+ * periodic; getValue2D() and getValue4D() return the values of SimplexBasis.
+ */
+public class PeriodicSimplexBasis extends SimplexBasis {
+
+    private final int xPeriod;
+    private final int yPeriod;
+    private final int zPeriod;
+
+    /**
+     * Creates a periodic basis.
+     * 
+     * @param xPeriod The period along the @a x axis, or zero.
+     * @param yPeriod The period along the @a y axis, or zero.
+     * @param zPeriod The period along the @a z axis, or zero.
+     * 
+     * @pre No period is negative.
+     * @pre Every period is a multiple of three.
+     * 
+     * @throws IllegalArgumentException See the preconditions.
+     */
+    public PeriodicSimplexBasis(int xPeriod, int yPeriod, int zPeriod) {
+        if (!isValidPeriod(xPeriod) || !isValidPeriod(yPeriod) || !isValidPeriod(zPeriod)) {
+            throw new IllegalArgumentException("Invalid Parameter in PeriodicSimplexBasis");
+        }
+        this.xPeriod = xPeriod;
+        this.yPeriod = yPeriod;
+        this.zPeriod = zPeriod;
+    }
+
+    public int getXPeriod() {
+        return this.xPeriod;
+    }
+
+    public int getYPeriod() {
+        return this.yPeriod;
+    }
+
+    public int getZPeriod() {
+        return this.zPeriod;
+    }
+
+    /**
+     * Determines if a period fits the simplex lattice.
+     * 
+     * @param period The period.
+     * 
+     * @return true if @a period is zero or a positive multiple of three.
+     */
+    public static boolean isValidPeriod(int period) {
+        return period >= 0 && period % 3 == 0;
+    }
+
+    /**
+     * Returns the period of an octave that is sampled at a whole multiple of
+     * the frequency of the first octave.
+     * <p>
+     * Fractal modules use this to make every octave repeat at the same point
+     * as the first octave: if the first octave has the period @a period, an
+     * octave sampled at @a multiplier times its frequency has the period
+     * @a period * @a multiplier, which is also a multiple of three.
+     * 
+     * @param period The period of the first octave, or zero.
+     * @param multiplier The frequency of the octave divided by the frequency
+     *            of the first octave.
+     * 
+     * @return The period of the octave.
+     * 
+     * @pre @a period is zero or a positive multiple of three.
+     * @pre If @a period is not zero, @a multiplier is a whole number of at
+     *      least one, and the scaled period fits in an int.
+     * 
+     * @throws IllegalArgumentException See the preconditions.
+     */
+    public static int scalePeriod(int period, double multiplier) {
+        if (!isValidPeriod(period)) {
+            throw new IllegalArgumentException("Invalid Parameter in PeriodicSimplexBasis");
+        }
+        if (period == 0) {
+            return 0;
+        }
+        if (multiplier < 1.0 || multiplier != Math.rint(multiplier)) {
+            throw new IllegalArgumentException("Invalid Parameter in PeriodicSimplexBasis");
+        }
+
+        double scaled = period * multiplier;
+        if (scaled > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid Parameter in PeriodicSimplexBasis");
+        }
+        return (int) scaled;
+    }
+
+    /**
+     * Determines if the 3D noise repeats over the specified extents along the
+     * @a x and @a z axes, that is, if each extent is a whole multiple of the
+     * period along its axis, or of 768 if that period is zero.
+     */
+    @Override
+    public boolean repeatsOver(double xExtent, double zExtent) {
+        return PerlinBasis.isWholeMultiple(xExtent, (this.xPeriod > 0) ? this.xPeriod : 768)
+            && PerlinBasis.isWholeMultiple(zExtent, (this.zPeriod > 0) ? this.zPeriod : 768);
+    }
+
+    /**
+     * Wraps six times a coordinate of a lattice point into six times the
+     * period.
+     */
+    private static long wrap(long c, int period) {
+        if (period > 0) {
+            long range = 6L * period;
+            c %= range;
+            if (c < 0) {
+                c += range;
+            }
+        }
+        return c;
+    }
+
+    /**
+     * Returns the gradient index of the lattice point ( @a i, @a j, @a k ),
+     * given in skewed coordinates.
+     */
+    private int gradientIndex(int i, int j, int k) {
+        // The position of the point in unskewed space is (i, j, k) - s / 6,
+        // where s = i + j + k, so six times the position is an integer.
+        long s = (long) i + j + k;
+        long a = wrap(6L * i - s, this.xPeriod);
+        long b = wrap(6L * j - s, this.yPeriod);
+        long c = wrap(6L * k - s, this.zPeriod);
+
+        // Skew the wrapped position back to a lattice point. The divisions
+        // are exact because every period is a multiple of three.
+        long ws = (a + b + c) / 3;
+        int wi = (int) ((a + ws) / 6);
+        int wj = (int) ((b + ws) / 6);
+        int wk = (int) ((c + ws) / 6);
+
+        return this.permMod12[(wi & 255) + this.perm[(wj & 255) + this.perm[wk & 255]]];
+    }
+
+    @Override
+    public double getValue(double x, double y, double z) {
+        return evaluate(x, y, z, null);
+    }
+
+    @Override
+    public double getValueAndGradient(double x, double y, double z, double[] gradient) {
+        return evaluate(x, y, z, gradient);
+    }
+
+    @Override
+    public void getValues(double[] xs, double[] ys, double[] zs, double[] out, int offset, int count) {
+        int end = offset + count;
+        for (int i = offset; i < end; i++) {
+            out[i] = getValue(xs[i], ys[i], zs[i]);
+        }
+    }
+
+    /**
+     * Generates noise values for a batch of points in single precision.
+     * <p>
+     * The values are computed in double precision and rounded, so they are
+     * within the error bound of the float path of SimplexBasis.
+     */
+    @Override
+    public void getValues(float[] xs, float[] ys, float[] zs, float[] out, int offset, int count) {
+        int end = offset + count;
+        for (int i = offset; i < end; i++) {
+            out[i] = (float) getValue(xs[i], ys[i], zs[i]);
+        }
+    }
+
+    /**
+     * Generates a noise value and, if @a gradient is not null, its gradient.
+     * This follows SimplexBasis.getValueAndGradient() except for the lookup
+     * of the gradients of the corners.
+     */
+    private double evaluate(double x, double y, double z, double[] gradient) {
+        double s = (x + y + z) * F3;
+
+        int i = fastfloor(x + s);
+        int j = fastfloor(y + s);
+        int k = fastfloor(z + s);
+
+        double t = (i + j + k) * G3;
+
+        double x0 = x - (i - t);
+        double y0 = y - (j - t);
+        double z0 = z - (k - t);
+
+        int i1, j1, k1;
+        int i2, j2, k2;
+
+        if (x0 >= y0) {
+            if (y0 >= z0) {
+                i1 = 1;
+                j1 = 0;
+                k1 = 0;
+                i2 = 1;
+                j2 = 1;
+                k2 = 0;
+            } else if (x0 >= z0) {
+                i1 = 1;
+                j1 = 0;
+                k1 = 0;
+                i2 = 1;
+                j2 = 0;
+                k2 = 1;
+            } else {
+                i1 = 0;
+                j1 = 0;
+                k1 = 1;
+                i2 = 1;
+                j2 = 0;
+                k2 = 1;
+            }
+        } else {
+            if (y0 < z0) {
+                i1 = 0;
+                j1 = 0;
+                k1 = 1;
+                i2 = 0;
+                j2 = 1;
+                k2 = 1;
+            } else if (x0 < z0) {
+                i1 = 0;
+                j1 = 1;
+                k1 = 0;
+                i2 = 0;
+                j2 = 1;
+                k2 = 1;
+            } else {
+                i1 = 0;
+                j1 = 1;
+                k1 = 0;
+                i2 = 1;
+                j2 = 1;
+                k2 = 0;
+            }
+        }
+
+        double x1 = x0 - i1 + G3;
+        double y1 = y0 - j1 + G3;
+        double z1 = z0 - k1 + G3;
+
+        double x2 = x0 - i2 + 2.0 * G3;
+        double y2 = y0 - j2 + 2.0 * G3;
+        double z2 = z0 - k2 + 2.0 * G3;
+
+        double x3 = x0 - 1.0 + 3.0 * G3;
+        double y3 = y0 - 1.0 + 3.0 * G3;
+        double z3 = z0 - 1.0 + 3.0 * G3;
+
+        // The corners are wrapped separately, since the corners of a simplex
+        // that straddles the edge of a period wrap differently.
+        Grad g0 = grad3[gradientIndex(i, j, k)];
+        Grad g1 = grad3[gradientIndex(i + i1, j + j1, k + k1)];
+        Grad g2 = grad3[gradientIndex(i + i2, j + j2, k + k2)];
+        Grad g3 = grad3[gradientIndex(i + 1, j + 1, k + 1)];
+
+        // A corner contributes t^4 * (g . d), where d is the offset from the
+        // corner and t = 0.5 - d . d, so its gradient is
+        // t^4 * g - 8 * t^3 * (g . d) * d.
+        double n0 = 0.0;
+        double n1 = 0.0;
+        double n2 = 0.0;
+        double n3 = 0.0;
+        double dx = 0.0;
+        double dy = 0.0;
+        double dz = 0.0;
+
+        double t0 = 0.5 - x0 * x0 - y0 * y0 - z0 * z0;
+        if (t0 >= 0) {
+            double d = dot(g0, x0, y0, z0);
+            double tt = t0 * t0;
+            n0 = tt * tt * d;
+            if (gradient != null) {
+                double f = -8.0 * tt * t0 * d;
+                dx += tt * tt * g0.x + f * x0;
+                dy += tt * tt * g0.y + f * y0;
+                dz += tt * tt * g0.z + f * z0;
+            }
+        }
+
+        double t1 = 0.5 - x1 * x1 - y1 * y1 - z1 * z1;
+        if (t1 >= 0) {
+            double d = dot(g1, x1, y1, z1);
+            double tt = t1 * t1;
+            n1 = tt * tt * d;
+            if (gradient != null) {
+                double f = -8.0 * tt * t1 * d;
+                dx += tt * tt * g1.x + f * x1;
+                dy += tt * tt * g1.y + f * y1;
+                dz += tt * tt * g1.z + f * z1;
+            }
+        }
+
+        double t2 = 0.5 - x2 * x2 - y2 * y2 - z2 * z2;
+        if (t2 >= 0) {
+            double d = dot(g2, x2, y2, z2);
+            double tt = t2 * t2;
+            n2 = tt * tt * d;
+            if (gradient != null) {
+                double f = -8.0 * tt * t2 * d;
+                dx += tt * tt * g2.x + f * x2;
+                dy += tt * tt * g2.y + f * y2;
+                dz += tt * tt * g2.z + f * z2;
+            }
+        }
+
+        double t3 = 0.5 - x3 * x3 - y3 * y3 - z3 * z3;
+        if (t3 >= 0) {
+            double d = dot(g3, x3, y3, z3);
+            double tt = t3 * t3;
+            n3 = tt * tt * d;
+            if (gradient != null) {
+                double f = -8.0 * tt * t3 * d;
+                dx += tt * tt * g3.x + f * x3;
+                dy += tt * tt * g3.y + f * y3;
+                dz += tt * tt * g3.z + f * z3;
+            }
+        }
+
+        if (gradient != null) {
+            gradient[0] = 32.0 * dx;
+            gradient[1] = 32.0 * dy;
+            gradient[2] = 32.0 * dz;
+        }
+        return 32.0 * (n0 + n1 + n2 + n3);
+    }
+}
@@ -26,85 +26,64 @@
  *******************************************************************************/
 package libnoiseforjava;
 
-import java.util.Random;
-
 public class PerlinBasis {
 
-    private static int randomSeed = 0;
-    private static int swapAmount = 400;
-
     NoiseQuality noiseQuality;
 
-    private static Grad[] grad3 = { new Grad(1, 1, 0), new Grad(-1, 1, 0), new Grad(1, -1, 0), new Grad(-1, -1, 0), new Grad(1, 0, 1),
+    static Grad[] grad3 = { new Grad(1, 1, 0), new Grad(-1, 1, 0), new Grad(1, -1, 0), new Grad(-1, -1, 0), new Grad(1, 0, 1),
         new Grad(-1, 0, 1), new Grad(1, 0, -1), new Grad(-1, 0, -1), new Grad(0, 1, 1), new Grad(0, -1, 1), new Grad(0, 1, -1), new Grad(0, -1, -1) };
 
-    private static short[] p_supply = { 151, 160, 137, 91, 90, 15, 131, 13, 201, 95, 96, 53, 194, 233, 7, 225, 140, 36, 103, 30, 69, 142, 8, 99, 37,
-        240, 21, 10, 23, 190, 6, 148, 247, 120, 234, 75, 0, 26, 197, 62, 94, 252, 219, 203, 117, 35, 11, 32, 57, 177, 33, 88, 237, 149, 56, 87, 174,
-        20, 125, 136, 171, 168, 68, 175, 74, 165, 71, 134, 139, 48, 27, 166, 77, 146, 158, 231, 83, 111, 229, 122, 60, 211, 133, 230, 220, 105, 92,
-        41, 55, 46, 245, 40, 244, 102, 143, 54, 65, 25, 63, 161, 1, 216, 80, 73, 209, 76, 132, 187, 208, 89, 18, 169, 200, 196, 135, 130, 116, 188,
-        159, 86, 164, 100, 109, 198, 173, 186, 3, 64, 52, 217, 226, 250, 124, 123, 5, 202, 38, 147, 118, 126, 255, 82, 85, 212, 207, 206, 59, 227,
-        47, 16, 58, 17, 182, 189, 28, 42, 223, 183, 170, 213, 119, 248, 152, 2, 44, 154, 163, 70, 221, 153, 101, 155, 167, 43, 172, 9, 129, 22, 39,
-        253, 19, 98, 108, 110, 79, 113, 224, 232, 178, 185, 112, 104, 218, 246, 97, 228, 251, 34, 242, 193, 238, 210, 144, 12, 191, 179, 162, 241,
-        81, 51, 145, 235, 249, 14, 239, 107, 49, 192, 214, 31, 181, 199, 106, 157, 184, 84, 204, 176, 115, 121, 50, 45, 127, 4, 150, 254, 138, 236,
-        205, 93, 222, 114, 67, 29, 24, 72, 243, 141, 128, 195, 78, 66, 215, 61, 156, 180 };
-
-    private short[] p = new short[p_supply.length];
-
-    // To remove the need for index wrapping, double the permutation table length
-    private short[] perm = new short[512];
-    private short[] permMod12 = new short[512];
+    // The permutation table is shared with every other basis object that has
+    // the same seed, so these arrays must not be modified.
+    short[] perm;
+    short[] permMod12;
+    PermutationTable permutationTable;
 
     public PerlinBasis() {
     }
 
-    private void mutate(int seed) {
-        this.p = p_supply.clone();
-
-        if (seed == randomSeed) {
-            Random rand = new Random();
-            seed = rand.nextInt();
-        }
-
-        Random rand = new Random(seed);
-
-        // System.out.println("Simplex rand: " + rand.nextInt());
-
-        // randomize the order of the numbers in p
-        for (int i = 0; i < swapAmount; i++) {
-            int swapFrom = rand.nextInt(this.p.length);
-            int swapTo = rand.nextInt(this.p.length);
-
-            short temp = this.p[swapFrom];
-            this.p[swapFrom] = this.p[swapTo];
-            this.p[swapTo] = temp;
-        }
-
-        for (int i = 0; i < 512; i++) {
-            this.perm[i] = this.p[i & 255];
-            this.permMod12[i] = (short) (this.perm[i] % 12);
-        }
-    }
-
     public void setSeed(int seed) {
-        mutate(seed);
+        PermutationTable table = PermutationTable.forSeed(seed);
+        this.perm = table.perm;
+        this.permMod12 = table.permMod12;
+        this.permutationTable = table;
     }
 
     // This method is a *lot* faster than using (int)Math.floor(x)
-    private static int fastfloor(double x) {
+    static int fastfloor(double x) {
         int xi = (int) x;
         return x < xi ? xi - 1 : xi;
     }
 
     // 3D dot product
-    private static double dot(Grad g, double x, double y, double z) {
+    static double dot(Grad g, double x, double y, double z) {
         return g.x * x + g.y * y + g.z * z;
     }
 
-    private static double fade(double t) {
+    static double fade(double t) {
+        return t * t * t * (t * (t * 6 - 15) + 10);
+    }
+
+    // The derivative of fade()
+    static double fadeDerivative(double t) {
+        return 30 * t * t * (t * (t - 2) + 1);
+    }
+
+    // This method is a *lot* faster than using (int)Math.floor(x)
+    private static int fastfloor(float x) {
+        int xi = (int) x;
+        return x < xi ? xi - 1 : xi;
+    }
+
+    private static float fade(float t) {
         return t * t * t * (t * (t * 6 - 15) + 10);
     }
 
     public double getValue(double x, double y, double z) {
+        if (y == 0.0) {
+            return getValue2D(x, z);
+        }
+
         // find unit grid cell containing the point
         int x0 = fastfloor(x);
         int y0 = fastfloor(y);
@@ -165,16 +144,473 @@ public class PerlinBasis {
         return nxyz;
     }
 
+    /**
+     * Generates a noise value at a point of the ( @a x, @a z ) plane.
+     * <p>
+     * The returned value is equal to the value getValue() returns for the
+     * point ( @a x, 0, @a z ). At y = 0 the four corners of the cell above
+     * the plane are interpolated with a weight of zero, so only the four
+     * corners on the plane are evaluated. getValue() calls this method for
+     * points with a y coordinate of zero.
+     *
+     * @param x The @a x coordinate of the point.
+     * @param z The @a z coordinate of the point.
+     *
+     * @return The noise value.
+     */
+    public double getValue2D(double x, double z) {
+        int x0 = fastfloor(x);
+        int z0 = fastfloor(z);
+
+        x = x - x0;
+        z = z - z0;
+
+        x0 = x0 & 255;
+        z0 = z0 & 255;
+
+        // The gradient indices of the four corners with y0 = 0
+        int gi000 = this.permMod12[x0 + this.perm[this.perm[z0]]];
+        int gi001 = this.permMod12[x0 + this.perm[this.perm[z0 + 1]]];
+        int gi100 = this.permMod12[x0 + 1 + this.perm[this.perm[z0]]];
+        int gi101 = this.permMod12[x0 + 1 + this.perm[this.perm[z0 + 1]]];
+
+        Grad g000 = grad3[gi000];
+        Grad g100 = grad3[gi100];
+        Grad g001 = grad3[gi001];
+        Grad g101 = grad3[gi101];
+        double n000 = g000.x * x + g000.z * z;
+        double n100 = g100.x * (x - 1) + g100.z * z;
+        double n001 = g001.x * x + g001.z * (z - 1);
+        double n101 = g101.x * (x - 1) + g101.z * (z - 1);
+
+        double xs = fade(x);
+        double zs = fade(z);
+
+        double nx00 = Interp.lerp(n000, n100, xs);
+        double nx01 = Interp.lerp(n001, n101, xs);
+
+        return Interp.lerp(nx00, nx01, zs);
+    }
+
+    /**
+     * Generates noise values for a batch of points of the ( @a x, @a z )
+     * plane.
+     * <p>
+     * The value written to @a out[i] is equal to getValue2D(@a xs[i],
+     * @a zs[i]), for every index from @a offset to @a offset + @a count - 1.
+     * Like getValues(), this looks up the gradients of a cell once for each
+     * run of consecutive points in that cell.
+     *
+     * @param xs The @a x coordinates of the points.
+     * @param zs The @a z coordinates of the points.
+     * @param out The array that receives the noise values.
+     * @param offset The index of the first point.
+     * @param count The number of points.
+     */
+    public void getValues2D(double[] xs, double[] zs, double[] out, int offset, int count) {
+        short[] perm = this.perm;
+        short[] permMod12 = this.permMod12;
+        int end = offset + count;
+
+        int cellX = -1;
+        int cellZ = -1;
+        Grad g000 = null, g001 = null, g100 = null, g101 = null;
+
+        for (int i = offset; i < end; i++) {
+            double x = xs[i];
+            double z = zs[i];
+
+            int x0 = fastfloor(x);
+            int z0 = fastfloor(z);
+
+            x = x - x0;
+            z = z - z0;
+
+            x0 = x0 & 255;
+            z0 = z0 & 255;
+
+            if (x0 != cellX || z0 != cellZ) {
+                cellX = x0;
+                cellZ = z0;
+
+                int py00 = perm[perm[z0]];
+                int py01 = perm[perm[z0 + 1]];
+                g000 = grad3[permMod12[x0 + py00]];
+                g001 = grad3[permMod12[x0 + py01]];
+                g100 = grad3[permMod12[x0 + 1 + py00]];
+                g101 = grad3[permMod12[x0 + 1 + py01]];
+            }
+
+            double x1 = x - 1;
+            double z1 = z - 1;
+            double n000 = g000.x * x + g000.z * z;
+            double n100 = g100.x * x1 + g100.z * z;
+            double n001 = g001.x * x + g001.z * z1;
+            double n101 = g101.x * x1 + g101.z * z1;
+
+            double xs0 = fade(x);
+            double zs0 = fade(z);
+
+            double nx00 = Interp.lerp(n000, n100, xs0);
+            double nx01 = Interp.lerp(n001, n101, xs0);
+
+            out[i] = Interp.lerp(nx00, nx01, zs0);
+        }
+    }
+
+    /**
+     * Determines if the noise repeats over the specified extents along the
+     * @a x and @a z axes. The lattice repeats every 256 units along each axis,
+     * so this is true if both extents are whole multiples of 256.
+     *
+     * @param xExtent The extent along the @a x axis.
+     * @param zExtent The extent along the @a z axis.
+     *
+     * @return true if the noise repeats over both extents.
+     */
+    public boolean repeatsOver(double xExtent, double zExtent) {
+        return isWholeMultiple(xExtent, 256) && isWholeMultiple(zExtent, 256);
+    }
+
+    /**
+     * Determines if a length is a whole multiple of at least one of a period,
+     * allowing for the rounding of the length.
+     */
+    static boolean isWholeMultiple(double length, int period) {
+        double multiple = length / period;
+        double wholeMultiple = Math.rint(multiple);
+        return wholeMultiple >= 1.0 && Math.abs(multiple - wholeMultiple) <= 1.0e-9 * wholeMultiple;
+    }
+
+    /**
+     * Determines if all y coordinates of a batch are zero, so that the batch
+     * can be evaluated by getValues2D().
+     */
+    static boolean isPlanar(double[] ys, int offset, int count) {
+        int end = offset + count;
+        for (int i = offset; i < end; i++) {
+            if (ys[i] != 0.0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Generates a noise value and its gradient at a point.
+     * <p>
+     * The returned value is identical to the value getValue() returns for the
+     * same point. The gradient is calculated analytically in the same pass,
+     * so it is exact and costs far less than estimating it from neighboring
+     * values.
+     *
+     * @param x The @a x coordinate of the point.
+     * @param y The @a y coordinate of the point.
+     * @param z The @a z coordinate of the point.
+     * @param gradient The array that receives the partial derivatives of the
+     *            noise value with respect to @a x, @a y and @a z, in that
+     *            order.
+     *
+     * @return The noise value.
+     */
+    public double getValueAndGradient(double x, double y, double z, double[] gradient) {
+        int x0 = fastfloor(x);
+        int y0 = fastfloor(y);
+        int z0 = fastfloor(z);
+
+        x = x - x0;
+        y = y - y0;
+        z = z - z0;
+
+        x0 = x0 & 255;
+        y0 = y0 & 255;
+        z0 = z0 & 255;
+
+        Grad g000 = grad3[this.permMod12[x0 + this.perm[y0 + this.perm[z0]]]];
+        Grad g001 = grad3[this.permMod12[x0 + this.perm[y0 + this.perm[z0 + 1]]]];
+        Grad g010 = grad3[this.permMod12[x0 + this.perm[y0 + 1 + this.perm[z0]]]];
+        Grad g011 = grad3[this.permMod12[x0 + this.perm[y0 + 1 + this.perm[z0 + 1]]]];
+        Grad g100 = grad3[this.permMod12[x0 + 1 + this.perm[y0 + this.perm[z0]]]];
+        Grad g101 = grad3[this.permMod12[x0 + 1 + this.perm[y0 + this.perm[z0 + 1]]]];
+        Grad g110 = grad3[this.permMod12[x0 + 1 + this.perm[y0 + 1 + this.perm[z0]]]];
+        Grad g111 = grad3[this.permMod12[x0 + 1 + this.perm[y0 + 1 + this.perm[z0 + 1]]]];
+
+        double n000 = dot(g000, x, y, z);
+        double n100 = dot(g100, x - 1, y, z);
+        double n010 = dot(g010, x, y - 1, z);
+        double n110 = dot(g110, x - 1, y - 1, z);
+        double n001 = dot(g001, x, y, z - 1);
+        double n101 = dot(g101, x - 1, y, z - 1);
+        double n011 = dot(g011, x, y - 1, z - 1);
+        double n111 = dot(g111, x - 1, y - 1, z - 1);
+
+        double xs = fade(x);
+        double ys = fade(y);
+        double zs = fade(z);
+        double dxs = fadeDerivative(x);
+        double dys = fadeDerivative(y);
+        double dzs = fadeDerivative(z);
+
+        // Each corner value is a dot product with a constant gradient, and
+        // the gradient of lerp(a, b, t) is (1 - t) * grad(a) + t * grad(b) +
+        // (b - a) * grad(t).
+        double nx00 = Interp.lerp(n000, n100, xs);
+        double nx01 = Interp.lerp(n001, n101, xs);
+        double nx10 = Interp.lerp(n010, n110, xs);
+        double nx11 = Interp.lerp(n011, n111, xs);
+        double dx00 = Interp.lerp(g000.x, g100.x, xs) + (n100 - n000) * dxs;
+        double dx01 = Interp.lerp(g001.x, g101.x, xs) + (n101 - n001) * dxs;
+        double dx10 = Interp.lerp(g010.x, g110.x, xs) + (n110 - n010) * dxs;
+        double dx11 = Interp.lerp(g011.x, g111.x, xs) + (n111 - n011) * dxs;
+        double dy00 = Interp.lerp(g000.y, g100.y, xs);
+        double dy01 = Interp.lerp(g001.y, g101.y, xs);
+        double dy10 = Interp.lerp(g010.y, g110.y, xs);
+        double dy11 = Interp.lerp(g011.y, g111.y, xs);
+        double dz00 = Interp.lerp(g000.z, g100.z, xs);
+        double dz01 = Interp.lerp(g001.z, g101.z, xs);
+        double dz10 = Interp.lerp(g010.z, g110.z, xs);
+        double dz11 = Interp.lerp(g011.z, g111.z, xs);
+
+        double nxy0 = Interp.lerp(nx00, nx10, ys);
+        double nxy1 = Interp.lerp(nx01, nx11, ys);
+        double dxy0 = Interp.lerp(dx00, dx10, ys);
+        double dxy1 = Interp.lerp(dx01, dx11, ys);
+        double dyy0 = Interp.lerp(dy00, dy10, ys) + (nx10 - nx00) * dys;
+        double dyy1 = Interp.lerp(dy01, dy11, ys) + (nx11 - nx01) * dys;
+        double dzy0 = Interp.lerp(dz00, dz10, ys);
+        double dzy1 = Interp.lerp(dz01, dz11, ys);
+
+        gradient[0] = Interp.lerp(dxy0, dxy1, zs);
+        gradient[1] = Interp.lerp(dyy0, dyy1, zs);
+        gradient[2] = Interp.lerp(dzy0, dzy1, zs) + (nxy1 - nxy0) * dzs;
+
+        return Interp.lerp(nxy0, nxy1, zs);
+    }
+
+    /**
+     * Generates noise values for a batch of points.
+     * <p>
+     * The point at index <i>i</i> is ( @a xs[i], @a ys[i], @a zs[i] ) and its
+     * noise value is written to @a out[i], for every index from @a offset to
+     * @a offset + @a count - 1. Every value is identical to the value
+     * getValue() returns for the same point.
+     * <p>
+     * The gradients of a cell are looked up once for each run of consecutive
+     * points that lie in that cell, instead of once per point, which makes
+     * this faster than calling getValue() for the points of a noise map
+     * row.
+     * <p>
+     * On Java 17 and later, if the JVM was started with --add-modules
+     * jdk.incubator.vector, points that do not all lie on the plane y = 0
+     * are evaluated four or eight at a time with the Vector API instead. The
+     * values are the same.
+     *
+     * @param xs The @a x coordinates of the points.
+     * @param ys The @a y coordinates of the points.
+     * @param zs The @a z coordinates of the points.
+     * @param out The array that receives the noise values.
+     * @param offset The index of the first point.
+     * @param count The number of points.
+     */
+    public void getValues(double[] xs, double[] ys, double[] zs, double[] out, int offset, int count) {
+        if (isPlanar(ys, offset, count)) {
+            getValues2D(xs, zs, out, offset, count);
+            return;
+        }
+
+        // The vector kernels, if available, evaluate whole vectors of points;
+        // the scalar loop evaluates the rest.
+        int start = offset;
+        if (BasisKernels.VECTOR != null) {
+            start += BasisKernels.VECTOR.perlinValues(this.permutationTable, xs, ys, zs, out, offset, count);
+        }
+
+        short[] perm = this.perm;
+        short[] permMod12 = this.permMod12;
+        int end = offset + count;
+
+        // The gradients of the cell the previous point was in. Neighboring
+        // points of a noise map row usually lie in the same cell, so the
+        // sixteen table lookups are only made when the cell changes.
+        int cellX = -1;
+        int cellY = -1;
+        int cellZ = -1;
+        Grad g000 = null, g001 = null, g010 = null, g011 = null, g100 = null, g101 = null, g110 = null, g111 = null;
+
+        for (int i = start; i < end; i++) {
+            double x = xs[i];
+            double y = ys[i];
+            double z = zs[i];
+
+            int x0 = fastfloor(x);
+            int y0 = fastfloor(y);
+            int z0 = fastfloor(z);
+
+            x = x - x0;
+            y = y - y0;
+            z = z - z0;
+
+            x0 = x0 & 255;
+            y0 = y0 & 255;
+            z0 = z0 & 255;
+
+            if (x0 != cellX || y0 != cellY || z0 != cellZ) {
+                cellX = x0;
+                cellY = y0;
+                cellZ = z0;
+
+                int p0 = perm[z0];
+                int p1 = perm[z0 + 1];
+                int py00 = perm[y0 + p0];
+                int py01 = perm[y0 + p1];
+                int py10 = perm[y0 + 1 + p0];
+                int py11 = perm[y0 + 1 + p1];
+                g000 = grad3[permMod12[x0 + py00]];
+                g001 = grad3[permMod12[x0 + py01]];
+                g010 = grad3[permMod12[x0 + py10]];
+                g011 = grad3[permMod12[x0 + py11]];
+                g100 = grad3[permMod12[x0 + 1 + py00]];
+                g101 = grad3[permMod12[x0 + 1 + py01]];
+                g110 = grad3[permMod12[x0 + 1 + py10]];
+                g111 = grad3[permMod12[x0 + 1 + py11]];
+            }
+
+            double x1 = x - 1;
+            double y1 = y - 1;
+            double z1 = z - 1;
+            double n000 = g000.x * x + g000.y * y + g000.z * z;
+            double n100 = g100.x * x1 + g100.y * y + g100.z * z;
+            double n010 = g010.x * x + g010.y * y1 + g010.z * z;
+            double n110 = g110.x * x1 + g110.y * y1 + g110.z * z;
+            double n001 = g001.x * x + g001.y * y + g001.z * z1;
+            double n101 = g101.x * x1 + g101.y * y + g101.z * z1;
+            double n011 = g011.x * x + g011.y * y1 + g011.z * z1;
+            double n111 = g111.x * x1 + g111.y * y1 + g111.z * z1;
+
+            double xs0 = fade(x);
+            double ys0 = fade(y);
+            double zs0 = fade(z);
+
+            double nx00 = Interp.lerp(n000, n100, xs0);
+            double nx01 = Interp.lerp(n001, n101, xs0);
+            double nx10 = Interp.lerp(n010, n110, xs0);
+            double nx11 = Interp.lerp(n011, n111, xs0);
+
+            double nxy0 = Interp.lerp(nx00, nx10, ys0);
+            double nxy1 = Interp.lerp(nx01, nx11, ys0);
+
+            out[i] = Interp.lerp(nxy0, nxy1, zs0);
+        }
+    }
+
+    /**
+     * Generates noise values for a batch of points in single precision.
+     * <p>
+     * This is the float form of getValues(double[], double[], double[],
+     * double[], int, int). All arithmetic is done in float, so the values
+     * differ slightly from the double values; see
+     * ModuleBase.getValues(float[], float[], float[], float[], int, int) for
+     * the error bound.
+     *
+     * @param xs The @a x coordinates of the points.
+     * @param ys The @a y coordinates of the points.
+     * @param zs The @a z coordinates of the points.
+     * @param out The array that receives the noise values.
+     * @param offset The index of the first point.
+     * @param count The number of points.
+     */
+    public void getValues(float[] xs, float[] ys, float[] zs, float[] out, int offset, int count) {
+        short[] perm = this.perm;
+        short[] permMod12 = this.permMod12;
+        int end = offset + count;
+
+        int cellX = -1;
+        int cellY = -1;
+        int cellZ = -1;
+        Grad g000 = null, g001 = null, g010 = null, g011 = null, g100 = null, g101 = null, g110 = null, g111 = null;
+
+        for (int i = offset; i < end; i++) {
+            float x = xs[i];
+            float y = ys[i];
+            float z = zs[i];
+
+            int x0 = fastfloor(x);
+            int y0 = fastfloor(y);
+            int z0 = fastfloor(z);
+
+            x = x - x0;
+            y = y - y0;
+            z = z - z0;
+
+            x0 = x0 & 255;
+            y0 = y0 & 255;
+            z0 = z0 & 255;
+
+            if (x0 != cellX || y0 != cellY || z0 != cellZ) {
+                cellX = x0;
+                cellY = y0;
+                cellZ = z0;
+
+                int p0 = perm[z0];
+                int p1 = perm[z0 + 1];
+                int py00 = perm[y0 + p0];
+                int py01 = perm[y0 + p1];
+                int py10 = perm[y0 + 1 + p0];
+                int py11 = perm[y0 + 1 + p1];
+                g000 = grad3[permMod12[x0 + py00]];
+                g001 = grad3[permMod12[x0 + py01]];
+                g010 = grad3[permMod12[x0 + py10]];
+                g011 = grad3[permMod12[x0 + py11]];
+                g100 = grad3[permMod12[x0 + 1 + py00]];
+                g101 = grad3[permMod12[x0 + 1 + py01]];
+                g110 = grad3[permMod12[x0 + 1 + py10]];
+                g111 = grad3[permMod12[x0 + 1 + py11]];
+            }
+
+            float x1 = x - 1;
+            float y1 = y - 1;
+            float z1 = z - 1;
+            float n000 = g000.xf * x + g000.yf * y + g000.zf * z;
+            float n100 = g100.xf * x1 + g100.yf * y + g100.zf * z;
+            float n010 = g010.xf * x + g010.yf * y1 + g010.zf * z;
+            float n110 = g110.xf * x1 + g110.yf * y1 + g110.zf * z;
+            float n001 = g001.xf * x + g001.yf * y + g001.zf * z1;
+            float n101 = g101.xf * x1 + g101.yf * y + g101.zf * z1;
+            float n011 = g011.xf * x + g011.yf * y1 + g011.zf * z1;
+            float n111 = g111.xf * x1 + g111.yf * y1 + g111.zf * z1;
+
+            float xs0 = fade(x);
+            float ys0 = fade(y);
+            float zs0 = fade(z);
+
+            float nx00 = Interp.lerp(n000, n100, xs0);
+            float nx01 = Interp.lerp(n001, n101, xs0);
+            float nx10 = Interp.lerp(n010, n110, xs0);
+            float nx11 = Interp.lerp(n011, n111, xs0);
+
+            float nxy0 = Interp.lerp(nx00, nx10, ys0);
+            float nxy1 = Interp.lerp(nx01, nx11, ys0);
+
+            out[i] = Interp.lerp(nxy0, nxy1, zs0);
+        }
+    }
+
     // Inner class to speed up gradient computations
     // (array access is a lot slower than member access)
-    private static class Grad {
+    static class Grad {
 
         double x, y, z;
 
+        // The same components in single precision, for the float path.
+        float xf, yf, zf;
+
         Grad(double x, double y, double z) {
             this.x = x;
             this.y = y;
             this.z = z;
+            this.xf = (float) x;
+            this.yf = (float) y;
+            this.zf = (float) z;
         }
     }
 }
@@ -0,0 +1,154 @@
+/*******************************************************************************
+ *  Copyright (c) 2003, 2004 Jason Bevins (original libnoise code)
+ *  Copyright (c) 2010 Thomas J. Hodge (java port of libnoise)
+ *  Copyright (c) Nick Whitney ( changed noisegen to perlin basis. added javadoc)
+ *  
+ *  This file is part of libnoiseforjava.
+ *  
+ *  libnoiseforjava is a Java port of the C++ library libnoise, which may be
+ *  found at http://libnoise.sourceforge.net/. libnoise was developed by Jason
+ *  Bevins, who may be contacted at jlbezigvins@gmzigail.com (for great email,
+ *  take off every 'zig'). Porting to Java was done by Thomas Hodge, who may be
+ *  contacted at libnoisezagforjava@gzagmail.com (remove every 'zag').
+ *  
+ *  libnoiseforjava is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the Free
+ *  Software Foundation, either version 3 of the License, or (at your option) any
+ *  later version.
+ *  
+ *  libnoiseforjava is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ *  details.
+ *  
+ *  You should have received a copy of the GNU General Public License along with
+ *  libnoiseforjava. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+
+package libnoiseforjava;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The shuffled permutation table used by PerlinBasis and SimplexBasis.
+ * <p>
+ * A table depends only on its seed and is never changed after it has been
+ * created, so tables are interned: every basis object with the same seed
+ * shares one table, and setting the seed of a basis object is a lookup once
+ * that seed has been used. The intern cache holds a fixed number of tables;
+ * a table whose slot is reused by another seed is simply created again the
+ * next time its seed is used.
+ */
+final class PermutationTable {
+
+    private static final int swapAmount = 400;
+
+    /**
+     * The number of slots in the intern cache. Must be a power of two.
+     */
+    private static final int CACHE_SIZE = 1024;
+
+    private static final short[] p_supply = { 151, 160, 137, 91, 90, 15, 131, 13, 201, 95, 96, 53, 194, 233, 7, 225, 140, 36, 103, 30, 69, 142, 8, 99,
+        37, 240, 21, 10, 23, 190, 6, 148, 247, 120, 234, 75, 0, 26, 197, 62, 94, 252, 219, 203, 117, 35, 11, 32, 57, 177, 33, 88, 237, 149, 56, 87,
+        174, 20, 125, 136, 171, 168, 68, 175, 74, 165, 71, 134, 139, 48, 27, 166, 77, 146, 158, 231, 83, 111, 229, 122, 60, 211, 133, 230, 220, 105,
+        92, 41, 55, 46, 245, 40, 244, 102, 143, 54, 65, 25, 63, 161, 1, 216, 80, 73, 209, 76, 132, 187, 208, 89, 18, 169, 200, 196, 135, 130, 116,
+        188, 159, 86, 164, 100, 109, 198, 173, 186, 3, 64, 52, 217, 226, 250, 124, 123, 5, 202, 38, 147, 118, 126, 255, 82, 85, 212, 207, 206, 59,
+        227, 47, 16, 58, 17, 182, 189, 28, 42, 223, 183, 170, 213, 119, 248, 152, 2, 44, 154, 163, 70, 221, 153, 101, 155, 167, 43, 172, 9, 129, 22,
+        39, 253, 19, 98, 108, 110, 79, 113, 224, 232, 178, 185, 112, 104, 218, 246, 97, 228, 251, 34, 242, 193, 238, 210, 144, 12, 191, 179, 162,
+        241, 81, 51, 145, 235, 249, 14, 239, 107, 49, 192, 214, 31, 181, 199, 106, 157, 184, 84, 204, 176, 115, 121, 50, 45, 127, 4, 150, 254, 138,
+        236, 205, 93, 222, 114, 67, 29, 24, 72, 243, 141, 128, 195, 78, 66, 215, 61, 156, 180 };
+
+    private static final AtomicReferenceArray<PermutationTable> cache = new AtomicReferenceArray<PermutationTable>(CACHE_SIZE);
+
+    /**
+     * The seed the table was shuffled with.
+     */
+    final int seed;
+
+    // To remove the need for index wrapping, the permutation table length is
+    // doubled.
+    final short[] perm = new short[512];
+    final short[] permMod12 = new short[512];
+
+    // For the gathers of the vector kernels, perm as ints and the components
+    // of the gradients grad3[permMod12[i]], which are the same for
+    // PerlinBasis and SimplexBasis; null if the vector kernels are not used.
+    final int[] permInt;
+    final int[] gradX;
+    final int[] gradY;
+    final int[] gradZ;
+
+    private PermutationTable(int seed) {
+        this.seed = seed;
+
+        short[] p = p_supply.clone();
+        Random rand = new Random(seed);
+
+        // randomize the order of the numbers in p
+        for (int i = 0; i < swapAmount; i++) {
+            int swapFrom = rand.nextInt(p.length);
+            int swapTo = rand.nextInt(p.length);
+
+            short temp = p[swapFrom];
+            p[swapFrom] = p[swapTo];
+            p[swapTo] = temp;
+        }
+
+        for (int i = 0; i < 512; i++) {
+            this.perm[i] = p[i & 255];
+            this.permMod12[i] = (short) (this.perm[i] % 12);
+        }
+
+        if (BasisKernels.VECTOR != null) {
+            this.permInt = new int[512];
+            this.gradX = new int[512];
+            this.gradY = new int[512];
+            this.gradZ = new int[512];
+            for (int i = 0; i < 512; i++) {
+                PerlinBasis.Grad g = PerlinBasis.grad3[this.permMod12[i]];
+                this.permInt[i] = this.perm[i];
+                this.gradX[i] = (int) g.x;
+                this.gradY[i] = (int) g.y;
+                this.gradZ[i] = (int) g.z;
+            }
+        } else {
+            this.permInt = null;
+            this.gradX = null;
+            this.gradY = null;
+            this.gradZ = null;
+        }
+    }
+
+    /**
+     * Returns the permutation table for a seed.
+     * <p>
+     * Unless deterministic mode is enabled, a seed of 0 selects a random seed;
+     * see Seeding. The table for a random seed is not interned, since no other
+     * basis object will ask for it.
+     *
+     * @param seed The seed.
+     *
+     * @return The permutation table. Its arrays must not be modified.
+     */
+    static PermutationTable forSeed(int seed) {
+        if (Seeding.isRandomSeed(seed)) {
+            return new PermutationTable(new Random().nextInt());
+        }
+
+        int slot = slotOf(seed);
+        PermutationTable table = cache.get(slot);
+        if (table == null || table.seed != seed) {
+            // Two threads may both create the table; either copy is correct.
+            table = new PermutationTable(seed);
+            cache.set(slot, table);
+        }
+        return table;
+    }
+
+    private static int slotOf(int seed) {
+        int h = seed * 0x9e3779b9;
+        h ^= h >>> 16;
+        return h & (CACHE_SIZE - 1);
+    }
+}
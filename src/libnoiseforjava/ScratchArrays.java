@@ -0,0 +1,179 @@
+/*******************************************************************************
+ *  Copyright (c) 2003, 2004 Jason Bevins (original libnoise code)
+ *  Copyright (c) 2010 Thomas J. Hodge (java port of libnoise)
+ *  Copyright (c) Nick Whitney ( changed noisegen to perlin basis. added javadoc)
+ *  
+ *  This file is part of libnoiseforjava.
+ *  
+ *  libnoiseforjava is a Java port of the C++ library libnoise, which may be
+ *  found at http://libnoise.sourceforge.net/. libnoise was developed by Jason
+ *  Bevins, who may be contacted at jlbezigvins@gmzigail.com (for great email,
+ *  take off every 'zig'). Porting to Java was done by Thomas Hodge, who may be
+ *  contacted at libnoisezagforjava@gzagmail.com (remove every 'zag').
+ *  
+ *  libnoiseforjava is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the Free
+ *  Software Foundation, either version 3 of the License, or (at your option) any
+ *  later version.
+ *  
+ *  libnoiseforjava is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ *  details.
+ *  
+ *  You should have received a copy of the GNU General Public License along with
+ *  libnoiseforjava. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package libnoiseforjava;
+
+/**
+ * Temporary arrays for the batch methods of the noise modules and models,
+ * reused for the lifetime of a thread.
+ * <p>
+ * A batch method that needs temporary arrays takes them from the scratch
+ * arrays of the current thread instead of allocating them, so a batch does
+ * not create garbage that evaluating the same values one at a time would not.
+ * Batch methods hold their arrays while calling the batch methods of their
+ * source modules, so the arrays are handed out and given back in stack order:
+ * <pre>
+ * ScratchArrays scratch = ScratchArrays.get();
+ * int mark = scratch.mark();
+ * try {
+ *     double[] values = scratch.doubles(offset + count);
+ *     ...
+ * } finally {
+ *     scratch.release(mark);
+ * }
+ * </pre>
+ * <p>
+ * The returned arrays are at least as long as requested, and hold whatever
+ * their last user left in them. A thread keeps the largest array it has used
+ * at each depth until the thread ends.
+ */
+public final class ScratchArrays {
+
+    private static final ThreadLocal<ScratchArrays> threadArrays = new ThreadLocal<ScratchArrays>() {
+        @Override
+        protected ScratchArrays initialValue() {
+            return new ScratchArrays();
+        }
+    };
+
+    /**
+     * The arrays, one per depth; a slot holds the array of the type last
+     * requested at that depth.
+     */
+    private Object[] arrays = new Object[16];
+
+    /**
+     * The number of arrays handed out.
+     */
+    private int top;
+
+    private ScratchArrays() {
+    }
+
+    /**
+     * Returns the scratch arrays of the current thread.
+     *
+     * @return The scratch arrays of the current thread.
+     */
+    public static ScratchArrays get() {
+        return threadArrays.get();
+    }
+
+    /**
+     * Returns a mark that release() uses to give back every array handed out
+     * after this call.
+     *
+     * @return The mark.
+     */
+    public int mark() {
+        return this.top;
+    }
+
+    /**
+     * Gives back every array handed out since the specified mark was taken.
+     *
+     * @param mark The mark returned by mark().
+     */
+    public void release(int mark) {
+        this.top = mark;
+    }
+
+    /**
+     * Hands out a double array.
+     *
+     * @param length The minimum length of the array.
+     *
+     * @return The array.
+     */
+    public double[] doubles(int length) {
+        Object array = next();
+        if (!(array instanceof double[]) || ((double[]) array).length < length) {
+            array = new double[length];
+            this.arrays[this.top - 1] = array;
+        }
+        return (double[]) array;
+    }
+
+    /**
+     * Hands out a float array.
+     *
+     * @param length The minimum length of the array.
+     *
+     * @return The array.
+     */
+    public float[] floats(int length) {
+        Object array = next();
+        if (!(array instanceof float[]) || ((float[]) array).length < length) {
+            array = new float[length];
+            this.arrays[this.top - 1] = array;
+        }
+        return (float[]) array;
+    }
+
+    /**
+     * Hands out a boolean array.
+     *
+     * @param length The minimum length of the array.
+     *
+     * @return The array.
+     */
+    public boolean[] booleans(int length) {
+        Object array = next();
+        if (!(array instanceof boolean[]) || ((boolean[]) array).length < length) {
+            array = new boolean[length];
+            this.arrays[this.top - 1] = array;
+        }
+        return (boolean[]) array;
+    }
+
+    /**
+     * Hands out an int array.
+     *
+     * @param length The minimum length of the array.
+     *
+     * @return The array.
+     */
+    public int[] ints(int length) {
+        Object array = next();
+        if (!(array instanceof int[]) || ((int[]) array).length < length) {
+            array = new int[length];
+            this.arrays[this.top - 1] = array;
+        }
+        return (int[]) array;
+    }
+
+    /**
+     * Takes the next slot and returns the array it holds, or null.
+     */
+    private Object next() {
+        if (this.top == this.arrays.length) {
+            Object[] grown = new Object[this.arrays.length * 2];
+            System.arraycopy(this.arrays, 0, grown, 0, this.arrays.length);
+            this.arrays = grown;
+        }
+        return this.arrays[this.top++];
+    }
+}
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ *  Copyright (c) 2003, 2004 Jason Bevins (original libnoise code)
+ *  Copyright (c) 2010 Thomas J. Hodge (java port of libnoise)
+ *  Copyright (c) Nick Whitney ( changed noisegen to perlin basis. added javadoc)
+ *  
+ *  This file is part of libnoiseforjava.
+ *  
+ *  libnoiseforjava is a Java port of the C++ library libnoise, which may be
+ *  found at http://libnoise.sourceforge.net/. libnoise was developed by Jason
+ *  Bevins, who may be contacted at jlbezigvins@gmzigail.com (for great email,
+ *  take off every 'zig'). Porting to Java was done by Thomas Hodge, who may be
+ *  contacted at libnoisezagforjava@gzagmail.com (remove every 'zag').
+ *  
+ *  libnoiseforjava is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the Free
+ *  Software Foundation, either version 3 of the License, or (at your option) any
+ *  later version.
+ *  
+ *  libnoiseforjava is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ *  details.
+ *  
+ *  You should have received a copy of the GNU General Public License along with
+ *  libnoiseforjava. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+
+package libnoiseforjava;
+
+/**
+ * Controls how the noise generators treat a seed of 0.
+ * <p>
+ * By default, a seed of 0 selects a random seed each time a generator is
+ * built, so two default generators, on the same JVM or on different hosts,
+ * generate different noise. In deterministic mode, 0 is an ordinary seed:
+ * every generator built with the same parameters and seed generates the
+ * same output values on every JVM and host. The permutation tables are
+ * shuffled with java.util.Random, whose sequence is fully specified for a
+ * given seed.
+ * <p>
+ * Math.pow(), Math.sin() and Math.cos() may return results that differ by
+ * one ulp between JVMs, since a JVM may replace them with platform
+ * intrinsics. The noise modules and models call pow(), sin() and cos() of
+ * this class instead, which use the fully specified StrictMath versions in
+ * deterministic mode. RendererImage still uses Math for its light source,
+ * so rendered images are not covered.
+ * <p>
+ * Deterministic mode is enabled at startup if the system property
+ * "libnoiseforjava.deterministic" is set to "true", and can be changed with
+ * setDeterministic(). A change affects generators that are built
+ * afterwards; generators that have already been built keep their tables.
+ */
+public final class Seeding {
+
+    /**
+     * The system property that enables deterministic mode at startup.
+     */
+    public static final String DETERMINISTIC_PROPERTY = "libnoiseforjava.deterministic";
+
+    private static volatile boolean isDeterministic = Boolean.getBoolean(DETERMINISTIC_PROPERTY);
+
+    private Seeding() {
+    }
+
+    /**
+     * Determines if deterministic mode is enabled.
+     *
+     * @return <ul>
+     *         <li><i>true</i> if a seed of 0 is an ordinary seed.
+     *         <li><i>false</i> if a seed of 0 selects a random seed.
+     *         </ul>
+     */
+    public static boolean isDeterministic() {
+        return isDeterministic;
+    }
+
+    /**
+     * Enables or disables deterministic mode.
+     *
+     * @param enable A flag that enables or disables deterministic mode.
+     */
+    public static void setDeterministic(boolean enable) {
+        isDeterministic = enable;
+    }
+
+    /**
+     * Determines if a seed selects a random seed.
+     *
+     * @param seed The seed.
+     *
+     * @return <i>true</i> if the seed is 0 and deterministic mode is disabled.
+     */
+    public static boolean isRandomSeed(int seed) {
+        return seed == 0 && !isDeterministic;
+    }
+
+    /**
+     * Returns the value of the first argument raised to the power of the
+     * second argument, with StrictMath.pow() in deterministic mode and
+     * Math.pow() otherwise.
+     *
+     * @param a The base.
+     * @param b The exponent.
+     *
+     * @return @a a raised to the power of @a b.
+     */
+    public static double pow(double a, double b) {
+        return isDeterministic ? StrictMath.pow(a, b) : Math.pow(a, b);
+    }
+
+    /**
+     * Returns the sine of an angle, with StrictMath.sin() in deterministic
+     * mode and Math.sin() otherwise.
+     *
+     * @param a The angle, in radians.
+     *
+     * @return The sine of the angle.
+     */
+    public static double sin(double a) {
+        return isDeterministic ? StrictMath.sin(a) : Math.sin(a);
+    }
+
+    /**
+     * Returns the cosine of an angle, with StrictMath.cos() in deterministic
+     * mode and Math.cos() otherwise.
+     *
+     * @param a The angle, in radians.
+     *
+     * @return The cosine of the angle.
+     */
+    public static double cos(double a) {
+        return isDeterministic ? StrictMath.cos(a) : Math.cos(a);
+    }
+}
@@ -26,8 +26,6 @@
  *******************************************************************************/
 package libnoiseforjava;
 
-import java.util.Random;
-
 /**
  * Computes Simplex Noise for 2D, 3D, and 4D
  * <p>
@@ -36,9 +34,7 @@ import java.util.Random;
  */
 public class SimplexBasis {
 
-    private static int swapAmount = 400;
-
-    private static Grad[] grad3 = { new Grad(1, 1, 0), new Grad(-1, 1, 0), new Grad(1, -1, 0), new Grad(-1, -1, 0), new Grad(1, 0, 1),
+    static Grad[] grad3 = { new Grad(1, 1, 0), new Grad(-1, 1, 0), new Grad(1, -1, 0), new Grad(-1, -1, 0), new Grad(1, 0, 1),
         new Grad(-1, 0, 1), new Grad(1, 0, -1), new Grad(-1, 0, -1), new Grad(0, 1, 1), new Grad(0, -1, 1), new Grad(0, 1, -1), new Grad(0, -1, -1) };
 
     private static Grad[] grad4 = { new Grad(0, 1, 1, 1), new Grad(0, 1, 1, -1), new Grad(0, 1, -1, 1), new Grad(0, 1, -1, -1),
@@ -48,67 +44,36 @@ public class SimplexBasis {
         new Grad(-1, 1, 0, -1), new Grad(-1, -1, 0, 1), new Grad(-1, -1, 0, -1), new Grad(1, 1, 1, 0), new Grad(1, 1, -1, 0), new Grad(1, -1, 1, 0),
         new Grad(1, -1, -1, 0), new Grad(-1, 1, 1, 0), new Grad(-1, 1, -1, 0), new Grad(-1, -1, 1, 0), new Grad(-1, -1, -1, 0) };
 
-    private static short[] p_supply = { 151, 160, 137, 91, 90, 15, 131, 13, 201, 95, 96, 53, 194, 233, 7, 225, 140, 36, 103, 30, 69, 142, 8, 99, 37,
-        240, 21, 10, 23, 190, 6, 148, 247, 120, 234, 75, 0, 26, 197, 62, 94, 252, 219, 203, 117, 35, 11, 32, 57, 177, 33, 88, 237, 149, 56, 87, 174,
-        20, 125, 136, 171, 168, 68, 175, 74, 165, 71, 134, 139, 48, 27, 166, 77, 146, 158, 231, 83, 111, 229, 122, 60, 211, 133, 230, 220, 105, 92,
-        41, 55, 46, 245, 40, 244, 102, 143, 54, 65, 25, 63, 161, 1, 216, 80, 73, 209, 76, 132, 187, 208, 89, 18, 169, 200, 196, 135, 130, 116, 188,
-        159, 86, 164, 100, 109, 198, 173, 186, 3, 64, 52, 217, 226, 250, 124, 123, 5, 202, 38, 147, 118, 126, 255, 82, 85, 212, 207, 206, 59, 227,
-        47, 16, 58, 17, 182, 189, 28, 42, 223, 183, 170, 213, 119, 248, 152, 2, 44, 154, 163, 70, 221, 153, 101, 155, 167, 43, 172, 9, 129, 22, 39,
-        253, 19, 98, 108, 110, 79, 113, 224, 232, 178, 185, 112, 104, 218, 246, 97, 228, 251, 34, 242, 193, 238, 210, 144, 12, 191, 179, 162, 241,
-        81, 51, 145, 235, 249, 14, 239, 107, 49, 192, 214, 31, 181, 199, 106, 157, 184, 84, 204, 176, 115, 121, 50, 45, 127, 4, 150, 254, 138, 236,
-        205, 93, 222, 114, 67, 29, 24, 72, 243, 141, 128, 195, 78, 66, 215, 61, 156, 180 };
-
-    private short[] p = new short[p_supply.length];
-
-    // To remove the need for index wrapping, double the permutation table length
-    private short[] perm = new short[512];
-    private short[] permMod12 = new short[512];
+    // The permutation table is shared with every other basis object that has
+    // the same seed, so these arrays must not be modified.
+    short[] perm;
+    short[] permMod12;
+    PermutationTable permutationTable;
 
     public SimplexBasis() {
     }
 
-    private void mutate(int seed) {
-        this.p = p_supply.clone();
-
-        if (seed == 0) {
-            Random rand = new Random();
-            seed = rand.nextInt();
-        }
-
-        Random rand = new Random(seed);
-
-        // System.out.println("Simplex rand: " + rand.nextInt());
-
-        // randomize the order of the numbers in p
-        for (int i = 0; i < swapAmount; i++) {
-            int swapFrom = rand.nextInt(this.p.length);
-            int swapTo = rand.nextInt(this.p.length);
-
-            short temp = this.p[swapFrom];
-            this.p[swapFrom] = this.p[swapTo];
-            this.p[swapTo] = temp;
-        }
-
-        for (int i = 0; i < 512; i++) {
-            this.perm[i] = this.p[i & 255];
-            this.permMod12[i] = (short) (this.perm[i] % 12);
-        }
-    }
-
     public void setSeed(int seed) {
-        mutate(seed);
+        PermutationTable table = PermutationTable.forSeed(seed);
+        this.perm = table.perm;
+        this.permMod12 = table.permMod12;
+        this.permutationTable = table;
     }
 
     // Skewing and unskewing factors for 2, 3, and 4 dimensions
     private static final double F2 = 0.5 * (Math.sqrt(3.0) - 1.0);
     private static final double G2 = (3.0 - Math.sqrt(3.0)) / 6.0;
-    private static final double F3 = 1.0 / 3.0;
-    private static final double G3 = 1.0 / 6.0;
+    static final double F3 = 1.0 / 3.0;
+    static final double G3 = 1.0 / 6.0;
     private static final double F4 = (Math.sqrt(5.0) - 1.0) / 4.0;
     private static final double G4 = (5.0 - Math.sqrt(5.0)) / 20.0;
 
+    // The 3D factors in single precision, for the float path.
+    private static final float F3_FLOAT = (float) F3;
+    private static final float G3_FLOAT = (float) G3;
+
     // This method is a *lot* faster than using (int)Math.floor(x)
-    private static int fastfloor(double x) {
+    static int fastfloor(double x) {
         int xi = (int) x;
         return x < xi ? xi - 1 : xi;
     }
@@ -119,10 +84,21 @@ public class SimplexBasis {
     }
 
     // dot product in 3D
-    private static double dot(Grad g, double x, double y, double z) {
+    static double dot(Grad g, double x, double y, double z) {
         return g.x * x + g.y * y + g.z * z;
     }
 
+    // 3D dot product in single precision
+    private static float dot(Grad g, float x, float y, float z) {
+        return g.xf * x + g.yf * y + g.zf * z;
+    }
+
+    // This method is a *lot* faster than using (int)Math.floor(x)
+    private static int fastfloor(float x) {
+        int xi = (int) x;
+        return x < xi ? xi - 1 : xi;
+    }
+
     // dot product in 4D
     private static double dot(Grad g, double x, double y, double z, double w) {
         return g.x * x + g.y * y + g.z * z + g.w * w;
@@ -224,6 +200,40 @@ public class SimplexBasis {
         return 70.0 * (n0 + n1 + n2);
     }
 
+    /**
+     * Determines if the 3D noise repeats over the specified extents along the
+     * @a x and @a z axes. A translation along an axis maps the skewed lattice
+     * and its gradients onto themselves every 768 units, so this is true if
+     * both extents are whole multiples of 768.
+     *
+     * @param xExtent The extent along the @a x axis.
+     * @param zExtent The extent along the @a z axis.
+     *
+     * @return true if the 3D noise repeats over both extents.
+     */
+    public boolean repeatsOver(double xExtent, double zExtent) {
+        return PerlinBasis.isWholeMultiple(xExtent, 768) && PerlinBasis.isWholeMultiple(zExtent, 768);
+    }
+
+    /**
+     * 2D simplex noise for a batch of points.
+     * <p>
+     * The value written to @a out[i] is equal to getValue2D(@a xs[i],
+     * @a ys[i]), for every index from @a offset to @a offset + @a count - 1.
+     *
+     * @param xs The x coordinates of the points.
+     * @param ys The y coordinates of the points.
+     * @param out The array that receives the noise values.
+     * @param offset The index of the first point.
+     * @param count The number of points.
+     */
+    public void getValues2D(double[] xs, double[] ys, double[] out, int offset, int count) {
+        int end = offset + count;
+        for (int i = offset; i < end; i++) {
+            out[i] = getValue2D(xs[i], ys[i]);
+        }
+    }
+
     /**
      * 3D simplex noise.
      * 
@@ -374,6 +384,558 @@ public class SimplexBasis {
         return 32.0 * (n0 + n1 + n2 + n3);
     }
 
+    /**
+     * 3D simplex noise and its gradient.
+     * <p>
+     * The returned value is identical to the value getValue() returns for the
+     * same point. The gradient is calculated analytically in the same pass,
+     * so it is exact and costs far less than estimating it from neighboring
+     * values.
+     *
+     * @param x The @a x coordinate of the point.
+     * @param y The @a y coordinate of the point.
+     * @param z The @a z coordinate of the point.
+     * @param gradient The array that receives the partial derivatives of the
+     *            noise value with respect to @a x, @a y and @a z, in that
+     *            order.
+     *
+     * @return The noise value.
+     */
+    public double getValueAndGradient(double x, double y, double z, double[] gradient) {
+        double n0, n1, n2, n3; // Noise contributions from the four corners
+
+        // Skew the input space to determine which simplex cell we're in
+        double s = (x + y + z) * F3; // Very nice and simple skew factor for 3D
+
+        int i = fastfloor(x + s);
+        int j = fastfloor(y + s);
+        int k = fastfloor(z + s);
+
+        double t = (i + j + k) * G3;
+
+        double X0 = i - t; // Unskew the cell origin back to (x,y,z) space
+        double Y0 = j - t;
+        double Z0 = k - t;
+
+        double x0 = x - X0; // The x,y,z distances from the cell origin
+        double y0 = y - Y0;
+        double z0 = z - Z0;
+
+        // For the 3D case, the simplex shape is a slightly irregular tetrahedron.
+
+        // Determine which simplex we are in.
+        int i1, j1, k1; // Offsets for second corner of simplex in (i,j,k) coords
+        int i2, j2, k2; // Offsets for third corner of simplex in (i,j,k) coords
+
+        if (x0 >= y0) {
+            if (y0 >= z0) { // X Y Z order
+                i1 = 1;
+                j1 = 0;
+                k1 = 0;
+                i2 = 1;
+                j2 = 1;
+                k2 = 0;
+            } else if (x0 >= z0) { // X Z Y order
+                i1 = 1;
+                j1 = 0;
+                k1 = 0;
+                i2 = 1;
+                j2 = 0;
+                k2 = 1;
+            } else { // Z X Y order
+                i1 = 0;
+                j1 = 0;
+                k1 = 1;
+                i2 = 1;
+                j2 = 0;
+                k2 = 1;
+            }
+        } else { // x0 < y0
+            if (y0 < z0) { // Z Y X order
+                i1 = 0;
+                j1 = 0;
+                k1 = 1;
+                i2 = 0;
+                j2 = 1;
+                k2 = 1;
+            } else if (x0 < z0) { // Y Z X order
+                i1 = 0;
+                j1 = 1;
+                k1 = 0;
+                i2 = 0;
+                j2 = 1;
+                k2 = 1;
+            } else { // Y X Z order
+                i1 = 0;
+                j1 = 1;
+                k1 = 0;
+                i2 = 1;
+                j2 = 1;
+                k2 = 0;
+            }
+        }
+
+        // A step of (1,0,0) in (i,j,k) means a step of (1-c,-c,-c) in (x,y,z),
+        // a step of (0,1,0) in (i,j,k) means a step of (-c,1-c,-c) in (x,y,z), and
+        // a step of (0,0,1) in (i,j,k) means a step of (-c,-c,1-c) in (x,y,z), where
+        // c = 1/6.
+        double x1 = x0 - i1 + G3; // Offsets for second corner in (x,y,z) coords
+        double y1 = y0 - j1 + G3;
+        double z1 = z0 - k1 + G3;
+
+        double x2 = x0 - i2 + 2.0 * G3; // Offsets for third corner in (x,y,z) coords
+        double y2 = y0 - j2 + 2.0 * G3;
+        double z2 = z0 - k2 + 2.0 * G3;
+
+        double x3 = x0 - 1.0 + 3.0 * G3; // Offsets for last corner in (x,y,z) coords
+        double y3 = y0 - 1.0 + 3.0 * G3;
+        double z3 = z0 - 1.0 + 3.0 * G3;
+
+        // Work out the hashed gradient indices of the four simplex corners
+        int ii = i & 255;
+        int jj = j & 255;
+        int kk = k & 255;
+
+        int gi0 = this.permMod12[ii + this.perm[jj + this.perm[kk]]];
+        int gi1 = this.permMod12[ii + i1 + this.perm[jj + j1 + this.perm[kk + k1]]];
+        int gi2 = this.permMod12[ii + i2 + this.perm[jj + j2 + this.perm[kk + k2]]];
+        int gi3 = this.permMod12[ii + 1 + this.perm[jj + 1 + this.perm[kk + 1]]];
+
+        // Calculate the contribution from the four corners. A corner
+        // contributes t^4 * (g . d), where d is the offset from the corner and
+        // t = 0.5 - d . d, so its gradient is t^4 * g - 8 * t^3 * (g . d) * d.
+        double dx = 0.0;
+        double dy = 0.0;
+        double dz = 0.0;
+
+        double t0 = 0.5 - x0 * x0 - y0 * y0 - z0 * z0;
+
+        if (t0 < 0) {
+            n0 = 0.0;
+        } else {
+            Grad g = grad3[gi0];
+            double d = dot(g, x0, y0, z0);
+            double tc = t0;
+            t0 *= t0;
+            n0 = t0 * t0 * d;
+            double f = -8.0 * t0 * tc * d;
+            dx += t0 * t0 * g.x + f * x0;
+            dy += t0 * t0 * g.y + f * y0;
+            dz += t0 * t0 * g.z + f * z0;
+        }
+
+        double t1 = 0.5 - x1 * x1 - y1 * y1 - z1 * z1;
+
+        if (t1 < 0) {
+            n1 = 0.0;
+        } else {
+            Grad g = grad3[gi1];
+            double d = dot(g, x1, y1, z1);
+            double tc = t1;
+            t1 *= t1;
+            n1 = t1 * t1 * d;
+            double f = -8.0 * t1 * tc * d;
+            dx += t1 * t1 * g.x + f * x1;
+            dy += t1 * t1 * g.y + f * y1;
+            dz += t1 * t1 * g.z + f * z1;
+        }
+
+        double t2 = 0.5 - x2 * x2 - y2 * y2 - z2 * z2;
+
+        if (t2 < 0) {
+            n2 = 0.0;
+        } else {
+            Grad g = grad3[gi2];
+            double d = dot(g, x2, y2, z2);
+            double tc = t2;
+            t2 *= t2;
+            n2 = t2 * t2 * d;
+            double f = -8.0 * t2 * tc * d;
+            dx += t2 * t2 * g.x + f * x2;
+            dy += t2 * t2 * g.y + f * y2;
+            dz += t2 * t2 * g.z + f * z2;
+        }
+
+        double t3 = 0.5 - x3 * x3 - y3 * y3 - z3 * z3;
+
+        if (t3 < 0) {
+            n3 = 0.0;
+        } else {
+            Grad g = grad3[gi3];
+            double d = dot(g, x3, y3, z3);
+            double tc = t3;
+            t3 *= t3;
+            n3 = t3 * t3 * d;
+            double f = -8.0 * t3 * tc * d;
+            dx += t3 * t3 * g.x + f * x3;
+            dy += t3 * t3 * g.y + f * y3;
+            dz += t3 * t3 * g.z + f * z3;
+        }
+
+        gradient[0] = 32.0 * dx;
+        gradient[1] = 32.0 * dy;
+        gradient[2] = 32.0 * dz;
+
+        return 32.0 * (n0 + n1 + n2 + n3);
+    }
+
+    /**
+     * Generates 3D noise values for a batch of points.
+     * <p>
+     * The point at index <i>i</i> is ( @a xs[i], @a ys[i], @a zs[i] ) and its
+     * noise value is written to @a out[i], for every index from @a offset to
+     * @a offset + @a count - 1. Every value is identical to the value
+     * getValue() returns for the same point.
+     * <p>
+     * The gradients of a simplex are looked up once for each run of
+     * consecutive points that lie in that simplex, instead of once per point,
+     * which makes this faster than calling getValue() for the points of a
+     * noise map row.
+     * <p>
+     * On Java 17 and later, if the JVM was started with --add-modules
+     * jdk.incubator.vector, the points are evaluated four or eight at a time
+     * with the Vector API instead. The values are the same.
+     *
+     * @param xs The @a x coordinates of the points.
+     * @param ys The @a y coordinates of the points.
+     * @param zs The @a z coordinates of the points.
+     * @param out The array that receives the noise values.
+     * @param offset The index of the first point.
+     * @param count The number of points.
+     */
+    public void getValues(double[] xs, double[] ys, double[] zs, double[] out, int offset, int count) {
+        // The vector kernels, if available, evaluate whole vectors of points;
+        // the scalar loop evaluates the rest.
+        int start = offset;
+        if (BasisKernels.VECTOR != null) {
+            start += BasisKernels.VECTOR.simplexValues(this.permutationTable, xs, ys, zs, out, offset, count);
+        }
+
+        short[] perm = this.perm;
+        short[] permMod12 = this.permMod12;
+        int end = offset + count;
+
+        // The simplex the previous point was in: its cell and the order of
+        // the corner offsets within the cell.
+        int cellI = -1;
+        int cellJ = -1;
+        int cellK = -1;
+        int cellOrder = -1;
+        Grad g0 = null, g1 = null, g2 = null, g3 = null;
+
+        for (int n = start; n < end; n++) {
+            double x = xs[n];
+            double y = ys[n];
+            double z = zs[n];
+
+            double s = (x + y + z) * F3;
+
+            int i = fastfloor(x + s);
+            int j = fastfloor(y + s);
+            int k = fastfloor(z + s);
+
+            double t = (i + j + k) * G3;
+
+            double x0 = x - (i - t);
+            double y0 = y - (j - t);
+            double z0 = z - (k - t);
+
+            int i1, j1, k1;
+            int i2, j2, k2;
+            int order;
+
+            if (x0 >= y0) {
+                if (y0 >= z0) {
+                    i1 = 1;
+                    j1 = 0;
+                    k1 = 0;
+                    i2 = 1;
+                    j2 = 1;
+                    k2 = 0;
+                    order = 0;
+                } else if (x0 >= z0) {
+                    i1 = 1;
+                    j1 = 0;
+                    k1 = 0;
+                    i2 = 1;
+                    j2 = 0;
+                    k2 = 1;
+                    order = 1;
+                } else {
+                    i1 = 0;
+                    j1 = 0;
+                    k1 = 1;
+                    i2 = 1;
+                    j2 = 0;
+                    k2 = 1;
+                    order = 2;
+                }
+            } else {
+                if (y0 < z0) {
+                    i1 = 0;
+                    j1 = 0;
+                    k1 = 1;
+                    i2 = 0;
+                    j2 = 1;
+                    k2 = 1;
+                    order = 3;
+                } else if (x0 < z0) {
+                    i1 = 0;
+                    j1 = 1;
+                    k1 = 0;
+                    i2 = 0;
+                    j2 = 1;
+                    k2 = 1;
+                    order = 4;
+                } else {
+                    i1 = 0;
+                    j1 = 1;
+                    k1 = 0;
+                    i2 = 1;
+                    j2 = 1;
+                    k2 = 0;
+                    order = 5;
+                }
+            }
+
+            double x1 = x0 - i1 + G3;
+            double y1 = y0 - j1 + G3;
+            double z1 = z0 - k1 + G3;
+
+            double x2 = x0 - i2 + 2.0 * G3;
+            double y2 = y0 - j2 + 2.0 * G3;
+            double z2 = z0 - k2 + 2.0 * G3;
+
+            double x3 = x0 - 1.0 + 3.0 * G3;
+            double y3 = y0 - 1.0 + 3.0 * G3;
+            double z3 = z0 - 1.0 + 3.0 * G3;
+
+            int ii = i & 255;
+            int jj = j & 255;
+            int kk = k & 255;
+
+            if (ii != cellI || jj != cellJ || kk != cellK) {
+                cellI = ii;
+                cellJ = jj;
+                cellK = kk;
+                cellOrder = -1;
+                g0 = grad3[permMod12[ii + perm[jj + perm[kk]]]];
+                g3 = grad3[permMod12[ii + 1 + perm[jj + 1 + perm[kk + 1]]]];
+            }
+            if (order != cellOrder) {
+                cellOrder = order;
+                g1 = grad3[permMod12[ii + i1 + perm[jj + j1 + perm[kk + k1]]]];
+                g2 = grad3[permMod12[ii + i2 + perm[jj + j2 + perm[kk + k2]]]];
+            }
+
+            double n0, n1, n2, n3;
+
+            double t0 = 0.5 - x0 * x0 - y0 * y0 - z0 * z0;
+            if (t0 < 0) {
+                n0 = 0.0;
+            } else {
+                t0 *= t0;
+                n0 = t0 * t0 * dot(g0, x0, y0, z0);
+            }
+
+            double t1 = 0.5 - x1 * x1 - y1 * y1 - z1 * z1;
+            if (t1 < 0) {
+                n1 = 0.0;
+            } else {
+                t1 *= t1;
+                n1 = t1 * t1 * dot(g1, x1, y1, z1);
+            }
+
+            double t2 = 0.5 - x2 * x2 - y2 * y2 - z2 * z2;
+            if (t2 < 0) {
+                n2 = 0.0;
+            } else {
+                t2 *= t2;
+                n2 = t2 * t2 * dot(g2, x2, y2, z2);
+            }
+
+            double t3 = 0.5 - x3 * x3 - y3 * y3 - z3 * z3;
+            if (t3 < 0) {
+                n3 = 0.0;
+            } else {
+                t3 *= t3;
+                n3 = t3 * t3 * dot(g3, x3, y3, z3);
+            }
+
+            out[n] = 32.0 * (n0 + n1 + n2 + n3);
+        }
+    }
+
+    /**
+     * Generates 3D noise values for a batch of points in single precision.
+     * <p>
+     * This is the float form of getValues(double[], double[], double[],
+     * double[], int, int). All arithmetic is done in float, so the values
+     * differ slightly from the double values; see
+     * ModuleBase.getValues(float[], float[], float[], float[], int, int) for
+     * the error bound.
+     *
+     * @param xs The @a x coordinates of the points.
+     * @param ys The @a y coordinates of the points.
+     * @param zs The @a z coordinates of the points.
+     * @param out The array that receives the noise values.
+     * @param offset The index of the first point.
+     * @param count The number of points.
+     */
+    public void getValues(float[] xs, float[] ys, float[] zs, float[] out, int offset, int count) {
+        short[] perm = this.perm;
+        short[] permMod12 = this.permMod12;
+        int end = offset + count;
+
+        int cellI = -1;
+        int cellJ = -1;
+        int cellK = -1;
+        int cellOrder = -1;
+        Grad g0 = null, g1 = null, g2 = null, g3 = null;
+
+        for (int n = offset; n < end; n++) {
+            float x = xs[n];
+            float y = ys[n];
+            float z = zs[n];
+
+            float s = (x + y + z) * F3_FLOAT;
+
+            int i = fastfloor(x + s);
+            int j = fastfloor(y + s);
+            int k = fastfloor(z + s);
+
+            float t = (i + j + k) * G3_FLOAT;
+
+            float x0 = x - (i - t);
+            float y0 = y - (j - t);
+            float z0 = z - (k - t);
+
+            int i1, j1, k1;
+            int i2, j2, k2;
+            int order;
+
+            if (x0 >= y0) {
+                if (y0 >= z0) {
+                    i1 = 1;
+                    j1 = 0;
+                    k1 = 0;
+                    i2 = 1;
+                    j2 = 1;
+                    k2 = 0;
+                    order = 0;
+                } else if (x0 >= z0) {
+                    i1 = 1;
+                    j1 = 0;
+                    k1 = 0;
+                    i2 = 1;
+                    j2 = 0;
+                    k2 = 1;
+                    order = 1;
+                } else {
+                    i1 = 0;
+                    j1 = 0;
+                    k1 = 1;
+                    i2 = 1;
+                    j2 = 0;
+                    k2 = 1;
+                    order = 2;
+                }
+            } else {
+                if (y0 < z0) {
+                    i1 = 0;
+                    j1 = 0;
+                    k1 = 1;
+                    i2 = 0;
+                    j2 = 1;
+                    k2 = 1;
+                    order = 3;
+                } else if (x0 < z0) {
+                    i1 = 0;
+                    j1 = 1;
+                    k1 = 0;
+                    i2 = 0;
+                    j2 = 1;
+                    k2 = 1;
+                    order = 4;
+                } else {
+                    i1 = 0;
+                    j1 = 1;
+                    k1 = 0;
+                    i2 = 1;
+                    j2 = 1;
+                    k2 = 0;
+                    order = 5;
+                }
+            }
+
+            float x1 = x0 - i1 + G3_FLOAT;
+            float y1 = y0 - j1 + G3_FLOAT;
+            float z1 = z0 - k1 + G3_FLOAT;
+
+            float x2 = x0 - i2 + 2.0f * G3_FLOAT;
+            float y2 = y0 - j2 + 2.0f * G3_FLOAT;
+            float z2 = z0 - k2 + 2.0f * G3_FLOAT;
+
+            float x3 = x0 - 1.0f + 3.0f * G3_FLOAT;
+            float y3 = y0 - 1.0f + 3.0f * G3_FLOAT;
+            float z3 = z0 - 1.0f + 3.0f * G3_FLOAT;
+
+            int ii = i & 255;
+            int jj = j & 255;
+            int kk = k & 255;
+
+            if (ii != cellI || jj != cellJ || kk != cellK) {
+                cellI = ii;
+                cellJ = jj;
+                cellK = kk;
+                cellOrder = -1;
+                g0 = grad3[permMod12[ii + perm[jj + perm[kk]]]];
+                g3 = grad3[permMod12[ii + 1 + perm[jj + 1 + perm[kk + 1]]]];
+            }
+            if (order != cellOrder) {
+                cellOrder = order;
+                g1 = grad3[permMod12[ii + i1 + perm[jj + j1 + perm[kk + k1]]]];
+                g2 = grad3[permMod12[ii + i2 + perm[jj + j2 + perm[kk + k2]]]];
+            }
+
+            float n0, n1, n2, n3;
+
+            float t0 = 0.5f - x0 * x0 - y0 * y0 - z0 * z0;
+            if (t0 < 0) {
+                n0 = 0.0f;
+            } else {
+                t0 *= t0;
+                n0 = t0 * t0 * dot(g0, x0, y0, z0);
+            }
+
+            float t1 = 0.5f - x1 * x1 - y1 * y1 - z1 * z1;
+            if (t1 < 0) {
+                n1 = 0.0f;
+            } else {
+                t1 *= t1;
+                n1 = t1 * t1 * dot(g1, x1, y1, z1);
+            }
+
+            float t2 = 0.5f - x2 * x2 - y2 * y2 - z2 * z2;
+            if (t2 < 0) {
+                n2 = 0.0f;
+            } else {
+                t2 *= t2;
+                n2 = t2 * t2 * dot(g2, x2, y2, z2);
+            }
+
+            float t3 = 0.5f - x3 * x3 - y3 * y3 - z3 * z3;
+            if (t3 < 0) {
+                n3 = 0.0f;
+            } else {
+                t3 *= t3;
+                n3 = t3 * t3 * dot(g3, x3, y3, z3);
+            }
+
+            out[n] = 32.0f * (n0 + n1 + n2 + n3);
+        }
+    }
+
     /**
      * 4D simplex noise.
      * <p>
@@ -567,14 +1129,20 @@ public class SimplexBasis {
 
     // Inner class to speed up gradient computations
     // (array access is a lot slower than member access)
-    private static class Grad {
+    static class Grad {
 
         double x, y, z, w;
 
+        // The x, y and z components in single precision, for the float path.
+        float xf, yf, zf;
+
         Grad(double x, double y, double z) {
             this.x = x;
             this.y = y;
             this.z = z;
+            this.xf = (float) x;
+            this.yf = (float) y;
+            this.zf = (float) z;
         }
 
         Grad(double x, double y, double z, double w) {
@@ -582,6 +1150,9 @@ public class SimplexBasis {
             this.y = y;
             this.z = z;
             this.w = w;
+            this.xf = (float) x;
+            this.yf = (float) y;
+            this.zf = (float) z;
         }
     }
 }
@@ -147,9 +147,26 @@ public class VectorTable {
         { -0.92394, 0.353436, -0.14635, 0.0 }, { 0.212189, -0.815162, -0.538969, 0.0 }, { -0.859262, 0.143405, -0.491024, 0.0 },
         { 0.991353, 0.112814, 0.0670273, 0.0 }, { 0.0337884, -0.979891, -0.196654, 0.0 } };
 
+    /**
+     * The same vectors as randomVectors, flattened into a single array.
+     * <p>
+     * The vector with index <i>i</i> occupies elements (i &lt;&lt; 2) to (i &lt;&lt; 2) + 3,
+     * so a gradient lookup needs neither an object allocation nor a second
+     * array dereference. The array must not be modified.
+     */
+    static final double[] flatRandomVectors = flatten(randomVectors);
+
     public VectorTable() {
     }
 
+    private static double[] flatten(double[][] vectors) {
+        double[] flat = new double[vectors.length << 2];
+        for (int i = 0; i < vectors.length; i++) {
+            System.arraycopy(vectors[i], 0, flat, i << 2, 4);
+        }
+        return flat;
+    }
+
     public double getRandomVectors(int a, int b) {
         return VectorTable.randomVectors[a][b];
     }
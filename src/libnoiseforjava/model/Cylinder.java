@@ -27,6 +27,8 @@
 
 package libnoiseforjava.model;
 
+import libnoiseforjava.ScratchArrays;
+import libnoiseforjava.Seeding;
 import libnoiseforjava.module.ModuleBase;
 
 /**
@@ -91,12 +93,47 @@ public class Cylinder {
         assert (this.module != null);
 
         double x, y, z;
-        x = Math.cos(Math.toRadians(angle));
+        x = Seeding.cos(Math.toRadians(angle));
         y = height;
-        z = Math.sin(Math.toRadians(angle));
+        z = Seeding.sin(Math.toRadians(angle));
         return this.module.getValue(x, y, z);
     }
 
+    /**
+     * Returns the output values from the noise module for a batch of input
+     * values located on the surface of the cylinder.
+     * 
+     * <p>
+     * The input value at index <i>i</i> is ( @a angles[i], @a heights[i] )
+     * and its output value is written to @a out[i], for every index from @a
+     * offset to @a offset + @a count - 1.
+     *
+     * @param angles The angles around the cylinder's center, in degrees.
+     * @param heights The heights along the @a y axis.
+     * @param out The array that receives the output values.
+     * @param offset The index of the first input value.
+     * @param count The number of input values.
+     * 
+     * @pre A noise module was passed to the setModule() method.
+     */
+    public void getValues(double[] angles, double[] heights, double[] out, int offset, int count) {
+        assert (this.module != null);
+
+        ScratchArrays scratch = ScratchArrays.get();
+        int mark = scratch.mark();
+        try {
+            double[] xs = scratch.doubles(offset + count);
+            double[] zs = scratch.doubles(offset + count);
+            for (int i = offset; i < offset + count; i++) {
+                xs[i] = Seeding.cos(Math.toRadians(angles[i]));
+                zs[i] = Seeding.sin(Math.toRadians(angles[i]));
+            }
+            this.module.getValues(xs, heights, zs, out, offset, count);
+        } finally {
+            scratch.release(mark);
+        }
+    }
+
     /**
      * Returns the noise module that is used to generate the output values.
      * 
@@ -27,6 +27,9 @@
 
 package libnoiseforjava.model;
 
+import java.util.Arrays;
+
+import libnoiseforjava.ScratchArrays;
 import libnoiseforjava.module.ModuleBase;
 
 /**
@@ -81,7 +84,64 @@ public class Plane {
     public double getValue(double x, double z) {
         assert (this.module != null);
 
-        return this.module.getValue(x, 0, z);
+        return this.module.getValue2D(x, z);
+    }
+
+    /**
+     * Returns the output values from the noise module for a batch of input
+     * values located on the surface of the plane.
+     * 
+     * <p>
+     * The input value at index <i>i</i> is ( @a xs[i], @a zs[i] ) and its
+     * output value is written to @a out[i], for every index from @a offset to
+     * @a offset + @a count - 1.
+     * 
+     * <p>
+     * This calls the two-dimensional evaluation path of the noise module,
+     * ModuleBase.getValues2D().
+     * 
+     * @param xs The @a x coordinates of the input values.
+     * @param zs The @a z coordinates of the input values.
+     * @param out The array that receives the output values.
+     * @param offset The index of the first input value.
+     * @param count The number of input values.
+     * 
+     * @pre A noise module was passed to the setModule() method.
+     */
+    public void getValues(double[] xs, double[] zs, double[] out, int offset, int count) {
+        assert (this.module != null);
+
+        this.module.getValues2D(xs, zs, out, offset, count);
+    }
+
+    /**
+     * Returns the output values from the noise module for a batch of input
+     * values located on the surface of the plane, in single precision.
+     * <p>
+     * This is the float form of getValues(double[], double[], double[], int,
+     * int); see ModuleBase.getValues(float[], float[], float[], float[], int,
+     * int).
+     * 
+     * @param xs The @a x coordinates of the input values.
+     * @param zs The @a z coordinates of the input values.
+     * @param out The array that receives the output values.
+     * @param offset The index of the first input value.
+     * @param count The number of input values.
+     * 
+     * @pre A noise module was passed to the setModule() method.
+     */
+    public void getValues(float[] xs, float[] zs, float[] out, int offset, int count) {
+        assert (this.module != null);
+
+        ScratchArrays scratch = ScratchArrays.get();
+        int mark = scratch.mark();
+        try {
+            float[] ys = scratch.floats(offset + count);
+            Arrays.fill(ys, offset, offset + count, 0.0f);
+            this.module.getValues(xs, ys, zs, out, offset, count);
+        } finally {
+            scratch.release(mark);
+        }
     }
 
     /**
@@ -27,6 +27,8 @@
 
 package libnoiseforjava.model;
 
+import libnoiseforjava.ScratchArrays;
+import libnoiseforjava.Seeding;
 import libnoiseforjava.module.ModuleBase;
 
 /**
@@ -94,13 +96,51 @@ public class Sphere {
     public double getValue(double lat, double lon) {
         assert (this.module != null);
 
-        double r = Math.cos(Math.toRadians(lat));
-        double x = r * Math.cos(Math.toRadians(lon));
-        double y = Math.sin(Math.toRadians(lat));
-        double z = r * Math.sin(Math.toRadians(lon));
+        double r = Seeding.cos(Math.toRadians(lat));
+        double x = r * Seeding.cos(Math.toRadians(lon));
+        double y = Seeding.sin(Math.toRadians(lat));
+        double z = r * Seeding.sin(Math.toRadians(lon));
         return this.module.getValue(x, y, z);
     }
 
+    /**
+     * Returns the output values from the noise module for a batch of input
+     * values located on the surface of the sphere.
+     * 
+     * <p>
+     * The input value at index <i>i</i> is ( @a lats[i], @a lons[i] ) and its
+     * output value is written to @a out[i], for every index from @a offset to
+     * @a offset + @a count - 1.
+     * 
+     * @param lats The latitudes of the input values, in degrees.
+     * @param lons The longitudes of the input values, in degrees.
+     * @param out The array that receives the output values.
+     * @param offset The index of the first input value.
+     * @param count The number of input values.
+     *
+     * @pre A noise module was passed to the setModule() method.
+     */
+    public void getValues(double[] lats, double[] lons, double[] out, int offset, int count) {
+        assert (this.module != null);
+
+        ScratchArrays scratch = ScratchArrays.get();
+        int mark = scratch.mark();
+        try {
+            double[] xs = scratch.doubles(offset + count);
+            double[] ys = scratch.doubles(offset + count);
+            double[] zs = scratch.doubles(offset + count);
+            for (int i = offset; i < offset + count; i++) {
+                double r = Seeding.cos(Math.toRadians(lats[i]));
+                xs[i] = r * Seeding.cos(Math.toRadians(lons[i]));
+                ys[i] = Seeding.sin(Math.toRadians(lats[i]));
+                zs[i] = r * Seeding.sin(Math.toRadians(lons[i]));
+            }
+            this.module.getValues(xs, ys, zs, out, offset, count);
+        } finally {
+            scratch.release(mark);
+        }
+    }
+
     /**
      * Returns the noise module that is used to generate the output values.
      * 
@@ -27,6 +27,8 @@
 
 package libnoiseforjava.module;
 
+import libnoiseforjava.ScratchArrays;
+
 /**
  * Noise module that outputs the additive value of the output value from two
  * source modules.
@@ -48,6 +50,11 @@ public class Add extends ModuleBase {
         setSourceModule(1, sourceModuleTwo);
     }
 
+    @Override
+    public boolean repeatsOver(double xExtent, double zExtent) {
+        return sourcesRepeatOver(xExtent, zExtent);
+    }
+
     @Override
     public double getValue(double x, double y, double z) {
         assert (this.sourceModules[0] != null);
@@ -56,4 +63,42 @@ public class Add extends ModuleBase {
         return this.sourceModules[0].getValue(x, y, z) + this.sourceModules[1].getValue(x, y, z);
     }
 
+    @Override
+    public void getValues(double[] xs, double[] ys, double[] zs, double[] out, int offset, int count) {
+        assert (this.sourceModules[0] != null);
+        assert (this.sourceModules[1] != null);
+
+        ScratchArrays scratch = ScratchArrays.get();
+        int mark = scratch.mark();
+        try {
+            double[] values = scratch.doubles(offset + count);
+            this.sourceModules[0].getValues(xs, ys, zs, out, offset, count);
+            this.sourceModules[1].getValues(xs, ys, zs, values, offset, count);
+            for (int i = offset; i < offset + count; i++) {
+                out[i] = out[i] + values[i];
+            }
+        } finally {
+            scratch.release(mark);
+        }
+    }
+
+    @Override
+    public void getValues(float[] xs, float[] ys, float[] zs, float[] out, int offset, int count) {
+        assert (this.sourceModules[0] != null);
+        assert (this.sourceModules[1] != null);
+
+        ScratchArrays scratch = ScratchArrays.get();
+        int mark = scratch.mark();
+        try {
+            float[] values = scratch.floats(offset + count);
+            this.sourceModules[0].getValues(xs, ys, zs, out, offset, count);
+            this.sourceModules[1].getValues(xs, ys, zs, values, offset, count);
+            for (int i = offset; i < offset + count; i++) {
+                out[i] = out[i] + values[i];
+            }
+        } finally {
+            scratch.release(mark);
+        }
+    }
+
 }
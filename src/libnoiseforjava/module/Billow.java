@@ -30,7 +30,10 @@ package libnoiseforjava.module;
 import java.util.Random;
 
 import libnoiseforjava.NoiseQuality;
+import libnoiseforjava.PeriodicPerlinBasis;
 import libnoiseforjava.PerlinBasis;
+import libnoiseforjava.ScratchArrays;
+import libnoiseforjava.Seeding;
 
 /**
  * Noise module that outputs three-dimensional "billowy" noise.
@@ -46,6 +49,10 @@ import libnoiseforjava.PerlinBasis;
  * noise module modifies each octave with an absolute-value function. See the
  * documentation of noise::module::Perlin for more information.
  * 
+ * <p>
+ * Like noise::module::Perlin, this noise module is tileable when a period has
+ * been set with setPeriod().
+ * 
  * @see <a
  *      href="http://libnoise.sourceforge.net/docs/classnoise_1_1module_1_1Billow.html">noise::module::Billow</a>
  * @see Perlin
@@ -90,6 +97,14 @@ public class Billow extends ModuleBase {
     NoiseQuality noiseQuality;
     double[] frequencies;
 
+    /**
+     * Periods of the first octave along the x, y and z axes, in lattice
+     * cells, or zero if the noise does not repeat along that axis.
+     */
+    int xPeriod;
+    int yPeriod;
+    int zPeriod;
+
     PerlinBasis[] source;
 
     public Billow() {
@@ -107,19 +122,39 @@ public class Billow extends ModuleBase {
         Random rnd = new Random(this.seed);
 
         for (int i = 0; i < this.octaveCount; i++) {
-            this.source[i] = new PerlinBasis();
+            double multiplier = Seeding.pow(this.lacunarity, i);
+            if (isPeriodic()) {
+                this.source[i] = new PeriodicPerlinBasis(PeriodicPerlinBasis.scalePeriod(this.xPeriod, multiplier),
+                    PeriodicPerlinBasis.scalePeriod(this.yPeriod, multiplier), PeriodicPerlinBasis.scalePeriod(this.zPeriod, multiplier));
+            } else {
+                this.source[i] = new PerlinBasis();
+            }
 
-            if (this.seed != 0) {
+            if (!Seeding.isRandomSeed(this.seed)) {
                 this.seed = rnd.nextInt();
                 this.source[i].setSeed(this.seed + 1);
             } else {
                 this.source[i].setSeed(this.seed);
             }
 
-            this.frequencies[i] = Math.pow(this.lacunarity, i);
+            this.frequencies[i] = multiplier;
         }
     }
 
+    @Override
+    public boolean repeatsOver(double xExtent, double zExtent) {
+        if (this.source == null) {
+            return false;
+        }
+        for (int i = 0; i < this.octaveCount; i++) {
+            double scale = this.frequency * this.frequencies[i];
+            if (!this.source[i].repeatsOver(xExtent * scale, zExtent * scale)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Override
     public double getValue(double x, double y, double z) {
         double value = 0.0;
@@ -147,6 +182,201 @@ public class Billow extends ModuleBase {
         return value;
     }
 
+    @Override
+    public double getValue2D(double x, double z) {
+        double value = 0.0;
+        double signal = 0.0;
+        double curPersistence = 1.0;
+
+        x *= this.frequency;
+        z *= this.frequency;
+
+        for (int i = 0; i < this.octaveCount; i++) {
+            signal = this.source[i].getValue2D(x * this.frequencies[i], z * this.frequencies[i]);
+            signal = 2.0 * Math.abs(signal) - 1.0;
+            value += signal * curPersistence;
+
+            curPersistence *= this.persistence;
+        }
+
+        value += 0.5;
+
+        return value;
+    }
+
+    @Override
+    public double getValueAndGradient(double x, double y, double z, double[] gradient) {
+        double value = 0.0;
+        double signal = 0.0;
+        double curPersistence = 1.0;
+        double dx = 0.0;
+        double dy = 0.0;
+        double dz = 0.0;
+
+        x *= this.frequency;
+        y *= this.frequency;
+        z *= this.frequency;
+
+        for (int i = 0; i < this.octaveCount; i++) {
+            // The octave writes its gradient into the gradient array, which is
+            // read here before the next octave overwrites it.
+            signal = this.source[i].getValueAndGradient(x * this.frequencies[i], y * this.frequencies[i], z * this.frequencies[i], gradient);
+
+            // d(2 |s| - 1) = 2 sign(s) ds; the octave gradient is also scaled
+            // by the frequency the octave is sampled at.
+            double scale = 2.0 * Math.signum(signal) * curPersistence * this.frequency * this.frequencies[i];
+            dx += gradient[0] * scale;
+            dy += gradient[1] * scale;
+            dz += gradient[2] * scale;
+
+            signal = 2.0 * Math.abs(signal) - 1.0;
+            value += signal * curPersistence;
+
+            curPersistence *= this.persistence;
+        }
+
+        value += 0.5;
+
+        gradient[0] = dx;
+        gradient[1] = dy;
+        gradient[2] = dz;
+        return value;
+    }
+
+    @Override
+    public void getValues(double[] xs, double[] ys, double[] zs, double[] out, int offset, int count) {
+        int end = offset + count;
+        double curPersistence = 1.0;
+
+        ScratchArrays scratch = ScratchArrays.get();
+        int mark = scratch.mark();
+        try {
+            double[] px = scratch.doubles(count);
+            double[] py = scratch.doubles(count);
+            double[] pz = scratch.doubles(count);
+            double[] signals = scratch.doubles(count);
+
+            for (int i = offset; i < end; i++) {
+                out[i] = 0.0;
+            }
+
+            for (int o = 0; o < this.octaveCount; o++) {
+                PerlinBasis octave = this.source[o];
+                double octaveFrequency = this.frequencies[o];
+
+                for (int j = 0; j < count; j++) {
+                    px[j] = (xs[offset + j] * this.frequency) * octaveFrequency;
+                    py[j] = (ys[offset + j] * this.frequency) * octaveFrequency;
+                    pz[j] = (zs[offset + j] * this.frequency) * octaveFrequency;
+                }
+
+                octave.getValues(px, py, pz, signals, 0, count);
+
+                for (int j = 0; j < count; j++) {
+                    double signal = 2.0 * Math.abs(signals[j]) - 1.0;
+                    out[offset + j] += signal * curPersistence;
+                }
+
+                curPersistence *= this.persistence;
+            }
+
+            for (int i = offset; i < end; i++) {
+                out[i] += 0.5;
+            }
+        } finally {
+            scratch.release(mark);
+        }
+    }
+
+    @Override
+    public void getValues2D(double[] xs, double[] zs, double[] out, int offset, int count) {
+        int end = offset + count;
+        double curPersistence = 1.0;
+
+        ScratchArrays scratch = ScratchArrays.get();
+        int mark = scratch.mark();
+        try {
+            double[] px = scratch.doubles(count);
+            double[] pz = scratch.doubles(count);
+            double[] signals = scratch.doubles(count);
+
+            for (int i = offset; i < end; i++) {
+                out[i] = 0.0;
+            }
+
+            for (int o = 0; o < this.octaveCount; o++) {
+                PerlinBasis octave = this.source[o];
+                double octaveFrequency = this.frequencies[o];
+
+                for (int j = 0; j < count; j++) {
+                    px[j] = (xs[offset + j] * this.frequency) * octaveFrequency;
+                    pz[j] = (zs[offset + j] * this.frequency) * octaveFrequency;
+                }
+
+                octave.getValues2D(px, pz, signals, 0, count);
+
+                for (int j = 0; j < count; j++) {
+                    double signal = 2.0 * Math.abs(signals[j]) - 1.0;
+                    out[offset + j] += signal * curPersistence;
+                }
+
+                curPersistence *= this.persistence;
+            }
+
+            for (int i = offset; i < end; i++) {
+                out[i] += 0.5;
+            }
+        } finally {
+            scratch.release(mark);
+        }
+    }
+
+    @Override
+    public void getValues(float[] xs, float[] ys, float[] zs, float[] out, int offset, int count) {
+        int end = offset + count;
+        float frequency = (float) this.frequency;
+        float curPersistence = 1.0f;
+
+        ScratchArrays scratch = ScratchArrays.get();
+        int mark = scratch.mark();
+        try {
+            float[] px = scratch.floats(count);
+            float[] py = scratch.floats(count);
+            float[] pz = scratch.floats(count);
+            float[] signals = scratch.floats(count);
+
+            for (int i = offset; i < end; i++) {
+                out[i] = 0.0f;
+            }
+
+            for (int o = 0; o < this.octaveCount; o++) {
+                PerlinBasis octave = this.source[o];
+                float octaveFrequency = (float) this.frequencies[o];
+
+                for (int j = 0; j < count; j++) {
+                    px[j] = (xs[offset + j] * frequency) * octaveFrequency;
+                    py[j] = (ys[offset + j] * frequency) * octaveFrequency;
+                    pz[j] = (zs[offset + j] * frequency) * octaveFrequency;
+                }
+
+                octave.getValues(px, py, pz, signals, 0, count);
+
+                for (int j = 0; j < count; j++) {
+                    float signal = 2.0f * Math.abs(signals[j]) - 1.0f;
+                    out[offset + j] += signal * curPersistence;
+                }
+
+                curPersistence *= (float) this.persistence;
+            }
+
+            for (int i = offset; i < end; i++) {
+                out[i] += 0.5f;
+            }
+        } finally {
+            scratch.release(mark);
+        }
+    }
+
     public double getFrequency() {
         return this.frequency;
     }
@@ -167,6 +397,22 @@ public class Billow extends ModuleBase {
         return this.seed;
     }
 
+    public int getXPeriod() {
+        return this.xPeriod;
+    }
+
+    public int getYPeriod() {
+        return this.yPeriod;
+    }
+
+    public int getZPeriod() {
+        return this.zPeriod;
+    }
+
+    public boolean isPeriodic() {
+        return this.xPeriod != 0 || this.yPeriod != 0 || this.zPeriod != 0;
+    }
+
     public void setFrequency(double frequency) {
         this.frequency = frequency;
     }
@@ -186,4 +432,19 @@ public class Billow extends ModuleBase {
     public void setSeed(int seed) {
         this.seed = seed;
     }
+
+    /**
+     * Sets the periods of the billowy noise, in cells of the first octave. A
+     * period of zero leaves that axis unbounded. See Perlin.setPeriod().
+     * 
+     * @throws IllegalArgumentException if a period is negative.
+     */
+    public void setPeriod(int xPeriod, int yPeriod, int zPeriod) {
+        if (xPeriod < 0 || yPeriod < 0 || zPeriod < 0) {
+            throw new IllegalArgumentException("Invalid Parameter in Billow");
+        }
+        this.xPeriod = xPeriod;
+        this.yPeriod = yPeriod;
+        this.zPeriod = zPeriod;
+    }
 }
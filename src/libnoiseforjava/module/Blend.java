@@ -28,6 +28,7 @@
 package libnoiseforjava.module;
 
 import libnoiseforjava.Interp;
+import libnoiseforjava.ScratchArrays;
 
 /**
  * Noise module that outputs a weighted blend of the output values from two
@@ -73,6 +74,11 @@ public class Blend extends ModuleBase {
         setSourceModule(2, sourceModuleThree);
     }
 
+    @Override
+    public boolean repeatsOver(double xExtent, double zExtent) {
+        return sourcesRepeatOver(xExtent, zExtent);
+    }
+
     @Override
     public double getValue(double x, double y, double z) {
         assert (this.sourceModules[0] != null);
@@ -85,4 +91,27 @@ public class Blend extends ModuleBase {
 
         return Interp.lerp(v0, v1, alpha);
     }
+
+    @Override
+    public void getValues(double[] xs, double[] ys, double[] zs, double[] out, int offset, int count) {
+        assert (this.sourceModules[0] != null);
+        assert (this.sourceModules[1] != null);
+        assert (this.sourceModules[2] != null);
+
+        ScratchArrays scratch = ScratchArrays.get();
+        int mark = scratch.mark();
+        try {
+            double[] v1 = scratch.doubles(offset + count);
+            double[] control = scratch.doubles(offset + count);
+            this.sourceModules[0].getValues(xs, ys, zs, out, offset, count);
+            this.sourceModules[1].getValues(xs, ys, zs, v1, offset, count);
+            this.sourceModules[2].getValues(xs, ys, zs, control, offset, count);
+            for (int i = offset; i < offset + count; i++) {
+                double alpha = (control[i] + 1.0) / 2.0;
+                out[i] = Interp.lerp(out[i], v1[i], alpha);
+            }
+        } finally {
+            scratch.release(mark);
+        }
+    }
 }
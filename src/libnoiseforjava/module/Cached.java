@@ -54,6 +54,10 @@ package libnoiseforjava.module;
  * in which it is included.
  * 
  * <p>
+ * This noise module only remembers the last input value. If the input values
+ * alternate, use HashCached instead.
+ * 
+ * <p>
  * This noise module requires one source module.
  * 
  * @see <a
@@ -92,6 +96,11 @@ public class Cached extends ModuleBase {
         this.isCached = false;
     }
 
+    @Override
+    public boolean repeatsOver(double xExtent, double zExtent) {
+        return sourcesRepeatOver(xExtent, zExtent);
+    }
+
     @Override
     public double getValue(double x, double y, double z) {
         assert (this.sourceModules[0] != null);
@@ -107,4 +116,24 @@ public class Cached extends ModuleBase {
 
         return this.cachedValue;
     }
+
+    @Override
+    public void getValues(double[] xs, double[] ys, double[] zs, double[] out, int offset, int count) {
+        assert (this.sourceModules[0] != null);
+
+        if (count <= 0) {
+            return;
+        }
+
+        this.sourceModules[0].getValues(xs, ys, zs, out, offset, count);
+
+        // Leave the cache holding the last input value, as if getValue() had
+        // been called for every input value in turn.
+        int last = offset + count - 1;
+        this.cachedValue = out[last];
+        this.xCache = xs[last];
+        this.yCache = ys[last];
+        this.zCache = zs[last];
+        this.isCached = true;
+    }
 }
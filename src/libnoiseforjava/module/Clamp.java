@@ -76,6 +76,11 @@ public class Clamp extends ModuleBase {
         this.upperBound = DEFAULT_CLAMP_UPPER_BOUND;
     }
 
+    @Override
+    public boolean repeatsOver(double xExtent, double zExtent) {
+        return sourcesRepeatOver(xExtent, zExtent);
+    }
+
     @Override
     public double getValue(double x, double y, double z) {
         assert (this.sourceModules[0] != null);
@@ -90,6 +95,21 @@ public class Clamp extends ModuleBase {
         }
     }
 
+    @Override
+    public void getValues(double[] xs, double[] ys, double[] zs, double[] out, int offset, int count) {
+        assert (this.sourceModules[0] != null);
+
+        this.sourceModules[0].getValues(xs, ys, zs, out, offset, count);
+        for (int i = offset; i < offset + count; i++) {
+            double value = out[i];
+            if (value < this.lowerBound) {
+                out[i] = this.lowerBound;
+            } else if (value > this.upperBound) {
+                out[i] = this.upperBound;
+            }
+        }
+    }
+
     public void setBounds(double lowerBound, double upperBound) {
         assert (lowerBound < upperBound);
 
@@ -60,11 +60,31 @@ public class Const extends ModuleBase {
         this.constValue = DEFAULT_CONST_VALUE;
     }
 
+    @Override
+    public boolean repeatsOver(double xExtent, double zExtent) {
+        return true;
+    }
+
     @Override
     public double getValue(double x, double y, double z) {
         return this.constValue;
     }
 
+    @Override
+    public void getValues(double[] xs, double[] ys, double[] zs, double[] out, int offset, int count) {
+        for (int i = offset; i < offset + count; i++) {
+            out[i] = this.constValue;
+        }
+    }
+
+    @Override
+    public void getValues(float[] xs, float[] ys, float[] zs, float[] out, int offset, int count) {
+        float constValue = (float) this.constValue;
+        for (int i = offset; i < offset + count; i++) {
+            out[i] = constValue;
+        }
+    }
+
     /**
      * Sets the constant output value for this noise module.
      *
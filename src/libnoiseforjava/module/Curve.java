@@ -105,6 +105,11 @@ public class Curve extends ModuleBase {
         return insertionPos;
     }
 
+    @Override
+    public boolean repeatsOver(double xExtent, double zExtent) {
+        return sourcesRepeatOver(xExtent, zExtent);
+    }
+
     @Override
     public double getValue(double x, double y, double z) {
         assert (this.sourceModules[0] != null);
@@ -113,6 +118,28 @@ public class Curve extends ModuleBase {
         // Get the output value from the source module.
         double sourceModuleValue = this.sourceModules[0].getValue(x, y, z);
 
+        return mapValue(sourceModuleValue);
+    }
+
+    @Override
+    public void getValues(double[] xs, double[] ys, double[] zs, double[] out, int offset, int count) {
+        assert (this.sourceModules[0] != null);
+        assert (this.controlPointCount >= 4);
+
+        this.sourceModules[0].getValues(xs, ys, zs, out, offset, count);
+        for (int i = offset; i < offset + count; i++) {
+            out[i] = mapValue(out[i]);
+        }
+    }
+
+    /**
+     * Maps an output value from the source module onto the curve.
+     *
+     * @param sourceModuleValue The output value from the source module.
+     *
+     * @return The output value of this noise module.
+     */
+    double mapValue(double sourceModuleValue) {
         // Find the first element in the control point array that has an input
         // value
         // larger than the output value from the source module.
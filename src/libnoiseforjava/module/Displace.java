@@ -27,6 +27,7 @@
 
 package libnoiseforjava.module;
 
+import libnoiseforjava.ScratchArrays;
 import libnoiseforjava.exception.ExceptionNoModule;
 
 /**
@@ -91,6 +92,33 @@ public class Displace extends ModuleBase {
         return this.sourceModules[0].getValue(xDisplace, yDisplace, zDisplace);
     }
 
+    @Override
+    public void getValues(double[] xs, double[] ys, double[] zs, double[] out, int offset, int count) {
+        assert (this.sourceModules[0] != null);
+        assert (this.sourceModules[1] != null);
+        assert (this.sourceModules[2] != null);
+        assert (this.sourceModules[3] != null);
+
+        ScratchArrays scratch = ScratchArrays.get();
+        int mark = scratch.mark();
+        try {
+            double[] xDisplace = scratch.doubles(offset + count);
+            double[] yDisplace = scratch.doubles(offset + count);
+            double[] zDisplace = scratch.doubles(offset + count);
+            this.sourceModules[1].getValues(xs, ys, zs, xDisplace, offset, count);
+            this.sourceModules[2].getValues(xs, ys, zs, yDisplace, offset, count);
+            this.sourceModules[3].getValues(xs, ys, zs, zDisplace, offset, count);
+            for (int i = offset; i < offset + count; i++) {
+                xDisplace[i] = xs[i] + xDisplace[i];
+                yDisplace[i] = ys[i] + yDisplace[i];
+                zDisplace[i] = zs[i] + zDisplace[i];
+            }
+            this.sourceModules[0].getValues(xDisplace, yDisplace, zDisplace, out, offset, count);
+        } finally {
+            scratch.release(mark);
+        }
+    }
+
     public ModuleBase getXDisplaceModule() throws ExceptionNoModule {
         if (this.sourceModules == null || this.sourceModules[1] == null) {
             throw new ExceptionNoModule("Could not retrieve a source module " + "from a noise module.");
@@ -27,6 +27,8 @@
 
 package libnoiseforjava.module;
 
+import libnoiseforjava.Seeding;
+
 /**
  * Noise module that maps the output value from a source module onto an
  * exponential curve.
@@ -64,12 +66,27 @@ public class Exponent extends ModuleBase {
         this.exponent = DEFAULT_EXPONENT;
     }
 
+    @Override
+    public boolean repeatsOver(double xExtent, double zExtent) {
+        return sourcesRepeatOver(xExtent, zExtent);
+    }
+
     @Override
     public double getValue(double x, double y, double z) {
         assert (this.sourceModules[0] != null);
 
         double value = this.sourceModules[0].getValue(x, y, z);
-        return (Math.pow(Math.abs((value + 1.0) / 2.0), this.exponent) * 2.0 - 1.0);
+        return (Seeding.pow(Math.abs((value + 1.0) / 2.0), this.exponent) * 2.0 - 1.0);
+    }
+
+    @Override
+    public void getValues(double[] xs, double[] ys, double[] zs, double[] out, int offset, int count) {
+        assert (this.sourceModules[0] != null);
+
+        this.sourceModules[0].getValues(xs, ys, zs, out, offset, count);
+        for (int i = offset; i < offset + count; i++) {
+            out[i] = (Seeding.pow(Math.abs((out[i] + 1.0) / 2.0), this.exponent) * 2.0 - 1.0);
+        }
     }
 
     /**
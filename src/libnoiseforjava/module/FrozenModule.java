@@ -0,0 +1,253 @@
+/*******************************************************************************
+ *  Copyright (c) 2003, 2004 Jason Bevins (original libnoise code)
+ *  Copyright (c) 2010 Thomas J. Hodge (java port of libnoise)
+ *  Copyright (c) Nick Whitney ( changed noisegen to perlin basis. added javadoc)
+ *  
+ *  This file is part of libnoiseforjava.
+ *  
+ *  libnoiseforjava is a Java port of the C++ library libnoise, which may be
+ *  found at http://libnoise.sourceforge.net/. libnoise was developed by Jason
+ *  Bevins, who may be contacted at jlbezigvins@gmzigail.com (for great email,
+ *  take off every 'zig'). Porting to Java was done by Thomas Hodge, who may be
+ *  contacted at libnoisezagforjava@gzagmail.com (remove every 'zag').
+ *  
+ *  libnoiseforjava is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the Free
+ *  Software Foundation, either version 3 of the License, or (at your option) any
+ *  later version.
+ *  
+ *  libnoiseforjava is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ *  details.
+ *  
+ *  You should have received a copy of the GNU General Public License along with
+ *  libnoiseforjava. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+
+package libnoiseforjava.module;
+
+/**
+ * Noise module that evaluates a frozen copy of a module graph.
+ * <p>
+ * An application obtains a frozen module by calling the freeze() method of the
+ * root of a fully configured module graph. The frozen module copies every
+ * module in the graph, so later changes to the original modules, including
+ * calls to setSourceModule() or to the build() methods of the generators, do
+ * not affect it. The copies are never handed out: this module has no source
+ * modules and cannot be given any.
+ * <p>
+ * A frozen module can be shared freely between threads. The copies are
+ * published through a final field, and every piece of state a noise module
+ * changes while generating values is either kept separately for each thread
+ * or updated atomically: every Cached module in the graph is replaced by a
+ * cache that keeps a separate entry for each thread, Voronoi and
+ * SimplexVoronoi keep their seed points per thread, the caches that compile()
+ * places above shared modules are per thread, and HashCached swaps immutable
+ * entries into an atomic array. Hit and reuse counters are atomic. No noise
+ * module locks while generating values.
+ * <p>
+ * Modules in a shared sub-graph stay shared in the copy; a module that feeds
+ * two other modules is copied once.
+ * <p>
+ * A frozen module obtained from compile() additionally has its chains of
+ * per-value modifiers and coordinate transformers fused into single modules,
+ * and evaluates each shared module once per input value or batch; see
+ * ModuleBase.compile(). The getSharedModuleCount() and getReusedValueCount()
+ * methods report what the latter saves.
+ * <p>
+ * Noise modules defined outside this library are copied field by field. They
+ * must not keep state between calls to getValue(), and any module references
+ * they hold outside of the source module array are not copied.
+ * <p>
+ * This noise module does not require any source modules.
+ */
+public final class FrozenModule extends ModuleBase {
+
+    /**
+     * The root of the copied module graph.
+     */
+    private final ModuleBase root;
+
+    /**
+     * The caches that compile() placed above shared modules.
+     */
+    private final SharedModuleCache[] sharedModuleCaches;
+
+    FrozenModule(ModuleBase module, boolean optimize) {
+        super(0);
+        ModuleCompiler compiler = new ModuleCompiler(optimize);
+        this.root = compiler.compile(module);
+        this.sharedModuleCaches = compiler.getSharedModuleCaches();
+    }
+
+    /**
+     * Returns this module; a frozen module is already frozen.
+     */
+    @Override
+    public FrozenModule freeze() {
+        return this;
+    }
+
+    /**
+     * Returns a frozen module that evaluates a fused copy of this module's
+     * graph.
+     */
+    @Override
+    public FrozenModule compile() {
+        return new FrozenModule(this.root, true);
+    }
+
+    /**
+     * Returns the number of modules in the graph that are used by more than one
+     * module and that compile() arranged to evaluate only once per input
+     * value or batch.
+     *
+     * @return The number of shared modules; always 0 for a module returned by
+     *         freeze().
+     */
+    public int getSharedModuleCount() {
+        return this.sharedModuleCaches.length;
+    }
+
+    /**
+     * Returns the number of output values of shared modules that were reused
+     * instead of calculated again, since this module was created or the count
+     * was last reset.
+     * <p>
+     * Each reused output value is one redundant evaluation of a shared
+     * sub-graph that compile() removed.
+     *
+     * @return The number of redundant evaluations removed.
+     */
+    public long getReusedValueCount() {
+        long count = 0;
+        for (SharedModuleCache cache : this.sharedModuleCaches) {
+            count += cache.getReusedCount();
+        }
+        return count;
+    }
+
+    /**
+     * Sets the number of reused output values back to zero.
+     */
+    public void resetReusedValueCount() {
+        for (SharedModuleCache cache : this.sharedModuleCaches) {
+            cache.resetReusedCount();
+        }
+    }
+
+    @Override
+    public boolean repeatsOver(double xExtent, double zExtent) {
+        return this.root.repeatsOver(xExtent, zExtent);
+    }
+
+    @Override
+    public double getValue(double x, double y, double z) {
+        return this.root.getValue(x, y, z);
+    }
+
+    @Override
+    public double getValueAndGradient(double x, double y, double z, double[] gradient) {
+        return this.root.getValueAndGradient(x, y, z, gradient);
+    }
+
+    @Override
+    public void getValues(double[] xs, double[] ys, double[] zs, double[] out, int offset, int count) {
+        this.root.getValues(xs, ys, zs, out, offset, count);
+    }
+
+    @Override
+    public void getValues(float[] xs, float[] ys, float[] zs, float[] out, int offset, int count) {
+        this.root.getValues(xs, ys, zs, out, offset, count);
+    }
+
+    @Override
+    public double getValue2D(double x, double z) {
+        return this.root.getValue2D(x, z);
+    }
+
+    @Override
+    public void getValues2D(double[] xs, double[] zs, double[] out, int offset, int count) {
+        this.root.getValues2D(xs, zs, out, offset, count);
+    }
+
+    /**
+     * Always throws; a frozen module has no source modules.
+     *
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public void setSourceModule(int index, ModuleBase sourceModule) {
+        throw new UnsupportedOperationException("A frozen module cannot be modified");
+    }
+
+    /**
+     * Replaces a Cached module in a frozen graph. It caches the last output
+     * value separately for each thread.
+     */
+    static final class ThreadCached extends ModuleBase {
+
+        /**
+         * The last input and output values of one thread.
+         */
+        private static final class Entry {
+            boolean isCached;
+            double xCache;
+            double yCache;
+            double zCache;
+            double cachedValue;
+        }
+
+        private final ThreadLocal<Entry> entries = new ThreadLocal<Entry>() {
+            @Override
+            protected Entry initialValue() {
+                return new Entry();
+            }
+        };
+
+        ThreadCached() {
+            super(1);
+        }
+
+        @Override
+        public boolean repeatsOver(double xExtent, double zExtent) {
+            return sourcesRepeatOver(xExtent, zExtent);
+        }
+
+        @Override
+        public double getValue(double x, double y, double z) {
+            assert (this.sourceModules[0] != null);
+
+            Entry entry = this.entries.get();
+            if (!(entry.isCached && x == entry.xCache && y == entry.yCache && z == entry.zCache)) {
+                entry.cachedValue = this.sourceModules[0].getValue(x, y, z);
+                entry.xCache = x;
+                entry.yCache = y;
+                entry.zCache = z;
+                entry.isCached = true;
+            }
+
+            return entry.cachedValue;
+        }
+
+        @Override
+        public void getValues(double[] xs, double[] ys, double[] zs, double[] out, int offset, int count) {
+            assert (this.sourceModules[0] != null);
+
+            if (count <= 0) {
+                return;
+            }
+
+            this.sourceModules[0].getValues(xs, ys, zs, out, offset, count);
+
+            Entry entry = this.entries.get();
+            int last = offset + count - 1;
+            entry.cachedValue = out[last];
+            entry.xCache = xs[last];
+            entry.yCache = ys[last];
+            entry.zCache = zs[last];
+            entry.isCached = true;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*******************************************************************************
+ *  Copyright (c) 2003, 2004 Jason Bevins (original libnoise code)
+ *  Copyright (c) 2010 Thomas J. Hodge (java port of libnoise)
+ *  Copyright (c) Nick Whitney ( changed noisegen to perlin basis. added javadoc)
+ *  
+ *  This file is part of libnoiseforjava.
+ *  
+ *  libnoiseforjava is a Java port of the C++ library libnoise, which may be
+ *  found at http://libnoise.sourceforge.net/. libnoise was developed by Jason
+ *  Bevins, who may be contacted at jlbezigvins@gmzigail.com (for great email,
+ *  take off every 'zig'). Porting to Java was done by Thomas Hodge, who may be
+ *  contacted at libnoisezagforjava@gzagmail.com (remove every 'zag').
+ *  
+ *  libnoiseforjava is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the Free
+ *  Software Foundation, either version 3 of the License, or (at your option) any
+ *  later version.
+ *  
+ *  libnoiseforjava is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ *  details.
+ *  
+ *  You should have received a copy of the GNU General Public License along with
+ *  libnoiseforjava. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+
+package libnoiseforjava.module;
+
+import libnoiseforjava.ScratchArrays;
+import libnoiseforjava.Seeding;
+
+/**
+ * Noise module that applies a fused chain of per-value modifiers to the output
+ * value of a source module.
+ * <p>
+ * Created by ModuleBase.compile() in place of a chain of Abs, Clamp,
+ * Exponent, Invert, Power and ScaleBias modules. Each operation repeats the
+ * arithmetic of the module it replaces, in the same order, so the output
+ * values are identical to those of the chain.
+ * <p>
+ * Source module 0 is the module below the chain. Each Power operation takes
+ * its exponent from the source module given by its operand index.
+ */
+final class FusedModifiers extends ModuleBase {
+
+    static final int ABS = 0;
+    static final int CLAMP = 1;
+    static final int EXPONENT = 2;
+    static final int INVERT = 3;
+    static final int POWER = 4;
+    static final int SCALE_BIAS = 5;
+
+    /**
+     * The operations, innermost first.
+     */
+    private final int[] operations;
+
+    /**
+     * The lower bound of a clamp, the exponent of an exponent, or the scale of
+     * a scale-and-bias operation.
+     */
+    private final double[] firstParameters;
+
+    /**
+     * The upper bound of a clamp or the bias of a scale-and-bias operation.
+     */
+    private final double[] secondParameters;
+
+    /**
+     * The index of the source module that supplies the exponent of a power
+     * operation.
+     */
+    private final int[] operands;
+
+    FusedModifiers(int[] operations, double[] firstParameters, double[] secondParameters, int[] operands) {
+        super(0);
+        this.operations = operations;
+        this.firstParameters = firstParameters;
+        this.secondParameters = secondParameters;
+        this.operands = operands;
+    }
+
+    @Override
+    public boolean repeatsOver(double xExtent, double zExtent) {
+        return sourcesRepeatOver(xExtent, zExtent);
+    }
+
+    @Override
+    public double getValue(double x, double y, double z) {
+        assert (this.sourceModules[0] != null);
+
+        double value = this.sourceModules[0].getValue(x, y, z);
+        for (int i = 0; i < this.operations.length; i++) {
+            switch (this.operations[i]) {
+            case ABS:
+                value = Math.abs(value);
+                break;
+            case CLAMP:
+                if (value < this.firstParameters[i]) {
+                    value = this.firstParameters[i];
+                } else if (value > this.secondParameters[i]) {
+                    value = this.secondParameters[i];
+                }
+                break;
+            case EXPONENT:
+                value = (Seeding.pow(Math.abs((value + 1.0) / 2.0), this.firstParameters[i]) * 2.0 - 1.0);
+                break;
+            case INVERT:
+                value = -value;
+                break;
+            case POWER:
+                value = Seeding.pow(value, this.sourceModules[this.operands[i]].getValue(x, y, z));
+                break;
+            default:
+                value = value * this.firstParameters[i] + this.secondParameters[i];
+                break;
+            }
+        }
+
+        return value;
+    }
+
+    @Override
+    public void getValues(double[] xs, double[] ys, double[] zs, double[] out, int offset, int count) {
+        assert (this.sourceModules[0] != null);
+
+        int end = offset + count;
+        this.sourceModules[0].getValues(xs, ys, zs, out, offset, count);
+
+        // One pass over the batch per operation, so that each loop does one
+        // kind of work.
+        ScratchArrays scratch = ScratchArrays.get();
+        int mark = scratch.mark();
+        try {
+            double[] exponents = null;
+            for (int op = 0; op < this.operations.length; op++) {
+                double first = this.firstParameters[op];
+                double second = this.secondParameters[op];
+                switch (this.operations[op]) {
+                case ABS:
+                    for (int i = offset; i < end; i++) {
+                        out[i] = Math.abs(out[i]);
+                    }
+                    break;
+                case CLAMP:
+                    for (int i = offset; i < end; i++) {
+                        double value = out[i];
+                        if (value < first) {
+                            out[i] = first;
+                        } else if (value > second) {
+                            out[i] = second;
+                        }
+                    }
+                    break;
+                case EXPONENT:
+                    for (int i = offset; i < end; i++) {
+                        out[i] = (Seeding.pow(Math.abs((out[i] + 1.0) / 2.0), first) * 2.0 - 1.0);
+                    }
+                    break;
+                case INVERT:
+                    for (int i = offset; i < end; i++) {
+                        out[i] = -out[i];
+                    }
+                    break;
+                case POWER:
+                    if (exponents == null) {
+                        exponents = scratch.doubles(end);
+                    }
+                    this.sourceModules[this.operands[op]].getValues(xs, ys, zs, exponents, offset, count);
+                    for (int i = offset; i < end; i++) {
+                        out[i] = Seeding.pow(out[i], exponents[i]);
+                    }
+                    break;
+                default:
+                    for (int i = offset; i < end; i++) {
+                        out[i] = out[i] * first + second;
+                    }
+                    break;
+                }
+            }
+        } finally {
+            scratch.release(mark);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*******************************************************************************
+ *  Copyright (c) 2003, 2004 Jason Bevins (original libnoise code)
+ *  Copyright (c) 2010 Thomas J. Hodge (java port of libnoise)
+ *  Copyright (c) Nick Whitney ( changed noisegen to perlin basis. added javadoc)
+ *  
+ *  This file is part of libnoiseforjava.
+ *  
+ *  libnoiseforjava is a Java port of the C++ library libnoise, which may be
+ *  found at http://libnoise.sourceforge.net/. libnoise was developed by Jason
+ *  Bevins, who may be contacted at jlbezigvins@gmzigail.com (for great email,
+ *  take off every 'zig'). Porting to Java was done by Thomas Hodge, who may be
+ *  contacted at libnoisezagforjava@gzagmail.com (remove every 'zag').
+ *  
+ *  libnoiseforjava is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the Free
+ *  Software Foundation, either version 3 of the License, or (at your option) any
+ *  later version.
+ *  
+ *  libnoiseforjava is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ *  details.
+ *  
+ *  You should have received a copy of the GNU General Public License along with
+ *  libnoiseforjava. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+
+package libnoiseforjava.module;
+
+import libnoiseforjava.ScratchArrays;
+
+/**
+ * Noise module that applies a fused chain of coordinate transformations to the
+ * input value before passing it to a source module.
+ * <p>
+ * Created by ModuleBase.compile() in place of a chain of RotatePoint,
+ * ScalePoint and TranslatePoint modules. The transformations are applied one
+ * after another, outermost first, exactly as the chain applies them; they are
+ * not combined into a single matrix, which would round differently.
+ * <p>
+ * This noise module requires one source module.
+ */
+final class FusedTransforms extends ModuleBase {
+
+    static final int ROTATE = 0;
+    static final int SCALE = 1;
+    static final int TRANSLATE = 2;
+
+    /**
+     * The transformations, outermost first.
+     */
+    private final int[] operations;
+
+    /**
+     * The parameters of each transformation: the nine entries of the rotation
+     * matrix, row by row, or the three scaling factors or translations.
+     */
+    private final double[][] parameters;
+
+    FusedTransforms(int[] operations, double[][] parameters) {
+        super(0);
+        this.operations = operations;
+        this.parameters = parameters;
+    }
+
+    @Override
+    public boolean repeatsOver(double xExtent, double zExtent) {
+        assert (this.sourceModules[0] != null);
+
+        for (int i = 0; i < this.operations.length; i++) {
+            double[] p = this.parameters[i];
+            switch (this.operations[i]) {
+            case ROTATE:
+                return false;
+            case SCALE:
+                xExtent = Math.abs(xExtent * p[0]);
+                zExtent = Math.abs(zExtent * p[2]);
+                break;
+            default:
+                break;
+            }
+        }
+
+        return this.sourceModules[0].repeatsOver(xExtent, zExtent);
+    }
+
+    @Override
+    public double getValue(double x, double y, double z) {
+        assert (this.sourceModules[0] != null);
+
+        for (int i = 0; i < this.operations.length; i++) {
+            double[] p = this.parameters[i];
+            switch (this.operations[i]) {
+            case ROTATE:
+                double nx = (p[0] * x) + (p[1] * y) + (p[2] * z);
+                double ny = (p[3] * x) + (p[4] * y) + (p[5] * z);
+                double nz = (p[6] * x) + (p[7] * y) + (p[8] * z);
+                x = nx;
+                y = ny;
+                z = nz;
+                break;
+            case SCALE:
+                x = x * p[0];
+                y = y * p[1];
+                z = z * p[2];
+                break;
+            default:
+                x = x + p[0];
+                y = y + p[1];
+                z = z + p[2];
+                break;
+            }
+        }
+
+        return this.sourceModules[0].getValue(x, y, z);
+    }
+
+    @Override
+    public void getValues(double[] xs, double[] ys, double[] zs, double[] out, int offset, int count) {
+        assert (this.sourceModules[0] != null);
+
+        int end = offset + count;
+        ScratchArrays scratch = ScratchArrays.get();
+        int mark = scratch.mark();
+        try {
+            double[] tx = scratch.doubles(end);
+            double[] ty = scratch.doubles(end);
+            double[] tz = scratch.doubles(end);
+            System.arraycopy(xs, offset, tx, offset, count);
+            System.arraycopy(ys, offset, ty, offset, count);
+            System.arraycopy(zs, offset, tz, offset, count);
+
+            for (int op = 0; op < this.operations.length; op++) {
+                double[] p = this.parameters[op];
+                switch (this.operations[op]) {
+                case ROTATE:
+                    for (int i = offset; i < end; i++) {
+                        double x = tx[i];
+                        double y = ty[i];
+                        double z = tz[i];
+                        tx[i] = (p[0] * x) + (p[1] * y) + (p[2] * z);
+                        ty[i] = (p[3] * x) + (p[4] * y) + (p[5] * z);
+                        tz[i] = (p[6] * x) + (p[7] * y) + (p[8] * z);
+                    }
+                    break;
+                case SCALE:
+                    for (int i = offset; i < end; i++) {
+                        tx[i] = tx[i] * p[0];
+                        ty[i] = ty[i] * p[1];
+                        tz[i] = tz[i] * p[2];
+                    }
+                    break;
+                default:
+                    for (int i = offset; i < end; i++) {
+                        tx[i] = tx[i] + p[0];
+                        ty[i] = ty[i] + p[1];
+                        tz[i] = tz[i] + p[2];
+                    }
+                    break;
+                }
+            }
+
+            this.sourceModules[0].getValues(tx, ty, tz, out, offset, count);
+        } finally {
+            scratch.release(mark);
+        }
+    }
+}
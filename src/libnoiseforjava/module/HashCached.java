@@ -0,0 +1,279 @@
+/*******************************************************************************
+ *  Copyright (c) 2003, 2004 Jason Bevins (original libnoise code)
+ *  Copyright (c) 2010 Thomas J. Hodge (java port of libnoise)
+ *  Copyright (c) Nick Whitney ( changed noisegen to perlin basis. added javadoc)
+ *  
+ *  This file is part of libnoiseforjava.
+ *  
+ *  libnoiseforjava is a Java port of the C++ library libnoise, which may be
+ *  found at http://libnoise.sourceforge.net/. libnoise was developed by Jason
+ *  Bevins, who may be contacted at jlbezigvins@gmzigail.com (for great email,
+ *  take off every 'zig'). Porting to Java was done by Thomas Hodge, who may be
+ *  contacted at libnoisezagforjava@gzagmail.com (remove every 'zag').
+ *  
+ *  libnoiseforjava is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the Free
+ *  Software Foundation, either version 3 of the License, or (at your option) any
+ *  later version.
+ *  
+ *  libnoiseforjava is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ *  details.
+ *  
+ *  You should have received a copy of the GNU General Public License along with
+ *  libnoiseforjava. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+
+package libnoiseforjava.module;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import libnoiseforjava.ScratchArrays;
+
+/**
+ * Noise module that caches recent output values generated by a source module.
+ * 
+ * <p>
+ * Cached remembers only the last input value, so it stops helping as soon as
+ * two input values alternate, for example when Select evaluates the same
+ * source module through several branches or when Displace re-enters a shared
+ * sub-graph. This noise module keeps a table of recent input values and
+ * their output values instead. The table has a fixed number of slots; each
+ * input value maps to one slot by a hash of its ( x, y, z ) coordinates, and
+ * a new value replaces whatever the slot held before.
+ * 
+ * <p>
+ * The table is lock-free. Each slot holds an immutable entry that is read and
+ * replaced atomically, so any number of threads may call getValue() at the
+ * same time. Two threads that miss on the same input value at the same time
+ * both ask the source module for it; the source module must therefore be
+ * safe to call from several threads.
+ * 
+ * <p>
+ * The getHitCount() and getMissCount() methods report how often an output
+ * value was found in the table, which shows whether the source module is
+ * worth caching.
+ * 
+ * <p>
+ * If an application passes a new source module to the setSourceModule() method,
+ * the cache is invalidated.
+ * 
+ * <p>
+ * This noise module requires one source module.
+ */
+public class HashCached extends ModuleBase {
+
+    /**
+     * Default number of slots in the cache.
+     */
+    public static final int DEFAULT_HASH_CACHED_CAPACITY = 1024;
+
+    /**
+     * An input value and the output value the source module returned for it.
+     */
+    static final class Entry {
+        final double x;
+        final double y;
+        final double z;
+        final double value;
+
+        Entry(double x, double y, double z, double value) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.value = value;
+        }
+    }
+
+    /**
+     * The cache slots; the number of slots is a power of two.
+     */
+    AtomicReferenceArray<Entry> entries;
+
+    /**
+     * The number of input values found in the cache.
+     */
+    LongAdder hits;
+
+    /**
+     * The number of input values passed on to the source module.
+     */
+    LongAdder misses;
+
+    public HashCached(ModuleBase sourceModule) throws IllegalArgumentException {
+        this(sourceModule, DEFAULT_HASH_CACHED_CAPACITY);
+    }
+
+    /**
+     * Creates a cache with at least the specified number of slots.
+     *
+     * @param sourceModule The source module.
+     * @param capacity The minimum number of slots; it is rounded up to a power
+     *            of two.
+     *
+     * @pre The capacity ranges from 1 to 2^30.
+     *
+     * @throws IllegalArgumentException See the preconditions.
+     */
+    public HashCached(ModuleBase sourceModule, int capacity) throws IllegalArgumentException {
+        super(1);
+        if (capacity < 1 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Invalid parameter in HashCached");
+        }
+
+        int slots = Integer.highestOneBit(capacity);
+        if (slots < capacity) {
+            slots <<= 1;
+        }
+
+        this.entries = new AtomicReferenceArray<Entry>(slots);
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        setSourceModule(0, sourceModule);
+    }
+
+    /**
+     * Discards every cached output value. The hit and miss counters are not
+     * changed.
+     */
+    public void clear() {
+        for (int i = 0; i < this.entries.length(); i++) {
+            this.entries.set(i, null);
+        }
+    }
+
+    /**
+     * Returns the number of slots in the cache.
+     *
+     * @return The number of slots.
+     */
+    public int getCapacity() {
+        return this.entries.length();
+    }
+
+    /**
+     * Returns the number of input values whose output value was found in the
+     * cache since the counters were last reset.
+     *
+     * @return The number of cache hits.
+     */
+    public long getHitCount() {
+        return this.hits.sum();
+    }
+
+    /**
+     * Returns the number of input values that had to be passed on to the
+     * source module since the counters were last reset.
+     *
+     * @return The number of cache misses.
+     */
+    public long getMissCount() {
+        return this.misses.sum();
+    }
+
+    /**
+     * Sets the hit and miss counters back to zero.
+     */
+    public void resetCounters() {
+        this.hits.reset();
+        this.misses.reset();
+    }
+
+    @Override
+    public boolean repeatsOver(double xExtent, double zExtent) {
+        return sourcesRepeatOver(xExtent, zExtent);
+    }
+
+    @Override
+    public double getValue(double x, double y, double z) {
+        assert (this.sourceModules[0] != null);
+
+        int slot = slotOf(x, y, z);
+        Entry entry = this.entries.get(slot);
+        if (entry != null && x == entry.x && y == entry.y && z == entry.z) {
+            this.hits.increment();
+            return entry.value;
+        }
+
+        this.misses.increment();
+        double value = this.sourceModules[0].getValue(x, y, z);
+        this.entries.set(slot, new Entry(x, y, z, value));
+        return value;
+    }
+
+    @Override
+    public void getValues(double[] xs, double[] ys, double[] zs, double[] out, int offset, int count) {
+        assert (this.sourceModules[0] != null);
+
+        int end = offset + count;
+        ScratchArrays scratch = ScratchArrays.get();
+        int mark = scratch.mark();
+        try {
+            boolean[] needed = scratch.booleans(end);
+            Arrays.fill(needed, offset, end, false);
+            int missCount = 0;
+            for (int i = offset; i < end; i++) {
+                Entry entry = this.entries.get(slotOf(xs[i], ys[i], zs[i]));
+                if (entry != null && xs[i] == entry.x && ys[i] == entry.y && zs[i] == entry.z) {
+                    out[i] = entry.value;
+                } else {
+                    needed[i] = true;
+                    missCount++;
+                }
+            }
+
+            this.hits.add(count - missCount);
+            this.misses.add(missCount);
+            if (missCount == 0) {
+                return;
+            }
+
+            // Evaluate the misses as one batch, then store them.
+            getValuesWhere(this.sourceModules[0], needed, xs, ys, zs, out, offset, count);
+            for (int i = offset; i < end; i++) {
+                if (needed[i]) {
+                    this.entries.set(slotOf(xs[i], ys[i], zs[i]), new Entry(xs[i], ys[i], zs[i], out[i]));
+                }
+            }
+        } finally {
+            scratch.release(mark);
+        }
+    }
+
+    @Override
+    public void setSourceModule(int index, ModuleBase sourceModule) throws IllegalArgumentException {
+        super.setSourceModule(index, sourceModule);
+        clear();
+    }
+
+    @Override
+    ModuleBase copyNode() {
+        // A frozen copy starts with an empty cache and its own counters.
+        HashCached copy = (HashCached) super.copyNode();
+        copy.entries = new AtomicReferenceArray<Entry>(this.entries.length());
+        copy.hits = new LongAdder();
+        copy.misses = new LongAdder();
+        return copy;
+    }
+
+    /**
+     * Returns the slot that an input value maps to.
+     */
+    int slotOf(double x, double y, double z) {
+        long hash = Double.doubleToLongBits(x) * 0x9E3779B97F4A7C15L;
+        hash += Double.doubleToLongBits(y) * 0xC2B2AE3D27D4EB4FL;
+        hash += Double.doubleToLongBits(z) * 0x165667B19E3779F9L;
+
+        // Mix the high bits, where coordinates differ the most, into the low
+        // bits used to pick the slot.
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return (int) hash & (this.entries.length() - 1);
+    }
+}
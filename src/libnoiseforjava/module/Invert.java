@@ -46,10 +46,25 @@ public class Invert extends ModuleBase {
         setSourceModule(0, sourceModule);
     }
 
+    @Override
+    public boolean repeatsOver(double xExtent, double zExtent) {
+        return sourcesRepeatOver(xExtent, zExtent);
+    }
+
     @Override
     public double getValue(double x, double y, double z) {
         assert (this.sourceModules[0] != null);
 
         return -(this.sourceModules[0].getValue(x, y, z));
     }
+
+    @Override
+    public void getValues(double[] xs, double[] ys, double[] zs, double[] out, int offset, int count) {
+        assert (this.sourceModules[0] != null);
+
+        this.sourceModules[0].getValues(xs, ys, zs, out, offset, count);
+        for (int i = offset; i < offset + count; i++) {
+            out[i] = -out[i];
+        }
+    }
 }
@@ -27,6 +27,8 @@
 
 package libnoiseforjava.module;
 
+import libnoiseforjava.ScratchArrays;
+
 /**
  * Noise module that outputs the larger of the two output values from two source
  * modules.
@@ -48,6 +50,11 @@ public class Max extends ModuleBase {
         setSourceModule(1, sourceModuleTwo);
     }
 
+    @Override
+    public boolean repeatsOver(double xExtent, double zExtent) {
+        return sourcesRepeatOver(xExtent, zExtent);
+    }
+
     @Override
     public double getValue(double x, double y, double z) {
         assert (this.sourceModules[0] != null);
@@ -57,4 +64,23 @@ public class Max extends ModuleBase {
         double v1 = this.sourceModules[1].getValue(x, y, z);
         return Math.max(v0, v1);
     }
+
+    @Override
+    public void getValues(double[] xs, double[] ys, double[] zs, double[] out, int offset, int count) {
+        assert (this.sourceModules[0] != null);
+        assert (this.sourceModules[1] != null);
+
+        ScratchArrays scratch = ScratchArrays.get();
+        int mark = scratch.mark();
+        try {
+            double[] values = scratch.doubles(offset + count);
+            this.sourceModules[0].getValues(xs, ys, zs, out, offset, count);
+            this.sourceModules[1].getValues(xs, ys, zs, values, offset, count);
+            for (int i = offset; i < offset + count; i++) {
+                out[i] = Math.max(out[i], values[i]);
+            }
+        } finally {
+            scratch.release(mark);
+        }
+    }
 }
@@ -27,6 +27,8 @@
 
 package libnoiseforjava.module;
 
+import libnoiseforjava.ScratchArrays;
+
 /**
  * Noise module that outputs the smaller of the two output values from two
  * source modules.
@@ -48,6 +50,11 @@ public class Min extends ModuleBase {
         setSourceModule(1, sourceModuleTwo);
     }
 
+    @Override
+    public boolean repeatsOver(double xExtent, double zExtent) {
+        return sourcesRepeatOver(xExtent, zExtent);
+    }
+
     @Override
     public double getValue(double x, double y, double z) {
         assert (this.sourceModules[0] != null);
@@ -58,4 +65,23 @@ public class Min extends ModuleBase {
         return Math.min(v0, v1);
     }
 
+    @Override
+    public void getValues(double[] xs, double[] ys, double[] zs, double[] out, int offset, int count) {
+        assert (this.sourceModules[0] != null);
+        assert (this.sourceModules[1] != null);
+
+        ScratchArrays scratch = ScratchArrays.get();
+        int mark = scratch.mark();
+        try {
+            double[] values = scratch.doubles(offset + count);
+            this.sourceModules[0].getValues(xs, ys, zs, out, offset, count);
+            this.sourceModules[1].getValues(xs, ys, zs, values, offset, count);
+            for (int i = offset; i < offset + count; i++) {
+                out[i] = Math.min(out[i], values[i]);
+            }
+        } finally {
+            scratch.release(mark);
+        }
+    }
+
 }
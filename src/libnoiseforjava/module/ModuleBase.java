@@ -27,9 +27,18 @@
 
 package libnoiseforjava.module;
 
+import java.util.Arrays;
+
+import libnoiseforjava.ScratchArrays;
 import libnoiseforjava.exception.ExceptionNoModule;
 
-public class ModuleBase {
+public class ModuleBase implements Cloneable {
+
+    /**
+     * The distance between the input values that the base implementation of
+     * getValueAndGradient() takes differences over.
+     */
+    static final double DERIVATIVE_STEP = 1.0e-4;
 
     /**
      * base class for noise modules.
@@ -119,6 +128,353 @@ public class ModuleBase {
         return x;
     }
 
+    /**
+     * Generates an output value and its gradient given the coordinates of the
+     * specified input value.
+     * <p>
+     * The returned value is identical to the value getValue() returns for the
+     * same input value. The base implementation estimates the gradient from
+     * central differences, which costs six more calls to getValue(). The
+     * Perlin, Billow, RidgedMulti and Simplex modules override this method to
+     * calculate the exact gradient in the same pass as the value.
+     *
+     * @param x The @a x coordinate of the input value.
+     * @param y The @a y coordinate of the input value.
+     * @param z The @a z coordinate of the input value.
+     * @param gradient The array that receives the partial derivatives of the
+     *            output value with respect to @a x, @a y and @a z, in that
+     *            order.
+     *
+     * @return The output value.
+     *
+     * @pre All source modules required by this noise module have been passed to
+     *      the setSourceModule() method.
+     */
+    public double getValueAndGradient(double x, double y, double z, double[] gradient) {
+        double h = DERIVATIVE_STEP;
+        gradient[0] = (getValue(x + h, y, z) - getValue(x - h, y, z)) / (2.0 * h);
+        gradient[1] = (getValue(x, y + h, z) - getValue(x, y - h, z)) / (2.0 * h);
+        gradient[2] = (getValue(x, y, z + h) - getValue(x, y, z - h)) / (2.0 * h);
+        return getValue(x, y, z);
+    }
+
+    /**
+     * Generates output values for a batch of input values.
+     *
+     * <p>
+     * The input value at index <i>i</i> is ( @a xs[i], @a ys[i], @a zs[i] ) and
+     * its output value is written to @a out[i], for every index from @a offset
+     * to @a offset + @a count - 1. Every output value is identical to the value
+     * getValue() returns for the same input value.
+     *
+     * <p>
+     * The base implementation calls getValue() once per input value. Noise
+     * modules override this method to evaluate the whole batch with one call
+     * per source module, which removes most of the per-sample dispatch cost
+     * when filling large noise maps.
+     *
+     * @param xs The @a x coordinates of the input values.
+     * @param ys The @a y coordinates of the input values.
+     * @param zs The @a z coordinates of the input values.
+     * @param out The array that receives the output values.
+     * @param offset The index of the first input value.
+     * @param count The number of input values.
+     *
+     * @pre All source modules required by this noise module have been passed to
+     *      the setSourceModule() method.
+     * @pre The output array is not one of the coordinate arrays.
+     */
+    public void getValues(double[] xs, double[] ys, double[] zs, double[] out, int offset, int count) {
+        int end = offset + count;
+        for (int i = offset; i < end; i++) {
+            out[i] = getValue(xs[i], ys[i], zs[i]);
+        }
+    }
+
+    /**
+     * Generates an output value for an input value on the ( @a x, @a z )
+     * plane.
+     *
+     * <p>
+     * The output value is equal to the value getValue() returns for the input
+     * value ( @a x, 0, @a z ). The base implementation calls getValue(); noise
+     * modules whose basis functions have a cheaper two-dimensional form, such
+     * as Perlin, override this method to use it. A Simplex module with
+     * two-dimensional noise enabled ignores the y coordinate, so this method
+     * evaluates its two-dimensional basis.
+     *
+     * @param x The @a x coordinate of the input value.
+     * @param z The @a z coordinate of the input value.
+     *
+     * @return The output value.
+     *
+     * @pre All source modules required by this noise module have been passed to
+     *      the setSourceModule() method.
+     */
+    public double getValue2D(double x, double z) {
+        return getValue(x, 0.0, z);
+    }
+
+    /**
+     * Generates output values for a batch of input values on the ( @a x,
+     * @a z ) plane.
+     *
+     * <p>
+     * The input value at index <i>i</i> is ( @a xs[i], 0, @a zs[i] ) and its
+     * output value is written to @a out[i], for every index from @a offset to
+     * @a offset + @a count - 1. The base implementation calls getValues() with
+     * y coordinates of zero.
+     *
+     * @param xs The @a x coordinates of the input values.
+     * @param zs The @a z coordinates of the input values.
+     * @param out The array that receives the output values.
+     * @param offset The index of the first input value.
+     * @param count The number of input values.
+     *
+     * @pre All source modules required by this noise module have been passed to
+     *      the setSourceModule() method.
+     * @pre The output array is not one of the coordinate arrays.
+     */
+    public void getValues2D(double[] xs, double[] zs, double[] out, int offset, int count) {
+        ScratchArrays scratch = ScratchArrays.get();
+        int mark = scratch.mark();
+        try {
+            double[] ys = scratch.doubles(offset + count);
+            Arrays.fill(ys, offset, offset + count, 0.0);
+            getValues(xs, ys, zs, out, offset, count);
+        } finally {
+            scratch.release(mark);
+        }
+    }
+
+    /**
+     * Generates output values for a batch of input values in single
+     * precision.
+     * <p>
+     * This is the float form of getValues(double[], double[], double[],
+     * double[], int, int). It reads and writes half as much memory, which
+     * makes it a good fit for noise maps that end up as 8-bit or 16-bit data.
+     * <p>
+     * The base implementation widens the input values to double, calls the
+     * double form and rounds each output value to the nearest float, so its
+     * only error is that rounding. The Perlin, Billow and Simplex modules,
+     * and the Add, Const, Multiply and ScaleBias modules that combine them,
+     * override this method to compute in float throughout.
+     * <p>
+     * With the default lacunarity and persistence and up to eight octaves, the
+     * float output values of Perlin, Billow and Simplex modules differ from
+     * the double output values by at most
+     * <p>
+     * 1.0e-5 + 1.0e-6 * <i>r</i>
+     * <p>
+     * where <i>r</i> is the largest absolute input coordinate. The first term
+     * is the rounding error of the float arithmetic. The second comes from
+     * rounding the input coordinates to float, whose spacing grows with their
+     * magnitude. At <i>r</i> = 1000 the bound is about 1.0e-3, well below the
+     * step of 8-bit output over the range -1 to +1. The bound stays below the
+     * step of 16-bit output only for input coordinates within about 20 of the
+     * origin; use the double form for 16-bit output beyond that.
+     *
+     * @param xs The @a x coordinates of the input values.
+     * @param ys The @a y coordinates of the input values.
+     * @param zs The @a z coordinates of the input values.
+     * @param out The array that receives the output values.
+     * @param offset The index of the first input value.
+     * @param count The number of input values.
+     *
+     * @pre All source modules required by this noise module have been passed to
+     *      the setSourceModule() method.
+     * @pre The output array is not one of the coordinate arrays.
+     */
+    public void getValues(float[] xs, float[] ys, float[] zs, float[] out, int offset, int count) {
+        ScratchArrays scratch = ScratchArrays.get();
+        int mark = scratch.mark();
+        try {
+            double[] dxs = scratch.doubles(count);
+            double[] dys = scratch.doubles(count);
+            double[] dzs = scratch.doubles(count);
+            double[] values = scratch.doubles(count);
+            for (int j = 0; j < count; j++) {
+                dxs[j] = xs[offset + j];
+                dys[j] = ys[offset + j];
+                dzs[j] = zs[offset + j];
+            }
+
+            getValues(dxs, dys, dzs, values, 0, count);
+
+            for (int j = 0; j < count; j++) {
+                out[offset + j] = (float) values[j];
+            }
+        } finally {
+            scratch.release(mark);
+        }
+    }
+
+    /**
+     * Determines if the output of this noise module repeats over the
+     * specified extents along the @a x and @a z axes.
+     * <p>
+     * If this method returns true, the output value for the input value
+     * ( @a x + @a xExtent, @a y, @a z ) and for the input value ( @a x, @a y,
+     * @a z + @a zExtent ) is equal to the output value for ( @a x, @a y, @a z ),
+     * apart from rounding. NoiseMapBuilderPlane uses this to skip the blending
+     * of seamless noise maps whose bounds span whole periods.
+     * <p>
+     * A false result only means that the repetition could not be
+     * established. The base implementation returns false. The Perlin, Billow,
+     * RidgedMulti and Simplex modules return true if each octave repeats over
+     * the extents, the Const module always returns true, ScalePoint and
+     * TranslatePoint pass the scaled extents on to their source module, and
+     * the noise modules that combine the output values of their source modules
+     * at the same input value return true if all of their source modules do.
+     *
+     * @param xExtent The extent along the @a x axis.
+     * @param zExtent The extent along the @a z axis.
+     *
+     * @return true if the output repeats over both extents.
+     *
+     * @pre All source modules required by this noise module have been passed to
+     *      the setSourceModule() method.
+     */
+    public boolean repeatsOver(double xExtent, double zExtent) {
+        return false;
+    }
+
+    /**
+     * Determines if every source module repeats over the specified extents.
+     * Used by the noise modules whose output value depends only on the output
+     * values of their source modules at the same input value.
+     */
+    boolean sourcesRepeatOver(double xExtent, double zExtent) {
+        if (this.sourceModules == null) {
+            return false;
+        }
+        for (ModuleBase sourceModule : this.sourceModules) {
+            if (sourceModule == null || !sourceModule.repeatsOver(xExtent, zExtent)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Evaluates a source module at the flagged input values only.
+     * <p>
+     * The flagged input values are packed into temporary arrays, evaluated as
+     * a single batch, and the results are written back to their original
+     * indices in @a out.
+     */
+    static void getValuesWhere(ModuleBase module, boolean[] needed, double[] xs, double[] ys, double[] zs, double[] out, int offset, int count) {
+        int end = offset + count;
+        int packedCount = 0;
+        for (int i = offset; i < end; i++) {
+            if (needed[i]) {
+                packedCount++;
+            }
+        }
+
+        if (packedCount == 0) {
+            return;
+        }
+
+        ScratchArrays scratch = ScratchArrays.get();
+        int mark = scratch.mark();
+        try {
+            double[] px = scratch.doubles(packedCount);
+            double[] py = scratch.doubles(packedCount);
+            double[] pz = scratch.doubles(packedCount);
+            double[] values = scratch.doubles(packedCount);
+            int j = 0;
+            for (int i = offset; i < end; i++) {
+                if (needed[i]) {
+                    px[j] = xs[i];
+                    py[j] = ys[i];
+                    pz[j] = zs[i];
+                    j++;
+                }
+            }
+
+            module.getValues(px, py, pz, values, 0, packedCount);
+
+            j = 0;
+            for (int i = offset; i < end; i++) {
+                if (needed[i]) {
+                    out[i] = values[j++];
+                }
+            }
+        } finally {
+            scratch.release(mark);
+        }
+    }
+
+    /**
+     * Returns a frozen copy of this noise module and all of its source
+     * modules.
+     * <p>
+     * The frozen module generates the same output values as this noise module
+     * does at the time of the call. Unlike this noise module, it is
+     * unaffected by later changes to the module graph, and it can be shared
+     * between threads without further synchronization; see FrozenModule.
+     *
+     * @return The frozen copy.
+     *
+     * @pre All source modules required by the noise modules in the graph have
+     *      been passed to the setSourceModule() method, and all generators in
+     *      the graph have been built.
+     */
+    public FrozenModule freeze() {
+        return new FrozenModule(this, false);
+    }
+
+    /**
+     * Returns a frozen copy of this noise module and all of its source modules
+     * in which chains of simple modules are fused into single modules.
+     * <p>
+     * Every chain of Abs, Clamp, Exponent, Invert, Power and ScaleBias modules
+     * becomes one module that applies all of their operations to the output
+     * value in turn, and every chain of RotatePoint, ScalePoint and
+     * TranslatePoint modules becomes one module that applies all of their
+     * transformations to the input value in turn. This removes a call, and
+     * in getValues() a pass over the batch, per fused module. The operations
+     * are performed in the same order as in the original graph, so the output
+     * values are identical.
+     * <p>
+     * Every module that is the source module of more than one module is
+     * evaluated only once per input value, and once per batch in getValues(),
+     * instead of once for each module that uses it. This has the effect of
+     * wrapping each such module in a Cached module, without changing the
+     * graph. FrozenModule.getReusedValueCount() reports how many evaluations
+     * were saved this way.
+     * <p>
+     * Like the result of freeze(), the compiled module is unaffected by later
+     * changes to this graph and can be shared between threads.
+     *
+     * @return The compiled, frozen copy.
+     *
+     * @pre All source modules required by the noise modules in the graph have
+     *      been passed to the setSourceModule() method, and all generators in
+     *      the graph have been built.
+     */
+    public FrozenModule compile() {
+        return new FrozenModule(this, true);
+    }
+
+    /**
+     * Returns a copy of this noise module that shares its source modules.
+     * <p>
+     * Used by freeze(). Noise modules that hold arrays or helper modules which
+     * may be changed after freezing override this method to copy those too.
+     *
+     * @return The copy.
+     */
+    ModuleBase copyNode() {
+        try {
+            return (ModuleBase) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
     /**
      * Connects a source module to this noise module.
      * 
@@ -0,0 +1,295 @@
+/*******************************************************************************
+ *  Copyright (c) 2003, 2004 Jason Bevins (original libnoise code)
+ *  Copyright (c) 2010 Thomas J. Hodge (java port of libnoise)
+ *  Copyright (c) Nick Whitney ( changed noisegen to perlin basis. added javadoc)
+ *  
+ *  This file is part of libnoiseforjava.
+ *  
+ *  libnoiseforjava is a Java port of the C++ library libnoise, which may be
+ *  found at http://libnoise.sourceforge.net/. libnoise was developed by Jason
+ *  Bevins, who may be contacted at jlbezigvins@gmzigail.com (for great email,
+ *  take off every 'zig'). Porting to Java was done by Thomas Hodge, who may be
+ *  contacted at libnoisezagforjava@gzagmail.com (remove every 'zag').
+ *  
+ *  libnoiseforjava is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the Free
+ *  Software Foundation, either version 3 of the License, or (at your option) any
+ *  later version.
+ *  
+ *  libnoiseforjava is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ *  details.
+ *  
+ *  You should have received a copy of the GNU General Public License along with
+ *  libnoiseforjava. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+
+package libnoiseforjava.module;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Copies a module graph for freeze() and compile().
+ * <p>
+ * Every module is copied once, so shared sub-graphs stay shared, and every
+ * Cached module is replaced by a FrozenModule.ThreadCached. If optimization is
+ * enabled:
+ * <ul>
+ * <li>every module that is the source module of more than one module, or of
+ * one module more than once, is wrapped in a SharedModuleCache so that it is
+ * evaluated once per input value or batch;
+ * <li>every chain of per-value modifiers is replaced by a FusedModifiers
+ * module and every chain of coordinate transformers by a FusedTransforms
+ * module. A chain ends at a shared module, so that the shared module is not
+ * fused into each of its users.
+ * </ul>
+ * <p>
+ * Only modules of exactly the fused classes are fused; a subclass may have
+ * changed what getValue() does.
+ */
+final class ModuleCompiler {
+
+    private final boolean fuse;
+
+    /**
+     * The copies made so far, keyed by the original modules.
+     */
+    private final Map<ModuleBase, ModuleBase> copies = new IdentityHashMap<ModuleBase, ModuleBase>();
+
+    /**
+     * The number of times each original module is used as a source module.
+     */
+    private final Map<ModuleBase, Integer> useCounts = new IdentityHashMap<ModuleBase, Integer>();
+
+    /**
+     * The caches created for shared modules.
+     */
+    private final List<SharedModuleCache> sharedModuleCaches = new ArrayList<SharedModuleCache>();
+
+    ModuleCompiler(boolean fuse) {
+        this.fuse = fuse;
+    }
+
+    /**
+     * Copies a module graph.
+     *
+     * @param root The root of the graph.
+     *
+     * @return The copy of the root.
+     */
+    ModuleBase compile(ModuleBase root) {
+        if (this.fuse) {
+            countUses(root, new IdentityHashMap<ModuleBase, Boolean>());
+        }
+        return copy(root);
+    }
+
+    /**
+     * Returns the caches that were created for shared modules.
+     *
+     * @return The caches.
+     */
+    SharedModuleCache[] getSharedModuleCaches() {
+        return this.sharedModuleCaches.toArray(new SharedModuleCache[this.sharedModuleCaches.size()]);
+    }
+
+    private void countUses(ModuleBase module, Map<ModuleBase, Boolean> visited) {
+        if (module == null || module instanceof FrozenModule || visited.put(module, Boolean.TRUE) != null) {
+            return;
+        }
+
+        if (module.sourceModules != null) {
+            for (ModuleBase source : module.sourceModules) {
+                if (source != null) {
+                    Integer uses = this.useCounts.get(source);
+                    this.useCounts.put(source, (uses == null) ? 1 : uses + 1);
+                    countUses(source, visited);
+                }
+            }
+        }
+    }
+
+    /**
+     * Determines if a module is worth evaluating only once per input value.
+     */
+    private boolean isShared(ModuleBase module) {
+        Integer uses = this.useCounts.get(module);
+        return uses != null && uses > 1 && !(module instanceof Const) && !(module instanceof HashCached) && !(module instanceof SharedModuleCache);
+    }
+
+    /**
+     * Copies a module and, recursively, its source modules.
+     *
+     * @param module The module to copy.
+     *
+     * @return The copy of the module.
+     */
+    ModuleBase copy(ModuleBase module) {
+        if (module == null || module instanceof FrozenModule) {
+            // Frozen modules are immutable, so they can be shared as they are.
+            return module;
+        }
+
+        ModuleBase copy = this.copies.get(module);
+        if (copy != null) {
+            return copy;
+        }
+
+        // The original modules that become the source modules of the copy.
+        ModuleBase[] sources;
+        boolean shared = this.fuse && isShared(module);
+        if (shared && module instanceof Cached) {
+            // A shared cache covers everything Cached does.
+            copy = newSharedModuleCache();
+            sources = module.sourceModules;
+            shared = false;
+        } else if (this.fuse && isModifier(module)) {
+            List<ModuleBase> modifierSources = new ArrayList<ModuleBase>();
+            copy = fuseModifiers(module, modifierSources);
+            sources = modifierSources.toArray(new ModuleBase[modifierSources.size()]);
+        } else if (this.fuse && isTransformer(module)) {
+            List<ModuleBase> transformerSources = new ArrayList<ModuleBase>();
+            copy = fuseTransformers(module, transformerSources);
+            sources = transformerSources.toArray(new ModuleBase[transformerSources.size()]);
+        } else if (module instanceof Cached) {
+            copy = new FrozenModule.ThreadCached();
+            sources = module.sourceModules;
+        } else {
+            copy = module.copyNode();
+            sources = module.sourceModules;
+            if (copy instanceof SharedModuleCache) {
+                this.sharedModuleCaches.add((SharedModuleCache) copy);
+            }
+        }
+
+        ModuleBase result = copy;
+        if (shared) {
+            result = newSharedModuleCache();
+            result.sourceModules[0] = copy;
+        }
+        this.copies.put(module, result);
+
+        if (sources != null) {
+            copy.sourceModules = new ModuleBase[sources.length];
+            copy.modulesRequired = sources.length;
+            for (int i = 0; i < sources.length; i++) {
+                copy.sourceModules[i] = copy(sources[i]);
+            }
+        }
+
+        return result;
+    }
+
+    private SharedModuleCache newSharedModuleCache() {
+        SharedModuleCache cache = new SharedModuleCache();
+        this.sharedModuleCaches.add(cache);
+        return cache;
+    }
+
+    private static boolean isModifier(ModuleBase module) {
+        Class<?> moduleClass = module.getClass();
+        return moduleClass == Abs.class || moduleClass == Clamp.class || moduleClass == Exponent.class || moduleClass == Invert.class
+                || moduleClass == Power.class || moduleClass == ScaleBias.class;
+    }
+
+    private static boolean isTransformer(ModuleBase module) {
+        Class<?> moduleClass = module.getClass();
+        return moduleClass == RotatePoint.class || moduleClass == ScalePoint.class || moduleClass == TranslatePoint.class;
+    }
+
+    /**
+     * Fuses the chain of modifiers that starts at @a module.
+     *
+     * @param module The outermost modifier of the chain.
+     * @param sources Receives the module below the chain, followed by the
+     *            exponent modules of any Power modules in the chain.
+     *
+     * @return The fused module, without source modules.
+     */
+    private FusedModifiers fuseModifiers(ModuleBase module, List<ModuleBase> sources) {
+        // Walk down the chain; the innermost modifier is applied first, so the
+        // operations are collected in reverse.
+        List<ModuleBase> chain = new ArrayList<ModuleBase>();
+        ModuleBase current = module;
+        while (isModifier(current) && (current == module || !isShared(current))) {
+            chain.add(current);
+            current = current.sourceModules[0];
+        }
+        sources.add(current);
+
+        int count = chain.size();
+        int[] operations = new int[count];
+        double[] firstParameters = new double[count];
+        double[] secondParameters = new double[count];
+        int[] operands = new int[count];
+        for (int i = 0; i < count; i++) {
+            ModuleBase modifier = chain.get(count - 1 - i);
+            if (modifier instanceof Abs) {
+                operations[i] = FusedModifiers.ABS;
+            } else if (modifier instanceof Clamp) {
+                operations[i] = FusedModifiers.CLAMP;
+                firstParameters[i] = ((Clamp) modifier).lowerBound;
+                secondParameters[i] = ((Clamp) modifier).upperBound;
+            } else if (modifier instanceof Exponent) {
+                operations[i] = FusedModifiers.EXPONENT;
+                firstParameters[i] = ((Exponent) modifier).exponent;
+            } else if (modifier instanceof Invert) {
+                operations[i] = FusedModifiers.INVERT;
+            } else if (modifier instanceof Power) {
+                operations[i] = FusedModifiers.POWER;
+                operands[i] = sources.size();
+                sources.add(modifier.sourceModules[1]);
+            } else {
+                operations[i] = FusedModifiers.SCALE_BIAS;
+                firstParameters[i] = ((ScaleBias) modifier).scale;
+                secondParameters[i] = ((ScaleBias) modifier).bias;
+            }
+        }
+
+        return new FusedModifiers(operations, firstParameters, secondParameters, operands);
+    }
+
+    /**
+     * Fuses the chain of coordinate transformers that starts at @a module.
+     *
+     * @param module The outermost transformer of the chain.
+     * @param sources Receives the module below the chain.
+     *
+     * @return The fused module, without source modules.
+     */
+    private FusedTransforms fuseTransformers(ModuleBase module, List<ModuleBase> sources) {
+        // The outermost transformer is applied to the input value first.
+        List<Integer> operations = new ArrayList<Integer>();
+        List<double[]> parameters = new ArrayList<double[]>();
+        ModuleBase current = module;
+        while (isTransformer(current) && (current == module || !isShared(current))) {
+            if (current instanceof RotatePoint) {
+                RotatePoint rotate = (RotatePoint) current;
+                operations.add(FusedTransforms.ROTATE);
+                parameters.add(new double[] { rotate.x1Matrix, rotate.y1Matrix, rotate.z1Matrix, rotate.x2Matrix, rotate.y2Matrix, rotate.z2Matrix,
+                        rotate.x3Matrix, rotate.y3Matrix, rotate.z3Matrix });
+            } else if (current instanceof ScalePoint) {
+                ScalePoint scale = (ScalePoint) current;
+                operations.add(FusedTransforms.SCALE);
+                parameters.add(new double[] { scale.xScale, scale.yScale, scale.zScale });
+            } else {
+                TranslatePoint translate = (TranslatePoint) current;
+                operations.add(FusedTransforms.TRANSLATE);
+                parameters.add(new double[] { translate.xTranslation, translate.yTranslation, translate.zTranslation });
+            }
+            current = current.sourceModules[0];
+        }
+        sources.add(current);
+
+        int[] operationArray = new int[operations.size()];
+        for (int i = 0; i < operationArray.length; i++) {
+            operationArray[i] = operations.get(i);
+        }
+
+        return new FusedTransforms(operationArray, parameters.toArray(new double[parameters.size()][]));
+    }
+}
@@ -29,7 +29,10 @@ package libnoiseforjava.module;
 
 import java.util.Random;
 
+import libnoiseforjava.PeriodicPerlinBasis;
 import libnoiseforjava.PerlinBasis;
+import libnoiseforjava.ScratchArrays;
+import libnoiseforjava.Seeding;
 
 /**
  * Noise module that outputs 3-dimensional Perlin noise.
@@ -206,6 +209,14 @@ public class Perlin extends ModuleBase {
      */
     int seed;
 
+    /**
+     * Periods of the first octave along the x, y and z axes, in lattice
+     * cells, or zero if the noise does not repeat along that axis.
+     */
+    int xPeriod;
+    int yPeriod;
+    int zPeriod;
+
     private PerlinBasis[] source;
     double[] frequencies;
     double[] amplitudes;
@@ -227,19 +238,39 @@ public class Perlin extends ModuleBase {
         Random rnd = new Random(this.seed);
 
         for (int i = 0; i < this.octaveCount; i++) {
-            this.source[i] = new PerlinBasis();
+            double multiplier = Seeding.pow(this.lacunarity, i);
+            if (isPeriodic()) {
+                this.source[i] = new PeriodicPerlinBasis(PeriodicPerlinBasis.scalePeriod(this.xPeriod, multiplier),
+                    PeriodicPerlinBasis.scalePeriod(this.yPeriod, multiplier), PeriodicPerlinBasis.scalePeriod(this.zPeriod, multiplier));
+            } else {
+                this.source[i] = new PerlinBasis();
+            }
 
-            if (this.seed == 0) {
+            if (Seeding.isRandomSeed(this.seed)) {
                 this.source[i].setSeed(0);
             } else {
                 this.source[i].setSeed(rnd.nextInt());
             }
 
-            this.frequencies[i] = this.frequency * Math.pow(this.lacunarity, i);
-            this.amplitudes[i] = Math.pow(this.persistence, i);
+            this.frequencies[i] = this.frequency * multiplier;
+            this.amplitudes[i] = Seeding.pow(this.persistence, i);
         }
     }
 
+    @Override
+    public boolean repeatsOver(double xExtent, double zExtent) {
+        if (this.source == null) {
+            return false;
+        }
+        for (int i = 0; i < this.octaveCount; i++) {
+            double scale = this.frequencies[i];
+            if (!this.source[i].repeatsOver(xExtent * scale, zExtent * scale)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Override
     public double getValue(double x, double y, double z) {
         double value = 0;
@@ -253,6 +284,159 @@ public class Perlin extends ModuleBase {
         return value;
     }
 
+    @Override
+    public double getValue2D(double x, double z) {
+        double value = 0;
+        double signal = 0;
+
+        for (int i = 0; i < this.source.length; i++) {
+            signal = this.source[i].getValue2D(x * this.frequencies[i], z * this.frequencies[i]);
+            value += signal * this.amplitudes[i];
+        }
+
+        return value;
+    }
+
+    @Override
+    public double getValueAndGradient(double x, double y, double z, double[] gradient) {
+        double value = 0;
+        double signal = 0;
+        double dx = 0;
+        double dy = 0;
+        double dz = 0;
+
+        for (int i = 0; i < this.source.length; i++) {
+            // The octave writes its gradient into the gradient array, which is
+            // read here before the next octave overwrites it.
+            signal = this.source[i].getValueAndGradient(x * this.frequencies[i], y * this.frequencies[i], z * this.frequencies[i], gradient);
+            value += signal * this.amplitudes[i];
+
+            // The octave is sampled at scaled coordinates, so its gradient is
+            // scaled by the octave frequency too.
+            double scale = this.amplitudes[i] * this.frequencies[i];
+            dx += gradient[0] * scale;
+            dy += gradient[1] * scale;
+            dz += gradient[2] * scale;
+        }
+
+        gradient[0] = dx;
+        gradient[1] = dy;
+        gradient[2] = dz;
+        return value;
+    }
+
+    @Override
+    public void getValues(double[] xs, double[] ys, double[] zs, double[] out, int offset, int count) {
+        int end = offset + count;
+
+        ScratchArrays scratch = ScratchArrays.get();
+        int mark = scratch.mark();
+        try {
+            double[] px = scratch.doubles(count);
+            double[] py = scratch.doubles(count);
+            double[] pz = scratch.doubles(count);
+            double[] signals = scratch.doubles(count);
+
+            for (int i = offset; i < end; i++) {
+                out[i] = 0;
+            }
+
+            for (int o = 0; o < this.source.length; o++) {
+                PerlinBasis octave = this.source[o];
+                double octaveFrequency = this.frequencies[o];
+                double amplitude = this.amplitudes[o];
+
+                for (int j = 0; j < count; j++) {
+                    px[j] = xs[offset + j] * octaveFrequency;
+                    py[j] = ys[offset + j] * octaveFrequency;
+                    pz[j] = zs[offset + j] * octaveFrequency;
+                }
+
+                octave.getValues(px, py, pz, signals, 0, count);
+
+                for (int j = 0; j < count; j++) {
+                    out[offset + j] += signals[j] * amplitude;
+                }
+            }
+        } finally {
+            scratch.release(mark);
+        }
+    }
+
+    @Override
+    public void getValues2D(double[] xs, double[] zs, double[] out, int offset, int count) {
+        int end = offset + count;
+
+        ScratchArrays scratch = ScratchArrays.get();
+        int mark = scratch.mark();
+        try {
+            double[] px = scratch.doubles(count);
+            double[] pz = scratch.doubles(count);
+            double[] signals = scratch.doubles(count);
+
+            for (int i = offset; i < end; i++) {
+                out[i] = 0;
+            }
+
+            for (int o = 0; o < this.source.length; o++) {
+                PerlinBasis octave = this.source[o];
+                double octaveFrequency = this.frequencies[o];
+                double amplitude = this.amplitudes[o];
+
+                for (int j = 0; j < count; j++) {
+                    px[j] = xs[offset + j] * octaveFrequency;
+                    pz[j] = zs[offset + j] * octaveFrequency;
+                }
+
+                octave.getValues2D(px, pz, signals, 0, count);
+
+                for (int j = 0; j < count; j++) {
+                    out[offset + j] += signals[j] * amplitude;
+                }
+            }
+        } finally {
+            scratch.release(mark);
+        }
+    }
+
+    @Override
+    public void getValues(float[] xs, float[] ys, float[] zs, float[] out, int offset, int count) {
+        int end = offset + count;
+
+        ScratchArrays scratch = ScratchArrays.get();
+        int mark = scratch.mark();
+        try {
+            float[] px = scratch.floats(count);
+            float[] py = scratch.floats(count);
+            float[] pz = scratch.floats(count);
+            float[] signals = scratch.floats(count);
+
+            for (int i = offset; i < end; i++) {
+                out[i] = 0;
+            }
+
+            for (int o = 0; o < this.source.length; o++) {
+                PerlinBasis octave = this.source[o];
+                float octaveFrequency = (float) this.frequencies[o];
+                float amplitude = (float) this.amplitudes[o];
+
+                for (int j = 0; j < count; j++) {
+                    px[j] = xs[offset + j] * octaveFrequency;
+                    py[j] = ys[offset + j] * octaveFrequency;
+                    pz[j] = zs[offset + j] * octaveFrequency;
+                }
+
+                octave.getValues(px, py, pz, signals, 0, count);
+
+                for (int j = 0; j < count; j++) {
+                    out[offset + j] += signals[j] * amplitude;
+                }
+            }
+        } finally {
+            scratch.release(mark);
+        }
+    }
+
     /**
      * Returns the frequency of the first octave.
      *
@@ -307,6 +491,46 @@ public class Perlin extends ModuleBase {
         return this.seed;
     }
 
+    /**
+     * Returns the period of the first octave along the @a x axis.
+     *
+     * @return The period in lattice cells, or zero if the noise does not
+     *         repeat along the @a x axis.
+     */
+    public int getXPeriod() {
+        return this.xPeriod;
+    }
+
+    /**
+     * Returns the period of the first octave along the @a y axis.
+     *
+     * @return The period in lattice cells, or zero if the noise does not
+     *         repeat along the @a y axis.
+     */
+    public int getYPeriod() {
+        return this.yPeriod;
+    }
+
+    /**
+     * Returns the period of the first octave along the @a z axis.
+     *
+     * @return The period in lattice cells, or zero if the noise does not
+     *         repeat along the @a z axis.
+     */
+    public int getZPeriod() {
+        return this.zPeriod;
+    }
+
+    /**
+     * Determines if the Perlin noise repeats along any axis.
+     *
+     * @return true if a period has been set, false if the noise does not
+     *         repeat.
+     */
+    public boolean isPeriodic() {
+        return this.xPeriod != 0 || this.yPeriod != 0 || this.zPeriod != 0;
+    }
+
     /**
      * Sets the frequency of the first octave.
      *
@@ -380,4 +604,36 @@ public class Perlin extends ModuleBase {
         this.seed = seed;
     }
 
+    /**
+     * Sets the periods of the Perlin noise.
+     * 
+     * <p>
+     * The periods are measured in cells of the first octave: the noise value
+     * at ( @a x + @a xPeriod / @a frequency, @a y, @a z ) is equal to the
+     * noise value at ( @a x, @a y, @a z ), up to the rounding of the input
+     * coordinates. A period of zero leaves that axis unbounded. To build a
+     * tileable noise map, set bounds that span a whole number of periods.
+     * 
+     * <p>
+     * The periods take effect the next time build() is called.
+     * 
+     * @param xPeriod The period along the @a x axis, or zero.
+     * @param yPeriod The period along the @a y axis, or zero.
+     * @param zPeriod The period along the @a z axis, or zero.
+     * 
+     * @pre No period is negative.
+     * @pre If a period is not zero, the lacunarity is a whole number when
+     *      build() is called.
+     * 
+     * @throws IllegalArgumentException See the preconditions.
+     */
+    public void setPeriod(int xPeriod, int yPeriod, int zPeriod) {
+        if (xPeriod < 0 || yPeriod < 0 || zPeriod < 0) {
+            throw new IllegalArgumentException("Invalid Parameter in Perlin");
+        }
+        this.xPeriod = xPeriod;
+        this.yPeriod = yPeriod;
+        this.zPeriod = zPeriod;
+    }
+
 }
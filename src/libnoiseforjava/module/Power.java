@@ -27,6 +27,9 @@
 
 package libnoiseforjava.module;
 
+import libnoiseforjava.ScratchArrays;
+import libnoiseforjava.Seeding;
+
 /**
  * Noise module that raises the output value from a first source module to the
  * power of the output value from a second source module.
@@ -54,11 +57,35 @@ public class Power extends ModuleBase {
         setSourceModule(1, sourceModuleTwo);
     }
 
+    @Override
+    public boolean repeatsOver(double xExtent, double zExtent) {
+        return sourcesRepeatOver(xExtent, zExtent);
+    }
+
     @Override
     public double getValue(double x, double y, double z) {
         assert (this.sourceModules[0] != null);
         assert (this.sourceModules[1] != null);
 
-        return Math.pow(this.sourceModules[0].getValue(x, y, z), this.sourceModules[1].getValue(x, y, z));
+        return Seeding.pow(this.sourceModules[0].getValue(x, y, z), this.sourceModules[1].getValue(x, y, z));
+    }
+
+    @Override
+    public void getValues(double[] xs, double[] ys, double[] zs, double[] out, int offset, int count) {
+        assert (this.sourceModules[0] != null);
+        assert (this.sourceModules[1] != null);
+
+        ScratchArrays scratch = ScratchArrays.get();
+        int mark = scratch.mark();
+        try {
+            double[] values = scratch.doubles(offset + count);
+            this.sourceModules[0].getValues(xs, ys, zs, out, offset, count);
+            this.sourceModules[1].getValues(xs, ys, zs, values, offset, count);
+            for (int i = offset; i < offset + count; i++) {
+                out[i] = Seeding.pow(out[i], values[i]);
+            }
+        } finally {
+            scratch.release(mark);
+        }
     }
 }
@@ -31,7 +31,10 @@ import java.util.Random;
 
 import libnoiseforjava.NoiseGen;
 import libnoiseforjava.NoiseQuality;
+import libnoiseforjava.PeriodicPerlinBasis;
 import libnoiseforjava.PerlinBasis;
+import libnoiseforjava.ScratchArrays;
+import libnoiseforjava.Seeding;
 
 /**
  * Noise module that outputs 3-dimensional ridged-multifractal noise.
@@ -100,6 +103,16 @@ import libnoiseforjava.PerlinBasis;
  * lacunarity to a number between 1.5 and 3.5.
  * 
  * <p>
+ * <b>Period</b>
+ * 
+ * <p>
+ * An application may make the ridged-multifractal noise tileable by calling
+ * the setPeriod() method. The period is measured in cells of the first
+ * octave, so the noise repeats every @a period / @a frequency units along an
+ * axis. Periodic noise requires the lacunarity to be a whole number, such as
+ * the default of 2.0.
+ * 
+ * <p>
  * <b>References &amp; Acknowledgments</b>
  * 
  * <p>
@@ -177,6 +190,14 @@ public class RidgedMulti extends ModuleBase {
      */
     int seed;
 
+    /**
+     * Periods of the first octave along the x, y and z axes, in lattice
+     * cells, or zero if the noise does not repeat along that axis.
+     */
+    int xPeriod;
+    int yPeriod;
+    int zPeriod;
+
     private PerlinBasis[] source;
     double[] frequencies;
     double[] amplitudes;
@@ -198,9 +219,15 @@ public class RidgedMulti extends ModuleBase {
         double frequency1 = 1.0;
 
         for (int i = 0; i < this.octaveCount; i++) {
-            this.source[i] = new PerlinBasis();
+            double multiplier = Seeding.pow(this.lacunarity, i);
+            if (isPeriodic()) {
+                this.source[i] = new PeriodicPerlinBasis(PeriodicPerlinBasis.scalePeriod(this.xPeriod, multiplier),
+                    PeriodicPerlinBasis.scalePeriod(this.yPeriod, multiplier), PeriodicPerlinBasis.scalePeriod(this.zPeriod, multiplier));
+            } else {
+                this.source[i] = new PerlinBasis();
+            }
 
-            if (this.seed != 0) {
+            if (!Seeding.isRandomSeed(this.seed)) {
 
                 this.seed = rnd.nextInt();
                 this.source[i].setSeed(this.seed + i);
@@ -208,13 +235,27 @@ public class RidgedMulti extends ModuleBase {
                 this.source[i].setSeed(this.seed);
             }
 
-            this.frequencies[i] = Math.pow(this.lacunarity, i);
+            this.frequencies[i] = multiplier;
 
-            this.spectralWeights[i] = Math.pow(frequency1, -h);
+            this.spectralWeights[i] = Seeding.pow(frequency1, -h);
             frequency1 *= this.lacunarity;
         }
     }
 
+    @Override
+    public boolean repeatsOver(double xExtent, double zExtent) {
+        if (this.source == null) {
+            return false;
+        }
+        for (int i = 0; i < this.octaveCount; i++) {
+            double scale = this.frequency * this.frequencies[i];
+            if (!this.source[i].repeatsOver(xExtent * scale, zExtent * scale)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     // Multifractal code originally written by F. Kenton "Doc Mojo" Musgrave,
     // 1998. Modified by jas for use with libnoise.
     @Override
@@ -278,6 +319,262 @@ public class RidgedMulti extends ModuleBase {
         return (value * 1.25) - 1.0;
     }
 
+    @Override
+    public double getValue2D(double x, double z) {
+        x *= this.frequency;
+        z *= this.frequency;
+
+        double signal = 0.0;
+        double value = 0.0;
+        double weight = 1.0;
+
+        double offset = 1.0;
+        double gain = 2.0;
+
+        for (int curOctave = 0; curOctave < this.octaveCount; curOctave++) {
+            double nx = NoiseGen.MakeInt32Range(x);
+            double nz = NoiseGen.MakeInt32Range(z);
+
+            signal = this.source[curOctave].getValue2D(nx, nz);
+
+            signal = Math.abs(signal);
+            signal = offset - signal;
+            signal *= signal;
+            signal *= weight;
+
+            weight = signal * gain;
+            if (weight > 1.0) {
+                weight = 1.0;
+            }
+            if (weight < 0.0) {
+                weight = 0.0;
+            }
+
+            value += (signal * this.spectralWeights[curOctave]);
+
+            x *= this.lacunarity;
+            z *= this.lacunarity;
+        }
+
+        return (value * 1.25) - 1.0;
+    }
+
+    @Override
+    public double getValueAndGradient(double x, double y, double z, double[] gradient) {
+        x *= this.frequency;
+        y *= this.frequency;
+        z *= this.frequency;
+
+        double signal = 0.0;
+        double value = 0.0;
+        double weight = 1.0;
+
+        double offset = 1.0;
+        double gain = 2.0;
+
+        // The gradients of the value and of the weight, and the factor the
+        // coordinates of the current octave are scaled by.
+        double dx = 0.0;
+        double dy = 0.0;
+        double dz = 0.0;
+        double weightDx = 0.0;
+        double weightDy = 0.0;
+        double weightDz = 0.0;
+        double scale = this.frequency;
+
+        for (int curOctave = 0; curOctave < this.octaveCount; curOctave++) {
+            double nx, ny, nz;
+
+            nx = NoiseGen.MakeInt32Range(x);
+            ny = NoiseGen.MakeInt32Range(y);
+            nz = NoiseGen.MakeInt32Range(z);
+
+            // The octave writes its gradient into the gradient array, which is
+            // read here before the next octave overwrites it.
+            signal = this.source[curOctave].getValueAndGradient(nx, ny, nz, gradient);
+
+            // signal = (offset - |s|)^2 * weight, so
+            // d(signal) = -2 (offset - |s|) sign(s) weight ds + (offset - |s|)^2 d(weight).
+            double ridge = offset - Math.abs(signal);
+            double ridgeFactor = -2.0 * ridge * Math.signum(signal) * weight * scale;
+            double ridgeSquared = ridge * ridge;
+            double signalDx = ridgeFactor * gradient[0] + ridgeSquared * weightDx;
+            double signalDy = ridgeFactor * gradient[1] + ridgeSquared * weightDy;
+            double signalDz = ridgeFactor * gradient[2] + ridgeSquared * weightDz;
+
+            signal = Math.abs(signal);
+            signal = offset - signal;
+            signal *= signal;
+            signal *= weight;
+
+            weight = signal * gain;
+            if (weight > 1.0) {
+                weight = 1.0;
+                weightDx = weightDy = weightDz = 0.0;
+            } else if (weight < 0.0) {
+                weight = 0.0;
+                weightDx = weightDy = weightDz = 0.0;
+            } else {
+                weightDx = signalDx * gain;
+                weightDy = signalDy * gain;
+                weightDz = signalDz * gain;
+            }
+
+            double spectralWeight = this.spectralWeights[curOctave];
+            value += (signal * spectralWeight);
+            dx += signalDx * spectralWeight;
+            dy += signalDy * spectralWeight;
+            dz += signalDz * spectralWeight;
+
+            x *= this.lacunarity;
+            y *= this.lacunarity;
+            z *= this.lacunarity;
+            scale *= this.lacunarity;
+        }
+
+        gradient[0] = dx * 1.25;
+        gradient[1] = dy * 1.25;
+        gradient[2] = dz * 1.25;
+        return (value * 1.25) - 1.0;
+    }
+
+    @Override
+    public void getValues(double[] xs, double[] ys, double[] zs, double[] out, int offset, int count) {
+        int end = offset + count;
+
+        // Per-sample state that the scalar path keeps in local variables.
+        ScratchArrays scratch = ScratchArrays.get();
+        int mark = scratch.mark();
+        try {
+            double[] px = scratch.doubles(count);
+            double[] py = scratch.doubles(count);
+            double[] pz = scratch.doubles(count);
+            double[] weights = scratch.doubles(count);
+            double[] qx = scratch.doubles(count);
+            double[] qy = scratch.doubles(count);
+            double[] qz = scratch.doubles(count);
+            double[] signals = scratch.doubles(count);
+
+            for (int i = offset; i < end; i++) {
+                px[i - offset] = xs[i] * this.frequency;
+                py[i - offset] = ys[i] * this.frequency;
+                pz[i - offset] = zs[i] * this.frequency;
+                weights[i - offset] = 1.0;
+                out[i] = 0.0;
+            }
+
+            double offsetValue = 1.0;
+            double gain = 2.0;
+
+            for (int curOctave = 0; curOctave < this.octaveCount; curOctave++) {
+                PerlinBasis octave = this.source[curOctave];
+                double spectralWeight = this.spectralWeights[curOctave];
+
+                for (int j = 0; j < count; j++) {
+                    qx[j] = NoiseGen.MakeInt32Range(px[j]);
+                    qy[j] = NoiseGen.MakeInt32Range(py[j]);
+                    qz[j] = NoiseGen.MakeInt32Range(pz[j]);
+                }
+
+                octave.getValues(qx, qy, qz, signals, 0, count);
+
+                for (int j = 0; j < count; j++) {
+                    double signal = Math.abs(signals[j]);
+                    signal = offsetValue - signal;
+                    signal *= signal;
+                    signal *= weights[j];
+
+                    double weight = signal * gain;
+                    if (weight > 1.0) {
+                        weight = 1.0;
+                    }
+                    if (weight < 0.0) {
+                        weight = 0.0;
+                    }
+                    weights[j] = weight;
+
+                    out[offset + j] += (signal * spectralWeight);
+
+                    px[j] *= this.lacunarity;
+                    py[j] *= this.lacunarity;
+                    pz[j] *= this.lacunarity;
+                }
+            }
+
+            for (int i = offset; i < end; i++) {
+                out[i] = (out[i] * 1.25) - 1.0;
+            }
+        } finally {
+            scratch.release(mark);
+        }
+    }
+
+    @Override
+    public void getValues2D(double[] xs, double[] zs, double[] out, int offset, int count) {
+        int end = offset + count;
+
+        // Per-sample state that the scalar path keeps in local variables.
+        ScratchArrays scratch = ScratchArrays.get();
+        int mark = scratch.mark();
+        try {
+            double[] px = scratch.doubles(count);
+            double[] pz = scratch.doubles(count);
+            double[] weights = scratch.doubles(count);
+            double[] qx = scratch.doubles(count);
+            double[] qz = scratch.doubles(count);
+            double[] signals = scratch.doubles(count);
+
+            for (int i = offset; i < end; i++) {
+                px[i - offset] = xs[i] * this.frequency;
+                pz[i - offset] = zs[i] * this.frequency;
+                weights[i - offset] = 1.0;
+                out[i] = 0.0;
+            }
+
+            double offsetValue = 1.0;
+            double gain = 2.0;
+
+            for (int curOctave = 0; curOctave < this.octaveCount; curOctave++) {
+                PerlinBasis octave = this.source[curOctave];
+                double spectralWeight = this.spectralWeights[curOctave];
+
+                for (int j = 0; j < count; j++) {
+                    qx[j] = NoiseGen.MakeInt32Range(px[j]);
+                    qz[j] = NoiseGen.MakeInt32Range(pz[j]);
+                }
+
+                octave.getValues2D(qx, qz, signals, 0, count);
+
+                for (int j = 0; j < count; j++) {
+                    double signal = Math.abs(signals[j]);
+                    signal = offsetValue - signal;
+                    signal *= signal;
+                    signal *= weights[j];
+
+                    double weight = signal * gain;
+                    if (weight > 1.0) {
+                        weight = 1.0;
+                    }
+                    if (weight < 0.0) {
+                        weight = 0.0;
+                    }
+                    weights[j] = weight;
+
+                    out[offset + j] += (signal * spectralWeight);
+
+                    px[j] *= this.lacunarity;
+                    pz[j] *= this.lacunarity;
+                }
+            }
+
+            for (int i = offset; i < end; i++) {
+                out[i] = (out[i] * 1.25) - 1.0;
+            }
+        } finally {
+            scratch.release(mark);
+        }
+    }
+
     public double getFrequency() {
         return this.frequency;
     }
@@ -318,6 +615,46 @@ public class RidgedMulti extends ModuleBase {
         return this.seed;
     }
 
+    /**
+     * Returns the period of the first octave along the @a x axis.
+     *
+     * @returns The period in lattice cells, or zero if the noise does not
+     *          repeat along the @a x axis.
+     */
+    public int getXPeriod() {
+        return this.xPeriod;
+    }
+
+    /**
+     * Returns the period of the first octave along the @a y axis.
+     *
+     * @returns The period in lattice cells, or zero if the noise does not
+     *          repeat along the @a y axis.
+     */
+    public int getYPeriod() {
+        return this.yPeriod;
+    }
+
+    /**
+     * Returns the period of the first octave along the @a z axis.
+     *
+     * @returns The period in lattice cells, or zero if the noise does not
+     *          repeat along the @a z axis.
+     */
+    public int getZPeriod() {
+        return this.zPeriod;
+    }
+
+    /**
+     * Determines if the ridged-multifractal noise repeats along any axis.
+     *
+     * @returns true if a period has been set, false if the noise does not
+     *          repeat.
+     */
+    public boolean isPeriodic() {
+        return this.xPeriod != 0 || this.yPeriod != 0 || this.zPeriod != 0;
+    }
+
     /**
      * Sets the frequency of the first octave.
      *
@@ -375,6 +712,38 @@ public class RidgedMulti extends ModuleBase {
         this.seed = seed;
     }
 
+    /**
+     * Sets the periods of the ridged-multifractal noise.
+     * 
+     * <p>
+     * The periods are measured in cells of the first octave: the noise value
+     * at ( @a x + @a xPeriod / @a frequency, @a y, @a z ) is equal to the
+     * noise value at ( @a x, @a y, @a z ), up to the rounding of the input
+     * coordinates. A period of zero leaves that axis unbounded. To build a
+     * tileable noise map, set bounds that span a whole number of periods.
+     * 
+     * <p>
+     * The periods take effect the next time build() is called.
+     * 
+     * @param xPeriod The period along the @a x axis, or zero.
+     * @param yPeriod The period along the @a y axis, or zero.
+     * @param zPeriod The period along the @a z axis, or zero.
+     * 
+     * @pre No period is negative.
+     * @pre If a period is not zero, the lacunarity is a whole number when
+     *      build() is called.
+     * 
+     * @throws IllegalArgumentException See the preconditions.
+     */
+    public void setPeriod(int xPeriod, int yPeriod, int zPeriod) {
+        if (xPeriod < 0 || yPeriod < 0 || zPeriod < 0) {
+            throw new IllegalArgumentException("Invalid Parameter in RidgedMulti");
+        }
+        this.xPeriod = xPeriod;
+        this.yPeriod = yPeriod;
+        this.zPeriod = zPeriod;
+    }
+
     public double[] getSpectralWeights() {
         return this.spectralWeights;
     }
@@ -383,4 +752,10 @@ public class RidgedMulti extends ModuleBase {
         this.spectralWeights = spectralWeights;
     }
 
+    @Override
+    ModuleBase copyNode() {
+        RidgedMulti copy = (RidgedMulti) super.copyNode();
+        copy.spectralWeights = this.spectralWeights.clone();
+        return copy;
+    }
 }
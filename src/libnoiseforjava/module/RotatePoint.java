@@ -27,6 +27,9 @@
 
 package libnoiseforjava.module;
 
+import libnoiseforjava.ScratchArrays;
+import libnoiseforjava.Seeding;
+
 /**
  * Noise module that rotates the input value around the origin before returning
  * the output value from a source module.
@@ -153,14 +156,38 @@ public class RotatePoint extends ModuleBase {
         return this.sourceModules[0].getValue(nx, ny, nz);
     }
 
+    @Override
+    public void getValues(double[] xs, double[] ys, double[] zs, double[] out, int offset, int count) {
+        assert (this.sourceModules[0] != null);
+
+        ScratchArrays scratch = ScratchArrays.get();
+        int mark = scratch.mark();
+        try {
+            double[] nx = scratch.doubles(offset + count);
+            double[] ny = scratch.doubles(offset + count);
+            double[] nz = scratch.doubles(offset + count);
+            for (int i = offset; i < offset + count; i++) {
+                double x = xs[i];
+                double y = ys[i];
+                double z = zs[i];
+                nx[i] = (this.x1Matrix * x) + (this.y1Matrix * y) + (this.z1Matrix * z);
+                ny[i] = (this.x2Matrix * x) + (this.y2Matrix * y) + (this.z2Matrix * z);
+                nz[i] = (this.x3Matrix * x) + (this.y3Matrix * y) + (this.z3Matrix * z);
+            }
+            this.sourceModules[0].getValues(nx, ny, nz, out, offset, count);
+        } finally {
+            scratch.release(mark);
+        }
+    }
+
     public void setAngles(double xAngle, double yAngle, double zAngle) {
         double xCos, yCos, zCos, xSin, ySin, zSin;
-        xCos = Math.cos(Math.toRadians(xAngle));
-        yCos = Math.cos(Math.toRadians(yAngle));
-        zCos = Math.cos(Math.toRadians(zAngle));
-        xSin = Math.sin(Math.toRadians(xAngle));
-        ySin = Math.sin(Math.toRadians(yAngle));
-        zSin = Math.sin(Math.toRadians(zAngle));
+        xCos = Seeding.cos(Math.toRadians(xAngle));
+        yCos = Seeding.cos(Math.toRadians(yAngle));
+        zCos = Seeding.cos(Math.toRadians(zAngle));
+        xSin = Seeding.sin(Math.toRadians(xAngle));
+        ySin = Seeding.sin(Math.toRadians(yAngle));
+        zSin = Seeding.sin(Math.toRadians(zAngle));
 
         this.x1Matrix = ySin * xSin * zSin + yCos * zCos;
         this.y1Matrix = xCos * zSin;
@@ -73,6 +73,11 @@ public class ScaleBias extends ModuleBase {
      * multiplies it with the scaling factor, adds the bias to it, then outputs
      * the value.
      */
+    @Override
+    public boolean repeatsOver(double xExtent, double zExtent) {
+        return sourcesRepeatOver(xExtent, zExtent);
+    }
+
     @Override
     public double getValue(double x, double y, double z) {
         assert (this.sourceModules[0] != null);
@@ -80,6 +85,28 @@ public class ScaleBias extends ModuleBase {
         return this.sourceModules[0].getValue(x, y, z) * this.scale + this.bias;
     }
 
+    @Override
+    public void getValues(double[] xs, double[] ys, double[] zs, double[] out, int offset, int count) {
+        assert (this.sourceModules[0] != null);
+
+        this.sourceModules[0].getValues(xs, ys, zs, out, offset, count);
+        for (int i = offset; i < offset + count; i++) {
+            out[i] = out[i] * this.scale + this.bias;
+        }
+    }
+
+    @Override
+    public void getValues(float[] xs, float[] ys, float[] zs, float[] out, int offset, int count) {
+        assert (this.sourceModules[0] != null);
+
+        float scale = (float) this.scale;
+        float bias = (float) this.bias;
+        this.sourceModules[0].getValues(xs, ys, zs, out, offset, count);
+        for (int i = offset; i < offset + count; i++) {
+            out[i] = out[i] * scale + bias;
+        }
+    }
+
     /**
      * Returns the bias to apply to the scaled output value from the source
      * module.
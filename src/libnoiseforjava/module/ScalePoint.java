@@ -27,6 +27,8 @@
 
 package libnoiseforjava.module;
 
+import libnoiseforjava.ScratchArrays;
+
 /**
  * Noise module that scales the coordinates of the input value before returning
  * the output value from a source module.
@@ -96,6 +98,13 @@ public class ScalePoint extends ModuleBase {
      * value with a scaling factor before returning the output value from the
      * source module.
      */
+    @Override
+    public boolean repeatsOver(double xExtent, double zExtent) {
+        assert (this.sourceModules[0] != null);
+
+        return this.sourceModules[0].repeatsOver(Math.abs(xExtent * this.xScale), Math.abs(zExtent * this.zScale));
+    }
+
     @Override
     public double getValue(double x, double y, double z) {
         assert (this.sourceModules[0] != null);
@@ -103,6 +112,27 @@ public class ScalePoint extends ModuleBase {
         return this.sourceModules[0].getValue(x * this.xScale, y * this.yScale, z * this.zScale);
     }
 
+    @Override
+    public void getValues(double[] xs, double[] ys, double[] zs, double[] out, int offset, int count) {
+        assert (this.sourceModules[0] != null);
+
+        ScratchArrays scratch = ScratchArrays.get();
+        int mark = scratch.mark();
+        try {
+            double[] nx = scratch.doubles(offset + count);
+            double[] ny = scratch.doubles(offset + count);
+            double[] nz = scratch.doubles(offset + count);
+            for (int i = offset; i < offset + count; i++) {
+                nx[i] = xs[i] * this.xScale;
+                ny[i] = ys[i] * this.yScale;
+                nz[i] = zs[i] * this.zScale;
+            }
+            this.sourceModules[0].getValues(nx, ny, nz, out, offset, count);
+        } finally {
+            scratch.release(mark);
+        }
+    }
+
     /**
      * Returns the scaling factor applied to the @a x coordinate of the input
      * value.
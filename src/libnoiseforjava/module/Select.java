@@ -27,7 +27,10 @@
 
 package libnoiseforjava.module;
 
+import java.util.Arrays;
+
 import libnoiseforjava.Interp;
+import libnoiseforjava.ScratchArrays;
 
 /**
  * Noise module that outputs the value selected from one of two source modules
@@ -111,6 +114,11 @@ public class Select extends ModuleBase {
         this.upperBound = DEFAULT_SELECT_UPPER_BOUND;
     }
 
+    @Override
+    public boolean repeatsOver(double xExtent, double zExtent) {
+        return sourcesRepeatOver(xExtent, zExtent);
+    }
+
     @Override
     public double getValue(double x, double y, double z) {
         assert (this.sourceModules[0] != null);
@@ -174,6 +182,83 @@ public class Select extends ModuleBase {
         }
     }
 
+    @Override
+    public void getValues(double[] xs, double[] ys, double[] zs, double[] out, int offset, int count) {
+        assert (this.sourceModules[0] != null);
+        assert (this.sourceModules[1] != null);
+        assert (this.sourceModules[2] != null);
+
+        int end = offset + count;
+        ScratchArrays scratch = ScratchArrays.get();
+        int mark = scratch.mark();
+        try {
+            double[] control = scratch.doubles(end);
+            this.sourceModules[2].getValues(xs, ys, zs, control, offset, count);
+
+            // Work out which source modules each input value needs, so that the
+            // batch evaluates a source module only where getValue() would.
+            boolean[] needFirst = scratch.booleans(end);
+            boolean[] needSecond = scratch.booleans(end);
+            Arrays.fill(needFirst, offset, end, false);
+            Arrays.fill(needSecond, offset, end, false);
+            for (int i = offset; i < end; i++) {
+                double controlValue = control[i];
+                if (this.edgeFalloff > 0.0) {
+                    if (controlValue < (this.lowerBound - this.edgeFalloff)) {
+                        needFirst[i] = true;
+                    } else if (controlValue < (this.lowerBound + this.edgeFalloff)) {
+                        needFirst[i] = true;
+                    } else if (controlValue < (this.upperBound - this.edgeFalloff)) {
+                        needSecond[i] = true;
+                    } else if (controlValue < (this.upperBound + this.edgeFalloff)) {
+                        needFirst[i] = true;
+                        needSecond[i] = true;
+                    } else {
+                        needFirst[i] = true;
+                    }
+                } else {
+                    if (controlValue < this.lowerBound || controlValue > this.upperBound) {
+                        needFirst[i] = true;
+                    } else {
+                        needSecond[i] = true;
+                    }
+                }
+            }
+
+            double[] first = scratch.doubles(end);
+            double[] second = scratch.doubles(end);
+            getValuesWhere(this.sourceModules[0], needFirst, xs, ys, zs, first, offset, count);
+            getValuesWhere(this.sourceModules[1], needSecond, xs, ys, zs, second, offset, count);
+
+            for (int i = offset; i < end; i++) {
+                double controlValue = control[i];
+                if (this.edgeFalloff > 0.0) {
+                    if (controlValue < (this.lowerBound - this.edgeFalloff)) {
+                        out[i] = first[i];
+                    } else if (controlValue < (this.lowerBound + this.edgeFalloff)) {
+                        double lowerCurve = (this.lowerBound - this.edgeFalloff);
+                        double upperCurve = (this.lowerBound + this.edgeFalloff);
+                        double alpha = Interp.SCurve3((controlValue - lowerCurve) / (upperCurve - lowerCurve));
+                        out[i] = Interp.lerp(first[i], controlValue, alpha);
+                    } else if (controlValue < (this.upperBound - this.edgeFalloff)) {
+                        out[i] = second[i];
+                    } else if (controlValue < (this.upperBound + this.edgeFalloff)) {
+                        double lowerCurve = (this.upperBound - this.edgeFalloff);
+                        double upperCurve = (this.upperBound + this.edgeFalloff);
+                        double alpha = Interp.SCurve3((controlValue - lowerCurve) / (upperCurve - lowerCurve));
+                        out[i] = Interp.lerp(second[i], first[i], alpha);
+                    } else {
+                        out[i] = first[i];
+                    }
+                } else {
+                    out[i] = needFirst[i] ? first[i] : second[i];
+                }
+            }
+        } finally {
+            scratch.release(mark);
+        }
+    }
+
     /**
      * Sets the lower and upper bounds of the selection range.
      *
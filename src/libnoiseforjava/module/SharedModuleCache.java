@@ -0,0 +1,179 @@
+/*******************************************************************************
+ *  Copyright (c) 2003, 2004 Jason Bevins (original libnoise code)
+ *  Copyright (c) 2010 Thomas J. Hodge (java port of libnoise)
+ *  Copyright (c) Nick Whitney ( changed noisegen to perlin basis. added javadoc)
+ *  
+ *  This file is part of libnoiseforjava.
+ *  
+ *  libnoiseforjava is a Java port of the C++ library libnoise, which may be
+ *  found at http://libnoise.sourceforge.net/. libnoise was developed by Jason
+ *  Bevins, who may be contacted at jlbezigvins@gmzigail.com (for great email,
+ *  take off every 'zig'). Porting to Java was done by Thomas Hodge, who may be
+ *  contacted at libnoisezagforjava@gzagmail.com (remove every 'zag').
+ *  
+ *  libnoiseforjava is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the Free
+ *  Software Foundation, either version 3 of the License, or (at your option) any
+ *  later version.
+ *  
+ *  libnoiseforjava is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ *  details.
+ *  
+ *  You should have received a copy of the GNU General Public License along with
+ *  libnoiseforjava. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+
+package libnoiseforjava.module;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Noise module that makes a shared module of a compiled graph evaluate once
+ * per input value or batch.
+ * <p>
+ * Created by ModuleBase.compile() above every module that more than one
+ * module uses as a source. Each thread remembers the last input value passed
+ * to getValue() and the last batch passed to getValues(), together with the
+ * output values. When the next user of the shared module asks for the same
+ * input value or the same batch of input values, the remembered output values
+ * are returned instead of being calculated again.
+ * <p>
+ * A batch is the same if it has the same number of input values and every
+ * coordinate is equal; the coordinate arrays themselves may differ.
+ * <p>
+ * The number of output values that were reused is counted, so that the
+ * compiled module can report how many redundant evaluations were removed.
+ * <p>
+ * This noise module requires one source module.
+ */
+final class SharedModuleCache extends ModuleBase {
+
+    /**
+     * The last input and output values of one thread.
+     */
+    private static final class Entry {
+        boolean isCached;
+        double xCache;
+        double yCache;
+        double zCache;
+        double cachedValue;
+
+        /**
+         * The number of input values in the cached batch, or -1 if no batch is
+         * cached.
+         */
+        int batchCount = -1;
+        double[] xsCache = new double[0];
+        double[] ysCache = new double[0];
+        double[] zsCache = new double[0];
+        double[] valuesCache = new double[0];
+    }
+
+    private ThreadLocal<Entry> entries;
+
+    /**
+     * The number of output values returned from the caches.
+     */
+    private LongAdder reused;
+
+    SharedModuleCache() {
+        super(1);
+        this.entries = newEntries();
+        this.reused = new LongAdder();
+    }
+
+    private static ThreadLocal<Entry> newEntries() {
+        return new ThreadLocal<Entry>() {
+            @Override
+            protected Entry initialValue() {
+                return new Entry();
+            }
+        };
+    }
+
+    /**
+     * Returns the number of output values that were returned from the cache
+     * instead of being calculated by the source module.
+     *
+     * @return The number of reused output values.
+     */
+    long getReusedCount() {
+        return this.reused.sum();
+    }
+
+    /**
+     * Sets the number of reused output values back to zero.
+     */
+    void resetReusedCount() {
+        this.reused.reset();
+    }
+
+    @Override
+    public boolean repeatsOver(double xExtent, double zExtent) {
+        return sourcesRepeatOver(xExtent, zExtent);
+    }
+
+    @Override
+    public double getValue(double x, double y, double z) {
+        assert (this.sourceModules[0] != null);
+
+        Entry entry = this.entries.get();
+        if (entry.isCached && x == entry.xCache && y == entry.yCache && z == entry.zCache) {
+            this.reused.increment();
+            return entry.cachedValue;
+        }
+
+        entry.cachedValue = this.sourceModules[0].getValue(x, y, z);
+        entry.xCache = x;
+        entry.yCache = y;
+        entry.zCache = z;
+        entry.isCached = true;
+        return entry.cachedValue;
+    }
+
+    @Override
+    public void getValues(double[] xs, double[] ys, double[] zs, double[] out, int offset, int count) {
+        assert (this.sourceModules[0] != null);
+
+        Entry entry = this.entries.get();
+        if (entry.batchCount == count && isCachedBatch(entry, xs, ys, zs, offset, count)) {
+            System.arraycopy(entry.valuesCache, 0, out, offset, count);
+            this.reused.add(count);
+            return;
+        }
+
+        this.sourceModules[0].getValues(xs, ys, zs, out, offset, count);
+
+        if (entry.valuesCache.length < count) {
+            entry.xsCache = new double[count];
+            entry.ysCache = new double[count];
+            entry.zsCache = new double[count];
+            entry.valuesCache = new double[count];
+        }
+        System.arraycopy(xs, offset, entry.xsCache, 0, count);
+        System.arraycopy(ys, offset, entry.ysCache, 0, count);
+        System.arraycopy(zs, offset, entry.zsCache, 0, count);
+        System.arraycopy(out, offset, entry.valuesCache, 0, count);
+        entry.batchCount = count;
+    }
+
+    private static boolean isCachedBatch(Entry entry, double[] xs, double[] ys, double[] zs, int offset, int count) {
+        for (int i = 0; i < count; i++) {
+            if (xs[offset + i] != entry.xsCache[i] || ys[offset + i] != entry.ysCache[i] || zs[offset + i] != entry.zsCache[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    ModuleBase copyNode() {
+        // A copy in another compiled graph keeps its own caches and count.
+        SharedModuleCache copy = (SharedModuleCache) super.copyNode();
+        copy.entries = newEntries();
+        copy.reused = new LongAdder();
+        return copy;
+    }
+}
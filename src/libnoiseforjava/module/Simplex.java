@@ -30,6 +30,9 @@ package libnoiseforjava.module;
 import java.util.Random;
 
 import libnoiseforjava.NoiseQuality;
+import libnoiseforjava.PeriodicSimplexBasis;
+import libnoiseforjava.ScratchArrays;
+import libnoiseforjava.Seeding;
 import libnoiseforjava.SimplexBasis;
 
 /**
@@ -119,6 +122,18 @@ import libnoiseforjava.SimplexBasis;
  * lacunarity to a number between 1.5 and 3.5.
  * 
  * <p>
+ * <b>Two-dimensional noise</b>
+ * 
+ * <p>
+ * By default this noise module generates three-dimensional Simplex noise, so
+ * a planar noise map samples the three-dimensional noise on the y = 0 plane.
+ * An application may call the enable2DNoise() method to generate
+ * two-dimensional Simplex noise in the (x, z) plane instead. Two-dimensional
+ * Simplex noise visits three corners per octave instead of four, so it is
+ * cheaper to build planar noise maps from, but it generates different output
+ * values, so it is disabled by default.
+ * 
+ * <p>
  * <b>References &amp; acknowledgments</b>
  * 
  * <p>
@@ -185,6 +200,15 @@ public class Simplex extends ModuleBase {
     // Seed value used by the Simplex-noise function.
     int seed;
 
+    // Determines if two-dimensional noise is generated in the (x, z) plane.
+    boolean is2DNoiseEnabled;
+
+    // Periods of the first octave along the x, y and z axes, or zero if the
+    // noise does not repeat along that axis.
+    int xPeriod;
+    int yPeriod;
+    int zPeriod;
+
     private SimplexBasis[] source;
     double[] frequencies;
     double[] amplitudes;
@@ -197,9 +221,15 @@ public class Simplex extends ModuleBase {
         this.octaveCount = DEFAULT_SIMPLEX_OCTAVE_COUNT;
         this.persistence = DEFAULT_SIMPLEX_PERSISTENCE;
         this.seed = DEFAULT_SIMPLEX_SEED;
+        this.is2DNoiseEnabled = false;
     }
 
     public void build() {
+        // Two-dimensional Simplex noise has no axis-aligned periods.
+        if (isPeriodic() && this.is2DNoiseEnabled) {
+            throw new IllegalArgumentException("Invalid Parameter in Simplex");
+        }
+
         this.source = new SimplexBasis[this.octaveCount];
         this.frequencies = new double[this.octaveCount];
         this.amplitudes = new double[this.octaveCount];
@@ -207,21 +237,45 @@ public class Simplex extends ModuleBase {
         Random rnd = new Random(this.seed);
 
         for (int i = 0; i < this.octaveCount; i++) {
-            this.source[i] = new SimplexBasis();
+            double multiplier = Seeding.pow(this.lacunarity, i);
+            if (isPeriodic()) {
+                this.source[i] = new PeriodicSimplexBasis(PeriodicSimplexBasis.scalePeriod(this.xPeriod, multiplier),
+                    PeriodicSimplexBasis.scalePeriod(this.yPeriod, multiplier), PeriodicSimplexBasis.scalePeriod(this.zPeriod, multiplier));
+            } else {
+                this.source[i] = new SimplexBasis();
+            }
 
-            if (this.seed == 0) {
+            if (Seeding.isRandomSeed(this.seed)) {
                 this.source[i].setSeed(0);
             } else {
                 this.source[i].setSeed(rnd.nextInt());
             }
 
-            this.frequencies[i] = this.frequency * Math.pow(this.lacunarity, i);
-            this.amplitudes[i] = Math.pow(this.persistence, i);
+            this.frequencies[i] = this.frequency * multiplier;
+            this.amplitudes[i] = Seeding.pow(this.persistence, i);
+        }
+    }
+
+    @Override
+    public boolean repeatsOver(double xExtent, double zExtent) {
+        if (this.source == null || this.is2DNoiseEnabled) {
+            return false;
+        }
+        for (int i = 0; i < this.octaveCount; i++) {
+            double scale = this.frequencies[i];
+            if (!this.source[i].repeatsOver(xExtent * scale, zExtent * scale)) {
+                return false;
+            }
         }
+        return true;
     }
 
     @Override
     public double getValue(double x, double y, double z) {
+        if (this.is2DNoiseEnabled) {
+            return getValue2D(x, z);
+        }
+
         double value = 0;
         double signal = 0;
 
@@ -233,6 +287,215 @@ public class Simplex extends ModuleBase {
         return value;
     }
 
+    @Override
+    public double getValue2D(double x, double z) {
+        if (!this.is2DNoiseEnabled) {
+            return getValue(x, 0.0, z);
+        }
+
+        double value = 0;
+        double signal = 0;
+
+        for (int i = 0; i < this.source.length; i++) {
+            signal = this.source[i].getValue2D(x * this.frequencies[i], z * this.frequencies[i]);
+            value += signal * this.amplitudes[i];
+        }
+
+        return value;
+    }
+
+    @Override
+    public double getValueAndGradient(double x, double y, double z, double[] gradient) {
+        if (this.is2DNoiseEnabled) {
+            // The basis has no analytic two-dimensional gradient, so estimate
+            // it from central differences.
+            return super.getValueAndGradient(x, y, z, gradient);
+        }
+
+        double value = 0;
+        double signal = 0;
+        double dx = 0;
+        double dy = 0;
+        double dz = 0;
+
+        for (int i = 0; i < this.source.length; i++) {
+            // The octave writes its gradient into the gradient array, which is
+            // read here before the next octave overwrites it.
+            signal = this.source[i].getValueAndGradient(x * this.frequencies[i], y * this.frequencies[i], z * this.frequencies[i], gradient);
+            value += signal * this.amplitudes[i];
+
+            // The octave is sampled at scaled coordinates, so its gradient is
+            // scaled by the octave frequency too.
+            double scale = this.amplitudes[i] * this.frequencies[i];
+            dx += gradient[0] * scale;
+            dy += gradient[1] * scale;
+            dz += gradient[2] * scale;
+        }
+
+        gradient[0] = dx;
+        gradient[1] = dy;
+        gradient[2] = dz;
+        return value;
+    }
+
+    @Override
+    public void getValues(double[] xs, double[] ys, double[] zs, double[] out, int offset, int count) {
+        if (this.is2DNoiseEnabled) {
+            getValues2D(xs, zs, out, offset, count);
+            return;
+        }
+
+        int end = offset + count;
+
+        ScratchArrays scratch = ScratchArrays.get();
+        int mark = scratch.mark();
+        try {
+            double[] px = scratch.doubles(count);
+            double[] py = scratch.doubles(count);
+            double[] pz = scratch.doubles(count);
+            double[] signals = scratch.doubles(count);
+
+            for (int i = offset; i < end; i++) {
+                out[i] = 0;
+            }
+
+            for (int o = 0; o < this.source.length; o++) {
+                SimplexBasis octave = this.source[o];
+                double octaveFrequency = this.frequencies[o];
+                double amplitude = this.amplitudes[o];
+
+                for (int j = 0; j < count; j++) {
+                    px[j] = xs[offset + j] * octaveFrequency;
+                    py[j] = ys[offset + j] * octaveFrequency;
+                    pz[j] = zs[offset + j] * octaveFrequency;
+                }
+
+                octave.getValues(px, py, pz, signals, 0, count);
+
+                for (int j = 0; j < count; j++) {
+                    out[offset + j] += signals[j] * amplitude;
+                }
+            }
+        } finally {
+            scratch.release(mark);
+        }
+    }
+
+    @Override
+    public void getValues2D(double[] xs, double[] zs, double[] out, int offset, int count) {
+        if (!this.is2DNoiseEnabled) {
+            super.getValues2D(xs, zs, out, offset, count);
+            return;
+        }
+
+        int end = offset + count;
+
+        ScratchArrays scratch = ScratchArrays.get();
+        int mark = scratch.mark();
+        try {
+            double[] px = scratch.doubles(count);
+            double[] pz = scratch.doubles(count);
+            double[] signals = scratch.doubles(count);
+
+            for (int i = offset; i < end; i++) {
+                out[i] = 0;
+            }
+
+            for (int o = 0; o < this.source.length; o++) {
+                SimplexBasis octave = this.source[o];
+                double octaveFrequency = this.frequencies[o];
+                double amplitude = this.amplitudes[o];
+
+                for (int j = 0; j < count; j++) {
+                    px[j] = xs[offset + j] * octaveFrequency;
+                    pz[j] = zs[offset + j] * octaveFrequency;
+                }
+
+                octave.getValues2D(px, pz, signals, 0, count);
+
+                for (int j = 0; j < count; j++) {
+                    out[offset + j] += signals[j] * amplitude;
+                }
+            }
+        } finally {
+            scratch.release(mark);
+        }
+    }
+
+    @Override
+    public void getValues(float[] xs, float[] ys, float[] zs, float[] out, int offset, int count) {
+        if (this.is2DNoiseEnabled) {
+            // The basis has no single-precision two-dimensional form.
+            for (int i = offset; i < offset + count; i++) {
+                out[i] = (float) getValue2D(xs[i], zs[i]);
+            }
+            return;
+        }
+
+        int end = offset + count;
+
+        ScratchArrays scratch = ScratchArrays.get();
+        int mark = scratch.mark();
+        try {
+            float[] px = scratch.floats(count);
+            float[] py = scratch.floats(count);
+            float[] pz = scratch.floats(count);
+            float[] signals = scratch.floats(count);
+
+            for (int i = offset; i < end; i++) {
+                out[i] = 0;
+            }
+
+            for (int o = 0; o < this.source.length; o++) {
+                SimplexBasis octave = this.source[o];
+                float octaveFrequency = (float) this.frequencies[o];
+                float amplitude = (float) this.amplitudes[o];
+
+                for (int j = 0; j < count; j++) {
+                    px[j] = xs[offset + j] * octaveFrequency;
+                    py[j] = ys[offset + j] * octaveFrequency;
+                    pz[j] = zs[offset + j] * octaveFrequency;
+                }
+
+                octave.getValues(px, py, pz, signals, 0, count);
+
+                for (int j = 0; j < count; j++) {
+                    out[offset + j] += signals[j] * amplitude;
+                }
+            }
+        } finally {
+            scratch.release(mark);
+        }
+    }
+
+    /**
+     * Enables or disables two-dimensional noise.
+     *
+     * <p>
+     * When enabled, this noise module generates two-dimensional Simplex noise
+     * in the (x, z) plane and ignores the y coordinate of every input value,
+     * so getValue2D() and getValues2D(), which planar noise maps use, evaluate
+     * the two-dimensional Simplex basis directly. The output values differ
+     * from those of the three-dimensional noise generated when disabled.
+     * getValueAndGradient() estimates the gradient from central differences
+     * while enabled.
+     *
+     * @param enable Specifies whether to enable two-dimensional noise.
+     */
+    public void enable2DNoise(boolean enable) {
+        this.is2DNoiseEnabled = enable;
+    }
+
+    /**
+     * Determines if two-dimensional noise is enabled.
+     *
+     * @return - @a true if two-dimensional noise is enabled. - @a false if
+     *         two-dimensional noise is disabled.
+     */
+    public boolean is2DNoiseEnabled() {
+        return this.is2DNoiseEnabled;
+    }
+
     /**
      * Returns the frequency of the first octave.
      *
@@ -298,6 +561,46 @@ public class Simplex extends ModuleBase {
         return this.seed;
     }
 
+    /**
+     * Returns the period of the first octave along the @a x axis.
+     *
+     * @return The period, or zero if the noise does not repeat along the @a x
+     *         axis.
+     */
+    public int getXPeriod() {
+        return this.xPeriod;
+    }
+
+    /**
+     * Returns the period of the first octave along the @a y axis.
+     *
+     * @return The period, or zero if the noise does not repeat along the @a y
+     *         axis.
+     */
+    public int getYPeriod() {
+        return this.yPeriod;
+    }
+
+    /**
+     * Returns the period of the first octave along the @a z axis.
+     *
+     * @return The period, or zero if the noise does not repeat along the @a z
+     *         axis.
+     */
+    public int getZPeriod() {
+        return this.zPeriod;
+    }
+
+    /**
+     * Determines if the Simplex noise repeats along any axis.
+     *
+     * @return true if a period has been set, false if the noise does not
+     *         repeat.
+     */
+    public boolean isPeriodic() {
+        return this.xPeriod != 0 || this.yPeriod != 0 || this.zPeriod != 0;
+    }
+
     /**
      * Sets the frequency of the first octave.
      *
@@ -381,4 +684,43 @@ public class Simplex extends ModuleBase {
     public void setSeed(int seed) {
         this.seed = seed;
     }
+
+    /**
+     * Sets the periods of the Simplex noise.
+     * 
+     * <p>
+     * The periods are measured in units of the first octave: the noise value
+     * at ( @a x + @a xPeriod / @a frequency, @a y, @a z ) is equal to the
+     * noise value at ( @a x, @a y, @a z ), up to the rounding of the input
+     * coordinates. A period of zero leaves that axis unbounded. The simplex
+     * lattice is skewed, so only translations by a multiple of three map it
+     * onto itself, and each period must be a multiple of three. To build a
+     * tileable noise map, set bounds that span a whole number of periods.
+     * 
+     * <p>
+     * Only three-dimensional noise repeats; two-dimensional noise has no
+     * axis-aligned periods. A planar noise map built from three-dimensional
+     * noise with an @a x and a @a z period is tileable.
+     * 
+     * <p>
+     * The periods take effect the next time build() is called.
+     * 
+     * @param xPeriod The period along the @a x axis, or zero.
+     * @param yPeriod The period along the @a y axis, or zero.
+     * @param zPeriod The period along the @a z axis, or zero.
+     * 
+     * @pre Every period is zero or a positive multiple of three.
+     * @pre If a period is not zero, the lacunarity is a whole number and
+     *      two-dimensional noise is disabled when build() is called.
+     * 
+     * @throws IllegalArgumentException See the preconditions.
+     */
+    public void setPeriod(int xPeriod, int yPeriod, int zPeriod) {
+        if (!PeriodicSimplexBasis.isValidPeriod(xPeriod) || !PeriodicSimplexBasis.isValidPeriod(yPeriod) || !PeriodicSimplexBasis.isValidPeriod(zPeriod)) {
+            throw new IllegalArgumentException("Invalid Parameter in Simplex");
+        }
+        this.xPeriod = xPeriod;
+        this.yPeriod = yPeriod;
+        this.zPeriod = zPeriod;
+    }
 }
@@ -69,6 +69,15 @@ import libnoiseforjava.SimplexBasis;
  * crystal-like textures.
  * 
  * <p>
+ * Placing each seed point takes three Simplex noise evaluations, and each
+ * output value looks at the seed points of 125 cubes, which makes this noise
+ * module slow. Call the enableHashedSeedPoints() method to place the seed
+ * points with the integer hash used by Voronoi instead. The seed points then
+ * lie elsewhere, so the cells have other shapes, but each cell is still
+ * assigned its value from Simplex noise. Only the seed points that can be
+ * the nearest one are looked at, and adjacent output values share them.
+ * 
+ * <p>
  * This noise module requires no source modules.
  * 
  * @see <a
@@ -104,6 +113,12 @@ public class SimplexVoronoi extends ModuleBase {
      */
     private boolean enableDistance;
 
+    /**
+     * Determines if the seed points are placed by an integer hash instead of
+     * Simplex noise.
+     */
+    boolean enableHashedSeedPoints;
+
     /**
      * Frequency of the seed points.
      */
@@ -117,10 +132,21 @@ public class SimplexVoronoi extends ModuleBase {
 
     SimplexBasis[] noisesource;
 
+    /**
+     * The hashed seed points last used by each thread.
+     */
+    final ThreadLocal<Voronoi.FeatureCache> featureCache = new ThreadLocal<Voronoi.FeatureCache>() {
+        @Override
+        protected Voronoi.FeatureCache initialValue() {
+            return new Voronoi.FeatureCache();
+        }
+    };
+
     public SimplexVoronoi() {
         super(0);
         this.displacement = DEFAULT_VORONOI_DISPLACEMENT;
         this.enableDistance = false;
+        this.enableHashedSeedPoints = false;
         this.frequency = DEFAULT_VORONOI_FREQUENCY;
         this.seed = DEFAULT_VORONOI_SEED;
 
@@ -136,8 +162,9 @@ public class SimplexVoronoi extends ModuleBase {
 
     @Override
     public double getValue(double x, double y, double z) {
-        // This method could be more efficient by caching the seed values. Fix
-        // later.
+        if (this.enableHashedSeedPoints) {
+            return getHashedValue(x, y, z, this.featureCache.get());
+        }
 
         x *= this.frequency;
         y *= this.frequency;
@@ -198,6 +225,55 @@ public class SimplexVoronoi extends ModuleBase {
         return Math.abs(value + (this.displacement * this.noisesource[0].getValue((int) (Math.floor(xCandidate)), (int) (Math.floor(yCandidate)), (int) (Math.floor(zCandidate)))));
     }
 
+    @Override
+    public void getValues(double[] xs, double[] ys, double[] zs, double[] out, int offset, int count) {
+        if (!this.enableHashedSeedPoints) {
+            super.getValues(xs, ys, zs, out, offset, count);
+            return;
+        }
+
+        Voronoi.FeatureCache cache = this.featureCache.get();
+        int end = offset + count;
+        for (int i = offset; i < end; i++) {
+            out[i] = getHashedValue(xs[i], ys[i], zs[i], cache);
+        }
+    }
+
+    /**
+     * Generates an output value with the seed points placed by an integer
+     * hash.
+     *
+     * @param x The x coordinate of the input value.
+     * @param y The y coordinate of the input value.
+     * @param z The z coordinate of the input value.
+     * @param cache The cache of the current thread.
+     *
+     * @return The output value.
+     */
+    double getHashedValue(double x, double y, double z, Voronoi.FeatureCache cache) {
+        x *= this.frequency;
+        y *= this.frequency;
+        z *= this.frequency;
+
+        int candidate = Voronoi.nearestSeedPoint(x, y, z, this.seed, false, cache);
+        double xCandidate = cache.xPos[candidate];
+        double yCandidate = cache.yPos[candidate];
+        double zCandidate = cache.zPos[candidate];
+
+        double value;
+        if (this.enableDistance) {
+            // Determine the distance to the nearest seed point.
+            double xDist = xCandidate - x;
+            double yDist = yCandidate - y;
+            double zDist = zCandidate - z;
+            value = (Math.sqrt(xDist * xDist + yDist * yDist + zDist * zDist)) * SQRT_3 - 1.0;
+        } else {
+            value = 0.0;
+        }
+
+        return Math.abs(value + (this.displacement * this.noisesource[0].getValue((int) (Math.floor(xCandidate)), (int) (Math.floor(yCandidate)), (int) (Math.floor(zCandidate)))));
+    }
+
     /**
      * Enables or disables applying the distance from the nearest seed point to
      * the output value
@@ -216,6 +292,22 @@ public class SimplexVoronoi extends ModuleBase {
         this.enableDistance = enable;
     }
 
+    /**
+     * Enables or disables placing the seed points with an integer hash
+     * 
+     * <p>
+     * By default, the position of each seed point is taken from three Simplex
+     * noise functions. With this feature enabled, it is taken from the integer
+     * hash used by Voronoi, which is much faster but places the seed points
+     * elsewhere. The value of each cell still comes from Simplex noise.
+     * 
+     * @param enable Specifies whether to place the seed points with an integer
+     *            hash or not.
+     */
+    public void enableHashedSeedPoints(boolean enable) {
+        this.enableHashedSeedPoints = enable;
+    }
+
     /**
      * Returns the displacement value of the Voronoi cells
      * 
@@ -276,6 +368,18 @@ public class SimplexVoronoi extends ModuleBase {
         return this.enableDistance;
     }
 
+    /**
+     * Determines if the seed points are placed by an integer hash
+     * 
+     * @return <ul>
+     *         <li> true if the seed points are placed by an integer hash. <li>
+     *         false if they are placed by Simplex noise.
+     *         </ul>
+     */
+    public boolean isHashedSeedPointsEnabled() {
+        return this.enableHashedSeedPoints;
+    }
+
     /**
      * Sets the displacement value of the Voronoi cells
      * 
@@ -317,4 +421,11 @@ public class SimplexVoronoi extends ModuleBase {
     public void setSeed(int seed) {
         this.seed = seed;
     }
+
+    @Override
+    ModuleBase copyNode() {
+        SimplexVoronoi copy = (SimplexVoronoi) super.copyNode();
+        copy.noisesource = this.noisesource.clone();
+        return copy;
+    }
 }
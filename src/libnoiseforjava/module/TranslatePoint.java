@@ -27,6 +27,8 @@
 
 package libnoiseforjava.module;
 
+import libnoiseforjava.ScratchArrays;
+
 /**
  * Noise module that moves the coordinates of the input value before returning
  * the output value from a source module.
@@ -86,6 +88,13 @@ public class TranslatePoint extends ModuleBase {
 
     }
 
+    @Override
+    public boolean repeatsOver(double xExtent, double zExtent) {
+        assert (this.sourceModules[0] != null);
+
+        return this.sourceModules[0].repeatsOver(xExtent, zExtent);
+    }
+
     @Override
     public double getValue(double x, double y, double z) {
         assert (this.sourceModules[0] != null);
@@ -93,6 +102,27 @@ public class TranslatePoint extends ModuleBase {
         return this.sourceModules[0].getValue(x + this.xTranslation, y + this.yTranslation, z + this.zTranslation);
     }
 
+    @Override
+    public void getValues(double[] xs, double[] ys, double[] zs, double[] out, int offset, int count) {
+        assert (this.sourceModules[0] != null);
+
+        ScratchArrays scratch = ScratchArrays.get();
+        int mark = scratch.mark();
+        try {
+            double[] nx = scratch.doubles(offset + count);
+            double[] ny = scratch.doubles(offset + count);
+            double[] nz = scratch.doubles(offset + count);
+            for (int i = offset; i < offset + count; i++) {
+                nx[i] = xs[i] + this.xTranslation;
+                ny[i] = ys[i] + this.yTranslation;
+                nz[i] = zs[i] + this.zTranslation;
+            }
+            this.sourceModules[0].getValues(nx, ny, nz, out, offset, count);
+        } finally {
+            scratch.release(mark);
+        }
+    }
+
     /**
      * Returns the translation amount to apply to the x coordinate of the input
      * value.
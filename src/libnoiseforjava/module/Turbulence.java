@@ -27,6 +27,9 @@
 
 package libnoiseforjava.module;
 
+import libnoiseforjava.ScratchArrays;
+import libnoiseforjava.Seeding;
+
 /**
  * Noise module that randomly displaces the input value before returning the
  * output value from a source module.
@@ -222,6 +225,55 @@ public class Turbulence extends ModuleBase {
         return this.sourceModules[0].getValue(xDistort, yDistort, zDistort);
     }
 
+    @Override
+    public void getValues(double[] xs, double[] ys, double[] zs, double[] out, int offset, int count) {
+        assert (this.sourceModules[0] != null);
+
+        int end = offset + count;
+        ScratchArrays scratch = ScratchArrays.get();
+        int mark = scratch.mark();
+        try {
+            double[] x0 = scratch.doubles(end);
+            double[] y0 = scratch.doubles(end);
+            double[] z0 = scratch.doubles(end);
+            double[] xDistort = scratch.doubles(end);
+            double[] yDistort = scratch.doubles(end);
+            double[] zDistort = scratch.doubles(end);
+
+            // The same offsets as getValue(), applied one distortion module at a
+            // time so that the coordinate arrays can be reused.
+            for (int i = offset; i < end; i++) {
+                x0[i] = xs[i] + (12414.0 / 65536.0);
+                y0[i] = ys[i] + (65124.0 / 65536.0);
+                z0[i] = zs[i] + (31337.0 / 65536.0);
+            }
+            this.xDistortModule.getValues(x0, y0, z0, xDistort, offset, count);
+
+            for (int i = offset; i < end; i++) {
+                x0[i] = xs[i] + (26519.0 / 65536.0);
+                y0[i] = ys[i] + (18128.0 / 65536.0);
+                z0[i] = zs[i] + (60493.0 / 65536.0);
+            }
+            this.yDistortModule.getValues(x0, y0, z0, yDistort, offset, count);
+
+            for (int i = offset; i < end; i++) {
+                x0[i] = xs[i] + (53820.0 / 65536.0);
+                y0[i] = ys[i] + (11213.0 / 65536.0);
+                z0[i] = zs[i] + (44845.0 / 65536.0);
+            }
+            this.zDistortModule.getValues(x0, y0, z0, zDistort, offset, count);
+
+            for (int i = offset; i < end; i++) {
+                xDistort[i] = xs[i] + (xDistort[i] * this.power);
+                yDistort[i] = ys[i] + (yDistort[i] * this.power);
+                zDistort[i] = zs[i] + (zDistort[i] * this.power);
+            }
+            this.sourceModules[0].getValues(xDistort, yDistort, zDistort, out, offset, count);
+        } finally {
+            scratch.release(mark);
+        }
+    }
+
     /**
      * Sets the seed value of the internal noise modules that are used to
      * displace the input values.
@@ -241,7 +293,7 @@ public class Turbulence extends ModuleBase {
      * @param seed The seed value.
      */
     public void setSeed(int seed) {
-        if (seed == 0) {
+        if (Seeding.isRandomSeed(seed)) {
             this.xDistortModule.setSeed(0);
             this.yDistortModule.setSeed(0);
             this.zDistortModule.setSeed(0);
@@ -334,4 +386,14 @@ public class Turbulence extends ModuleBase {
         this.zDistortModule.setOctaveCount(roughness);
     }
 
+    @Override
+    ModuleBase copyNode() {
+        // The distortion modules are changed in place by the setters, so the
+        // copy needs its own.
+        Turbulence copy = (Turbulence) super.copyNode();
+        copy.xDistortModule = (Perlin) this.xDistortModule.copyNode();
+        copy.yDistortModule = (Perlin) this.yDistortModule.copyNode();
+        copy.zDistortModule = (Perlin) this.zDistortModule.copyNode();
+        return copy;
+    }
 }
@@ -27,6 +27,8 @@
 
 package libnoiseforjava.module;
 
+import java.util.Arrays;
+
 import libnoiseforjava.NoiseGen;
 import libnoiseforjava.PerlinBasis;
 
@@ -70,6 +72,13 @@ import libnoiseforjava.PerlinBasis;
  * crystal-like textures
  * 
  * <p>
+ * The getFeatures() methods return, from a single search, the output value,
+ * the distances to the nearest and the second-nearest seed points and the
+ * identity of the cell. The VoronoiOutput noise module passes one of these
+ * to other noise modules; several VoronoiOutput modules of the same Voronoi
+ * module share the search.
+ * 
+ * <p>
  * This noise module requires no source modules.
  * 
  * @see <a
@@ -94,6 +103,12 @@ public class Voronoi extends ModuleBase {
 
     private static final double SQRT_3 = 1.7320508075688772935;
 
+    /**
+     * The cube holding the input value and the six cubes next to it, as
+     * offsets into the 5x5x5 cubes around the input value.
+     */
+    private static final int[] FIRST_CUBES = { 2, 2, 2, 1, 2, 2, 3, 2, 2, 2, 1, 2, 2, 3, 2, 2, 2, 1, 2, 2, 3 };
+
     /**
      * Scale of the random displacement to apply to each Voronoi cell.
      */
@@ -118,6 +133,22 @@ public class Voronoi extends ModuleBase {
 
     PerlinBasis[] noisesource;
 
+    /**
+     * Incremented whenever the output of this noise module may change, so
+     * that remembered features are not reused.
+     */
+    int version;
+
+    /**
+     * The seed points last used by each thread.
+     */
+    final ThreadLocal<FeatureCache> featureCache = new ThreadLocal<FeatureCache>() {
+        @Override
+        protected FeatureCache initialValue() {
+            return new FeatureCache();
+        }
+    };
+
     public Voronoi() {
         super(0);
         this.displacement = DEFAULT_VORONOI_DISPLACEMENT;
@@ -129,6 +160,7 @@ public class Voronoi extends ModuleBase {
     }
 
     public void build() {
+        this.version++;
         for (int i = 0; i < 3; i++) {
             this.noisesource[i] = new PerlinBasis();
             this.noisesource[i].setSeed(this.seed + i);
@@ -137,66 +169,474 @@ public class Voronoi extends ModuleBase {
 
     @Override
     public double getValue(double x, double y, double z) {
-        // This method could be more efficient by caching the seed values. Fix
-        // later.
+        return getValue(x, y, z, this.featureCache.get());
+    }
 
+    @Override
+    public void getValues(double[] xs, double[] ys, double[] zs, double[] out, int offset, int count) {
+        FeatureCache cache = this.featureCache.get();
+        int end = offset + count;
+        for (int i = offset; i < end; i++) {
+            out[i] = getValue(xs[i], ys[i], zs[i], cache);
+        }
+    }
+
+    /**
+     * Generates an output value, reusing the seed points and the cell value
+     * stored in a cache.
+     *
+     * @param x The x coordinate of the input value.
+     * @param y The y coordinate of the input value.
+     * @param z The z coordinate of the input value.
+     * @param cache The cache of the current thread.
+     *
+     * @return The output value.
+     */
+    double getValue(double x, double y, double z, FeatureCache cache) {
         x *= this.frequency;
         y *= this.frequency;
         z *= this.frequency;
 
+        int candidate = nearestSeedPoint(x, y, z, this.seed, false, cache);
+        return getCellValue(x, y, z, candidate, cache);
+    }
+
+    /**
+     * Returns the features of the Voronoi cell an input value lies in.
+     * <p>
+     * This method searches for the nearest seed points once and returns all
+     * of the features found by that search.
+     *
+     * @param x The x coordinate of the input value.
+     * @param y The y coordinate of the input value.
+     * @param z The z coordinate of the input value.
+     * @param features The object that receives the features.
+     */
+    public void getFeatures(double x, double y, double z, VoronoiFeatures features) {
+        features.set(getSharedFeatures(x, y, z));
+    }
+
+    /**
+     * Returns the features of the Voronoi cell an input value lies in, in an
+     * object owned by the current thread. The features are reused if the last
+     * call on this thread was for the same input value.
+     *
+     * @param x The x coordinate of the input value.
+     * @param y The y coordinate of the input value.
+     * @param z The z coordinate of the input value.
+     *
+     * @return The features, valid until the next call on this thread.
+     */
+    VoronoiFeatures getSharedFeatures(double x, double y, double z) {
+        FeatureCache cache = this.featureCache.get();
+        if (!(cache.featuresOwner == this && cache.featuresVersion == this.version && x == cache.xFeatures && y == cache.yFeatures && z == cache.zFeatures)) {
+            getFeatures(x, y, z, cache, cache.features);
+            cache.featuresOwner = this;
+            cache.featuresVersion = this.version;
+            cache.xFeatures = x;
+            cache.yFeatures = y;
+            cache.zFeatures = z;
+        }
+        return cache.features;
+    }
+
+    /**
+     * Returns the features of the Voronoi cells a batch of input values lie
+     * in.
+     * <p>
+     * This method searches for the nearest seed points once per input value
+     * and returns all of the features found by that search. Each output array
+     * may be null if the feature is not needed. When this method is called
+     * again on the same thread with the same input values, the features are
+     * copied from the previous call.
+     *
+     * @param xs The x coordinates of the input values.
+     * @param ys The y coordinates of the input values.
+     * @param zs The z coordinates of the input values.
+     * @param values The array that receives the output values, or null.
+     * @param distances1 The array that receives the distances to the nearest
+     *            seed points, or null.
+     * @param distances2 The array that receives the distances to the
+     *            second-nearest seed points, or null.
+     * @param cellIds The array that receives the cell identities, or null.
+     * @param offset The index of the first input value.
+     * @param count The number of input values.
+     */
+    public void getFeatures(double[] xs, double[] ys, double[] zs, double[] values, double[] distances1, double[] distances2, int[] cellIds, int offset, int count) {
+        FeatureCache cache = this.featureCache.get();
+        if (!cache.isBatch(this, xs, ys, zs, offset, count)) {
+            cache.startBatch(this, xs, ys, zs, offset, count);
+            VoronoiFeatures features = new VoronoiFeatures();
+            for (int i = 0; i < count; i++) {
+                getFeatures(xs[offset + i], ys[offset + i], zs[offset + i], cache, features);
+                cache.valuesBatch[i] = features.value;
+                cache.distances1Batch[i] = features.distance1;
+                cache.distances2Batch[i] = features.distance2;
+                cache.cellIdsBatch[i] = features.cellId;
+            }
+            cache.batchCount = count;
+        }
+
+        if (values != null) {
+            System.arraycopy(cache.valuesBatch, 0, values, offset, count);
+        }
+        if (distances1 != null) {
+            System.arraycopy(cache.distances1Batch, 0, distances1, offset, count);
+        }
+        if (distances2 != null) {
+            System.arraycopy(cache.distances2Batch, 0, distances2, offset, count);
+        }
+        if (cellIds != null) {
+            System.arraycopy(cache.cellIdsBatch, 0, cellIds, offset, count);
+        }
+    }
+
+    void getFeatures(double x, double y, double z, FeatureCache cache, VoronoiFeatures features) {
+        x *= this.frequency;
+        y *= this.frequency;
+        z *= this.frequency;
+
+        int candidate = nearestSeedPoint(x, y, z, this.seed, true, cache);
+
+        features.value = getCellValue(x, y, z, candidate, cache);
+        features.distance1 = Math.sqrt(cache.firstDistance);
+        features.distance2 = Math.sqrt(cache.secondDistance);
+        features.xCell = cache.xBase + candidate % 5;
+        features.yCell = cache.yBase + candidate / 5 % 5;
+        features.zCell = cache.zBase + candidate / 25;
+        features.cellId = NoiseGen.IntValueNoise3D(features.xCell, features.yCell, features.zCell, this.seed);
+    }
+
+    /**
+     * Returns the output value for the cell of a seed point.
+     *
+     * @param x The x coordinate of the input value, scaled by the frequency.
+     * @param y The y coordinate of the input value, scaled by the frequency.
+     * @param z The z coordinate of the input value, scaled by the frequency.
+     * @param candidate The index of the nearest seed point in the cache.
+     * @param cache The cache of the current thread.
+     *
+     * @return The output value.
+     */
+    double getCellValue(double x, double y, double z, int candidate, FeatureCache cache) {
+        double xCandidate = cache.xPos[candidate];
+        double yCandidate = cache.yPos[candidate];
+        double zCandidate = cache.zPos[candidate];
+
+        double value;
+        if (this.enableDistance) {
+            // Determine the distance to the nearest seed point.
+            double xDist = xCandidate - x;
+            double yDist = yCandidate - y;
+            double zDist = zCandidate - z;
+            value = (Math.sqrt(xDist * xDist + yDist * yDist + zDist * zDist)) * SQRT_3 - 1.0;
+
+            return Math.abs(value + (this.displacement * cache.cellValue(this.noisesource[0], Math.floor(xCandidate), Math.floor(yCandidate), Math.floor(zCandidate), true)));
+        } else {
+            value = 0.0;
+
+            return Math.abs(value + (this.displacement * cache.cellValue(this.noisesource[0], xCandidate, yCandidate, zCandidate, false)));
+        }
+    }
+
+    /**
+     * Finds the seed point nearest to an input value, with the seed points
+     * placed by ValueNoise3D().
+     * <p>
+     * The seed point of each unit cube lies within one unit of the cube, so
+     * the seed point nearest to the input value lies in one of the 5x5x5
+     * cubes around it. Cubes that cannot hold a seed point nearer than the
+     * nearest one found so far are skipped. The bound on the distance to the
+     * seed point of a cube is computed with the same operations as the
+     * distance itself and never exceeds it, so the result is the same as if
+     * all 125 cubes were visited.
+     * <p>
+     * The squared distances to the nearest and, if requested, the
+     * second-nearest seed points are left in the cache.
+     *
+     * @param x The x coordinate of the input value, scaled by the frequency.
+     * @param y The y coordinate of the input value, scaled by the frequency.
+     * @param z The z coordinate of the input value, scaled by the frequency.
+     * @param seed The seed of the seed points.
+     * @param isSecondNeeded Specifies whether to find the second-nearest seed
+     *            point too.
+     * @param cache The cache of the current thread.
+     *
+     * @return The index of the nearest seed point in the cache.
+     */
+    static int nearestSeedPoint(double x, double y, double z, int seed, boolean isSecondNeeded, FeatureCache cache) {
         int xInt = (x > 0.0 ? (int) x : (int) x - 1);
         int yInt = (y > 0.0 ? (int) y : (int) y - 1);
         int zInt = (z > 0.0 ? (int) z : (int) z - 1);
 
+        cache.moveTo(xInt - 2, yInt - 2, zInt - 2, seed);
+
+        // Visit the cube holding the input value and the cubes next to it
+        // first. The nearest (or second-nearest) of their seed points bounds
+        // the distance to the seed point we are looking for.
+        double first = Double.POSITIVE_INFINITY;
+        double second = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < FIRST_CUBES.length; i += 3) {
+            double dist = cache.distance(FIRST_CUBES[i], FIRST_CUBES[i + 1], FIRST_CUBES[i + 2], x, y, z);
+            if (dist < first) {
+                second = first;
+                first = dist;
+            } else if (dist < second) {
+                second = dist;
+            }
+        }
+        double bound = isSecondNeeded ? second : first;
+
         double minDist = 2147483647.0;
-        double xCandidate = 0;
-        double yCandidate = 0;
-        double zCandidate = 0;
+        double secondDist = 2147483647.0;
+        int candidate = 0;
 
         // Inside each unit cube, there is a seed point at a random position. Go
-        // through each of the nearby cubes until we find a cube with a seed
-        // point
-        // that is closest to the specified position.
-        for (int zCur = zInt - 2; zCur <= zInt + 2; zCur++) {
-            for (int yCur = yInt - 2; yCur <= yInt + 2; yCur++) {
-                for (int xCur = xInt - 2; xCur <= xInt + 2; xCur++) {
-                    // Calculate the position and distance to the seed point
-                    // inside of
-                    // this unit cube.
-                    double xPos = xCur + NoiseGen.ValueNoise3D(xCur, yCur, zCur, this.seed);
-                    double yPos = yCur + NoiseGen.ValueNoise3D(xCur, yCur, zCur, this.seed + 1);
-                    double zPos = zCur + NoiseGen.ValueNoise3D(xCur, yCur, zCur, this.seed + 2);
-                    double xDist = xPos - x;
-                    double yDist = yPos - y;
-                    double zDist = zPos - z;
-                    double dist = xDist * xDist + yDist * yDist + zDist * zDist;
+        // through each of the nearby cubes, in the same order as libnoise, and
+        // find the cube with the seed point closest to the specified position.
+        for (int zCur = 0; zCur < 5; zCur++) {
+            double zBound = axisDistance(zInt - 2 + zCur, z);
+            zBound *= zBound;
+            if (zBound > bound) {
+                continue;
+            }
+            for (int yCur = 0; yCur < 5; yCur++) {
+                double yBound = axisDistance(yInt - 2 + yCur, y);
+                yBound *= yBound;
+                if (yBound + zBound > bound) {
+                    continue;
+                }
+                for (int xCur = 0; xCur < 5; xCur++) {
+                    double xBound = axisDistance(xInt - 2 + xCur, x);
+                    if (xBound * xBound + yBound + zBound > bound) {
+                        continue;
+                    }
 
+                    double dist = cache.distance(xCur, yCur, zCur, x, y, z);
                     if (dist < minDist) {
-                        // This seed point is closer to any others found so far,
-                        // so record
-                        // this seed point.
+                        // This seed point is closer than any other found so
+                        // far, so record this seed point.
+                        secondDist = minDist;
                         minDist = dist;
-                        xCandidate = xPos;
-                        yCandidate = yPos;
-                        zCandidate = zPos;
+                        candidate = FeatureCache.index(xCur, yCur, zCur);
+                    } else if (dist < secondDist) {
+                        secondDist = dist;
                     }
+                    bound = Math.min(bound, isSecondNeeded ? secondDist : minDist);
                 }
             }
         }
 
-        double value;
-        if (this.enableDistance) {
-            // Determine the distance to the nearest seed point.
-            double xDist = xCandidate - x;
-            double yDist = yCandidate - y;
-            double zDist = zCandidate - z;
-            value = (Math.sqrt(xDist * xDist + yDist * yDist + zDist * zDist)) * SQRT_3 - 1.0;
+        cache.firstDistance = minDist;
+        cache.secondDistance = secondDist;
+        return candidate;
+    }
 
-            return Math.abs(value + (this.displacement * this.noisesource[0].getValue((int) (Math.floor(xCandidate)), (int) (Math.floor(yCandidate)), (int) (Math.floor(zCandidate)))));
+    /**
+     * Returns the distance along one axis from a coordinate to the range of
+     * coordinates a seed point of a unit cube can have along that axis.
+     * <p>
+     * A seed point of the cube lies between cur - 1 and cur + 1, because
+     * ValueNoise3D() returns values between -1 and 1. Rounding is monotonic,
+     * so the distance computed for the seed point is never smaller than this
+     * one.
+     *
+     * @param cur The integer coordinate of the cube.
+     * @param coord The coordinate of the input value.
+     *
+     * @return The distance, or 0.0 if the coordinate lies within the range.
+     */
+    static double axisDistance(int cur, double coord) {
+        double lower = cur - 1.0;
+        double upper = cur + 1.0;
+        if (coord < lower) {
+            return lower - coord;
+        } else if (coord > upper) {
+            return coord - upper;
         } else {
-            value = 0.0;
+            return 0.0;
+        }
+    }
+
+    /**
+     * The seed points of the 5x5x5 unit cubes around the cube last visited by
+     * one thread, and the value of the cell last returned.
+     * <p>
+     * A seed point is computed the first time it is needed and reused until
+     * an input value falls in another cube. Adjacent input values in a noise
+     * map usually fall in the same cube, so most of them need no new seed
+     * points at all.
+     */
+    static final class FeatureCache {
+
+        /**
+         * The seed the seed points were computed with.
+         */
+        int seed;
+
+        /**
+         * The coordinates of the lowest cube of the 5x5x5 cubes.
+         */
+        int xBase;
+        int yBase;
+        int zBase;
+
+        /**
+         * The positions of the seed points, indexed by index().
+         */
+        final double[] xPos = new double[125];
+        final double[] yPos = new double[125];
+        final double[] zPos = new double[125];
+
+        /**
+         * The seed point at an index is valid if its stamp is equal to stamp.
+         */
+        final int[] stamps = new int[125];
+        int stamp;
+
+        /**
+         * The arguments of the last call to the cell-value basis, and the
+         * value it returned.
+         */
+        PerlinBasis cellSource;
+        boolean isCellFloored;
+        double xCell;
+        double yCell;
+        double zCell;
+        double cellValue;
+
+        /**
+         * The squared distances to the nearest and the second-nearest seed
+         * points found by the last search.
+         */
+        double firstDistance;
+        double secondDistance;
+
+        /**
+         * The features last returned for a single input value, and the module
+         * and input value they belong to.
+         */
+        final VoronoiFeatures features = new VoronoiFeatures();
+        Voronoi featuresOwner;
+        int featuresVersion;
+        double xFeatures;
+        double yFeatures;
+        double zFeatures;
+
+        /**
+         * The features last returned for a batch, and the module and input
+         * values they belong to. batchCount is -1 if no batch is cached.
+         */
+        Voronoi batchOwner;
+        int batchVersion;
+        int batchCount = -1;
+        double[] xsBatch = new double[0];
+        double[] ysBatch = new double[0];
+        double[] zsBatch = new double[0];
+        double[] valuesBatch = new double[0];
+        double[] distances1Batch = new double[0];
+        double[] distances2Batch = new double[0];
+        int[] cellIdsBatch = new int[0];
+
+        static int index(int xCur, int yCur, int zCur) {
+            return (zCur * 5 + yCur) * 5 + xCur;
+        }
+
+        /**
+         * Makes the cache hold the seed points of the 5x5x5 cubes starting at
+         * the specified cube.
+         */
+        void moveTo(int xBase, int yBase, int zBase, int seed) {
+            if (this.stamp == 0 || xBase != this.xBase || yBase != this.yBase || zBase != this.zBase || seed != this.seed) {
+                this.xBase = xBase;
+                this.yBase = yBase;
+                this.zBase = zBase;
+                this.seed = seed;
+                this.stamp++;
+                if (this.stamp == 0) {
+                    Arrays.fill(this.stamps, 0);
+                    this.stamp = 1;
+                }
+            }
+        }
 
-            return Math.abs(value + (this.displacement * this.noisesource[0].getValue(xCandidate, yCandidate, zCandidate)));
+        /**
+         * Returns the squared distance from an input value to the seed point
+         * of a cube, computing the seed point if needed.
+         */
+        double distance(int xCur, int yCur, int zCur, double x, double y, double z) {
+            int i = index(xCur, yCur, zCur);
+            if (this.stamps[i] != this.stamp) {
+                int xCube = this.xBase + xCur;
+                int yCube = this.yBase + yCur;
+                int zCube = this.zBase + zCur;
+                this.xPos[i] = xCube + NoiseGen.ValueNoise3D(xCube, yCube, zCube, this.seed);
+                this.yPos[i] = yCube + NoiseGen.ValueNoise3D(xCube, yCube, zCube, this.seed + 1);
+                this.zPos[i] = zCube + NoiseGen.ValueNoise3D(xCube, yCube, zCube, this.seed + 2);
+                this.stamps[i] = this.stamp;
+            }
+            double xDist = this.xPos[i] - x;
+            double yDist = this.yPos[i] - y;
+            double zDist = this.zPos[i] - z;
+            return xDist * xDist + yDist * yDist + zDist * zDist;
+        }
+
+        /**
+         * Determines if the cached batch belongs to the specified module and
+         * input values.
+         */
+        boolean isBatch(Voronoi owner, double[] xs, double[] ys, double[] zs, int offset, int count) {
+            if (owner != this.batchOwner || owner.version != this.batchVersion || count != this.batchCount) {
+                return false;
+            }
+            for (int i = 0; i < count; i++) {
+                if (xs[offset + i] != this.xsBatch[i] || ys[offset + i] != this.ysBatch[i] || zs[offset + i] != this.zsBatch[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Makes the cached batch hold the specified input values. The caller
+         * fills in the features, then sets batchCount.
+         */
+        void startBatch(Voronoi owner, double[] xs, double[] ys, double[] zs, int offset, int count) {
+            if (this.xsBatch.length < count) {
+                this.xsBatch = new double[count];
+                this.ysBatch = new double[count];
+                this.zsBatch = new double[count];
+                this.valuesBatch = new double[count];
+                this.distances1Batch = new double[count];
+                this.distances2Batch = new double[count];
+                this.cellIdsBatch = new int[count];
+            }
+            System.arraycopy(xs, offset, this.xsBatch, 0, count);
+            System.arraycopy(ys, offset, this.ysBatch, 0, count);
+            System.arraycopy(zs, offset, this.zsBatch, 0, count);
+            this.batchOwner = owner;
+            this.batchVersion = owner.version;
+            this.batchCount = -1;
+        }
+
+        /**
+         * Returns the value of the basis at a seed point, reusing the last
+         * value if the arguments are the same.
+         */
+        double cellValue(PerlinBasis source, double x, double y, double z, boolean isFloored) {
+            if (source != this.cellSource || isFloored != this.isCellFloored || x != this.xCell || y != this.yCell || z != this.zCell) {
+                if (isFloored) {
+                    this.cellValue = source.getValue((int) x, (int) y, (int) z);
+                } else {
+                    this.cellValue = source.getValue(x, y, z);
+                }
+                this.cellSource = source;
+                this.isCellFloored = isFloored;
+                this.xCell = x;
+                this.yCell = y;
+                this.zCell = z;
+            }
+            return this.cellValue;
         }
     }
 
@@ -216,6 +656,7 @@ public class Voronoi extends ModuleBase {
      */
     public void enableDistance(boolean enable) {
         this.enableDistance = enable;
+        this.version++;
     }
 
     /**
@@ -288,6 +729,7 @@ public class Voronoi extends ModuleBase {
      */
     public void setDisplacement(double displacement) {
         this.displacement = displacement;
+        this.version++;
     }
 
     /**
@@ -300,6 +742,7 @@ public class Voronoi extends ModuleBase {
      */
     public void setFrequency(double frequency) {
         this.frequency = frequency;
+        this.version++;
     }
 
     /**
@@ -313,6 +756,14 @@ public class Voronoi extends ModuleBase {
      */
     public void setSeed(int seed) {
         this.seed = seed;
+        this.version++;
+    }
+
+    @Override
+    ModuleBase copyNode() {
+        Voronoi copy = (Voronoi) super.copyNode();
+        copy.noisesource = this.noisesource.clone();
+        return copy;
     }
 
 }
@@ -0,0 +1,164 @@
+/*******************************************************************************
+ *  Copyright (c) 2003, 2004 Jason Bevins (original libnoise code)
+ *  Copyright (c) 2010 Thomas J. Hodge (java port of libnoise)
+ *  Copyright (c) Nick Whitney ( changed noisegen to perlin basis. added javadoc)
+ *  
+ *  This file is part of libnoiseforjava.
+ *  
+ *  libnoiseforjava is a Java port of the C++ library libnoise, which may be
+ *  found at http://libnoise.sourceforge.net/. libnoise was developed by Jason
+ *  Bevins, who may be contacted at jlbezigvins@gmzigail.com (for great email,
+ *  take off every 'zig'). Porting to Java was done by Thomas Hodge, who may be
+ *  contacted at libnoisezagforjava@gzagmail.com (remove every 'zag').
+ *  
+ *  libnoiseforjava is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the Free
+ *  Software Foundation, either version 3 of the License, or (at your option) any
+ *  later version.
+ *  
+ *  libnoiseforjava is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ *  details.
+ *  
+ *  You should have received a copy of the GNU General Public License along with
+ *  libnoiseforjava. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+
+package libnoiseforjava.module;
+
+/**
+ * The features of the Voronoi cell an input value lies in, as returned by
+ * Voronoi.getFeatures().
+ * <p>
+ * The distances are measured in the coordinates of the seed points, that is,
+ * after the input value has been multiplied by the frequency of the Voronoi
+ * module. The seed points are placed one per unit cube in those coordinates.
+ * The second-nearest seed point is the second-nearest of the seed points
+ * searched, which lie in the 5x5x5 unit cubes around the input value.
+ * <p>
+ * An object of this class may be reused for any number of calls.
+ */
+public class VoronoiFeatures {
+
+    /**
+     * The output value of the Voronoi module.
+     */
+    double value;
+
+    /**
+     * The distance to the nearest seed point.
+     */
+    double distance1;
+
+    /**
+     * The distance to the second-nearest seed point.
+     */
+    double distance2;
+
+    /**
+     * The coordinates of the unit cube holding the nearest seed point.
+     */
+    int xCell;
+    int yCell;
+    int zCell;
+
+    /**
+     * A random number identifying the cell.
+     */
+    int cellId;
+
+    public VoronoiFeatures() {
+        this.value = 0.0;
+        this.distance1 = 0.0;
+        this.distance2 = 0.0;
+        this.xCell = 0;
+        this.yCell = 0;
+        this.zCell = 0;
+        this.cellId = 0;
+    }
+
+    /**
+     * Returns the output value of the Voronoi module, as returned by
+     * getValue().
+     *
+     * @returns The output value.
+     */
+    public double getValue() {
+        return this.value;
+    }
+
+    /**
+     * Returns the distance to the nearest seed point, often called F1.
+     *
+     * @returns The distance to the nearest seed point.
+     */
+    public double getDistance1() {
+        return this.distance1;
+    }
+
+    /**
+     * Returns the distance to the second-nearest seed point, often called F2.
+     * <p>
+     * F2 - F1 is zero on the borders between cells and grows towards the
+     * middle of each cell.
+     *
+     * @returns The distance to the second-nearest seed point.
+     */
+    public double getDistance2() {
+        return this.distance2;
+    }
+
+    /**
+     * Returns the x coordinate of the unit cube holding the nearest seed
+     * point.
+     *
+     * @returns The x coordinate of the cell.
+     */
+    public int getXCell() {
+        return this.xCell;
+    }
+
+    /**
+     * Returns the y coordinate of the unit cube holding the nearest seed
+     * point.
+     *
+     * @returns The y coordinate of the cell.
+     */
+    public int getYCell() {
+        return this.yCell;
+    }
+
+    /**
+     * Returns the z coordinate of the unit cube holding the nearest seed
+     * point.
+     *
+     * @returns The z coordinate of the cell.
+     */
+    public int getZCell() {
+        return this.zCell;
+    }
+
+    /**
+     * Returns a random number identifying the cell.
+     * <p>
+     * The number lies between 0 and Integer.MAX_VALUE and depends on the
+     * coordinates of the cell and the seed of the Voronoi module. Two cells
+     * may have the same number, but rarely do.
+     *
+     * @returns The cell identity.
+     */
+    public int getCellId() {
+        return this.cellId;
+    }
+
+    void set(VoronoiFeatures other) {
+        this.value = other.value;
+        this.distance1 = other.distance1;
+        this.distance2 = other.distance2;
+        this.xCell = other.xCell;
+        this.yCell = other.yCell;
+        this.zCell = other.zCell;
+        this.cellId = other.cellId;
+    }
+}
@@ -0,0 +1,205 @@
+/*******************************************************************************
+ *  Copyright (c) 2003, 2004 Jason Bevins (original libnoise code)
+ *  Copyright (c) 2010 Thomas J. Hodge (java port of libnoise)
+ *  Copyright (c) Nick Whitney ( changed noisegen to perlin basis. added javadoc)
+ *  
+ *  This file is part of libnoiseforjava.
+ *  
+ *  libnoiseforjava is a Java port of the C++ library libnoise, which may be
+ *  found at http://libnoise.sourceforge.net/. libnoise was developed by Jason
+ *  Bevins, who may be contacted at jlbezigvins@gmzigail.com (for great email,
+ *  take off every 'zig'). Porting to Java was done by Thomas Hodge, who may be
+ *  contacted at libnoisezagforjava@gzagmail.com (remove every 'zag').
+ *  
+ *  libnoiseforjava is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the Free
+ *  Software Foundation, either version 3 of the License, or (at your option) any
+ *  later version.
+ *  
+ *  libnoiseforjava is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ *  details.
+ *  
+ *  You should have received a copy of the GNU General Public License along with
+ *  libnoiseforjava. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+
+package libnoiseforjava.module;
+
+import libnoiseforjava.ScratchArrays;
+
+/**
+ * Noise module that outputs one feature of the Voronoi cells generated by a
+ * Voronoi module.
+ * 
+ * <p>
+ * A Voronoi module finds the nearest and the second-nearest seed points to
+ * each input value. This noise module outputs one of the features found by
+ * that search:
+ * <ul>
+ * <li>VALUE: the output value of the Voronoi module.
+ * <li>DISTANCE1: the distance to the nearest seed point (F1).
+ * <li>DISTANCE2: the distance to the second-nearest seed point (F2).
+ * <li>DISTANCE_DIFFERENCE: F2 - F1, which is zero on the borders between
+ * cells.
+ * <li>CELL_VALUE: a random value between -1.0 and +1.0 that is constant
+ * within each cell.
+ * </ul>
+ * 
+ * <p>
+ * Any number of VoronoiOutput modules may use the same Voronoi module. For
+ * each input value, or each batch of input values passed to getValues(), the
+ * Voronoi module searches for the seed points once; the other VoronoiOutput
+ * modules reuse the result. A Select module can, for example, use the
+ * CELL_VALUE of a Voronoi module as its control module while a Terrace module
+ * shapes the DISTANCE_DIFFERENCE of the same Voronoi module, without a second
+ * search.
+ * 
+ * <p>
+ * This noise module requires one source module, which must be a Voronoi
+ * module.
+ * 
+ * @see VoronoiFeatures
+ */
+public class VoronoiOutput extends ModuleBase {
+
+    /**
+     * The features of a Voronoi cell this noise module can output.
+     */
+    public enum Feature {
+        VALUE, DISTANCE1, DISTANCE2, DISTANCE_DIFFERENCE, CELL_VALUE
+    }
+
+    /**
+     * The feature this noise module outputs.
+     */
+    Feature feature;
+
+    public VoronoiOutput(Voronoi voronoi, Feature feature) throws IllegalArgumentException {
+        super(1);
+        setSourceModule(0, voronoi);
+        setFeature(feature);
+    }
+
+    @Override
+    public double getValue(double x, double y, double z) {
+        assert (this.sourceModules[0] != null);
+
+        VoronoiFeatures features = getVoronoi().getSharedFeatures(x, y, z);
+        switch (this.feature) {
+            case VALUE :
+                return features.value;
+            case DISTANCE1 :
+                return features.distance1;
+            case DISTANCE2 :
+                return features.distance2;
+            case DISTANCE_DIFFERENCE :
+                return features.distance2 - features.distance1;
+            default :
+                return cellValue(features.cellId);
+        }
+    }
+
+    @Override
+    public void getValues(double[] xs, double[] ys, double[] zs, double[] out, int offset, int count) {
+        assert (this.sourceModules[0] != null);
+
+        Voronoi voronoi = getVoronoi();
+        int end = offset + count;
+        ScratchArrays scratch = ScratchArrays.get();
+        int mark = scratch.mark();
+        try {
+            switch (this.feature) {
+                case VALUE :
+                    voronoi.getFeatures(xs, ys, zs, out, null, null, null, offset, count);
+                    break;
+                case DISTANCE1 :
+                    voronoi.getFeatures(xs, ys, zs, null, out, null, null, offset, count);
+                    break;
+                case DISTANCE2 :
+                    voronoi.getFeatures(xs, ys, zs, null, null, out, null, offset, count);
+                    break;
+                case DISTANCE_DIFFERENCE :
+                    double[] distances1 = scratch.doubles(end);
+                    voronoi.getFeatures(xs, ys, zs, null, distances1, out, null, offset, count);
+                    for (int i = offset; i < end; i++) {
+                        out[i] -= distances1[i];
+                    }
+                    break;
+                default :
+                    int[] cellIds = scratch.ints(end);
+                    voronoi.getFeatures(xs, ys, zs, null, null, null, cellIds, offset, count);
+                    for (int i = offset; i < end; i++) {
+                        out[i] = cellValue(cellIds[i]);
+                    }
+                    break;
+            }
+        } finally {
+            scratch.release(mark);
+        }
+    }
+
+    /**
+     * Returns the feature this noise module outputs.
+     *
+     * @returns The feature.
+     */
+    public Feature getFeature() {
+        return this.feature;
+    }
+
+    /**
+     * Sets the feature this noise module outputs.
+     *
+     * @param feature The feature.
+     *
+     * @pre The feature is not null.
+     *
+     * @throws IllegalArgumentException See the preconditions.
+     */
+    public void setFeature(Feature feature) throws IllegalArgumentException {
+        if (feature == null) {
+            throw new IllegalArgumentException("Invalid Parameter in VoronoiOutput");
+        }
+        this.feature = feature;
+    }
+
+    /**
+     * Connects the Voronoi module to this noise module.
+     *
+     * @pre The index is 0.
+     * @pre The source module is a Voronoi module.
+     *
+     * @throws IllegalArgumentException See the preconditions.
+     */
+    @Override
+    public void setSourceModule(int index, ModuleBase sourceModule) throws IllegalArgumentException {
+        if (!(sourceModule instanceof Voronoi)) {
+            throw new IllegalArgumentException("Invalid Parameter in VoronoiOutput");
+        }
+        super.setSourceModule(index, sourceModule);
+    }
+
+    /**
+     * Returns the Voronoi module. In a compiled graph the Voronoi module may
+     * be wrapped in a SharedModuleCache, which is skipped.
+     *
+     * @return The Voronoi module.
+     */
+    Voronoi getVoronoi() {
+        ModuleBase source = this.sourceModules[0];
+        while (source instanceof SharedModuleCache) {
+            source = source.sourceModules[0];
+        }
+        return (Voronoi) source;
+    }
+
+    /**
+     * Maps a cell identity to a value between -1.0 and +1.0, like
+     * NoiseGen.ValueNoise3D() does.
+     */
+    static double cellValue(int cellId) {
+        return 1.0 - (cellId / 1073741824.0);
+    }
+}
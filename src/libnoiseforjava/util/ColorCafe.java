@@ -74,6 +74,42 @@ public class ColorCafe {
         this.alpha = alpha;
     }
 
+    /**
+     * Creates a color from a packed ARGB value.
+     *
+     * @param argb The color packed as 0xAARRGGBB.
+     *
+     * @return The unpacked color.
+     */
+    public static ColorCafe fromARGB(int argb) {
+        return new ColorCafe((argb >> 16) & 0xff, (argb >> 8) & 0xff, argb & 0xff, argb >>> 24);
+    }
+
+    /**
+     * Packs four 8-bit channel values into a single ARGB value.
+     * <p>
+     * Only the low eight bits of each channel value are kept.
+     *
+     * @param red Value of the red channel.
+     * @param green Value of the green channel.
+     * @param blue Value of the blue channel.
+     * @param alpha Value of the alpha (transparency) channel.
+     *
+     * @return The color packed as 0xAARRGGBB.
+     */
+    public static int packARGB(int red, int green, int blue, int alpha) {
+        return ((alpha & 0xff) << 24) | ((red & 0xff) << 16) | ((green & 0xff) << 8) | (blue & 0xff);
+    }
+
+    /**
+     * Returns this color packed into a single ARGB value.
+     *
+     * @return The color packed as 0xAARRGGBB.
+     */
+    public int toARGB() {
+        return packARGB(this.red, this.green, this.blue, this.alpha);
+    }
+
     public int getAlpha() {
         return this.alpha;
     }
@@ -140,17 +140,7 @@ public class GradientColor {
     public ColorCafe getColor(double gradientPos) {
         assert (this.gradientPointCount >= 2);
 
-        /*
-         * Find the first element in the gradient point array that has a
-         * gradient position larger than the gradient position passed to this
-         * method.
-         */
-        int indexPos;
-        for (indexPos = 0; indexPos < this.gradientPointCount; indexPos++) {
-            if (gradientPos < this.gradientPoints[indexPos].position) {
-                break;
-            }
-        }
+        int indexPos = findIndexPos(gradientPos);
 
         // Find the two nearest gradient points so that we can perform linear
         // interpolation on the color.
@@ -181,6 +171,76 @@ public class GradientColor {
         return this.workingColor;
     }
 
+    /**
+     * Returns the color at the specified position in the color gradient,
+     * packed as an ARGB value.
+     * <p>
+     * The result is the packed form of the color getColor() returns for the
+     * same position, but no ColorCafe object is created.
+     *
+     * @param gradientPos The specified position.
+     *
+     * @return The color at that position, packed as 0xAARRGGBB.
+     */
+    public int getPackedColor(double gradientPos) {
+        assert (this.gradientPointCount >= 2);
+
+        int indexPos = findIndexPos(gradientPos);
+        int index0 = Misc.ClampValue(indexPos - 1, 0, this.gradientPointCount - 1);
+        int index1 = Misc.ClampValue(indexPos, 0, this.gradientPointCount - 1);
+
+        if (index0 == index1) {
+            return this.gradientPoints[index1].color.toARGB();
+        }
+
+        double input0 = this.gradientPoints[index0].position;
+        double input1 = this.gradientPoints[index1].position;
+        float alpha = (float) ((gradientPos - input0) / (input1 - input0));
+
+        ColorCafe color0 = this.gradientPoints[index0].color;
+        ColorCafe color1 = this.gradientPoints[index1].color;
+        return ColorCafe.packARGB(MiscUtilities.blendChannel(color0.red, color1.red, alpha), MiscUtilities.blendChannel(color0.green, color1.green, alpha),
+                MiscUtilities.blendChannel(color0.blue, color1.blue, alpha), MiscUtilities.blendChannel(color0.alpha, color1.alpha, alpha));
+    }
+
+    /**
+     * Compiles this color gradient into a lookup table of packed colors.
+     * <p>
+     * The table is a snapshot; it does not change if gradient points are
+     * added to this object later.
+     *
+     * @param size The number of entries in the table.
+     *
+     * @return The lookup table.
+     *
+     * @pre This gradient has at least two gradient points.
+     * @pre The size is at least 2.
+     *
+     * @throws IllegalArgumentException See the preconditions.
+     */
+    public GradientLookupTable compile(int size) throws IllegalArgumentException {
+        return new GradientLookupTable(this, size);
+    }
+
+    /**
+     * Finds the first element in the gradient point array that has a gradient
+     * position larger than the specified gradient position.
+     *
+     * @param gradientPos The specified position.
+     *
+     * @return The index of that element, or the number of gradient points if
+     *         there is no such element.
+     */
+    private int findIndexPos(double gradientPos) {
+        int indexPos;
+        for (indexPos = 0; indexPos < this.gradientPointCount; indexPos++) {
+            if (gradientPos < this.gradientPoints[indexPos].position) {
+                break;
+            }
+        }
+        return indexPos;
+    }
+
     /**
      * Inserts the gradient point at the specified position in the internal
      * gradient-point array.
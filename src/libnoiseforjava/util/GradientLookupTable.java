@@ -0,0 +1,184 @@
+/*******************************************************************************
+ *  Copyright (c) 2003, 2004 Jason Bevins (original libnoise code)
+ *  Copyright (c) 2010 Thomas J. Hodge (java port of libnoise)
+ *  Copyright (c) Nick Whitney ( changed noisegen to perlin basis. added javadoc)
+ *  
+ *  This file is part of libnoiseforjava.
+ *  
+ *  libnoiseforjava is a Java port of the C++ library libnoise, which may be
+ *  found at http://libnoise.sourceforge.net/. libnoise was developed by Jason
+ *  Bevins, who may be contacted at jlbezigvins@gmzigail.com (for great email,
+ *  take off every 'zig'). Porting to Java was done by Thomas Hodge, who may be
+ *  contacted at libnoisezagforjava@gzagmail.com (remove every 'zag').
+ *  
+ *  libnoiseforjava is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the Free
+ *  Software Foundation, either version 3 of the License, or (at your option) any
+ *  later version.
+ *  
+ *  libnoiseforjava is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ *  details.
+ *  
+ *  You should have received a copy of the GNU General Public License along with
+ *  libnoiseforjava. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+
+package libnoiseforjava.util;
+
+/**
+ * A color gradient compiled into a table of packed ARGB colors.
+ * <p>
+ * The table samples a GradientColor at evenly spaced positions between its
+ * first and last gradient points. Looking up a color is a multiply, a clamp
+ * and an array read; no gradient points are searched and no objects are
+ * created, so a table can be shared freely between threads.
+ * <p>
+ * Positions outside of the range of the gradient points map to the color of
+ * the nearest end of the table, as they do in GradientColor.
+ * <p>
+ * Two lookups are available:
+ * <ul>
+ * <li>getNearestColor() returns the entry closest to the position.
+ * <li>getInterpolatedColor() blends the two entries on either side of the
+ * position.
+ * </ul>
+ * Both differ from GradientColor.getPackedColor() by at most the change in
+ * color across one table entry. The table does not follow later changes to the
+ * gradient it was built from; compile the gradient again instead.
+ */
+public class GradientLookupTable {
+
+    /**
+     * The default number of entries in a table.
+     */
+    public static final int DEFAULT_SIZE = 4096;
+
+    /**
+     * The packed ARGB color of each entry.
+     */
+    final int[] colors;
+
+    /**
+     * The gradient position of the first entry.
+     */
+    final double minPosition;
+
+    /**
+     * The gradient position of the last entry.
+     */
+    final double maxPosition;
+
+    /**
+     * The number of entries per unit of gradient position.
+     */
+    final double scale;
+
+    /**
+     * Compiles a color gradient into a table with the specified number of
+     * entries.
+     *
+     * @param gradient The color gradient to compile.
+     * @param size The number of entries in the table.
+     *
+     * @pre The gradient has at least two gradient points.
+     * @pre The size is at least 2.
+     *
+     * @throws IllegalArgumentException See the preconditions.
+     */
+    public GradientLookupTable(GradientColor gradient, int size) throws IllegalArgumentException {
+        if (gradient.getGradientPointCount() < 2 || size < 2) {
+            throw new IllegalArgumentException("Invalid Parameter in GradientLookupTable");
+        }
+
+        GradientPoint[] points = gradient.getGradientPointArray();
+        this.minPosition = points[0].position;
+        this.maxPosition = points[gradient.getGradientPointCount() - 1].position;
+        this.scale = (size - 1) / (this.maxPosition - this.minPosition);
+
+        double step = (this.maxPosition - this.minPosition) / (size - 1);
+        this.colors = new int[size];
+        for (int i = 0; i < size - 1; i++) {
+            this.colors[i] = gradient.getPackedColor(this.minPosition + i * step);
+        }
+        this.colors[size - 1] = gradient.getPackedColor(this.maxPosition);
+    }
+
+    /**
+     * Returns the entry closest to the specified position.
+     *
+     * @param gradientPos The specified position.
+     *
+     * @return The color of that entry, packed as 0xAARRGGBB.
+     */
+    public int getNearestColor(double gradientPos) {
+        double t = (gradientPos - this.minPosition) * this.scale + 0.5;
+        int last = this.colors.length - 1;
+        // NaN positions take the last entry, as they do in GradientColor.
+        int index = (t < last) ? ((t > 0.0) ? (int) t : 0) : last;
+        return this.colors[index];
+    }
+
+    /**
+     * Returns the color at the specified position, linearly interpolated
+     * between the two entries on either side of it.
+     *
+     * @param gradientPos The specified position.
+     *
+     * @return The interpolated color, packed as 0xAARRGGBB.
+     */
+    public int getInterpolatedColor(double gradientPos) {
+        double t = (gradientPos - this.minPosition) * this.scale;
+        int last = this.colors.length - 1;
+        if (!(t < last)) {
+            // NaN positions take the last entry, as they do in GradientColor.
+            return this.colors[last];
+        } else if (t <= 0.0) {
+            return this.colors[0];
+        }
+
+        int index = (int) t;
+        double alpha = t - index;
+        int color0 = this.colors[index];
+        int color1 = this.colors[index + 1];
+        if (color0 == color1) {
+            return color0;
+        }
+
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 8) {
+            int c0 = (color0 >>> shift) & 0xff;
+            int c1 = (color1 >>> shift) & 0xff;
+            result |= ((int) (c0 + (c1 - c0) * alpha + 0.5)) << shift;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the gradient position of the first entry.
+     *
+     * @return The position of the first gradient point.
+     */
+    public double getMinPosition() {
+        return this.minPosition;
+    }
+
+    /**
+     * Returns the gradient position of the last entry.
+     *
+     * @return The position of the last gradient point.
+     */
+    public double getMaxPosition() {
+        return this.maxPosition;
+    }
+
+    /**
+     * Returns the number of entries in the table.
+     *
+     * @return The number of entries.
+     */
+    public int getSize() {
+        return this.colors.length;
+    }
+}
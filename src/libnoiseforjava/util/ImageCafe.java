@@ -27,12 +27,22 @@
 
 package libnoiseforjava.util;
 
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+
 /**
  * Implements an image, a 2-dimensional array of color values.
  * <p>
  * An image can be used to store a color texture.
  * <p>
- * These color values are of type ColorCafe.
+ * The color values are stored as packed 32-bit ARGB values (0xAARRGGBB) in a
+ * single row-major array, so a pixel does not cost an object of its own. The
+ * getValue() and setValue() methods convert between this form and ColorCafe;
+ * the getPixel() and setPixel() methods access the packed values directly.
  * <p>
  * The size (width and height) of the image can be specified during object
  * construction.
@@ -40,6 +50,9 @@ package libnoiseforjava.util;
  * The getValue() and setValue() methods can be used to access individual color
  * values stored in the image.
  * <p>
+ * The toBufferedImage() method wraps the packed values in a BufferedImage
+ * without copying them.
+ * <p>
  * <b>Border Values</b>
  * <p>
  * All of the color values outside of the image are assumed to have a common
@@ -68,18 +81,20 @@ public class ImageCafe {
     int width;
 
     /**
-     * Array of ColorCafes holding the color values.
+     * Packed ARGB color values, stored row by row.
      */
-    ColorCafe[][] imageCafeColors;
+    int[] pixels;
 
     public ImageCafe(int width, int height) throws IllegalArgumentException {
         setSize(width, height);
         this.borderValue = new ColorCafe(0, 0, 0, 0);
-        this.imageCafeColors = new ColorCafe[width][height];
     }
 
     /**
      * Returns a color value from the specified position in the image.
+     * <p>
+     * The returned object is a new copy of the stored color; modifying it does
+     * not modify the image.
      *
      * @param x The x coordinate of the position.
      * @param y The y coordinate of the position.
@@ -91,7 +106,7 @@ public class ImageCafe {
      */
     public ColorCafe getValue(int x, int y) {
         if (x >= 0 && x < this.width && y >= 0 && y < this.height) {
-            return this.imageCafeColors[x][y];
+            return ColorCafe.fromARGB(this.pixels[y * this.width + x]);
         } else {
             // The coordinates specified are outside the image. Return the
             // border
@@ -100,8 +115,46 @@ public class ImageCafe {
         }
     }
 
+    /**
+     * Returns the packed ARGB color value from the specified position in the
+     * image.
+     *
+     * @param x The x coordinate of the position.
+     * @param y The y coordinate of the position.
+     *
+     * @returns The color value at that position, packed as 0xAARRGGBB.
+     *
+     *          This method returns the packed border value if the coordinates
+     *          exist outside of the image.
+     */
+    public int getPixel(int x, int y) {
+        if (x >= 0 && x < this.width && y >= 0 && y < this.height) {
+            return this.pixels[y * this.width + x];
+        } else {
+            return this.borderValue.toARGB();
+        }
+    }
+
+    /**
+     * Returns the array holding the packed ARGB color values of the image.
+     * <p>
+     * The color value at position (@a x, @a y) is stored at index @a y *
+     * getWidth() + @a x. Changes to the array are changes to the image.
+     * <p>
+     * The array is replaced if setSize() changes the number of color values
+     * in the image.
+     *
+     * @return The packed color values.
+     */
+    public int[] getPixels() {
+        return this.pixels;
+    }
+
     /**
      * Sets the new size for the image.
+     * <p>
+     * If the number of color values changes, the contents of the image are
+     * discarded.
      *
      * @param width The new width for the image.
      * @param height The new height for the image.
@@ -113,12 +166,15 @@ public class ImageCafe {
      * @throws IllegalArgumentException See the preconditions.
      */
     public void setSize(int width, int height) throws IllegalArgumentException {
-        if (width < 0 || height < 0) {
+        if (width < 0 || height < 0 || (long) width * height > Integer.MAX_VALUE) {
             // Invalid width or height.
             throw new IllegalArgumentException("Invalid Parameter in ImageCafe");
         } else {
             this.width = width;
             this.height = height;
+            if (this.pixels == null || this.pixels.length != width * height) {
+                this.pixels = new int[width * height];
+            }
         }
     }
 
@@ -134,10 +190,53 @@ public class ImageCafe {
      */
     public void setValue(int x, int y, ColorCafe value) {
         if (x >= 0 && x < this.width && y >= 0 && y < this.height) {
-            this.imageCafeColors[x][y] = value;
+            this.pixels[y * this.width + x] = value.toARGB();
         }
     }
 
+    /**
+     * Sets a packed ARGB color value at a specified position in the image.
+     * <p>
+     * This method does nothing if the image is empty or the position is outside
+     * the bounds of the image.
+     *
+     * @param x The x coordinate of the position.
+     * @param y The y coordinate of the position.
+     * @param argb The color value to set at the given position, packed as
+     *            0xAARRGGBB.
+     */
+    public void setPixel(int x, int y, int argb) {
+        if (x >= 0 && x < this.width && y >= 0 && y < this.height) {
+            this.pixels[y * this.width + x] = argb;
+        }
+    }
+
+    /**
+     * Returns a BufferedImage that shares its pixel storage with this image.
+     * <p>
+     * The BufferedImage is of type TYPE_INT_ARGB and is backed by the array
+     * returned by getPixels(), so no color values are copied. Row @a y of
+     * this image is row @a y of the BufferedImage. Changes made through
+     * either object are visible through the other until setSize() replaces
+     * the array.
+     *
+     * @return A BufferedImage view of this image.
+     *
+     * @pre The image is not empty.
+     *
+     * @throws IllegalArgumentException See the precondition.
+     */
+    public BufferedImage toBufferedImage() throws IllegalArgumentException {
+        if (this.width <= 0 || this.height <= 0) {
+            throw new IllegalArgumentException("Invalid Parameter in ImageCafe");
+        }
+
+        DirectColorModel colorModel = (DirectColorModel) ColorModel.getRGBdefault();
+        DataBufferInt buffer = new DataBufferInt(this.pixels, this.pixels.length);
+        WritableRaster raster = Raster.createPackedRaster(buffer, this.width, this.height, this.width, colorModel.getMasks(), null);
+        return new BufferedImage(colorModel, raster, false, null);
+    }
+
     /**
      * Returns the color value used for all positions outside of the image.
      * <p>
@@ -38,7 +38,12 @@ package libnoiseforjava.util;
  * construction.
  *
  * The getValue() method can be used to access individual values stored in the
- * noise map.
+ * noise map. The getRow() and setRow() methods copy a whole row at a time.
+ *
+ * The values are stored in a single array in row-major order, so the values of
+ * a row are adjacent in memory. This class stores double-precision values; the
+ * NoiseMapFloat subclass stores single-precision values in half the memory,
+ * and the NoiseMapMapped subclass stores them in a memory-mapped file.
  */
 public class NoiseMap {
 
@@ -53,15 +58,23 @@ public class NoiseMap {
     int width;
 
     /**
-     * The array of doubles holding the noise map values.
+     * The array of doubles holding the noise map values. The value at (x, y)
+     * is stored at index y * width + x.
      */
-    double[][] noiseMap;
+    double[] noiseMap;
 
     double borderValue;
 
     public NoiseMap(int width, int height) throws IllegalArgumentException {
         setSize(width, height);
-        this.noiseMap = new double[width][height];
+        this.borderValue = 0.0;
+    }
+
+    /**
+     * Creates a noise map without storage, for subclasses that set up their
+     * storage themselves.
+     */
+    NoiseMap() {
         this.borderValue = 0.0;
     }
 
@@ -78,7 +91,7 @@ public class NoiseMap {
      */
     public double getValue(int x, int y) {
         if (x >= 0 && x < this.width && y >= 0 && y < this.height) {
-            return this.noiseMap[x][y];
+            return this.noiseMap[y * this.width + x];
             // The coordinates specified are outside the noise map. Return the
             // border value.
         } else {
@@ -86,13 +99,66 @@ public class NoiseMap {
         }
     }
 
+    /**
+     * Copies a row of the noise map into an array.
+     * 
+     * @param y The y coordinate of the row.
+     * @param dst The array that receives the values of the row. The value at x
+     *            coordinate x is written to dst[x].
+     *
+     * @pre The y coordinate lies within the noise map.
+     * @pre The array holds at least getWidth() values.
+     *
+     * @throws IllegalArgumentException See the preconditions.
+     */
+    public void getRow(int y, double[] dst) throws IllegalArgumentException {
+        checkRow(y, dst);
+        System.arraycopy(this.noiseMap, y * this.width, dst, 0, this.width);
+    }
+
+    /**
+     * Copies a row of the noise map into a float array, rounding each value
+     * to the nearest float.
+     * 
+     * @param y The y coordinate of the row.
+     * @param dst The array that receives the values of the row. The value at x
+     *            coordinate x is written to dst[x].
+     *
+     * @pre The y coordinate lies within the noise map.
+     * @pre The array holds at least getWidth() values.
+     *
+     * @throws IllegalArgumentException See the preconditions.
+     */
+    public void getRow(int y, float[] dst) throws IllegalArgumentException {
+        checkRow(y, dst);
+        int rowOffset = y * this.width;
+        for (int x = 0; x < this.width; x++) {
+            dst[x] = (float) this.noiseMap[rowOffset + x];
+        }
+    }
+
+    /**
+     * Sets the new size for the noise map.
+     * <p>
+     * The storage of the noise map is reallocated if the new size holds a
+     * different number of values; the values are undefined after that.
+     *
+     * @param width The new width for the noise map.
+     * @param height The new height for the noise map.
+     *
+     * @pre The width and height values are positive.
+     * @pre The noise map holds no more than Integer.MAX_VALUE values.
+     *
+     * @throws IllegalArgumentException See the preconditions.
+     */
     public void setSize(int width, int height) throws IllegalArgumentException {
-        if (width < 1 || height < 1) {
+        if (width < 1 || height < 1 || (long) width * height > Integer.MAX_VALUE) {
             // Invalid width or height.
             throw new IllegalArgumentException("Invalid parameter in NoiseMap");
         } else {
             this.width = width;
             this.height = height;
+            allocate(width * height);
         }
     }
 
@@ -108,7 +174,67 @@ public class NoiseMap {
      */
     public void setValue(int x, int y, double value) {
         if (x >= 0 && x < this.width && y >= 0 && y < this.height) {
-            this.noiseMap[x][y] = value;
+            this.noiseMap[y * this.width + x] = value;
+        }
+    }
+
+    /**
+     * Copies an array into a row of the noise map.
+     * 
+     * @param y The y coordinate of the row.
+     * @param src The values of the row. The value at x coordinate x is read
+     *            from src[x].
+     *
+     * @pre The y coordinate lies within the noise map.
+     * @pre The array holds at least getWidth() values.
+     *
+     * @throws IllegalArgumentException See the preconditions.
+     */
+    public void setRow(int y, double[] src) throws IllegalArgumentException {
+        checkRow(y, src);
+        System.arraycopy(src, 0, this.noiseMap, y * this.width, this.width);
+    }
+
+    /**
+     * Copies a float array into a row of the noise map.
+     * 
+     * @param y The y coordinate of the row.
+     * @param src The values of the row. The value at x coordinate x is read
+     *            from src[x].
+     *
+     * @pre The y coordinate lies within the noise map.
+     * @pre The array holds at least getWidth() values.
+     *
+     * @throws IllegalArgumentException See the preconditions.
+     */
+    public void setRow(int y, float[] src) throws IllegalArgumentException {
+        checkRow(y, src);
+        int rowOffset = y * this.width;
+        for (int x = 0; x < this.width; x++) {
+            this.noiseMap[rowOffset + x] = src[x];
+        }
+    }
+
+    /**
+     * Makes sure the storage holds @a size values.
+     *
+     * @param size The number of values in the noise map.
+     */
+    void allocate(int size) {
+        if (this.noiseMap == null || this.noiseMap.length != size) {
+            this.noiseMap = new double[size];
+        }
+    }
+
+    void checkRow(int y, double[] row) throws IllegalArgumentException {
+        if (y < 0 || y >= this.height || row == null || row.length < this.width) {
+            throw new IllegalArgumentException("Invalid parameter in NoiseMap");
+        }
+    }
+
+    void checkRow(int y, float[] row) throws IllegalArgumentException {
+        if (y < 0 || y >= this.height || row == null || row.length < this.width) {
+            throw new IllegalArgumentException("Invalid parameter in NoiseMap");
         }
     }
 
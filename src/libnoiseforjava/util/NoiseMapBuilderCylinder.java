@@ -27,6 +27,8 @@
 
 package libnoiseforjava.util;
 
+import java.util.Arrays;
+
 import libnoiseforjava.model.Cylinder;
 
 /**
@@ -108,14 +110,25 @@ public class NoiseMapBuilderCylinder extends NoiseMapBuilder {
         double curAngle = this.lowerAngleBound;
         double curHeight = this.lowerHeightBound;
 
-        // Fill every point in the noise map with the output values from the model.
+        // Every row samples the same angles, so compute them once.
+        double[] angles = new double[this.destWidth];
+        for (int x = 0; x < this.destWidth; x++) {
+            angles[x] = curAngle;
+            curAngle += xDelta;
+        }
+
+        double[] heights = new double[this.destWidth];
+        double[] row = new double[this.destWidth];
+
+        // Fill every point in the noise map with the output values from the
+        // model, one row at a time.
         for (int y = 0; y < this.destHeight; y++) {
-            curAngle = this.lowerAngleBound;
+            Arrays.fill(heights, curHeight);
+            cylinderModel.getValues(angles, heights, row, 0, this.destWidth);
             for (int x = 0; x < this.destWidth; x++) {
-                float curValue = (float) cylinderModel.getValue(curAngle, curHeight);
-                this.destNoiseMap.setValue(x, y, curValue);
-                curAngle += xDelta;
+                row[x] = (float) row[x];
             }
+            this.destNoiseMap.setRow(y, row);
             curHeight += yDelta;
             setCallback(y);
         }
@@ -27,8 +27,14 @@
 
 package libnoiseforjava.util;
 
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
 import libnoiseforjava.Interp;
 import libnoiseforjava.model.Plane;
+import libnoiseforjava.module.ModuleBase;
 
 /**
  * Builds a planar noise map.
@@ -44,10 +50,47 @@ import libnoiseforjava.model.Plane;
  * map, in units.
  * <p>
  * To make a tileable noise map with no seams at the edges, call the
- * enableSeamless() method.
+ * enableSeamless() method. Seamless tiling evaluates the source module four
+ * times per value and blends the results, unless the source module repeats
+ * over the extents of the bounds, as reported by ModuleBase.repeatsOver(). In
+ * that case the noise map already tiles, and seamless tiling evaluates the
+ * source module once per value. A Perlin, Billow, RidgedMulti or Simplex
+ * module with a period set repeats over bounds whose width, in units, is a
+ * whole multiple of the @a x period divided by the frequency, and whose depth
+ * is a whole multiple of the @a z period divided by the frequency, with the
+ * frequency scaled by any ScalePoint modules in between. Without a period on
+ * an axis, the repetition length is 256 units for Perlin, Billow and
+ * RidgedMulti modules and 768 units for a Simplex module, both divided by the
+ * frequency, provided the lacunarity is a whole number. The lower bounds do
+ * not matter.
+ * <p>
+ * To evaluate the source module in single precision, call the
+ * enableFloatEvaluation() method.
+ * <p>
+ * To build the noise map on several threads, call buildParallel() or
+ * build(Executor) instead of build(). If the source module graph keeps state
+ * between calls, pass a SourceModuleFactory to the setSourceModuleFactory()
+ * method so that bands running at the same time use separate copies of the
+ * graph.
+ * <p>
+ * To pass the rows to a NoiseMapRowSink instead of storing them in the
+ * destination noise map, call build(NoiseMapRowSink) or
+ * build(NoiseMapRowSink, Executor). These methods hold only a block of rows
+ * in memory at a time, so they can build noise maps too large to store.
  */
 public class NoiseMapBuilderPlane extends NoiseMapBuilder {
 
+    /**
+     * Default number of rows in each band of a parallel build.
+     */
+    static final int DEFAULT_BAND_HEIGHT = 16;
+
+    /**
+     * A flag specifying whether the source module is evaluated in single
+     * precision.
+     */
+    boolean isFloatEvaluationEnabled;
+
     /**
      * A flag specifying whether seamless tiling is enabled.
      */
@@ -73,29 +116,44 @@ public class NoiseMapBuilderPlane extends NoiseMapBuilder {
      */
     double upperZBound;
 
+    /**
+     * Number of rows in each band of a parallel build.
+     */
+    int bandHeight;
+
+    /**
+     * Factory that gives the bands of a parallel build separate copies of the
+     * module graph, or null to share the source module.
+     */
+    SourceModuleFactory sourceModuleFactory;
+
     public NoiseMapBuilderPlane() throws IllegalArgumentException {
         super();
+        this.isFloatEvaluationEnabled = false;
         this.isSeamlessEnabled = false;
         this.lowerXBound = 0.0;
         this.lowerZBound = 0.0;
         this.upperXBound = 0.0;
         this.upperZBound = 0.0;
+        this.bandHeight = DEFAULT_BAND_HEIGHT;
+        this.sourceModuleFactory = null;
     }
 
     public NoiseMapBuilderPlane(int height, int width) throws IllegalArgumentException {
         super(height, width);
+        this.isFloatEvaluationEnabled = false;
         this.isSeamlessEnabled = false;
         this.lowerXBound = 0.0;
         this.lowerZBound = 0.0;
         this.upperXBound = 0.0;
         this.upperZBound = 0.0;
+        this.bandHeight = DEFAULT_BAND_HEIGHT;
+        this.sourceModuleFactory = null;
     }
 
     @Override
     public void build() throws IllegalArgumentException {
-        if (this.upperXBound <= this.lowerXBound || this.upperZBound <= this.lowerZBound || this.destWidth <= 0 || this.destHeight <= 0 || this.sourceModule == null || this.destNoiseMap == null) {
-            throw new IllegalArgumentException("Invalid parameter in NoiseMapBuilderPlane");
-        }
+        checkBuildParameters();
 
         /*
          * Resize the destination noise map so that it can store the new output
@@ -107,48 +165,439 @@ public class NoiseMapBuilderPlane extends NoiseMapBuilder {
         Plane planeModel = new Plane();
         planeModel.setModule(this.sourceModule);
 
-        double xExtent = this.upperXBound - this.lowerXBound;
-        double zExtent = this.upperZBound - this.lowerZBound;
-        double xDelta = xExtent / this.destWidth;
-        double zDelta = zExtent / this.destHeight;
-        double xCur = this.lowerXBound;
-        double zCur = this.lowerZBound;
+        double[] xs = calcXCoordinates();
+        double[] zs = calcZCoordinates();
+        RowFiller filler = new RowFiller(planeModel, xs);
 
         // Fill every point in the noise map with the output values from the
-        // model.
+        // model, one row at a time.
+        for (int z = 0; z < this.destHeight; z++) {
+            filler.fillRow(z, zs[z]);
+            setCallback(z);
+        }
+    }
+
+    /**
+     * Builds the noise map on the threads of the common fork/join pool.
+     * <p>
+     * This is the same as calling build(Executor) with
+     * ForkJoinPool.commonPool().
+     *
+     * @throws IllegalArgumentException See the preconditions of build().
+     */
+    public void buildParallel() throws IllegalArgumentException {
+        build(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Builds the noise map by splitting it into bands of rows and filling the
+     * bands on the specified executor.
+     * <p>
+     * The destination noise map receives exactly the same values that build()
+     * writes; each point is calculated from the same coordinates no matter
+     * which band or thread it falls in.
+     * <p>
+     * Noise modules that keep state between calls, such as Cached, must not be
+     * shared between threads. If a source module factory was passed to the
+     * setSourceModuleFactory() method, no two bands that run at the same time
+     * share a module graph: a band reuses a graph obtained from that factory
+     * by an earlier band of this build that has finished, or obtains a new
+     * one. Otherwise all worker threads share the module passed to
+     * setSourceModule(), which is only safe if no module in its graph keeps
+     * state. The graphs obtained from the factory are not referenced once
+     * this method returns.
+     * <p>
+     * The callback is updated each time a band has been filled, on the
+     * worker thread that filled it. The bands finish in no particular order,
+     * so the callback receives the number of rows filled so far, minus one,
+     * rather than the index of the last row of the band; like in build(), it
+     * only increases and ends at the index of the last row.
+     * <p>
+     * This method returns once every band has been filled. If a band fails,
+     * this method throws its exception once the bands that had already
+     * started have finished, so no band writes to the destination noise map
+     * after this method has returned or thrown.
+     *
+     * @param executor The executor that fills the bands.
+     *
+     * @throws IllegalArgumentException See the preconditions of build().
+     */
+    public void build(Executor executor) throws IllegalArgumentException {
+        checkBuildParameters();
+        this.destNoiseMap.setSize(this.destWidth, this.destHeight);
+
+        final double[] zs = calcZCoordinates();
+        final RowFillerPool fillers = new RowFillerPool(calcXCoordinates());
+        final RowProgress progress = new RowProgress();
+
+        RowBands.run(executor, this.destHeight, this.bandHeight, new RowBands.Task() {
+            @Override
+            public void run(int firstRow, int endRow) {
+                RowFiller filler = fillers.take();
+                for (int z = firstRow; z < endRow; z++) {
+                    filler.fillRow(z, zs[z]);
+                }
+                fillers.giveBack(filler);
+                progress.addFilledRows(endRow - firstRow);
+            }
+        });
+    }
+
+    /**
+     * Builds the noise map and passes every row to a sink instead of storing
+     * it in the destination noise map.
+     * <p>
+     * The sink receives exactly the values that build() would write, in row
+     * order. Apart from the sink, only one row of the noise map is held in
+     * memory, so the size of the noise map is limited only by what the sink
+     * does with the rows. The destination noise map is neither used nor
+     * changed.
+     *
+     * @param sink The sink that receives the rows.
+     *
+     * @pre setBounds() was previously called.
+     * @pre setSourceModule() was previously called.
+     * @pre The width and height values specified by setDestSize() are positive.
+     *
+     * @throws IllegalArgumentException See the preconditions.
+     */
+    public void build(NoiseMapRowSink sink) throws IllegalArgumentException {
+        checkStreamParameters(sink);
+
+        double[] xs = calcXCoordinates();
+        double[] zs = calcZCoordinates();
+        RowFiller filler = new RowFiller(new Plane(this.sourceModule), xs);
+
         for (int z = 0; z < this.destHeight; z++) {
-            xCur = this.lowerXBound;
-            for (int x = 0; x < this.destWidth; x++) {
-                double finalValue;
-
-                if (!this.isSeamlessEnabled) {
-                    finalValue = planeModel.getValue(xCur, zCur);
-                } else {
-                    double swValue, seValue, nwValue, neValue;
-                    swValue = planeModel.getValue(xCur, zCur);
-                    seValue = planeModel.getValue(xCur + xExtent, zCur);
-                    nwValue = planeModel.getValue(xCur, zCur + zExtent);
-                    neValue = planeModel.getValue(xCur + xExtent, zCur + zExtent);
-                    double xBlend = 1.0 - ((xCur - this.lowerXBound) / xExtent);
-                    double zBlend = 1.0 - ((zCur - this.lowerZBound) / zExtent);
-                    double z0 = Interp.lerp(swValue, seValue, xBlend);
-                    double z1 = Interp.lerp(nwValue, neValue, xBlend);
-                    finalValue = Interp.lerp(z0, z1, zBlend);
+            sink.acceptRow(z, filler.calcRow(zs[z]));
+            setCallback(z);
+        }
+    }
+
+    /**
+     * Builds the noise map on the specified executor and passes every row to
+     * a sink instead of storing it in the destination noise map.
+     * <p>
+     * The rows are calculated a block at a time. The bands of a block are
+     * filled in parallel as in build(Executor), then the rows of the block are
+     * passed to the sink in order on the calling thread, and the next block
+     * is started. A block holds getBandHeight() rows for each available
+     * processor, so memory use grows with the width of the noise map but not
+     * with its height. The sink receives exactly the values that build()
+     * would write.
+     *
+     * @param sink The sink that receives the rows.
+     * @param executor The executor that fills the bands.
+     *
+     * @throws IllegalArgumentException See the preconditions of
+     *             build(NoiseMapRowSink).
+     */
+    public void build(NoiseMapRowSink sink, Executor executor) throws IllegalArgumentException {
+        checkStreamParameters(sink);
+
+        final int width = this.destWidth;
+        final double[] zs = calcZCoordinates();
+        final RowFillerPool fillers = new RowFillerPool(calcXCoordinates());
+
+        int blockHeight = (int) Math.min((long) this.bandHeight * Runtime.getRuntime().availableProcessors(), this.destHeight);
+        final double[] block = new double[blockHeight * width];
+        double[] row = new double[width];
+
+        for (int blockFirstRow = 0; blockFirstRow < this.destHeight; blockFirstRow += blockHeight) {
+            final int firstRow = blockFirstRow;
+            int rowCount = Math.min(blockHeight, this.destHeight - firstRow);
+
+            RowBands.run(executor, rowCount, this.bandHeight, new RowBands.Task() {
+                @Override
+                public void run(int bandFirstRow, int bandEndRow) {
+                    RowFiller filler = fillers.take();
+                    for (int r = bandFirstRow; r < bandEndRow; r++) {
+                        System.arraycopy(filler.calcRow(zs[firstRow + r]), 0, block, r * width, width);
+                    }
+                    fillers.giveBack(filler);
                 }
+            });
 
-                this.destNoiseMap.setValue(x, z, finalValue);
-                xCur += xDelta;
+            for (int r = 0; r < rowCount; r++) {
+                System.arraycopy(block, r * width, row, 0, width);
+                sink.acceptRow(firstRow + r, row);
             }
+            setCallback(firstRow + rowCount - 1);
+        }
+    }
+
+    private void checkBuildParameters() throws IllegalArgumentException {
+        if (this.upperXBound <= this.lowerXBound || this.upperZBound <= this.lowerZBound || this.destWidth <= 0 || this.destHeight <= 0 || this.sourceModule == null || this.destNoiseMap == null) {
+            throw new IllegalArgumentException("Invalid parameter in NoiseMapBuilderPlane");
+        }
+    }
+
+    private void checkStreamParameters(NoiseMapRowSink sink) throws IllegalArgumentException {
+        if (this.upperXBound <= this.lowerXBound || this.upperZBound <= this.lowerZBound || this.destWidth <= 0 || this.destHeight <= 0 || this.sourceModule == null || sink == null) {
+            throw new IllegalArgumentException("Invalid parameter in NoiseMapBuilderPlane");
+        }
+    }
+
+    /**
+     * Returns the x coordinate of every column. Every row samples the same x
+     * coordinates, so they are only computed once per build.
+     */
+    private double[] calcXCoordinates() {
+        double xDelta = (this.upperXBound - this.lowerXBound) / this.destWidth;
+        double xCur = this.lowerXBound;
+        double[] xs = new double[this.destWidth];
+        for (int x = 0; x < this.destWidth; x++) {
+            xs[x] = xCur;
+            xCur += xDelta;
+        }
+        return xs;
+    }
+
+    /**
+     * Returns the z coordinate of every row. The coordinates are accumulated
+     * in row order so that every build mode samples identical coordinates.
+     */
+    private double[] calcZCoordinates() {
+        double zDelta = (this.upperZBound - this.lowerZBound) / this.destHeight;
+        double zCur = this.lowerZBound;
+        double[] zs = new double[this.destHeight];
+        for (int z = 0; z < this.destHeight; z++) {
+            zs[z] = zCur;
             zCur += zDelta;
-            setCallback(z);
         }
+        return zs;
+    }
+
+    /**
+     * Counts the rows filled by the bands of build(Executor) and reports them
+     * to the callback. The count and the callback are updated together, so
+     * the callback never decreases even though the bands finish on different
+     * threads.
+     */
+    private class RowProgress {
+
+        int filledRowCount;
+
+        synchronized void addFilledRows(int rowCount) {
+            this.filledRowCount += rowCount;
+            setCallback(this.filledRowCount - 1);
+        }
+    }
+
+    /**
+     * Hands out the row fillers of one parallel build. A band takes a filler
+     * that no other band is using, or a new one if every filler is in use,
+     * and gives it back when it is done, so a build creates at most one
+     * filler, and at most one module graph from the source module factory,
+     * for each band that runs at the same time. A band that fails does not
+     * give its filler back, since its module graph may have been left in an
+     * inconsistent state.
+     */
+    private class RowFillerPool {
+
+        final double[] xs;
+        final SourceModuleFactory factory;
+        final ModuleBase sharedModule;
+        final ConcurrentLinkedQueue<RowFiller> idleFillers;
+
+        RowFillerPool(double[] xs) {
+            this.xs = xs;
+            this.factory = NoiseMapBuilderPlane.this.sourceModuleFactory;
+            this.sharedModule = NoiseMapBuilderPlane.this.sourceModule;
+            this.idleFillers = new ConcurrentLinkedQueue<RowFiller>();
+        }
+
+        RowFiller take() {
+            RowFiller filler = this.idleFillers.poll();
+            if (filler == null) {
+                ModuleBase module = (this.factory != null) ? this.factory.createSourceModule() : this.sharedModule;
+                filler = new RowFiller(new Plane(module), this.xs);
+            }
+            return filler;
+        }
+
+        void giveBack(RowFiller filler) {
+            this.idleFillers.offer(filler);
+        }
+    }
+
+    /**
+     * Fills rows of the destination noise map from a plane model, reusing the
+     * same scratch arrays for every row.
+     */
+    private class RowFiller {
+
+        final Plane planeModel;
+        final double[] xs;
+        final double xExtent;
+        final double zExtent;
+        final boolean isBlended;
+        final double[] zs;
+        final double[] row;
+
+        // The seamless blend needs the four corner samples of every point.
+        double[] xsEast;
+        double[] zsNorth;
+        double[] xBlends;
+        double[] seRow;
+        double[] nwRow;
+        double[] neRow;
+
+        // The same rows in single precision, if float evaluation is enabled.
+        float[] xsFloat;
+        float[] zsFloat;
+        float[] rowFloat;
+        float[] xsEastFloat;
+        float[] zsNorthFloat;
+        float[] seRowFloat;
+        float[] nwRowFloat;
+        float[] neRowFloat;
+
+        RowFiller(Plane planeModel, double[] xs) {
+            int width = NoiseMapBuilderPlane.this.destWidth;
+            this.planeModel = planeModel;
+            this.xs = xs;
+            this.xExtent = NoiseMapBuilderPlane.this.upperXBound - NoiseMapBuilderPlane.this.lowerXBound;
+            this.zExtent = NoiseMapBuilderPlane.this.upperZBound - NoiseMapBuilderPlane.this.lowerZBound;
+            // A source module that repeats over the bounds already tiles, and
+            // the four samples the blend would take are all the same.
+            this.isBlended = NoiseMapBuilderPlane.this.isSeamlessEnabled && !planeModel.getModule().repeatsOver(this.xExtent, this.zExtent);
+            this.zs = new double[width];
+            this.row = new double[width];
+
+            if (this.isBlended) {
+                this.xsEast = new double[width];
+                this.zsNorth = new double[width];
+                this.xBlends = new double[width];
+                this.seRow = new double[width];
+                this.nwRow = new double[width];
+                this.neRow = new double[width];
+                for (int x = 0; x < width; x++) {
+                    this.xsEast[x] = xs[x] + this.xExtent;
+                    this.xBlends[x] = 1.0 - ((xs[x] - NoiseMapBuilderPlane.this.lowerXBound) / this.xExtent);
+                }
+            }
+
+            if (NoiseMapBuilderPlane.this.isFloatEvaluationEnabled) {
+                this.xsFloat = new float[width];
+                this.zsFloat = new float[width];
+                this.rowFloat = new float[width];
+                for (int x = 0; x < width; x++) {
+                    this.xsFloat[x] = (float) xs[x];
+                }
+
+                if (this.isBlended) {
+                    this.xsEastFloat = new float[width];
+                    this.zsNorthFloat = new float[width];
+                    this.seRowFloat = new float[width];
+                    this.nwRowFloat = new float[width];
+                    this.neRowFloat = new float[width];
+                    for (int x = 0; x < width; x++) {
+                        this.xsEastFloat[x] = (float) this.xsEast[x];
+                    }
+                }
+            }
+        }
+
+        void fillRow(int z, double zCur) {
+            if (NoiseMapBuilderPlane.this.isFloatEvaluationEnabled) {
+                calcRowFloat(zCur);
+                NoiseMapBuilderPlane.this.destNoiseMap.setRow(z, this.rowFloat);
+            } else {
+                calcRowDouble(zCur);
+                NoiseMapBuilderPlane.this.destNoiseMap.setRow(z, this.row);
+            }
+        }
+
+        /**
+         * Calculates a row and returns it in double precision, whichever
+         * precision it is evaluated in. The array is reused for the next row.
+         */
+        double[] calcRow(double zCur) {
+            if (NoiseMapBuilderPlane.this.isFloatEvaluationEnabled) {
+                calcRowFloat(zCur);
+                for (int x = 0; x < this.row.length; x++) {
+                    this.row[x] = this.rowFloat[x];
+                }
+            } else {
+                calcRowDouble(zCur);
+            }
+            return this.row;
+        }
+
+        void calcRowDouble(double zCur) {
+            int width = this.row.length;
+            Arrays.fill(this.zs, zCur);
+
+            if (!this.isBlended) {
+                this.planeModel.getValues(this.xs, this.zs, this.row, 0, width);
+            } else {
+                Arrays.fill(this.zsNorth, zCur + this.zExtent);
+                this.planeModel.getValues(this.xs, this.zs, this.row, 0, width);
+                this.planeModel.getValues(this.xsEast, this.zs, this.seRow, 0, width);
+                this.planeModel.getValues(this.xs, this.zsNorth, this.nwRow, 0, width);
+                this.planeModel.getValues(this.xsEast, this.zsNorth, this.neRow, 0, width);
+                double zBlend = 1.0 - ((zCur - NoiseMapBuilderPlane.this.lowerZBound) / this.zExtent);
+                for (int x = 0; x < width; x++) {
+                    double z0 = Interp.lerp(this.row[x], this.seRow[x], this.xBlends[x]);
+                    double z1 = Interp.lerp(this.nwRow[x], this.neRow[x], this.xBlends[x]);
+                    this.row[x] = Interp.lerp(z0, z1, zBlend);
+                }
+            }
+        }
+
+        /**
+         * Calculates a row in single precision. The seamless blend is still
+         * calculated in double precision from the float samples.
+         */
+        void calcRowFloat(double zCur) {
+            int width = this.rowFloat.length;
+            Arrays.fill(this.zsFloat, (float) zCur);
+
+            if (!this.isBlended) {
+                this.planeModel.getValues(this.xsFloat, this.zsFloat, this.rowFloat, 0, width);
+            } else {
+                Arrays.fill(this.zsNorthFloat, (float) (zCur + this.zExtent));
+                this.planeModel.getValues(this.xsFloat, this.zsFloat, this.rowFloat, 0, width);
+                this.planeModel.getValues(this.xsEastFloat, this.zsFloat, this.seRowFloat, 0, width);
+                this.planeModel.getValues(this.xsFloat, this.zsNorthFloat, this.nwRowFloat, 0, width);
+                this.planeModel.getValues(this.xsEastFloat, this.zsNorthFloat, this.neRowFloat, 0, width);
+                double zBlend = 1.0 - ((zCur - NoiseMapBuilderPlane.this.lowerZBound) / this.zExtent);
+                for (int x = 0; x < width; x++) {
+                    double z0 = Interp.lerp(this.rowFloat[x], this.seRowFloat[x], this.xBlends[x]);
+                    double z1 = Interp.lerp(this.nwRowFloat[x], this.neRowFloat[x], this.xBlends[x]);
+                    this.rowFloat[x] = (float) Interp.lerp(z0, z1, zBlend);
+                }
+            }
+        }
+    }
+
+    /**
+     * Enables or disables single-precision evaluation.
+     * <p>
+     * If enabled, the source module is evaluated with the float form of
+     * getValues(), and the rows are stored with the float form of setRow().
+     * Use a NoiseMapFloat as the destination noise map to keep the whole
+     * build in single precision, which halves the memory the noise map and
+     * the row buffers take. A float build is not necessarily faster than a
+     * double build. See ModuleBase.getValues(float[], float[], float[],
+     * float[], int, int) for how far the values may differ from a double
+     * build.
+     *
+     * @param enable A flag that enables or disables float evaluation.
+     */
+    public void enableFloatEvaluation(boolean enable) {
+        this.isFloatEvaluationEnabled = enable;
     }
 
     /**
      * Enables or disables seamless tiling.
      * 
      * Enabling seamless tiling builds a noise map with no seams at the edges.
-     * This allows the noise map to be tileable.
+     * This allows the noise map to be tileable. If the source module repeats
+     * over the extents of the bounds, the noise map tiles without blending,
+     * and the source module is evaluated once per value; see the class
+     * description for which bounds those are.
      *
      * @param enable A flag that enables or disables seamless tiling.
      */
@@ -156,6 +605,26 @@ public class NoiseMapBuilderPlane extends NoiseMapBuilder {
         this.isSeamlessEnabled = enable;
     }
 
+    /**
+     * Returns the number of rows in each band of a parallel build.
+     *
+     * @return The number of rows in each band.
+     */
+    public int getBandHeight() {
+        return this.bandHeight;
+    }
+
+    /**
+     * Returns the factory that creates the module graph of each worker thread
+     * in a parallel build.
+     *
+     * @return The source module factory, or null if the worker threads share
+     *         the source module.
+     */
+    public SourceModuleFactory getSourceModuleFactory() {
+        return this.sourceModuleFactory;
+    }
+
     /**
      * Returns the lower x boundary of the planar noise map.
      *
@@ -192,6 +661,16 @@ public class NoiseMapBuilderPlane extends NoiseMapBuilder {
         return this.upperZBound;
     }
 
+    /**
+     * Determines if single-precision evaluation is enabled.
+     *
+     * @return - @a true if float evaluation is enabled. - @a false if float
+     *         evaluation is disabled.
+     */
+    public boolean isFloatEvaluationEnabled() {
+        return this.isFloatEvaluationEnabled;
+    }
+
     /**
      * Determines if seamless tiling is enabled.
      * <p>
@@ -229,6 +708,45 @@ public class NoiseMapBuilderPlane extends NoiseMapBuilder {
         this.upperZBound = upperZBound;
     }
 
+    /**
+     * Sets the number of rows in each band of a parallel build.
+     * <p>
+     * Smaller bands balance the work better between threads, larger bands
+     * reduce the scheduling overhead. The band height does not affect the
+     * values written to the noise map.
+     *
+     * @param bandHeight The number of rows in each band.
+     *
+     * @pre The band height is positive.
+     *
+     * @throws IllegalArgumentException See the preconditions.
+     */
+    public void setBandHeight(int bandHeight) throws IllegalArgumentException {
+        if (bandHeight < 1) {
+            throw new IllegalArgumentException("Invalid parameter in NoiseMapBuilderPlane");
+        }
+
+        this.bandHeight = bandHeight;
+    }
+
+    /**
+     * Sets the factory that creates the module graph of each worker thread in
+     * a parallel build.
+     * <p>
+     * Pass a factory whenever the source module graph contains a module that
+     * keeps state between calls, such as Cached. A parallel build calls the
+     * factory whenever a band starts while every graph it has obtained so far
+     * is in use by another band, so at most once per band that runs at the
+     * same time. The factory must return a graph that generates the same
+     * output values as the source module. Pass null to let all worker threads
+     * share the source module.
+     *
+     * @param sourceModuleFactory The source module factory, or null.
+     */
+    public void setSourceModuleFactory(SourceModuleFactory sourceModuleFactory) {
+        this.sourceModuleFactory = sourceModuleFactory;
+    }
+
     public void setLowerXBound(double lowerXBound) {
         this.lowerXBound = lowerXBound;
     }
@@ -27,6 +27,8 @@
 
 package libnoiseforjava.util;
 
+import java.util.Arrays;
+
 import libnoiseforjava.model.Sphere;
 
 /**
@@ -100,15 +102,25 @@ public class NoiseMapBuilderSphere extends NoiseMapBuilder {
         double curLon = this.westLonBound;
         double curLat = this.southLatBound;
 
+        // Every row samples the same longitudes, so compute them once.
+        double[] lons = new double[this.destWidth];
+        for (int x = 0; x < this.destWidth; x++) {
+            lons[x] = curLon;
+            curLon += xDelta;
+        }
+
+        double[] lats = new double[this.destWidth];
+        double[] row = new double[this.destWidth];
+
         // Fill every point in the noise map with the output values from the
-        // model.
+        // model, one row at a time.
         for (int y = 0; y < this.destHeight; y++) {
-            curLon = this.westLonBound;
+            Arrays.fill(lats, curLat);
+            sphereModel.getValues(lats, lons, row, 0, this.destWidth);
             for (int x = 0; x < this.destWidth; x++) {
-                float curValue = (float) sphereModel.getValue(curLat, curLon);
-                this.destNoiseMap.setValue(x, y, curValue);
-                curLon += xDelta;
+                row[x] = (float) row[x];
             }
+            this.destNoiseMap.setRow(y, row);
             curLat += yDelta;
             setCallback(y);
 
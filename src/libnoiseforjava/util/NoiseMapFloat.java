@@ -0,0 +1,107 @@
+/*******************************************************************************
+ *  Copyright (c) 2003, 2004 Jason Bevins (original libnoise code)
+ *  Copyright (c) 2010 Thomas J. Hodge (java port of libnoise)
+ *  Copyright (c) Nick Whitney ( changed noisegen to perlin basis. added javadoc)
+ *  
+ *  This file is part of libnoiseforjava.
+ *  
+ *  libnoiseforjava is a Java port of the C++ library libnoise, which may be
+ *  found at http://libnoise.sourceforge.net/. libnoise was developed by Jason
+ *  Bevins, who may be contacted at jlbezigvins@gmzigail.com (for great email,
+ *  take off every 'zig'). Porting to Java was done by Thomas Hodge, who may be
+ *  contacted at libnoisezagforjava@gzagmail.com (remove every 'zag').
+ *  
+ *  libnoiseforjava is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the Free
+ *  Software Foundation, either version 3 of the License, or (at your option) any
+ *  later version.
+ *  
+ *  libnoiseforjava is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ *  details.
+ *  
+ *  You should have received a copy of the GNU General Public License along with
+ *  libnoiseforjava. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+
+package libnoiseforjava.util;
+
+/**
+ * Implements a noise map that stores its values in single precision.
+ * <p>
+ * This noise map behaves like NoiseMap, but stores every value as a float. It
+ * needs half the memory of a NoiseMap of the same size, at the cost of
+ * rounding every stored value to the nearest float. Values are still read and
+ * written as doubles.
+ * <p>
+ * This is a good fit for height maps and textures that end up as 8-bit or
+ * 16-bit data anyway. The float forms of getRow() and setRow() copy rows
+ * without conversion; NoiseMapBuilderPlane uses them when float evaluation is
+ * enabled.
+ */
+public class NoiseMapFloat extends NoiseMap {
+
+    /**
+     * The array of floats holding the noise map values. The value at (x, y) is
+     * stored at index y * width + x.
+     */
+    float[] floatNoiseMap;
+
+    public NoiseMapFloat(int width, int height) throws IllegalArgumentException {
+        super(width, height);
+    }
+
+    @Override
+    public double getValue(int x, int y) {
+        if (x >= 0 && x < this.width && y >= 0 && y < this.height) {
+            return this.floatNoiseMap[y * this.width + x];
+        } else {
+            return this.borderValue;
+        }
+    }
+
+    @Override
+    public void getRow(int y, double[] dst) throws IllegalArgumentException {
+        checkRow(y, dst);
+        int rowOffset = y * this.width;
+        for (int x = 0; x < this.width; x++) {
+            dst[x] = this.floatNoiseMap[rowOffset + x];
+        }
+    }
+
+    @Override
+    public void getRow(int y, float[] dst) throws IllegalArgumentException {
+        checkRow(y, dst);
+        System.arraycopy(this.floatNoiseMap, y * this.width, dst, 0, this.width);
+    }
+
+    @Override
+    public void setValue(int x, int y, double value) {
+        if (x >= 0 && x < this.width && y >= 0 && y < this.height) {
+            this.floatNoiseMap[y * this.width + x] = (float) value;
+        }
+    }
+
+    @Override
+    public void setRow(int y, double[] src) throws IllegalArgumentException {
+        checkRow(y, src);
+        int rowOffset = y * this.width;
+        for (int x = 0; x < this.width; x++) {
+            this.floatNoiseMap[rowOffset + x] = (float) src[x];
+        }
+    }
+
+    @Override
+    public void setRow(int y, float[] src) throws IllegalArgumentException {
+        checkRow(y, src);
+        System.arraycopy(src, 0, this.floatNoiseMap, y * this.width, this.width);
+    }
+
+    @Override
+    void allocate(int size) {
+        if (this.floatNoiseMap == null || this.floatNoiseMap.length != size) {
+            this.floatNoiseMap = new float[size];
+        }
+    }
+}
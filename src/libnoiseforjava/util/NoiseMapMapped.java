@@ -0,0 +1,341 @@
+/*******************************************************************************
+ *  Copyright (c) 2003, 2004 Jason Bevins (original libnoise code)
+ *  Copyright (c) 2010 Thomas J. Hodge (java port of libnoise)
+ *  Copyright (c) Nick Whitney ( changed noisegen to perlin basis. added javadoc)
+ *  
+ *  This file is part of libnoiseforjava.
+ *  
+ *  libnoiseforjava is a Java port of the C++ library libnoise, which may be
+ *  found at http://libnoise.sourceforge.net/. libnoise was developed by Jason
+ *  Bevins, who may be contacted at jlbezigvins@gmzigail.com (for great email,
+ *  take off every 'zig'). Porting to Java was done by Thomas Hodge, who may be
+ *  contacted at libnoisezagforjava@gzagmail.com (remove every 'zag').
+ *  
+ *  libnoiseforjava is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the Free
+ *  Software Foundation, either version 3 of the License, or (at your option) any
+ *  later version.
+ *  
+ *  libnoiseforjava is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ *  details.
+ *  
+ *  You should have received a copy of the GNU General Public License along with
+ *  libnoiseforjava. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+
+package libnoiseforjava.util;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Implements a noise map that stores its values in a memory-mapped file.
+ * <p>
+ * This noise map behaves like NoiseMap, but its values live in a file instead
+ * of on the heap. The operating system pages the values in and out as they
+ * are used, so the noise map may be far larger than the heap, up to tens of
+ * gigabytes. The noise map builders write it and the renderers read it like
+ * any other noise map.
+ * <p>
+ * The file starts with a small header holding the size and the border value
+ * of the noise map, followed by the values as little-endian doubles in
+ * row-major order. Because the file is self-describing, a noise map written
+ * by one process can be opened again by another one with
+ * NoiseMapMapped(File), for example after a restart.
+ * <p>
+ * A single mapping cannot exceed 2 GB, so the file is mapped in chunks of
+ * whole rows. A row can hold no more than MAX_WIDTH values.
+ * <p>
+ * Changes reach the file when the operating system writes the pages back;
+ * call force() to write them back right away. Call close() when the noise map
+ * is no longer needed.
+ */
+public class NoiseMapMapped extends NoiseMap implements Closeable {
+
+    /**
+     * The maximum width of a noise map stored in a file.
+     */
+    public static final int MAX_WIDTH = 1 << 27;
+
+    /**
+     * Marks a file as holding a noise map ("LNM1").
+     */
+    static final int MAGIC = 0x4c4e4d31;
+
+    /**
+     * The size of the file header, in bytes. The header holds the magic
+     * number, the width, the height, four unused bytes and the border value.
+     */
+    static final int HEADER_SIZE = 32;
+
+    /**
+     * The largest size of a mapped chunk, in bytes.
+     */
+    static final int MAX_CHUNK_SIZE = 1 << 30;
+
+    FileChannel channel;
+
+    /**
+     * The mapped header of the file.
+     */
+    MappedByteBuffer header;
+
+    /**
+     * The mapped chunks of the file, each holding 2^chunkShift rows. The last
+     * chunk may hold fewer rows.
+     */
+    MappedByteBuffer[] chunks;
+
+    /**
+     * The chunks seen as doubles.
+     */
+    DoubleBuffer[] chunkValues;
+
+    int chunkShift;
+
+    int chunkMask;
+
+    /**
+     * Creates a noise map stored in the specified file.
+     * <p>
+     * The file is created if it does not exist. If it already holds a noise
+     * map of the same size, the values are kept; otherwise they are undefined.
+     *
+     * @param file The file holding the noise map.
+     * @param width The width of the noise map.
+     * @param height The height of the noise map.
+     *
+     * @pre The width lies between 1 and MAX_WIDTH.
+     * @pre The height is positive.
+     *
+     * @throws IllegalArgumentException See the preconditions.
+     * @throws IOException If the file cannot be created or mapped.
+     */
+    public NoiseMapMapped(File file, int width, int height) throws IllegalArgumentException, IOException {
+        checkSize(width, height);
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            this.header = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            this.header.order(ByteOrder.LITTLE_ENDIAN);
+            if (this.header.getInt(0) == MAGIC) {
+                this.borderValue = this.header.getDouble(16);
+            }
+            map(width, height);
+        } catch (IOException e) {
+            this.channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens a noise map previously stored in the specified file.
+     * <p>
+     * The size, the border value and the values of the noise map are read from
+     * the file.
+     *
+     * @param file The file holding the noise map.
+     *
+     * @throws IOException If the file cannot be mapped or does not hold a
+     *             noise map.
+     */
+    public NoiseMapMapped(File file) throws IOException {
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (this.channel.size() < HEADER_SIZE) {
+                throw new IOException("Not a noise map file: " + file);
+            }
+            this.header = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            this.header.order(ByteOrder.LITTLE_ENDIAN);
+            int width = this.header.getInt(4);
+            int height = this.header.getInt(8);
+            if (this.header.getInt(0) != MAGIC || width < 1 || width > MAX_WIDTH || height < 1
+                    || this.channel.size() < HEADER_SIZE + (long) width * height * 8) {
+                throw new IOException("Not a noise map file: " + file);
+            }
+            this.borderValue = this.header.getDouble(16);
+            map(width, height);
+        } catch (IOException e) {
+            this.channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public double getValue(int x, int y) {
+        if (x >= 0 && x < this.width && y >= 0 && y < this.height) {
+            return this.chunkValues[y >>> this.chunkShift].get((y & this.chunkMask) * this.width + x);
+        } else {
+            return this.borderValue;
+        }
+    }
+
+    @Override
+    public void getRow(int y, double[] dst) throws IllegalArgumentException {
+        checkRow(y, dst);
+        rowBuffer(y).get(dst, 0, this.width);
+    }
+
+    @Override
+    public void getRow(int y, float[] dst) throws IllegalArgumentException {
+        checkRow(y, dst);
+        DoubleBuffer values = this.chunkValues[y >>> this.chunkShift];
+        int rowOffset = (y & this.chunkMask) * this.width;
+        for (int x = 0; x < this.width; x++) {
+            dst[x] = (float) values.get(rowOffset + x);
+        }
+    }
+
+    /**
+     * Sets the new size for the noise map.
+     * <p>
+     * The file is extended if the new size needs more room; it is never
+     * shrunk. The values are undefined after the size changes.
+     *
+     * @param width The new width for the noise map.
+     * @param height The new height for the noise map.
+     *
+     * @pre The width lies between 1 and MAX_WIDTH.
+     * @pre The height is positive.
+     *
+     * @throws IllegalArgumentException See the preconditions.
+     * @throws UncheckedIOException If the file cannot be mapped.
+     */
+    @Override
+    public void setSize(int width, int height) throws IllegalArgumentException {
+        checkSize(width, height);
+        if (width != this.width || height != this.height) {
+            try {
+                map(width, height);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @Override
+    public void setValue(int x, int y, double value) {
+        if (x >= 0 && x < this.width && y >= 0 && y < this.height) {
+            this.chunkValues[y >>> this.chunkShift].put((y & this.chunkMask) * this.width + x, value);
+        }
+    }
+
+    @Override
+    public void setRow(int y, double[] src) throws IllegalArgumentException {
+        checkRow(y, src);
+        rowBuffer(y).put(src, 0, this.width);
+    }
+
+    @Override
+    public void setRow(int y, float[] src) throws IllegalArgumentException {
+        checkRow(y, src);
+        DoubleBuffer values = this.chunkValues[y >>> this.chunkShift];
+        int rowOffset = (y & this.chunkMask) * this.width;
+        for (int x = 0; x < this.width; x++) {
+            values.put(rowOffset + x, src[x]);
+        }
+    }
+
+    @Override
+    public void setBorderValue(double borderValue) {
+        this.borderValue = borderValue;
+        this.header.putDouble(16, borderValue);
+    }
+
+    /**
+     * Writes all changes to the noise map back to the file.
+     * <p>
+     * Once this method returns, the noise map survives a crash of the process
+     * or of the operating system.
+     */
+    public void force() {
+        for (MappedByteBuffer chunk : this.chunks) {
+            chunk.force();
+        }
+        this.header.force();
+    }
+
+    /**
+     * Closes the file holding the noise map.
+     * <p>
+     * The noise map must not be used afterwards. Changes not yet written back
+     * still reach the file, but only force() guarantees when.
+     *
+     * @throws IOException If the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        this.chunks = null;
+        this.chunkValues = null;
+        this.channel.close();
+    }
+
+    /**
+     * Returns the file contents of a row, positioned at the start of the row.
+     * Each call returns a new buffer, so rows can be copied concurrently.
+     *
+     * @param y The y coordinate of the row.
+     *
+     * @returns The buffer holding the row.
+     */
+    DoubleBuffer rowBuffer(int y) {
+        DoubleBuffer values = this.chunkValues[y >>> this.chunkShift].duplicate();
+        values.position((y & this.chunkMask) * this.width);
+        return values;
+    }
+
+    /**
+     * Maps the file for a noise map of the specified size and records the
+     * size in the header.
+     *
+     * @param width The width of the noise map.
+     * @param height The height of the noise map.
+     *
+     * @throws IOException If the file cannot be mapped.
+     */
+    void map(int width, int height) throws IOException {
+        long rowSize = (long) width * 8;
+
+        // Each chunk holds the largest power of two of rows that fits, so the
+        // chunk of a row is found with a shift.
+        int chunkShift = 31 - Integer.numberOfLeadingZeros((int) (MAX_CHUNK_SIZE / rowSize));
+        int chunkRows = 1 << chunkShift;
+        int chunkCount = (int) (((long) height + chunkRows - 1) >>> chunkShift);
+
+        MappedByteBuffer[] chunks = new MappedByteBuffer[chunkCount];
+        DoubleBuffer[] chunkValues = new DoubleBuffer[chunkCount];
+        for (int i = 0; i < chunkCount; i++) {
+            int rows = Math.min(chunkRows, height - i * chunkRows);
+            long position = HEADER_SIZE + (long) i * chunkRows * rowSize;
+            chunks[i] = this.channel.map(FileChannel.MapMode.READ_WRITE, position, rows * rowSize);
+            chunkValues[i] = chunks[i].order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+        }
+
+        this.header.putInt(0, MAGIC);
+        this.header.putInt(4, width);
+        this.header.putInt(8, height);
+        this.header.putInt(12, 0);
+        this.header.putDouble(16, this.borderValue);
+
+        this.chunks = chunks;
+        this.chunkValues = chunkValues;
+        this.chunkShift = chunkShift;
+        this.chunkMask = chunkRows - 1;
+        this.width = width;
+        this.height = height;
+    }
+
+    static void checkSize(int width, int height) throws IllegalArgumentException {
+        if (width < 1 || width > MAX_WIDTH || height < 1) {
+            throw new IllegalArgumentException("Invalid parameter in NoiseMapMapped");
+        }
+    }
+}
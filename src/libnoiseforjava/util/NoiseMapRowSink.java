@@ -0,0 +1,53 @@
+/*******************************************************************************
+ *  Copyright (c) 2003, 2004 Jason Bevins (original libnoise code)
+ *  Copyright (c) 2010 Thomas J. Hodge (java port of libnoise)
+ *  Copyright (c) Nick Whitney ( changed noisegen to perlin basis. added javadoc)
+ *  
+ *  This file is part of libnoiseforjava.
+ *  
+ *  libnoiseforjava is a Java port of the C++ library libnoise, which may be
+ *  found at http://libnoise.sourceforge.net/. libnoise was developed by Jason
+ *  Bevins, who may be contacted at jlbezigvins@gmzigail.com (for great email,
+ *  take off every 'zig'). Porting to Java was done by Thomas Hodge, who may be
+ *  contacted at libnoisezagforjava@gzagmail.com (remove every 'zag').
+ *  
+ *  libnoiseforjava is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the Free
+ *  Software Foundation, either version 3 of the License, or (at your option) any
+ *  later version.
+ *  
+ *  libnoiseforjava is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ *  details.
+ *  
+ *  You should have received a copy of the GNU General Public License along with
+ *  libnoiseforjava. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+
+package libnoiseforjava.util;
+
+/**
+ * Receives the rows of a noise map as a streaming build calculates them.
+ * <p>
+ * NoiseMapBuilderPlane.build(NoiseMapRowSink) passes every row to this sink
+ * instead of storing it in a NoiseMap, so a noise map far larger than the
+ * available memory can be written to a file, rendered or checksummed row by
+ * row. The rows arrive in order, from row 0 to the last row, on the thread
+ * that called build().
+ */
+public interface NoiseMapRowSink {
+
+    /**
+     * Receives one row of the noise map.
+     * <p>
+     * The builder reuses the array for the next row, so the sink must copy
+     * any values it keeps after this method returns.
+     *
+     * @param y The y coordinate of the row.
+     * @param row The values of the row. The value at x coordinate x is in
+     *            row[x].
+     */
+    void acceptRow(int y, double[] row);
+
+}
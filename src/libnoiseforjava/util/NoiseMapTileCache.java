@@ -0,0 +1,472 @@
+/*******************************************************************************
+ *  Copyright (c) 2003, 2004 Jason Bevins (original libnoise code)
+ *  Copyright (c) 2010 Thomas J. Hodge (java port of libnoise)
+ *  Copyright (c) Nick Whitney ( changed noisegen to perlin basis. added javadoc)
+ *  
+ *  This file is part of libnoiseforjava.
+ *  
+ *  libnoiseforjava is a Java port of the C++ library libnoise, which may be
+ *  found at http://libnoise.sourceforge.net/. libnoise was developed by Jason
+ *  Bevins, who may be contacted at jlbezigvins@gmzigail.com (for great email,
+ *  take off every 'zig'). Porting to Java was done by Thomas Hodge, who may be
+ *  contacted at libnoisezagforjava@gzagmail.com (remove every 'zag').
+ *  
+ *  libnoiseforjava is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the Free
+ *  Software Foundation, either version 3 of the License, or (at your option) any
+ *  later version.
+ *  
+ *  libnoiseforjava is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ *  details.
+ *  
+ *  You should have received a copy of the GNU General Public License along with
+ *  libnoiseforjava. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+
+package libnoiseforjava.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import libnoiseforjava.module.ModuleBase;
+
+/**
+ * Caches the tiles of an endless planar noise map.
+ * <p>
+ * The plane is divided into square tiles. Each tile is a noise map of
+ * getTileSize() by getTileSize() values, built with NoiseMapBuilderPlane the
+ * first time it is requested. A tile is identified by its tile x and tile z
+ * coordinates and its level of detail (LOD). At LOD 0, a tile covers
+ * getTileExtent() by getTileExtent() units; each higher LOD doubles the
+ * extent of a tile, so the same number of values covers four times the area.
+ * <p>
+ * Tile (tileX, tileZ) at LOD lod covers the x coordinates from
+ * tileX * extent to (tileX + 1) * extent and the z coordinates from
+ * tileZ * extent to (tileZ + 1) * extent, where extent is
+ * getTileExtent() * 2^lod. The values of adjacent tiles continue each other
+ * without seams.
+ * <p>
+ * The cache holds no more than getMaxTileCount() tiles. Since all tiles have
+ * the same size, this bounds the memory used by the cache. When a new tile
+ * does not fit, the least recently used complete tile is evicted. Tiles that
+ * are still being built are never evicted, so that every request for them
+ * waits for the one build; while more tiles are being built at once than fit
+ * in the cache, the cache holds up to one extra tile per building thread
+ * until those builds finish.
+ * <p>
+ * The cache is thread-safe. A tile is built on the thread that requests it
+ * first; other threads that request the same tile in the meantime wait for
+ * that build instead of starting their own. Tiles are built on several
+ * threads at once, so if the source module graph keeps state between calls,
+ * pass a SourceModuleFactory to the setSourceModuleFactory() method so that
+ * each thread uses its own copy of the graph.
+ * <p>
+ * The tiles returned by getTile() are shared by all callers and must not be
+ * modified.
+ */
+public class NoiseMapTileCache {
+
+    /**
+     * Maximum level of detail of a tile.
+     */
+    public static final int MAX_LOD = 30;
+
+    /**
+     * The source module.
+     */
+    final ModuleBase sourceModule;
+
+    /**
+     * The width and height of a tile, in values.
+     */
+    final int tileSize;
+
+    /**
+     * The width and height of a tile at LOD 0, in units.
+     */
+    final double tileExtent;
+
+    /**
+     * The maximum number of tiles held by the cache.
+     */
+    final int maxTileCount;
+
+    /**
+     * The tiles, built or being built, in order from the least recently used
+     * to the most recently used. Guarded by itself.
+     */
+    final LinkedHashMap<TileKey, FutureTask<NoiseMap>> tiles;
+
+    /**
+     * The copy of the module graph used by each thread, if a source module
+     * factory is set.
+     */
+    final ThreadLocal<ModuleBase> threadSourceModule;
+
+    volatile SourceModuleFactory sourceModuleFactory;
+
+    final AtomicLong hitCount;
+    final AtomicLong missCount;
+    final AtomicLong evictionCount;
+    final AtomicLong generationCount;
+    final AtomicLong generationTime;
+
+    /**
+     * Creates a tile cache.
+     *
+     * @param sourceModule The source module the tiles are built from.
+     * @param tileSize The width and height of a tile, in values.
+     * @param tileExtent The width and height of a tile at LOD 0, in units.
+     * @param maxTileCount The maximum number of tiles held by the cache.
+     *
+     * @pre The source module is not null.
+     * @pre The tile size, the tile extent and the maximum number of tiles are
+     *      positive.
+     *
+     * @throws IllegalArgumentException See the preconditions.
+     */
+    public NoiseMapTileCache(ModuleBase sourceModule, int tileSize, double tileExtent, int maxTileCount) throws IllegalArgumentException {
+        if (sourceModule == null || tileSize < 1 || !(tileExtent > 0.0) || maxTileCount < 1) {
+            throw new IllegalArgumentException("Invalid parameter in NoiseMapTileCache");
+        }
+
+        this.sourceModule = sourceModule;
+        this.tileSize = tileSize;
+        this.tileExtent = tileExtent;
+        this.maxTileCount = maxTileCount;
+        this.tiles = new LinkedHashMap<TileKey, FutureTask<NoiseMap>>(16, 0.75f, true);
+        this.threadSourceModule = new ThreadLocal<ModuleBase>();
+        this.sourceModuleFactory = null;
+        this.hitCount = new AtomicLong();
+        this.missCount = new AtomicLong();
+        this.evictionCount = new AtomicLong();
+        this.generationCount = new AtomicLong();
+        this.generationTime = new AtomicLong();
+    }
+
+    /**
+     * Returns a tile, building it if the cache does not hold it.
+     * <p>
+     * If another thread is building the tile, this method waits for that
+     * build to finish.
+     *
+     * @param tileX The tile x coordinate of the tile.
+     * @param tileZ The tile z coordinate of the tile.
+     * @param lod The level of detail of the tile.
+     *
+     * @pre The level of detail lies between 0 and MAX_LOD.
+     *
+     * @returns The tile, which must not be modified.
+     *
+     * @throws IllegalArgumentException See the preconditions.
+     */
+    public NoiseMap getTile(final int tileX, final int tileZ, final int lod) throws IllegalArgumentException {
+        if (lod < 0 || lod > MAX_LOD) {
+            throw new IllegalArgumentException("Invalid parameter in NoiseMapTileCache");
+        }
+
+        TileKey key = new TileKey(tileX, tileZ, lod);
+        FutureTask<NoiseMap> tile;
+        boolean isBuilder = false;
+
+        synchronized (this.tiles) {
+            tile = this.tiles.get(key);
+            if (tile == null) {
+                tile = new FutureTask<NoiseMap>(new Callable<NoiseMap>() {
+                    @Override
+                    public NoiseMap call() {
+                        return buildTile(tileX, tileZ, lod);
+                    }
+                });
+                this.tiles.put(key, tile);
+                evict();
+                isBuilder = true;
+            }
+        }
+
+        if (isBuilder) {
+            this.missCount.incrementAndGet();
+            tile.run();
+
+            // Tiles that were in flight when this one was added may now be
+            // evicted.
+            synchronized (this.tiles) {
+                evict();
+            }
+        } else {
+            this.hitCount.incrementAndGet();
+        }
+
+        try {
+            return getUninterruptibly(tile);
+        } catch (ExecutionException e) {
+            // Forget the failed tile so that the next request builds it again.
+            synchronized (this.tiles) {
+                if (this.tiles.get(key) == tile) {
+                    this.tiles.remove(key);
+                }
+            }
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                throw new IllegalStateException(cause);
+            }
+        }
+    }
+
+    /**
+     * Returns the value at the specified position of the plane, taken from
+     * the tile holding that position.
+     * <p>
+     * The value is the one of the tile sample nearest to the position, at or
+     * below it in both x and z.
+     *
+     * @param x The x coordinate of the position.
+     * @param z The z coordinate of the position.
+     * @param lod The level of detail of the tile to take the value from.
+     *
+     * @pre The level of detail lies between 0 and MAX_LOD.
+     *
+     * @returns The value at that position.
+     *
+     * @throws IllegalArgumentException See the preconditions.
+     */
+    public double getValue(double x, double z, int lod) throws IllegalArgumentException {
+        if (lod < 0 || lod > MAX_LOD) {
+            throw new IllegalArgumentException("Invalid parameter in NoiseMapTileCache");
+        }
+
+        double extent = this.tileExtent * (1 << lod);
+        double tileXCoord = Math.floor(x / extent);
+        double tileZCoord = Math.floor(z / extent);
+        NoiseMap tile = getTile((int) tileXCoord, (int) tileZCoord, lod);
+
+        int sampleX = Math.min((int) ((x / extent - tileXCoord) * this.tileSize), this.tileSize - 1);
+        int sampleZ = Math.min((int) ((z / extent - tileZCoord) * this.tileSize), this.tileSize - 1);
+        return tile.getValue(sampleX, sampleZ);
+    }
+
+    /**
+     * Removes all tiles from the cache.
+     * <p>
+     * Tiles being built are still returned to the threads waiting for them.
+     * The metrics are not reset.
+     */
+    public void clear() {
+        synchronized (this.tiles) {
+            this.tiles.clear();
+        }
+    }
+
+    /**
+     * Returns the number of tiles held by the cache, including the tiles
+     * being built.
+     *
+     * @returns The number of tiles held by the cache.
+     */
+    public int getTileCount() {
+        synchronized (this.tiles) {
+            return this.tiles.size();
+        }
+    }
+
+    /**
+     * Returns the number of getTile() calls that found the tile in the cache,
+     * including the calls that waited for another thread to build it.
+     *
+     * @returns The number of cache hits.
+     */
+    public long getHitCount() {
+        return this.hitCount.get();
+    }
+
+    /**
+     * Returns the number of getTile() calls that had to build the tile.
+     *
+     * @returns The number of cache misses.
+     */
+    public long getMissCount() {
+        return this.missCount.get();
+    }
+
+    /**
+     * Returns the number of tiles evicted to make room for new tiles.
+     *
+     * @returns The number of evicted tiles.
+     */
+    public long getEvictionCount() {
+        return this.evictionCount.get();
+    }
+
+    /**
+     * Returns the number of tiles built successfully.
+     *
+     * @returns The number of tiles built.
+     */
+    public long getGenerationCount() {
+        return this.generationCount.get();
+    }
+
+    /**
+     * Returns the total time spent building tiles, in nanoseconds.
+     * <p>
+     * Divide it by getGenerationCount() to get the average time to build a
+     * tile.
+     *
+     * @returns The total time spent building tiles, in nanoseconds.
+     */
+    public long getTotalGenerationTime() {
+        return this.generationTime.get();
+    }
+
+    public int getMaxTileCount() {
+        return this.maxTileCount;
+    }
+
+    public SourceModuleFactory getSourceModuleFactory() {
+        return this.sourceModuleFactory;
+    }
+
+    public ModuleBase getSourceModule() {
+        return this.sourceModule;
+    }
+
+    public double getTileExtent() {
+        return this.tileExtent;
+    }
+
+    public int getTileSize() {
+        return this.tileSize;
+    }
+
+    /**
+     * Sets the factory that gives each thread building tiles its own copy of
+     * the module graph.
+     * <p>
+     * If this factory is null, which is the default, all threads share the
+     * source module. Set it before requesting any tile.
+     *
+     * @param sourceModuleFactory The source module factory, or null.
+     */
+    public void setSourceModuleFactory(SourceModuleFactory sourceModuleFactory) {
+        this.sourceModuleFactory = sourceModuleFactory;
+    }
+
+    /**
+     * Builds a tile.
+     *
+     * @param tileX The tile x coordinate of the tile.
+     * @param tileZ The tile z coordinate of the tile.
+     * @param lod The level of detail of the tile.
+     *
+     * @returns The new tile.
+     */
+    NoiseMap buildTile(int tileX, int tileZ, int lod) {
+        long start = System.nanoTime();
+
+        double extent = this.tileExtent * (1 << lod);
+        NoiseMap tile = new NoiseMap(this.tileSize, this.tileSize);
+        NoiseMapBuilderPlane builder = new NoiseMapBuilderPlane();
+        builder.setSourceModule(threadSourceModule());
+        builder.setDestNoiseMap(tile);
+        builder.setDestSize(this.tileSize, this.tileSize);
+        builder.setBounds(tileX * extent, (tileX + 1.0) * extent, tileZ * extent, (tileZ + 1.0) * extent);
+        builder.build();
+
+        this.generationTime.addAndGet(System.nanoTime() - start);
+        this.generationCount.incrementAndGet();
+        return tile;
+    }
+
+    /**
+     * Returns the module graph used by the current thread.
+     *
+     * @returns The source module, or the copy of the graph for the current
+     *          thread if a source module factory is set.
+     */
+    ModuleBase threadSourceModule() {
+        SourceModuleFactory factory = this.sourceModuleFactory;
+        if (factory == null) {
+            return this.sourceModule;
+        }
+
+        ModuleBase module = this.threadSourceModule.get();
+        if (module == null) {
+            module = factory.createSourceModule();
+            this.threadSourceModule.set(module);
+        }
+        return module;
+    }
+
+    /**
+     * Evicts the least recently used complete tiles until the cache holds no
+     * more than getMaxTileCount() tiles, or only tiles that are still being
+     * built are left to evict. The caller holds the lock on the tiles.
+     */
+    void evict() {
+        Iterator<Map.Entry<TileKey, FutureTask<NoiseMap>>> it = this.tiles.entrySet().iterator();
+        while (this.tiles.size() > this.maxTileCount && it.hasNext()) {
+            if (it.next().getValue().isDone()) {
+                it.remove();
+                this.evictionCount.incrementAndGet();
+            }
+        }
+    }
+
+    static NoiseMap getUninterruptibly(FutureTask<NoiseMap> tile) throws ExecutionException {
+        boolean isInterrupted = false;
+        try {
+            while (true) {
+                try {
+                    return tile.get();
+                } catch (InterruptedException e) {
+                    isInterrupted = true;
+                }
+            }
+        } finally {
+            if (isInterrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Identifies a tile by its tile coordinates and level of detail.
+     */
+    static final class TileKey {
+
+        final int tileX;
+        final int tileZ;
+        final int lod;
+
+        TileKey(int tileX, int tileZ, int lod) {
+            this.tileX = tileX;
+            this.tileZ = tileZ;
+            this.lod = lod;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof TileKey)) {
+                return false;
+            }
+            TileKey other = (TileKey) obj;
+            return this.tileX == other.tileX && this.tileZ == other.tileZ && this.lod == other.lod;
+        }
+
+        @Override
+        public int hashCode() {
+            return (this.tileX * 31 + this.tileZ) * 31 + this.lod;
+        }
+    }
+}
@@ -27,6 +27,10 @@
 
 package libnoiseforjava.util;
 
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
 import libnoiseforjava.Interp;
 
 /**
@@ -70,6 +74,10 @@ import libnoiseforjava.Interp;
  * This class contains two pre-made gradients: a grayscale gradient and a color
  * gradient suitable for terrain. To use these pre-made gradients, call the
  * buildGrayscaleGradient() or buildTerrainGradient() methods, respectively.
+ * <p>
+ * To compile the gradient into a lookup table once per render instead of
+ * searching the gradient points for every pixel, call the
+ * enableGradientLookup() method.
  * <ul>
  * <li>The color value passed to addGradientPoint() has an alpha channel. This
  * alpha channel specifies how a pixel in the background image (if specified) is
@@ -125,11 +133,21 @@ import libnoiseforjava.Interp;
  * <li>Pass an ImageCafe object to the setBackgroundImage() method (optional)
  * <li>Call the render() method.
  * </ol>
+ * <p>
+ * To render the image on several threads, call renderParallel() or
+ * render(Executor) instead of render(). The image is split into bands of rows;
+ * the lighting at the edges of a band is calculated from the neighboring rows
+ * of the noise map, so the result is identical to that of render().
  */
 public class RendererImage {
 
     static final double SQRT_2 = 1.4142135623730950488;
 
+    /**
+     * The number of rows in each band of a parallel render.
+     */
+    int bandHeight;
+
     /**
      * The cosine of the azimuth of the light source.
      */
@@ -145,6 +163,29 @@ public class RendererImage {
      */
     GradientColor gradient;
 
+    /**
+     * The color gradient compiled into a lookup table, or null if it has not
+     * been compiled since the gradient or the table size last changed.
+     */
+    GradientLookupTable gradientLookup;
+
+    /**
+     * The number of entries in the gradient lookup table.
+     */
+    int gradientLookupSize;
+
+    /**
+     * A flag specifying whether the colors are taken from the gradient lookup
+     * table.
+     */
+    boolean isGradientLookupEnabled;
+
+    /**
+     * A flag specifying whether gradient lookups interpolate between table
+     * entries.
+     */
+    boolean isGradientLookupInterpolated;
+
     /**
      * A flag specifying whether lighting is enabled.
      */
@@ -232,6 +273,10 @@ public class RendererImage {
         this.destImageCafe = null;
         this.sourceNoiseMap = null;
         this.recalcLightValues = true;
+        this.bandHeight = NoiseMapBuilderPlane.DEFAULT_BAND_HEIGHT;
+        this.gradientLookupSize = GradientLookupTable.DEFAULT_SIZE;
+        this.isGradientLookupEnabled = false;
+        this.isGradientLookupInterpolated = true;
 
         buildGrayscaleGradient();
     }
@@ -263,6 +308,7 @@ public class RendererImage {
      */
     public void addGradientPoint(double gradientPos, ColorCafe gradientColor) throws IllegalArgumentException {
         this.gradient.addGradientPoint(gradientPos, gradientColor);
+        this.gradientLookup = null;
     }
 
     /**
@@ -319,13 +365,35 @@ public class RendererImage {
      * @return The destination color.
      */
     public ColorCafe calcDestColor(ColorCafe sourceColor, ColorCafe backgroundColor, double lightValue) {
-        double sourceRed = sourceColor.red / 255.0;
-        double sourceGreen = sourceColor.green / 255.0;
-        double sourceBlue = sourceColor.blue / 255.0;
-        double sourceAlpha = sourceColor.alpha / 255.0;
-        double backgroundRed = backgroundColor.red / 255.0;
-        double backgroundGreen = backgroundColor.green / 255.0;
-        double backgroundBlue = backgroundColor.blue / 255.0;
+        return ColorCafe.fromARGB(calcDestPixel(sourceColor.toARGB(), backgroundColor.toARGB(), lightValue));
+    }
+
+    /**
+     * Calculates the destination color from packed ARGB colors.
+     * <p>
+     * This is the allocation-free form of calcDestColor() used by render().
+     *
+     * @param sourceColor
+     *            The source color generated from the color gradient, packed as
+     *            0xAARRGGBB.
+     * @param backgroundColor
+     *            The color from the background image at the corresponding
+     *            position, packed as 0xAARRGGBB.
+     * @param lightValue
+     *            The intensity of the light at that position.
+     *
+     * @return The destination color, packed as 0xAARRGGBB.
+     */
+    public int calcDestPixel(int sourceColor, int backgroundColor, double lightValue) {
+        int sourceAlphaChannel = sourceColor >>> 24;
+        int backgroundAlphaChannel = backgroundColor >>> 24;
+        double sourceRed = ((sourceColor >> 16) & 0xff) / 255.0;
+        double sourceGreen = ((sourceColor >> 8) & 0xff) / 255.0;
+        double sourceBlue = (sourceColor & 0xff) / 255.0;
+        double sourceAlpha = sourceAlphaChannel / 255.0;
+        double backgroundRed = ((backgroundColor >> 16) & 0xff) / 255.0;
+        double backgroundGreen = ((backgroundColor >> 8) & 0xff) / 255.0;
+        double backgroundBlue = (backgroundColor & 0xff) / 255.0;
 
         // First, blend the source color to the background color using the alpha
         // of the source color.
@@ -356,8 +424,7 @@ public class RendererImage {
         // Rescale the color channels to the noise::uint8 (0..255) range and
         // return
         // the new color.
-        ColorCafe newColor = new ColorCafe((int) (red * 255.0) & 0xff, (int) (green * 255.0) & 0xff, (int) (blue * 255.0) & 0xff, Math.max(sourceColor.alpha, backgroundColor.alpha));
-        return newColor;
+        return ColorCafe.packARGB((int) (red * 255.0), (int) (green * 255.0), (int) (blue * 255.0), Math.max(sourceAlphaChannel, backgroundAlphaChannel));
     }
 
     /**
@@ -381,13 +448,7 @@ public class RendererImage {
         // necessary so it does not have to be calculated each time this method
         // is
         // called.
-        if (this.recalcLightValues) {
-            this.cosAzimuth = Math.cos(Math.toRadians(this.lightAzimuth));
-            this.sinAzimuth = Math.sin(Math.toRadians(this.lightAzimuth));
-            this.cosElev = Math.cos(Math.toRadians(this.lightElev));
-            this.sinElev = Math.sin(Math.toRadians(this.lightElev));
-            this.recalcLightValues = false;
-        }
+        updateLightValues();
 
         // Now do the lighting calculations.
         double I_MAX = 1.0;
@@ -403,6 +464,20 @@ public class RendererImage {
         return intensity;
     }
 
+    /**
+     * Recalculates the sine and cosine of the light azimuth and elevation if
+     * the light parameters have changed since the last calculation.
+     */
+    private void updateLightValues() {
+        if (this.recalcLightValues) {
+            this.cosAzimuth = Math.cos(Math.toRadians(this.lightAzimuth));
+            this.sinAzimuth = Math.sin(Math.toRadians(this.lightAzimuth));
+            this.cosElev = Math.cos(Math.toRadians(this.lightElev));
+            this.sinElev = Math.sin(Math.toRadians(this.lightElev));
+            this.recalcLightValues = false;
+        }
+    }
+
     /**
      * Clears the color gradient.
      * <p>
@@ -412,6 +487,7 @@ public class RendererImage {
     public void clearGradient() {
         this.gradient = new GradientColor();
         this.gradient.clear();
+        this.gradientLookup = null;
     }
 
     /**
@@ -435,6 +511,65 @@ public class RendererImage {
      *             See the preconditions.
      */
     public void render() throws IllegalArgumentException {
+        prepareRender();
+        renderRows(0, this.sourceNoiseMap.getHeight());
+    }
+
+    /**
+     * Renders the destination image on the threads of the common fork/join
+     * pool.
+     * <p>
+     * This is the same as calling render(Executor) with
+     * ForkJoinPool.commonPool().
+     *
+     * @throws IllegalArgumentException
+     *             See the preconditions of render().
+     */
+    public void renderParallel() throws IllegalArgumentException {
+        render(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Renders the destination image by splitting it into bands of rows and
+     * rendering the bands on the specified executor.
+     * <p>
+     * The destination image receives exactly the same colors that render()
+     * writes. Each band reads the rows above and below it from the source
+     * noise map, so the lighting at band edges, including wrapping, does not
+     * depend on how the image is split.
+     * <p>
+     * The renderer must not be modified while this method runs. This method
+     * returns once every band has been rendered. If a band fails, this method
+     * throws its exception once the bands that had already started have
+     * finished, so no band writes to the destination image after this method
+     * has returned or thrown.
+     *
+     * @param executor
+     *            The executor that renders the bands.
+     *
+     * @throws IllegalArgumentException
+     *             See the preconditions of render().
+     */
+    public void render(Executor executor) throws IllegalArgumentException {
+        prepareRender();
+
+        // The light values are shared by all bands, so calculate them before
+        // the bands start instead of lazily from the worker threads.
+        updateLightValues();
+
+        RowBands.run(executor, this.sourceNoiseMap.getHeight(), this.bandHeight, new RowBands.Task() {
+            @Override
+            public void run(int firstRow, int endRow) {
+                renderRows(firstRow, endRow);
+            }
+        });
+    }
+
+    /**
+     * Checks the preconditions of render() and resizes the destination image
+     * to the size of the source noise map.
+     */
+    private void prepareRender() throws IllegalArgumentException {
         if (this.sourceNoiseMap == null || this.destImageCafe == null || this.sourceNoiseMap.getWidth() <= 0 || this.sourceNoiseMap.getHeight() <= 0
                 || this.gradient.getGradientPointCount() < 2) {
             throw new IllegalArgumentException("Invalid Parameter in RendererImage");
@@ -458,12 +593,92 @@ public class RendererImage {
             this.destImageCafe.setSize(width, height);
         }
 
-        for (int y = 0; y < height; y++) {
+        // Compile the color gradient if the lookup table is enabled and out of
+        // date.
+        if (this.isGradientLookupEnabled && this.gradientLookup == null) {
+            this.gradientLookup = this.gradient.compile(this.gradientLookupSize);
+        }
+    }
+
+    /**
+     * Renders the rows from @a firstRow up to, but not including, @a endRow
+     * of the destination image.
+     *
+     * @param firstRow
+     *            The first row to render.
+     * @param endRow
+     *            One past the last row to render.
+     */
+    private void renderRows(int firstRow, int endRow) {
+        int width = this.sourceNoiseMap.getWidth();
+        int height = this.sourceNoiseMap.getHeight();
+
+        // Copy the current row and its two neighbor rows out of the noise map
+        // once per row instead of reading every value through getValue().
+        double[] centerRow = new double[width];
+        double[] downRow = new double[width];
+        double[] upRow = new double[width];
+
+        // Write packed colors straight into the destination image so that no
+        // color objects are created per pixel.
+        int[] destPixels = this.destImageCafe.getPixels();
+        int[] backgroundPixels = null;
+        if (this.backgroundImage != null) {
+            backgroundPixels = this.backgroundImage.getPixels();
+        }
+
+        GradientLookupTable lookup = null;
+        if (this.isGradientLookupEnabled) {
+            lookup = this.gradientLookup;
+        }
+
+        for (int y = firstRow; y < endRow; y++) {
+            this.sourceNoiseMap.getRow(y, centerRow);
+            int rowStart = y * width;
+
+            if (this.isLightEnabled) {
+                // Calculate the positions of the current row's neighbors.
+                int yUpOffset, yDownOffset;
+                if (this.isWrapEnabled) {
+                    if (y == 0) {
+                        yDownOffset = height - 1;
+                        yUpOffset = 1;
+                    } else if (y == height - 1) {
+                        yDownOffset = -1;
+                        yUpOffset = -(height - 1);
+                    } else {
+                        yDownOffset = -1;
+                        yUpOffset = 1;
+                    }
+                } else {
+                    if (y == 0) {
+                        yDownOffset = 0;
+                        yUpOffset = 1;
+                    } else if (y == height - 1) {
+                        yDownOffset = -1;
+                        yUpOffset = 0;
+                    } else {
+                        yDownOffset = -1;
+                        yUpOffset = 1;
+                    }
+                }
+
+                copySourceRow(y + yDownOffset, downRow);
+                copySourceRow(y + yUpOffset, upRow);
+            }
+
             for (int x = 0; x < width; x++) {
                 // Get the color based on the value at the current point in the
                 // noise
                 // map.
-                ColorCafe destColor = this.gradient.getColor(this.sourceNoiseMap.getValue(x, y));
+                int destColor;
+                if (lookup == null) {
+                    destColor = this.gradient.getPackedColor(centerRow[x]);
+                } else if (this.isGradientLookupInterpolated) {
+                    destColor = lookup.getInterpolatedColor(centerRow[x]);
+                } else {
+                    destColor = lookup.getNearestColor(centerRow[x]);
+                }
 
                 // If lighting is enabled, calculate the light intensity based
                 // on the
@@ -471,9 +686,8 @@ public class RendererImage {
                 double lightIntensity;
                 if (this.isLightEnabled) {
                     // Calculate the positions of the current point's
-                    // four-neighbors.
+                    // left and right neighbors.
                     int xLeftOffset, xRightOffset;
-                    int yUpOffset, yDownOffset;
                     if (this.isWrapEnabled) {
                         if (x == 0) {
                             xLeftOffset = width - 1;
@@ -485,17 +699,6 @@ public class RendererImage {
                             xLeftOffset = -1;
                             xRightOffset = 1;
                         }
-
-                        if (y == 0) {
-                            yDownOffset = height - 1;
-                            yUpOffset = 1;
-                        } else if (y == height - 1) {
-                            yDownOffset = -1;
-                            yUpOffset = -(height - 1);
-                        } else {
-                            yDownOffset = -1;
-                            yUpOffset = 1;
-                        }
                     } else {
                         if (x == 0) {
                             xLeftOffset = 0;
@@ -507,27 +710,16 @@ public class RendererImage {
                             xLeftOffset = -1;
                             xRightOffset = 1;
                         }
-
-                        if (y == 0) {
-                            yDownOffset = 0;
-                            yUpOffset = 1;
-                        } else if (y == height - 1) {
-                            yDownOffset = -1;
-                            yUpOffset = 0;
-                        } else {
-                            yDownOffset = -1;
-                            yUpOffset = 1;
-                        }
                     }
 
                     // Get the noise value of the current point in the source
                     // noise map
                     // and the noise values of its four-neighbors.
-                    double nc = (this.sourceNoiseMap.getValue(x, y));
-                    double nl = (this.sourceNoiseMap.getValue(x + xLeftOffset, y));
-                    double nr = (this.sourceNoiseMap.getValue(x + xRightOffset, y));
-                    double nd = (this.sourceNoiseMap.getValue(x, y + yDownOffset));
-                    double nu = (this.sourceNoiseMap.getValue(x, y + yUpOffset));
+                    double nc = centerRow[x];
+                    double nl = rowValue(centerRow, x + xLeftOffset);
+                    double nr = rowValue(centerRow, x + xRightOffset);
+                    double nd = downRow[x];
+                    double nu = upRow[x];
 
                     // Now we can calculate the lighting intensity.
                     lightIntensity = calcLightIntensity(nc, nl, nr, nd, nu);
@@ -540,20 +732,74 @@ public class RendererImage {
                 }
 
                 // Get the current background color from the background image.
-                ColorCafe backgroundColor = new ColorCafe(255, 255, 255, 255);
-                if (this.backgroundImage != null) {
-                    backgroundColor = this.backgroundImage.getValue(x, y);
+                int backgroundColor = 0xffffffff;
+                if (backgroundPixels != null) {
+                    backgroundColor = backgroundPixels[rowStart + x];
                 }
 
                 // Blend the destination color, background color, and the light
                 // intensity together, then update the destination image with
                 // that
                 // color.
-                this.destImageCafe.setValue(x, y, calcDestColor(destColor, backgroundColor, lightIntensity));
+                destPixels[rowStart + x] = calcDestPixel(destColor, backgroundColor, lightIntensity);
             }
         }
     }
 
+    /**
+     * Copies a row of the source noise map into an array, or fills the array
+     * with the border value if the row lies outside of the noise map.
+     */
+    private void copySourceRow(int y, double[] row) {
+        if (y >= 0 && y < this.sourceNoiseMap.getHeight()) {
+            this.sourceNoiseMap.getRow(y, row);
+        } else {
+            Arrays.fill(row, this.sourceNoiseMap.getBorderValue());
+        }
+    }
+
+    /**
+     * Returns a value from a copied row of the source noise map, or the border
+     * value if the position lies outside of the noise map.
+     */
+    private double rowValue(double[] row, int x) {
+        if (x >= 0 && x < row.length) {
+            return row[x];
+        } else {
+            return this.sourceNoiseMap.getBorderValue();
+        }
+    }
+
+    /**
+     * Enables or disables the gradient lookup table.
+     * <p>
+     * If the lookup table is enabled, the render() method compiles the color
+     * gradient into a GradientLookupTable once and takes the color of each
+     * pixel from that table instead of searching the gradient points. This is
+     * faster for gradients with many points, but the colors may differ
+     * slightly from those of the gradient itself; see GradientLookupTable.
+     *
+     * @param enable
+     *            A flag that enables or disables the gradient lookup table.
+     */
+    public void enableGradientLookup(boolean enable) {
+        this.isGradientLookupEnabled = enable;
+    }
+
+    /**
+     * Enables or disables interpolation between the entries of the gradient
+     * lookup table.
+     * <p>
+     * If interpolation is disabled, each pixel takes the color of the nearest
+     * table entry. Interpolation is enabled by default.
+     *
+     * @param enable
+     *            A flag that enables or disables interpolation.
+     */
+    public void enableGradientLookupInterpolation(boolean enable) {
+        this.isGradientLookupInterpolated = enable;
+    }
+
     /**
      * Enables or disables the light source.
      * <p>
@@ -587,6 +833,24 @@ public class RendererImage {
         this.isWrapEnabled = enable;
     }
 
+    /**
+     * Returns the number of rows in each band of a parallel render.
+     *
+     * @return The number of rows in each band.
+     */
+    public int getBandHeight() {
+        return this.bandHeight;
+    }
+
+    /**
+     * Returns the number of entries in the gradient lookup table.
+     *
+     * @return The number of entries in the gradient lookup table.
+     */
+    public int getGradientLookupSize() {
+        return this.gradientLookupSize;
+    }
+
     /**
      * Returns the azimuth of the light source, in degrees.
      * 
@@ -665,6 +929,30 @@ public class RendererImage {
         return this.lightIntensity;
     }
 
+    /**
+     * Determines if the gradient lookup table is enabled.
+     *
+     * @return <ul>
+     *         <li><i>true</i> if the gradient lookup table is enabled.
+     *         <li><i>false</i> if the gradient lookup table is disabled.
+     *         </ul>
+     */
+    public boolean isGradientLookupEnabled() {
+        return this.isGradientLookupEnabled;
+    }
+
+    /**
+     * Determines if gradient lookups interpolate between table entries.
+     *
+     * @return <ul>
+     *         <li><i>true</i> if interpolation is enabled.
+     *         <li><i>false</i> if interpolation is disabled.
+     *         </ul>
+     */
+    public boolean isGradientLookupInterpolationEnabled() {
+        return this.isGradientLookupInterpolated;
+    }
+
     /**
      * Determines if the light source is enabled.
      *
@@ -717,6 +1005,29 @@ public class RendererImage {
         this.backgroundImage = backgroundImage;
     }
 
+    /**
+     * Sets the number of rows in each band of a parallel render.
+     * <p>
+     * Smaller bands balance the work better between threads, larger bands
+     * reduce the scheduling overhead. The band height does not affect the
+     * rendered image.
+     *
+     * @param bandHeight
+     *            The number of rows in each band.
+     *
+     * @pre The band height is positive.
+     *
+     * @throws IllegalArgumentException
+     *             See the preconditions.
+     */
+    public void setBandHeight(int bandHeight) throws IllegalArgumentException {
+        if (bandHeight < 1) {
+            throw new IllegalArgumentException("Invalid Parameter in RendererImage");
+        }
+
+        this.bandHeight = bandHeight;
+    }
+
     /**
      * Sets the destination image.
      * <p>
@@ -733,6 +1044,29 @@ public class RendererImage {
         this.destImageCafe = destImage;
     }
 
+    /**
+     * Sets the number of entries in the gradient lookup table.
+     * <p>
+     * More entries follow the color gradient more closely. The default size
+     * is GradientLookupTable.DEFAULT_SIZE.
+     *
+     * @param gradientLookupSize
+     *            The number of entries in the gradient lookup table.
+     *
+     * @pre The size is at least 2.
+     *
+     * @throws IllegalArgumentException
+     *             See the preconditions.
+     */
+    public void setGradientLookupSize(int gradientLookupSize) throws IllegalArgumentException {
+        if (gradientLookupSize < 2) {
+            throw new IllegalArgumentException("Invalid Parameter in RendererImage");
+        }
+
+        this.gradientLookupSize = gradientLookupSize;
+        this.gradientLookup = null;
+    }
+
     /**
      * Sets the azimuth of the light source, in degrees.
      * <p>
@@ -113,6 +113,23 @@ public class RendererNormalMap {
      * @return The normal vector represented as a color.
      */
     public ColorCafe calcNormalColor(double nc, double nr, double nu, double bumpHeight) {
+        return ColorCafe.fromARGB(calcNormalPixel(nc, nr, nu, bumpHeight));
+    }
+
+    /**
+     * Calculates the normal vector at a given point on the noise map and
+     * returns it as a packed ARGB color.
+     * <p>
+     * This is the allocation-free form of calcNormalColor() used by render().
+     *
+     * @param nc The height of the given point in the noise map.
+     * @param nr The height of the right neighbor.
+     * @param nu The height of the up neighbor.
+     * @param bumpHeight The bump height.
+     *
+     * @return The normal vector represented as a color, packed as 0xAARRGGBB.
+     */
+    public int calcNormalPixel(double nc, double nr, double nu, double bumpHeight) {
         // Calculate the surface normal.
         nc *= bumpHeight;
         nr *= bumpHeight;
@@ -136,7 +153,7 @@ public class RendererNormalMap {
         // zc = (noise::uint8)((noise::uint)((floor)((vzc + 1.0) * 127.5)) &
         // 0xff);
 
-        return new ColorCafe(xc, yc, zc, 255);
+        return ColorCafe.packARGB(xc, yc, zc, 255);
     }
 
     /**
@@ -158,53 +175,62 @@ public class RendererNormalMap {
         int width = this.sourceNoiseMap.getWidth();
         int height = this.sourceNoiseMap.getHeight();
 
+        // Copy the current row and the row above it out of the noise map once
+        // per row instead of reading every value through getValue().
+        double[] centerRow = new double[width];
+        double[] upRow = new double[width];
+
         for (int y = 0; y < height; y++) {
+            /*
+             * Calculate the position of the current row's up neighbor.
+             */
+            int yUpOffset;
+            if (this.isWrapEnabled) {
+                if (y == height - 1) {
+                    yUpOffset = -(height - 1);
+                } else {
+                    yUpOffset = 1;
+                }
+            } else {
+                if (y == height - 1) {
+                    yUpOffset = 0;
+                } else {
+                    yUpOffset = 1;
+                }
+            }
+
+            this.sourceNoiseMap.getRow(y, centerRow);
+            this.sourceNoiseMap.getRow(y + yUpOffset, upRow);
+
             for (int x = 0; x < width; x++) {
                 /*
-                 * Calculate the positions of the current point's right and up neighbors.
+                 * Calculate the position of the current point's right neighbor.
                  */
-                int xRightOffset, yUpOffset;
+                int xRightOffset;
                 if (this.isWrapEnabled) {
                     if (x == width - 1) {
                         xRightOffset = -(width - 1);
                     } else {
                         xRightOffset = 1;
                     }
-
-                    if (y == height - 1) {
-                        yUpOffset = -(height - 1);
-                    } else {
-                        yUpOffset = 1;
-                    }
                 } else {
                     if (x == width - 1) {
                         xRightOffset = 0;
                     } else {
                         xRightOffset = 1;
                     }
-
-                    if (y == height - 1) {
-                        yUpOffset = 0;
-                    } else {
-                        yUpOffset = 1;
-                    }
-
                 }
 
                 /*
                  * Get the noise value of the current point in the source noise map and the noise
                  * values of its right and up neighbors.
                  */
-                double nc = (this.sourceNoiseMap.getValue(x, y));
-                double nr = (this.sourceNoiseMap.getValue((x + xRightOffset), y));
-                double nu = (this.sourceNoiseMap.getValue(x, (y + yUpOffset)));
+                double nc = centerRow[x];
+                double nr = centerRow[x + xRightOffset];
+                double nu = upRow[x];
 
                 // Calculate the normal product.
-                this.destImageCafe.setValue(x, y, (calcNormalColor(nc, nr, nu, this.bumpHeight)));
-
-                // Go to the next point.
-                // ++pSource;
-                // ++pDest;
+                this.destImageCafe.setPixel(x, y, calcNormalPixel(nc, nr, nu, this.bumpHeight));
             }
         }
     }
@@ -0,0 +1,189 @@
+/*******************************************************************************
+ *  Copyright (c) 2003, 2004 Jason Bevins (original libnoise code)
+ *  Copyright (c) 2010 Thomas J. Hodge (java port of libnoise)
+ *  Copyright (c) Nick Whitney ( changed noisegen to perlin basis. added javadoc)
+ *  
+ *  This file is part of libnoiseforjava.
+ *  
+ *  libnoiseforjava is a Java port of the C++ library libnoise, which may be
+ *  found at http://libnoise.sourceforge.net/. libnoise was developed by Jason
+ *  Bevins, who may be contacted at jlbezigvins@gmzigail.com (for great email,
+ *  take off every 'zig'). Porting to Java was done by Thomas Hodge, who may be
+ *  contacted at libnoisezagforjava@gzagmail.com (remove every 'zag').
+ *  
+ *  libnoiseforjava is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the Free
+ *  Software Foundation, either version 3 of the License, or (at your option) any
+ *  later version.
+ *  
+ *  libnoiseforjava is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ *  details.
+ *  
+ *  You should have received a copy of the GNU General Public License along with
+ *  libnoiseforjava. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+
+package libnoiseforjava.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+
+/**
+ * Splits the rows of a map into bands and processes the bands on an executor.
+ * <p>
+ * Each band is a contiguous range of rows. The bands are submitted in row
+ * order, and run() returns only after every band has been processed. If a band
+ * fails, the executor rejects a band or the calling thread is interrupted, the
+ * bands that have not started yet are skipped, and the failure is rethrown on
+ * the calling thread once the bands that already started have finished. No
+ * band writes to the map after run() has returned or thrown.
+ */
+final class RowBands {
+
+    /**
+     * The work done for one band of rows.
+     */
+    interface Task {
+
+        /**
+         * Processes the rows from @a firstRow up to, but not including, @a
+         * endRow.
+         *
+         * @param firstRow The first row of the band.
+         * @param endRow One past the last row of the band.
+         */
+        void run(int firstRow, int endRow);
+    }
+
+    /**
+     * Tracks the bands of one call to run() that are processing rows, so that
+     * a failed call can wait for them.
+     */
+    private static final class Bands {
+
+        /**
+         * A flag specifying whether the call has failed, so that bands that
+         * have not started must not start.
+         */
+        private boolean isAbandoned;
+
+        /**
+         * Number of bands that are processing rows.
+         */
+        private int runningCount;
+
+        /**
+         * Called by a band before it processes its rows.
+         *
+         * @return true if the band may process its rows, false if it must
+         *         skip them.
+         */
+        synchronized boolean start() {
+            if (this.isAbandoned) {
+                return false;
+            }
+            this.runningCount++;
+            return true;
+        }
+
+        /**
+         * Called by a band once start() has returned true and the band is
+         * done with its rows.
+         */
+        synchronized void finish() {
+            this.runningCount--;
+            if (this.runningCount == 0) {
+                notifyAll();
+            }
+        }
+
+        /**
+         * Keeps the bands that have not started from starting and waits until
+         * the bands that have started are done. Interrupting the calling
+         * thread does not stop the wait; the interrupt is restored when this
+         * method returns.
+         */
+        synchronized void abandon() {
+            this.isAbandoned = true;
+            boolean isInterrupted = false;
+            while (this.runningCount > 0) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    isInterrupted = true;
+                }
+            }
+            if (isInterrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private RowBands() {
+    }
+
+    static void run(Executor executor, int rowCount, int bandHeight, final Task task) {
+        ExecutorCompletionService<Void> completion = new ExecutorCompletionService<Void>(executor);
+        List<Future<Void>> bands = new ArrayList<Future<Void>>();
+        final Bands state = new Bands();
+
+        try {
+            for (int firstRow = 0; firstRow < rowCount; firstRow += bandHeight) {
+                final int bandFirstRow = firstRow;
+                final int bandEndRow = Math.min(firstRow + bandHeight, rowCount);
+                bands.add(completion.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        if (state.start()) {
+                            try {
+                                task.run(bandFirstRow, bandEndRow);
+                            } finally {
+                                state.finish();
+                            }
+                        }
+                        return null;
+                    }
+                }));
+            }
+
+            for (int i = 0; i < bands.size(); i++) {
+                completion.take().get();
+            }
+        } catch (InterruptedException e) {
+            abandon(state, bands);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while processing row bands", e);
+        } catch (ExecutionException e) {
+            abandon(state, bands);
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("Could not process a row band", cause);
+        } catch (RuntimeException e) {
+            // The executor rejected a band.
+            abandon(state, bands);
+            throw e;
+        }
+    }
+
+    /**
+     * Cancels the bands that are still queued and waits for the bands that are
+     * processing rows.
+     */
+    private static void abandon(Bands state, List<Future<Void>> bands) {
+        for (Future<Void> band : bands) {
+            band.cancel(false);
+        }
+        state.abandon();
+    }
+}
@@ -0,0 +1,55 @@
+/*******************************************************************************
+ *  Copyright (c) 2003, 2004 Jason Bevins (original libnoise code)
+ *  Copyright (c) 2010 Thomas J. Hodge (java port of libnoise)
+ *  Copyright (c) Nick Whitney ( changed noisegen to perlin basis. added javadoc)
+ *  
+ *  This file is part of libnoiseforjava.
+ *  
+ *  libnoiseforjava is a Java port of the C++ library libnoise, which may be
+ *  found at http://libnoise.sourceforge.net/. libnoise was developed by Jason
+ *  Bevins, who may be contacted at jlbezigvins@gmzigail.com (for great email,
+ *  take off every 'zig'). Porting to Java was done by Thomas Hodge, who may be
+ *  contacted at libnoisezagforjava@gzagmail.com (remove every 'zag').
+ *  
+ *  libnoiseforjava is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the Free
+ *  Software Foundation, either version 3 of the License, or (at your option) any
+ *  later version.
+ *  
+ *  libnoiseforjava is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ *  details.
+ *  
+ *  You should have received a copy of the GNU General Public License along with
+ *  libnoiseforjava. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+
+package libnoiseforjava.util;
+
+import libnoiseforjava.module.ModuleBase;
+
+/**
+ * Creates the noise module graph used by one worker thread of a parallel
+ * noise-map build.
+ * <p>
+ * Noise modules are not thread-safe in general. Cached, for example, remembers
+ * the last value it generated in its own fields, so two threads evaluating the
+ * same Cached module overwrite each other's cache. A parallel build therefore
+ * asks this factory for a separate copy of the module graph on each of its
+ * worker threads.
+ * <p>
+ * The returned graph must be completely configured, with build() already
+ * called on every module that requires it, and must generate the same output
+ * values as the source module of the builder.
+ */
+public interface SourceModuleFactory {
+
+    /**
+     * Creates a new copy of the source module graph.
+     *
+     * @return The source module of the new graph.
+     */
+    ModuleBase createSourceModule();
+
+}
@@ -0,0 +1,98 @@
+/*******************************************************************************
+ *  Copyright (c) 2003, 2004 Jason Bevins (original libnoise code)
+ *  Copyright (c) 2010 Thomas J. Hodge (java port of libnoise)
+ *  Copyright (c) Nick Whitney ( changed noisegen to perlin basis. added javadoc)
+ *  
+ *  This file is part of libnoiseforjava.
+ *  
+ *  libnoiseforjava is a Java port of the C++ library libnoise, which may be
+ *  found at http://libnoise.sourceforge.net/. libnoise was developed by Jason
+ *  Bevins, who may be contacted at jlbezigvins@gmzigail.com (for great email,
+ *  take off every 'zig'). Porting to Java was done by Thomas Hodge, who may be
+ *  contacted at libnoisezagforjava@gzagmail.com (remove every 'zag').
+ *  
+ *  libnoiseforjava is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the Free
+ *  Software Foundation, either version 3 of the License, or (at your option) any
+ *  later version.
+ *  
+ *  libnoiseforjava is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ *  details.
+ *  
+ *  You should have received a copy of the GNU General Public License along with
+ *  libnoiseforjava. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package libnoiseforjava;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks that the batch methods of PerlinBasis and SimplexBasis return the
+ * same values, bit for bit, as the single point methods. The tests run with
+ * the jdk.incubator.vector module, so on Java 17 and later they cover the
+ * Vector API kernels as well as the scalar loops.
+ */
+public class BasisValuesTest {
+
+    // Enough points for many whole vectors and a partial one.
+    private static final int COUNT = 1003;
+
+    private static double[] coordinates(Random random, double range) {
+        double[] values = new double[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            values[i] = (random.nextDouble() * 2.0 - 1.0) * range;
+        }
+        return values;
+    }
+
+    private static void assertValues(PerlinBasis perlin, SimplexBasis simplex, double[] xs, double[] ys, double[] zs, int offset) {
+        int count = COUNT - offset;
+        double[] out = new double[COUNT];
+        perlin.getValues(xs, ys, zs, out, offset, count);
+        for (int i = offset; i < COUNT; i++) {
+            assertEquals(Double.doubleToLongBits(perlin.getValue(xs[i], ys[i], zs[i])), Double.doubleToLongBits(out[i]));
+        }
+        simplex.getValues(xs, ys, zs, out, offset, count);
+        for (int i = offset; i < COUNT; i++) {
+            assertEquals(Double.doubleToLongBits(simplex.getValue(xs[i], ys[i], zs[i])), Double.doubleToLongBits(out[i]));
+        }
+    }
+
+    @Test
+    public void batchesMatchSinglePoints() {
+        PerlinBasis perlin = new PerlinBasis();
+        perlin.setSeed(7);
+        SimplexBasis simplex = new SimplexBasis();
+        simplex.setSeed(7);
+        Random random = new Random(11);
+
+        double[] xs = coordinates(random, 300.0);
+        double[] ys = coordinates(random, 300.0);
+        double[] zs = coordinates(random, 300.0);
+        assertValues(perlin, simplex, xs, ys, zs, 0);
+        assertValues(perlin, simplex, xs, ys, zs, 5);
+
+        // Integral coordinates, where the floor and the corner choices of
+        // the simplex meet their edge cases.
+        for (int i = 0; i < COUNT; i++) {
+            xs[i] = Math.rint(xs[i]);
+            ys[i] = Math.rint(ys[i] / 4.0);
+            zs[i] = (i % 3 == 0) ? xs[i] : Math.rint(zs[i]);
+        }
+        assertValues(perlin, simplex, xs, ys, zs, 0);
+
+        // Coordinates too large for the vector kernels, after the first
+        // vectors, which are left to the scalar loops.
+        xs = coordinates(random, 1.0e9);
+        for (int i = 0; i < 64; i++) {
+            xs[i] /= 1.0e7;
+        }
+        assertValues(perlin, simplex, xs, ys, zs, 0);
+    }
+}
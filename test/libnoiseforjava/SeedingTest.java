@@ -0,0 +1,133 @@
+/*******************************************************************************
+ *  Copyright (c) 2003, 2004 Jason Bevins (original libnoise code)
+ *  Copyright (c) 2010 Thomas J. Hodge (java port of libnoise)
+ *  Copyright (c) Nick Whitney ( changed noisegen to perlin basis. added javadoc)
+ *  
+ *  This file is part of libnoiseforjava.
+ *  
+ *  libnoiseforjava is a Java port of the C++ library libnoise, which may be
+ *  found at http://libnoise.sourceforge.net/. libnoise was developed by Jason
+ *  Bevins, who may be contacted at jlbezigvins@gmzigail.com (for great email,
+ *  take off every 'zig'). Porting to Java was done by Thomas Hodge, who may be
+ *  contacted at libnoisezagforjava@gzagmail.com (remove every 'zag').
+ *  
+ *  libnoiseforjava is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the Free
+ *  Software Foundation, either version 3 of the License, or (at your option) any
+ *  later version.
+ *  
+ *  libnoiseforjava is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ *  details.
+ *  
+ *  You should have received a copy of the GNU General Public License along with
+ *  libnoiseforjava. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+package libnoiseforjava;
+
+import static org.junit.Assert.assertEquals;
+
+import libnoiseforjava.module.Billow;
+import libnoiseforjava.module.Exponent;
+import libnoiseforjava.module.ModuleBase;
+import libnoiseforjava.module.Perlin;
+import libnoiseforjava.module.RidgedMulti;
+import libnoiseforjava.module.RotatePoint;
+import libnoiseforjava.module.Simplex;
+import libnoiseforjava.module.SimplexVoronoi;
+import libnoiseforjava.module.Turbulence;
+import libnoiseforjava.module.Voronoi;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Golden values of the noise modules in deterministic mode. The values must
+ * be equal, bit for bit, on every JVM and host; a change to any of them
+ * changes the output of existing worlds and textures.
+ */
+public class SeedingTest {
+
+    private static boolean wasDeterministic;
+
+    @BeforeClass
+    public static void enableDeterministic() {
+        wasDeterministic = Seeding.isDeterministic();
+        Seeding.setDeterministic(true);
+    }
+
+    @AfterClass
+    public static void restoreDeterministic() {
+        Seeding.setDeterministic(wasDeterministic);
+    }
+
+    private static void assertGolden(double expected, ModuleBase module, double x, double y, double z) {
+        assertEquals(Double.doubleToLongBits(expected), Double.doubleToLongBits(module.getValue(x, y, z)));
+    }
+
+    @Test
+    public void defaultGenerators() {
+        Perlin perlin = new Perlin();
+        perlin.build();
+        assertGolden(0.16753940711137266, perlin, 0.3, 0.7, 1.1);
+
+        Billow billow = new Billow();
+        billow.build();
+        assertGolden(-0.693098564747674, billow, 0.3, 0.7, 1.1);
+
+        RidgedMulti ridgedMulti = new RidgedMulti();
+        ridgedMulti.build();
+        assertGolden(1.1068582875161237, ridgedMulti, 0.3, 0.7, 1.1);
+
+        Voronoi voronoi = new Voronoi();
+        voronoi.build();
+        assertGolden(0.009970432013322459, voronoi, 0.3, 0.7, 1.1);
+
+        Simplex simplex = new Simplex();
+        simplex.build();
+        assertGolden(-0.12489585399999982, simplex, 0.3, 0.7, 1.1);
+
+        SimplexVoronoi simplexVoronoi = new SimplexVoronoi();
+        simplexVoronoi.build();
+        assertGolden(0.01646090534979429, simplexVoronoi, 0.3, 0.7, 1.1);
+
+        Perlin source = new Perlin();
+        source.build();
+        Turbulence turbulence = new Turbulence(source);
+        turbulence.build();
+        assertGolden(-0.0626236757967605, turbulence, 0.3, 0.7, 1.1);
+    }
+
+    @Test
+    public void nonIntegralParameters() {
+        // These parameters make the generators and modifiers call pow, sin and
+        // cos with arguments whose results are not exact.
+        Perlin perlin = new Perlin();
+        perlin.setLacunarity(2.1);
+        perlin.setPersistence(0.45);
+        perlin.build();
+        assertGolden(0.058215659001862895, perlin, 0.3, 0.7, 1.1);
+        assertGolden(-0.12011156125319249, perlin, -12.5, 3.25, 40.75);
+
+        RidgedMulti ridgedMulti = new RidgedMulti();
+        ridgedMulti.setLacunarity(2.3);
+        ridgedMulti.build();
+        assertGolden(0.9275851865984719, ridgedMulti, 0.3, 0.7, 1.1);
+        assertGolden(0.1908882989748475, ridgedMulti, -12.5, 3.25, 40.75);
+
+        Perlin source = new Perlin();
+        source.build();
+
+        Exponent exponent = new Exponent(source);
+        exponent.setExponent(1.7);
+        assertGolden(-0.19898502651748617, exponent, 0.3, 0.7, 1.1);
+        assertGolden(-0.6447827197796816, exponent, -12.5, 3.25, 40.75);
+
+        RotatePoint rotatePoint = new RotatePoint(source);
+        rotatePoint.setAngles(10, 20, 30);
+        assertGolden(0.3182902483663517, rotatePoint, 0.3, 0.7, 1.1);
+        assertGolden(0.3842604499770616, rotatePoint, -12.5, 3.25, 40.75);
+    }
+}
@@ -0,0 +1,482 @@
+/*******************************************************************************
+ *  Copyright (c) 2003, 2004 Jason Bevins (original libnoise code)
+ *  Copyright (c) 2010 Thomas J. Hodge (java port of libnoise)
+ *  Copyright (c) Nick Whitney ( changed noisegen to perlin basis. added javadoc)
+ *  
+ *  This file is part of libnoiseforjava.
+ *  
+ *  libnoiseforjava is a Java port of the C++ library libnoise, which may be
+ *  found at http://libnoise.sourceforge.net/. libnoise was developed by Jason
+ *  Bevins, who may be contacted at jlbezigvins@gmzigail.com (for great email,
+ *  take off every 'zig'). Porting to Java was done by Thomas Hodge, who may be
+ *  contacted at libnoisezagforjava@gzagmail.com (remove every 'zag').
+ *  
+ *  libnoiseforjava is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the Free
+ *  Software Foundation, either version 3 of the License, or (at your option) any
+ *  later version.
+ *  
+ *  libnoiseforjava is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ *  details.
+ *  
+ *  You should have received a copy of the GNU General Public License along with
+ *  libnoiseforjava. If not, see <http://www.gnu.org/licenses/>.
+ *******************************************************************************/
+
+package libnoiseforjava;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The Vector API implementation of BasisKernels.
+ * <p>
+ * Each lane evaluates one point. The lattice cell is found with a vector
+ * floor, the permutation table and the gradient components of the corners
+ * are read with gathers, and the dot products, fade curves and
+ * interpolations are calculated across all lanes, in the same order as the
+ * scalar loops of PerlinBasis and SimplexBasis. The preferred vector shape is
+ * used, which holds four doubles on AVX2 and eight on AVX-512.
+ * <p>
+ * The Java 17 compiler keeps vectors in registers only within methods that
+ * use a handful of vector operations, and boxes them otherwise. The kernels
+ * are therefore built from short loops, each of which makes one pass over
+ * the batch and passes its results to the next through scratch arrays.
+ * <p>
+ * Java 17 also does not compile vector casts from double to int into vector
+ * instructions, so the floor rounds with an added constant instead, and the
+ * lattice coordinates are read from the low bits of the rounded values. This
+ * only works for coordinates of moderate size; a kernel evaluates the points
+ * up to the first vector of points with a coordinate outside RANGE and
+ * leaves the rest to the scalar loop.
+ * <p>
+ * Every gather reads ints, from indices stored in a scratch array just
+ * before it, and no gather shares a loop with double arithmetic: the Java 17
+ * and 21 compilers were seen to crash the JVM on gathers of doubles, and on
+ * gathers in the dot product loops. The gradient components are therefore
+ * gathered by the table lookups, from PermutationTable.gradX, gradY and
+ * gradZ, and the dot products load them as ints and convert them.
+ * <p>
+ * This class is compiled for Java 17 with the jdk.incubator.vector module and
+ * is only loaded through BasisKernels.VECTOR.
+ */
+final class VectorBasisKernels extends BasisKernels {
+
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+
+    // The int species with as many lanes as DOUBLES, for the lattice
+    // coordinates and the table indices.
+    private static final VectorSpecies<Integer> INTS = VectorSpecies.of(int.class, VectorShape.forBitSize(DOUBLES.length() * Integer.SIZE));
+
+    private static final int LANES = DOUBLES.length();
+
+    // Adding 1.5 * 2^52 to a double of magnitude below 2^51 rounds it to an
+    // integer, which is then held in the low bits of the sum's mantissa.
+    private static final double ROUNDING = 0x1.8p52;
+
+    // The largest coordinate magnitude the kernels evaluate. Within it the
+    // rounding above is exact, and the lattice coordinates and their sums
+    // fit in an int as they do in the scalar loops.
+    private static final double RANGE = 0x1p28;
+
+    @Override
+    boolean isSupported() {
+        return LANES >= 4;
+    }
+
+    @Override
+    int perlinValues(PermutationTable table, double[] xs, double[] ys, double[] zs, double[] out, int offset, int count) {
+        int length = rangeLength(zs, offset, rangeLength(ys, offset, rangeLength(xs, offset, DOUBLES.loopBound(count))));
+        if (length == 0) {
+            return 0;
+        }
+
+        int[] perm = table.permInt;
+
+        ScratchArrays scratchArrays = ScratchArrays.get();
+        int mark = scratchArrays.mark();
+        try {
+            // The position of each point within its cell, and the cell.
+            double[] fx = scratchArrays.doubles(length);
+            double[] fy = scratchArrays.doubles(length);
+            double[] fz = scratchArrays.doubles(length);
+            int[] cx = scratchArrays.ints(length);
+            int[] cy = scratchArrays.ints(length);
+            int[] cz = scratchArrays.ints(length);
+            cell(xs, offset, length, fx, cx);
+            cell(ys, offset, length, fy, cy);
+            cell(zs, offset, length, fz, cz);
+
+            // The hashes of the z and y coordinates of the corners, and the
+            // gradients of the corners. The gradient of corner ( a, b, c ) is
+            // stored at gx, gy and gz[(4a + 2b + c) * length].
+            int[] pz = scratchArrays.ints(2 * length);
+            int[] pyz = scratchArrays.ints(4 * length);
+            int[] gx = scratchArrays.ints(8 * length);
+            int[] gy = scratchArrays.ints(8 * length);
+            int[] gz = scratchArrays.ints(8 * length);
+            int[] scratch = scratchArrays.ints(LANES);
+            for (int c = 0; c < 2; c++) {
+                lookup(perm, cz, c, null, 0, pz, c * length, length, scratch);
+            }
+            for (int bc = 0; bc < 4; bc++) {
+                lookup(perm, cy, bc >> 1, pz, (bc & 1) * length, pyz, bc * length, length, scratch);
+            }
+            for (int abc = 0; abc < 8; abc++) {
+                lookup(table.gradX, cx, abc >> 2, pyz, (abc & 3) * length, gx, abc * length, length, scratch);
+                lookup(table.gradY, cx, abc >> 2, pyz, (abc & 3) * length, gy, abc * length, length, scratch);
+                lookup(table.gradZ, cx, abc >> 2, pyz, (abc & 3) * length, gz, abc * length, length, scratch);
+            }
+
+            // The noise contributions of the corners, stored as the gradients
+            // are.
+            double[] n = scratchArrays.doubles(8 * length);
+            for (int abc = 0; abc < 8; abc++) {
+                dot(gx, gy, gz, abc * length, fx, abc >> 2, fy, (abc >> 1) & 1, fz, abc & 1, n, abc * length, length);
+            }
+
+            // Interpolate along x, then y, then z.
+            fade(fx, length);
+            fade(fy, length);
+            fade(fz, length);
+            for (int bc = 0; bc < 4; bc++) {
+                lerp(n, bc * length, n, (4 + bc) * length, fx, n, bc * length, length);
+            }
+            for (int c = 0; c < 2; c++) {
+                lerp(n, c * length, n, (2 + c) * length, fy, n, c * length, length);
+            }
+            lerp(n, 0, n, length, fz, out, offset, length);
+            return length;
+        } finally {
+            scratchArrays.release(mark);
+        }
+    }
+
+    @Override
+    int simplexValues(PermutationTable table, double[] xs, double[] ys, double[] zs, double[] out, int offset, int count) {
+        int length = rangeLength(zs, offset, rangeLength(ys, offset, rangeLength(xs, offset, DOUBLES.loopBound(count))));
+        if (length == 0) {
+            return 0;
+        }
+
+        int[] perm = table.permInt;
+        double g3 = SimplexBasis.G3;
+
+        ScratchArrays scratchArrays = ScratchArrays.get();
+        int mark = scratchArrays.mark();
+        try {
+            // The skewed cell of each point, and the position of the point
+            // relative to the first corner of its simplex.
+            double[] s = scratchArrays.doubles(length);
+            double[] i = scratchArrays.doubles(length);
+            double[] j = scratchArrays.doubles(length);
+            double[] k = scratchArrays.doubles(length);
+            double[] t = scratchArrays.doubles(length);
+            skew(xs, ys, zs, offset, length, s);
+            skewedFloor(xs, offset, s, length, i);
+            skewedFloor(ys, offset, s, length, j);
+            skewedFloor(zs, offset, s, length, k);
+            unskew(i, j, k, length, t);
+
+            // The positions relative to each corner of the simplex, the
+            // coordinates of corner c at offset 3 * c * length, and the
+            // offsets of the second and third corners within the cell, as the
+            // branches of the scalar loop choose them.
+            double[] d = scratchArrays.doubles(12 * length);
+            double[] corners = scratchArrays.doubles(6 * length);
+            relative(xs, offset, i, t, length, d, 0);
+            relative(ys, offset, j, t, length, d, length);
+            relative(zs, offset, k, t, length, d, 2 * length);
+            secondCorners(d, length, corners);
+            thirdCorners(d, length, corners);
+            for (int c = 1; c < 3; c++) {
+                for (int axis = 0; axis < 3; axis++) {
+                    corner(d, axis * length, corners, (3 * (c - 1) + axis) * length, c * g3, d, (3 * c + axis) * length, length);
+                }
+            }
+            for (int axis = 0; axis < 3; axis++) {
+                corner(d, axis * length, null, 0, 3.0 * g3, d, (9 + axis) * length, length);
+            }
+
+            // The cell coordinates of the corners, at offset 3 * c * length
+            // as above, and their gradients.
+            int[] cells = scratchArrays.ints(12 * length);
+            toCell(i, 0.0, null, 0, length, cells, 0);
+            toCell(j, 0.0, null, 0, length, cells, length);
+            toCell(k, 0.0, null, 0, length, cells, 2 * length);
+            toCell(i, 0.0, corners, 0, length, cells, 3 * length);
+            toCell(j, 0.0, corners, length, length, cells, 4 * length);
+            toCell(k, 0.0, corners, 2 * length, length, cells, 5 * length);
+            toCell(i, 0.0, corners, 3 * length, length, cells, 6 * length);
+            toCell(j, 0.0, corners, 4 * length, length, cells, 7 * length);
+            toCell(k, 0.0, corners, 5 * length, length, cells, 8 * length);
+            toCell(i, 1.0, null, 0, length, cells, 9 * length);
+            toCell(j, 1.0, null, 0, length, cells, 10 * length);
+            toCell(k, 1.0, null, 0, length, cells, 11 * length);
+            int[] h = scratchArrays.ints(4 * length);
+            int[] gx = scratchArrays.ints(4 * length);
+            int[] gy = scratchArrays.ints(4 * length);
+            int[] gz = scratchArrays.ints(4 * length);
+            int[] scratch = scratchArrays.ints(LANES);
+            for (int c = 0; c < 4; c++) {
+                lookup(perm, cells, (3 * c + 2) * length, 0, null, 0, h, c * length, length, scratch);
+                lookup(perm, cells, (3 * c + 1) * length, 0, h, c * length, h, c * length, length, scratch);
+                lookup(table.gradX, cells, 3 * c * length, 0, h, c * length, gx, c * length, length, scratch);
+                lookup(table.gradY, cells, 3 * c * length, 0, h, c * length, gy, c * length, length, scratch);
+                lookup(table.gradZ, cells, 3 * c * length, 0, h, c * length, gz, c * length, length, scratch);
+            }
+
+            // Add up the contributions of the corners.
+            double[] falloff = scratchArrays.doubles(length);
+            double[] products = scratchArrays.doubles(length);
+            for (int c = 0; c < 4; c++) {
+                falloff(d, 3 * c * length, length, falloff);
+                dot(gx, gy, gz, c * length, d, 3 * c * length, length, products);
+                accumulate(falloff, products, c == 0, length, s);
+            }
+            scale(s, 32.0, length, out, offset);
+            return length;
+        } finally {
+            scratchArrays.release(mark);
+        }
+    }
+
+    // Returns the number of points, up to length, before the first vector of
+    // points with a coordinate outside RANGE.
+    private static int rangeLength(double[] v, int offset, int length) {
+        int p = 0;
+        for (; p < length; p += LANES) {
+            if (!DoubleVector.fromArray(DOUBLES, v, offset + p).abs().compare(VectorOperators.LT, RANGE).allTrue()) {
+                break;
+            }
+        }
+        return p;
+    }
+
+    // The same value as fastfloor() for every lane, as a double.
+    private static DoubleVector floor(DoubleVector v) {
+        DoubleVector rounded = v.add(ROUNDING).sub(ROUNDING);
+        return rounded.blend(rounded.sub(1.0), rounded.compare(VectorOperators.GT, v));
+    }
+
+    // Converts lanes that hold integers to ints.
+    private static IntVector toInt(DoubleVector integral) {
+        return (IntVector) integral.add(ROUNDING).reinterpretAsLongs().convertShape(VectorOperators.L2I, INTS, 0);
+    }
+
+    // Splits coordinates into the cell, wrapped at 255, and the position
+    // within the cell.
+    private static void cell(double[] v, int offset, int length, double[] fraction, int[] cell) {
+        for (int p = 0; p < length; p += LANES) {
+            DoubleVector x = DoubleVector.fromArray(DOUBLES, v, offset + p);
+            DoubleVector xFloor = floor(x);
+            x.sub(xFloor).intoArray(fraction, p);
+            toInt(xFloor).and(255).intoArray(cell, p);
+        }
+    }
+
+    // Sets out[p] to table[a[p] + plus + b[p]], or to table[a[p] + plus] if b
+    // is null. The indices are passed to the gather through the scratch
+    // array.
+    private static void lookup(int[] table, int[] a, int plus, int[] b, int bOffset, int[] out, int outOffset, int length, int[] scratch) {
+        lookup(table, a, 0, plus, b, bOffset, out, outOffset, length, scratch);
+    }
+
+    private static void lookup(int[] table, int[] a, int aOffset, int plus, int[] b, int bOffset, int[] out, int outOffset, int length, int[] scratch) {
+        for (int p = 0; p < length; p += LANES) {
+            IntVector index = IntVector.fromArray(INTS, a, aOffset + p).add(plus);
+            if (b != null) {
+                index = index.add(IntVector.fromArray(INTS, b, bOffset + p));
+            }
+            index.intoArray(scratch, 0);
+            IntVector.fromArray(INTS, table, 0, scratch, 0).intoArray(out, outOffset + p);
+        }
+    }
+
+    // Sets out[p] to the dot product of the gradient stored at gx, gy and
+    // gz[gOffset + p] with the position of the point relative to the corner
+    // ( a, b, c ) of its cell.
+    private static void dot(int[] gx, int[] gy, int[] gz, int gOffset, double[] fx, int a, double[] fy, int b, double[] fz, int c, double[] out, int outOffset, int length) {
+        for (int p = 0; p < length; p += LANES) {
+            DoubleVector x = DoubleVector.fromArray(DOUBLES, fx, p).sub(a);
+            DoubleVector y = DoubleVector.fromArray(DOUBLES, fy, p).sub(b);
+            DoubleVector z = DoubleVector.fromArray(DOUBLES, fz, p).sub(c);
+            gradient(gx, gOffset + p).mul(x).add(gradient(gy, gOffset + p).mul(y)).add(gradient(gz, gOffset + p).mul(z)).intoArray(out, outOffset + p);
+        }
+    }
+
+    // The same dot product for positions stored at d[offset], d[offset +
+    // length] and d[offset + 2 * length].
+    private static void dot(int[] gx, int[] gy, int[] gz, int gOffset, double[] d, int offset, int length, double[] out) {
+        for (int p = 0; p < length; p += LANES) {
+            DoubleVector x = DoubleVector.fromArray(DOUBLES, d, offset + p);
+            DoubleVector y = DoubleVector.fromArray(DOUBLES, d, offset + length + p);
+            DoubleVector z = DoubleVector.fromArray(DOUBLES, d, offset + 2 * length + p);
+            gradient(gx, gOffset + p).mul(x).add(gradient(gy, gOffset + p).mul(y)).add(gradient(gz, gOffset + p).mul(z)).intoArray(out, p);
+        }
+    }
+
+    // Loads gradient components, which are all -1, 0 or 1, as doubles.
+    private static DoubleVector gradient(int[] g, int offset) {
+        return (DoubleVector) IntVector.fromArray(INTS, g, offset).convertShape(VectorOperators.I2D, DOUBLES, 0);
+    }
+
+    // Replaces each value t with fade(t).
+    private static void fade(double[] v, int length) {
+        for (int p = 0; p < length; p += LANES) {
+            DoubleVector t = DoubleVector.fromArray(DOUBLES, v, p);
+            t.mul(t).mul(t).mul(t.mul(t.mul(6.0).sub(15.0)).add(10.0)).intoArray(v, p);
+        }
+    }
+
+    // Sets out[p] to Interp.lerp(n0[p], n1[p], a[p]); 1.0 - a is computed as
+    // -a + 1.0, which is the same double.
+    private static void lerp(double[] n0, int n0Offset, double[] n1, int n1Offset, double[] a, double[] out, int outOffset, int length) {
+        for (int p = 0; p < length; p += LANES) {
+            DoubleVector t = DoubleVector.fromArray(DOUBLES, a, p);
+            DoubleVector v0 = DoubleVector.fromArray(DOUBLES, n0, n0Offset + p);
+            DoubleVector v1 = DoubleVector.fromArray(DOUBLES, n1, n1Offset + p);
+            t.neg().add(1.0).mul(v0).add(t.mul(v1)).intoArray(out, outOffset + p);
+        }
+    }
+
+    private static void skew(double[] xs, double[] ys, double[] zs, int offset, int length, double[] s) {
+        for (int p = 0; p < length; p += LANES) {
+            DoubleVector x = DoubleVector.fromArray(DOUBLES, xs, offset + p);
+            DoubleVector y = DoubleVector.fromArray(DOUBLES, ys, offset + p);
+            DoubleVector z = DoubleVector.fromArray(DOUBLES, zs, offset + p);
+            x.add(y).add(z).mul(SimplexBasis.F3).intoArray(s, p);
+        }
+    }
+
+    // Sets out[p] to the floor of v[p] + s[p]. The sum and the floor are
+    // separate passes, as the Java 17 compiler boxes the vectors of a loop
+    // that does both.
+    private static void skewedFloor(double[] v, int offset, double[] s, int length, double[] out) {
+        for (int p = 0; p < length; p += LANES) {
+            DoubleVector.fromArray(DOUBLES, v, offset + p).add(DoubleVector.fromArray(DOUBLES, s, p)).intoArray(out, p);
+        }
+        for (int p = 0; p < length; p += LANES) {
+            floor(DoubleVector.fromArray(DOUBLES, out, p)).intoArray(out, p);
+        }
+    }
+
+    private static void unskew(double[] i, double[] j, double[] k, int length, double[] t) {
+        for (int p = 0; p < length; p += LANES) {
+            DoubleVector sum = DoubleVector.fromArray(DOUBLES, i, p).add(DoubleVector.fromArray(DOUBLES, j, p)).add(DoubleVector.fromArray(DOUBLES, k, p));
+            sum.mul(SimplexBasis.G3).intoArray(t, p);
+        }
+    }
+
+    // Sets out[p] to v[p] - (cell[p] - t[p]).
+    private static void relative(double[] v, int offset, double[] cell, double[] t, int length, double[] out, int outOffset) {
+        for (int p = 0; p < length; p += LANES) {
+            DoubleVector origin = DoubleVector.fromArray(DOUBLES, cell, p).sub(DoubleVector.fromArray(DOUBLES, t, p));
+            DoubleVector.fromArray(DOUBLES, v, offset + p).sub(origin).intoArray(out, outOffset + p);
+        }
+    }
+
+    // Stores i1, j1 and k1 at corners[0], corners[length] and corners[2 *
+    // length].
+    private static void secondCorners(double[] d, int length, double[] corners) {
+        DoubleVector zero = DoubleVector.zero(DOUBLES);
+        for (int p = 0; p < length; p += LANES) {
+            DoubleVector x0 = DoubleVector.fromArray(DOUBLES, d, p);
+            DoubleVector y0 = DoubleVector.fromArray(DOUBLES, d, length + p);
+            DoubleVector z0 = DoubleVector.fromArray(DOUBLES, d, 2 * length + p);
+            VectorMask<Double> xy = x0.compare(VectorOperators.GE, y0);
+            VectorMask<Double> yz = y0.compare(VectorOperators.GE, z0);
+            VectorMask<Double> xz = x0.compare(VectorOperators.GE, z0);
+            VectorMask<Double> xLargest = xy.and(xz);
+            zero.blend(1.0, xLargest).intoArray(corners, p);
+            zero.blend(1.0, xy.not().and(yz)).intoArray(corners, length + p);
+            zero.blend(1.0, yz.not().and(xLargest.not())).intoArray(corners, 2 * length + p);
+        }
+    }
+
+    // Stores i2, j2 and k2 at corners[3 * length], corners[4 * length] and
+    // corners[5 * length].
+    private static void thirdCorners(double[] d, int length, double[] corners) {
+        DoubleVector zero = DoubleVector.zero(DOUBLES);
+        for (int p = 0; p < length; p += LANES) {
+            DoubleVector x0 = DoubleVector.fromArray(DOUBLES, d, p);
+            DoubleVector y0 = DoubleVector.fromArray(DOUBLES, d, length + p);
+            DoubleVector z0 = DoubleVector.fromArray(DOUBLES, d, 2 * length + p);
+            VectorMask<Double> xy = x0.compare(VectorOperators.GE, y0);
+            VectorMask<Double> yz = y0.compare(VectorOperators.GE, z0);
+            VectorMask<Double> xz = x0.compare(VectorOperators.GE, z0);
+            zero.blend(1.0, xy.or(yz.and(xz))).intoArray(corners, 3 * length + p);
+            zero.blend(1.0, xy.not().or(yz)).intoArray(corners, 4 * length + p);
+            zero.blend(1.0, xy.and(yz.not()).or(xy.not().and(yz.and(xz).not()))).intoArray(corners, 5 * length + p);
+        }
+    }
+
+    // Sets out[p] to d[p] - corner[p] + unskew, or to d[p] - 1.0 + unskew if
+    // corner is null.
+    private static void corner(double[] d, int dOffset, double[] corner, int cornerOffset, double unskew, double[] out, int outOffset, int length) {
+        if (corner == null) {
+            for (int p = 0; p < length; p += LANES) {
+                DoubleVector.fromArray(DOUBLES, d, dOffset + p).sub(1.0).add(unskew).intoArray(out, outOffset + p);
+            }
+            return;
+        }
+        for (int p = 0; p < length; p += LANES) {
+            DoubleVector v = DoubleVector.fromArray(DOUBLES, d, dOffset + p).sub(DoubleVector.fromArray(DOUBLES, corner, cornerOffset + p));
+            v.add(unskew).intoArray(out, outOffset + p);
+        }
+    }
+
+    // Sets out[p] to the cell coordinate cell[p] + plus + corner[p], wrapped
+    // at 255.
+    private static void toCell(double[] cell, double plus, double[] corner, int cornerOffset, int length, int[] out, int outOffset) {
+        if (corner == null) {
+            for (int p = 0; p < length; p += LANES) {
+                toInt(DoubleVector.fromArray(DOUBLES, cell, p).add(plus)).and(255).intoArray(out, outOffset + p);
+            }
+            return;
+        }
+        for (int p = 0; p < length; p += LANES) {
+            DoubleVector v = DoubleVector.fromArray(DOUBLES, cell, p).add(plus).add(DoubleVector.fromArray(DOUBLES, corner, cornerOffset + p));
+            toInt(v).and(255).intoArray(out, outOffset + p);
+        }
+    }
+
+    // Sets out[p] to 0.5 - x * x - y * y - z * z for the position stored at
+    // d[offset + p], d[offset + length + p] and d[offset + 2 * length + p].
+    // 0.5 - x * x is computed as -(x * x) + 0.5, which is the same double.
+    private static void falloff(double[] d, int offset, int length, double[] out) {
+        for (int p = 0; p < length; p += LANES) {
+            DoubleVector x = DoubleVector.fromArray(DOUBLES, d, offset + p);
+            DoubleVector y = DoubleVector.fromArray(DOUBLES, d, offset + length + p);
+            DoubleVector z = DoubleVector.fromArray(DOUBLES, d, offset + 2 * length + p);
+            x.mul(x).neg().add(0.5).sub(y.mul(y)).sub(z.mul(z)).intoArray(out, p);
+        }
+    }
+
+    // Adds the contribution of a corner, zero where the falloff is negative,
+    // to the sum, or starts the sum with it.
+    private static void accumulate(double[] falloff, double[] products, boolean isFirst, int length, double[] sum) {
+        for (int p = 0; p < length; p += LANES) {
+            DoubleVector t = DoubleVector.fromArray(DOUBLES, falloff, p);
+            DoubleVector t2 = t.mul(t);
+            DoubleVector n = t2.mul(t2).mul(DoubleVector.fromArray(DOUBLES, products, p)).blend(0.0, t.lt(0.0));
+            if (isFirst) {
+                n.intoArray(sum, p);
+            } else {
+                DoubleVector.fromArray(DOUBLES, sum, p).add(n).intoArray(sum, p);
+            }
+        }
+    }
+
+    private static void scale(double[] v, double factor, int length, double[] out, int offset) {
+        for (int p = 0; p < length; p += LANES) {
+            DoubleVector.fromArray(DOUBLES, v, p).mul(factor).intoArray(out, offset + p);
+        }
+    }
+}